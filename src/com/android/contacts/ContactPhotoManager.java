@@ -55,6 +55,7 @@ import android.view.View;
 import android.view.ViewGroup;
 import android.widget.ImageView;
 
+import com.android.contacts.lettertiles.LetterTileCache;
 import com.android.contacts.lettertiles.LetterTileDrawable;
 import com.android.contacts.util.BitmapUtil;
 import com.android.contacts.util.PermissionsUtil;
@@ -803,6 +804,9 @@ class ContactPhotoManagerImpl extends ContactPhotoManager implements Callback {
                     + ", avg: " + btk(safeDiv(bitmapBytes, numBitmaps)));
             // We don't get from L2 cache, so L2 stats is meaningless.
         }
+
+        final LetterTileCache letterTiles = LetterTileCache.getInstance(mContext.getResources());
+        Log.d(TAG, "Letter tiles: " + btk(letterTiles.size()) + ", " + letterTiles);
     }
 
     @Override
@@ -812,6 +816,8 @@ class ContactPhotoManagerImpl extends ContactPhotoManager implements Callback {
             // Clear the caches.  Note all pending requests will be removed too.
             clear();
         }
+        // Letter tiles are cheap to render again, so they are released at lower levels too
+        LetterTileCache.getInstance(mContext.getResources()).onTrimMemory(level);
     }
 
     @Override
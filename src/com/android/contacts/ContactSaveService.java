@@ -463,7 +463,9 @@ public class ContactSaveService extends IntentService {
         Intent serviceIntent = new Intent(
                 context, ContactSaveService.class);
         serviceIntent.setAction(ContactSaveService.ACTION_SAVE_CONTACT);
-        serviceIntent.putExtra(EXTRA_CONTACT_STATE, (Parcelable) state);
+        // A large state is written to a file that is deleted once it is saved, so the intent gets
+        // a copy with a file of its own instead of the one the editor restores its state from.
+        serviceIntent.putExtra(EXTRA_CONTACT_STATE, (Parcelable) state.copyForParceling());
         serviceIntent.putExtra(EXTRA_SAVE_IS_PROFILE, isProfile);
         serviceIntent.putExtra(EXTRA_SAVE_MODE, saveMode);
 
@@ -495,6 +497,8 @@ public class ContactSaveService extends IntentService {
             Log.e(TAG, "Invalid arguments for saveContact request");
             return;
         }
+        // The state is replaced when a save is retried after a version conflict
+        final RawContactDeltaList parceledState = state;
 
         int saveMode = intent.getIntExtra(EXTRA_SAVE_MODE, -1);
         // Trim any empty fields, and RawContacts, before persisting
@@ -658,6 +662,9 @@ public class ContactSaveService extends IntentService {
             }
         }
 
+        // A large state was written to a file, which isn't needed once the state is saved.
+        parceledState.deleteSpillFile();
+
         Intent callbackIntent = intent.getParcelableExtra(EXTRA_CALLBACK_INTENT);
         if (callbackIntent != null) {
             if (succeeded) {
@@ -16,6 +16,7 @@
 
 package com.android.contacts;
 
+import android.app.Activity;
 import android.app.Application;
 import android.app.FragmentManager;
 import android.app.LoaderManager;
@@ -24,13 +25,20 @@ import android.content.ContentUris;
 import android.content.Context;
 import android.content.SharedPreferences;
 import android.os.AsyncTask;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
 import android.os.StrictMode;
 import android.preference.PreferenceManager;
 import android.provider.ContactsContract.Contacts;
 import android.util.Log;
 
+import com.android.contacts.model.DeltaParceler;
+import com.android.contacts.quickcontact.ResolveCache;
 import com.android.contacts.testing.InjectedServices;
 import com.android.contacts.util.Constants;
+import com.android.contacts.util.StartupMode;
+import com.android.contacts.util.StartupTracer;
 import com.android.contactsbind.analytics.AnalyticsUtil;
 
 import com.google.common.annotations.VisibleForTesting;
@@ -39,6 +47,12 @@ public class ContactsApplication extends Application {
     private static final boolean ENABLE_LOADER_LOG = false; // Don't submit with true
     private static final boolean ENABLE_FRAGMENT_LOG = false; // Don't submit with true
 
+    /**
+     * In the deferred startup mode, how long to wait for the first frame before running the
+     * {@link DelayedInitializer} anyway, e.g. in a process that only runs a service.
+     */
+    private static final long DELAYED_INIT_FALLBACK_MILLIS = 5000;
+
     private static InjectedServices sInjectedServices;
     /**
      * Log tag for enabling/disabling StrictMode violation log.
@@ -100,6 +114,8 @@ public class ContactsApplication extends Application {
         if (Log.isLoggable(Constants.PERFORMANCE_TAG, Log.DEBUG)) {
             Log.d(Constants.PERFORMANCE_TAG, "ContactsApplication.onCreate start");
         }
+        final StartupTracer.Span span =
+                StartupTracer.getInstance().beginSpan("ContactsApplication.onCreate");
 
         if (ENABLE_FRAGMENT_LOG) FragmentManager.enableDebugLogging(true);
         if (ENABLE_LOADER_LOG) LoaderManager.enableDebugLogging(true);
@@ -109,28 +125,121 @@ public class ContactsApplication extends Application {
                     new StrictMode.ThreadPolicy.Builder().detectAll().penaltyLog().build());
         }
 
-        // Perform the initialization that doesn't have to finish immediately.
-        // We use an async task here just to avoid creating a new thread.
-        (new DelayedInitializer()).execute();
+        final boolean deferInit = StartupMode.isDeferredInitEnabled();
+        if (!deferInit) {
+            // Perform the initialization that doesn't have to finish immediately.
+            // We use an async task here just to avoid creating a new thread.
+            (new DelayedInitializer()).execute();
+        }
+        registerActivityLifecycleCallbacks(new FirstFrameCallbacks(deferInit));
+
+        // Lets large editor state be written to the cache directory instead of a parcel, and
+        // deletes the state files that were left behind
+        DeltaParceler.initialize(this);
 
         if (Log.isLoggable(Constants.PERFORMANCE_TAG, Log.DEBUG)) {
             Log.d(Constants.PERFORMANCE_TAG, "ContactsApplication.onCreate finish");
         }
 
+        final StartupTracer.Span analyticsSpan =
+                StartupTracer.getInstance().beginSpan("AnalyticsUtil.initialize");
         AnalyticsUtil.initialize(this);
+        analyticsSpan.end();
+        span.end();
+    }
+
+    /**
+     * Waits for the first frame drawn by any activity of the process, then ends the startup
+     * trace and, in the deferred startup mode, starts the {@link DelayedInitializer}. Processes
+     * that draw no frame within {@link #DELAYED_INIT_FALLBACK_MILLIS} start it after that.
+     */
+    private class FirstFrameCallbacks implements ActivityLifecycleCallbacks {
+        private final boolean mRunDelayedInitializer;
+        private final Handler mHandler = new Handler(Looper.getMainLooper());
+        private boolean mFirstFrameDrawn;
+        private boolean mDelayedInitializerStarted;
+
+        private final Runnable mFallback = new Runnable() {
+            @Override
+            public void run() {
+                startDelayedInitializer();
+            }
+        };
+
+        FirstFrameCallbacks(boolean runDelayedInitializer) {
+            mRunDelayedInitializer = runDelayedInitializer;
+            if (runDelayedInitializer) {
+                mHandler.postDelayed(mFallback, DELAYED_INIT_FALLBACK_MILLIS);
+            }
+        }
+
+        private void startDelayedInitializer() {
+            if (!mRunDelayedInitializer || mDelayedInitializerStarted) {
+                return;
+            }
+            mDelayedInitializerStarted = true;
+            mHandler.removeCallbacks(mFallback);
+            new DelayedInitializer().execute();
+        }
+
+        @Override
+        public void onActivityStarted(Activity activity) {
+            // The content view is set by now, so the decor view can be created safely. Every
+            // activity is watched since the first ones may finish without drawing anything.
+            StartupMode.runAfterFirstFrame(activity, new Runnable() {
+                @Override
+                public void run() {
+                    if (mFirstFrameDrawn) {
+                        return;
+                    }
+                    mFirstFrameDrawn = true;
+                    unregisterActivityLifecycleCallbacks(FirstFrameCallbacks.this);
+                    StartupTracer.getInstance().finish(ContactsApplication.this);
+                    startDelayedInitializer();
+                }
+            });
+        }
+
+        @Override
+        public void onActivityCreated(Activity activity, Bundle savedInstanceState) {
+        }
+
+        @Override
+        public void onActivityResumed(Activity activity) {
+        }
+
+        @Override
+        public void onActivityPaused(Activity activity) {
+        }
+
+        @Override
+        public void onActivityStopped(Activity activity) {
+        }
+
+        @Override
+        public void onActivitySaveInstanceState(Activity activity, Bundle outState) {
+        }
+
+        @Override
+        public void onActivityDestroyed(Activity activity) {
+        }
     }
 
     private class DelayedInitializer extends AsyncTask<Void, Void, Void> {
         @Override
         protected Void doInBackground(Void... params) {
             final Context context = ContactsApplication.this;
+            final StartupTracer.Span span =
+                    StartupTracer.getInstance().beginSpan("DelayedInitializer");
 
-            // Warm up the preferences and the contacts provider.  We delay initialization
-            // of the account type manager because we may not have the contacts group permission
-            // (and thus not have the get accounts permission).
+            // Warm up the preferences, the contacts provider and the actions of quick contact
+            // entries.  We delay initialization of the account type manager because we may not
+            // have the contacts group permission (and thus not have the get accounts permission).
             PreferenceManager.getDefaultSharedPreferences(context);
             getContentResolver().getType(ContentUris.withAppendedId(Contacts.CONTENT_URI, 1));
+            ResolveCache.getInstance(context).warmUp();
 
+            span.end();
             return null;
         }
 
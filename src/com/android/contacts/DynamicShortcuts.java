@@ -46,6 +46,7 @@ import android.os.PersistableBundle;
 import android.provider.ContactsContract;
 import android.provider.ContactsContract.Contacts;
 import androidx.annotation.VisibleForTesting;
+import androidx.annotation.WorkerThread;
 import androidx.localbroadcastmanager.content.LocalBroadcastManager;
 import androidx.core.os.BuildCompat;
 import android.util.Log;
@@ -56,13 +57,17 @@ import com.android.contacts.lettertiles.LetterTileDrawable;
 import com.android.contacts.util.BitmapUtil;
 import com.android.contacts.util.ImplicitIntentsUtil;
 import com.android.contacts.util.PermissionsUtil;
+import com.android.contacts.util.SyncUtil;
 import com.android.contactsbind.experiments.Flags;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * This class creates and updates the dynamic shortcuts displayed on the Nexus launcher for the
@@ -91,6 +96,24 @@ public class DynamicShortcuts {
 
     private static final String EXTRA_SHORTCUT_TYPE = "extraShortcutType";
 
+    // The contact state that the icon of a pinned shortcut was created from. The icon is only
+    // recreated when one of these changes. A new photo is written to a new photo file even when
+    // it replaces the existing photo row.
+    private static final String EXTRA_PHOTO_ID = Contacts.PHOTO_ID;
+    private static final String EXTRA_PHOTO_FILE_ID = Contacts.PHOTO_FILE_ID;
+    private static final String EXTRA_DISPLAY_NAME = Contacts.DISPLAY_NAME_PRIMARY;
+
+    // While contacts are synced the update waits this long and checks again, for at most
+    // MAX_SYNC_DEFERRAL_MILLIS, instead of running on every batch of changes.
+    private static final int DEFAULT_SYNC_UPDATE_DELAY_MILLIS = 60 * 1000;
+    private static final long MAX_SYNC_DEFERRAL_MILLIS = 10 * 60 * 1000;
+
+    // Extra of the update job with the time in millis since when the update was deferred.
+    private static final String EXTRA_DEFERRED_SINCE = "deferredSince";
+
+    // Stays well below the limit of 999 arguments per query of SQLite.
+    private static final int MAX_LOOKUP_KEYS_PER_QUERY = 500;
+
     // Because pinned shortcuts persist across app upgrades these values should not be changed
     // though new ones may be added
     private static final int SHORTCUT_TYPE_UNKNOWN = 0;
@@ -99,7 +122,8 @@ public class DynamicShortcuts {
 
     @VisibleForTesting
     static final String[] PROJECTION = new String[] {
-            Contacts._ID, Contacts.LOOKUP_KEY, Contacts.DISPLAY_NAME_PRIMARY
+            Contacts._ID, Contacts.LOOKUP_KEY, Contacts.DISPLAY_NAME_PRIMARY, Contacts.PHOTO_ID,
+            Contacts.PHOTO_FILE_ID
     };
 
     private final Context mContext;
@@ -111,7 +135,9 @@ public class DynamicShortcuts {
     private int mIconSize;
     private final int mContentChangeMinUpdateDelay;
     private final int mContentChangeMaxUpdateDelay;
+    private final int mSyncUpdateDelay;
     private final JobScheduler mJobScheduler;
+    private final ShortcutIconCache mIconCache;
 
     public DynamicShortcuts(Context context) {
         this(context, context.getContentResolver(), (ShortcutManager)
@@ -126,10 +152,14 @@ public class DynamicShortcuts {
         mContentResolver = contentResolver;
         mShortcutManager = shortcutManager;
         mJobScheduler = jobScheduler;
+        mIconCache = ShortcutIconCache.getInstance(context);
         mContentChangeMinUpdateDelay = Flags.getInstance()
                 .getInteger(Experiments.DYNAMIC_MIN_CONTENT_CHANGE_UPDATE_DELAY_MILLIS);
         mContentChangeMaxUpdateDelay = Flags.getInstance()
                 .getInteger(Experiments.DYNAMIC_MAX_CONTENT_CHANGE_UPDATE_DELAY_MILLIS);
+        final int syncUpdateDelay = Flags.getInstance()
+                .getInteger(Experiments.DYNAMIC_SYNC_UPDATE_DELAY_MILLIS);
+        mSyncUpdateDelay = syncUpdateDelay > 0 ? syncUpdateDelay : DEFAULT_SYNC_UPDATE_DELAY_MILLIS;
         final ActivityManager am = (ActivityManager) context
                 .getSystemService(Context.ACTIVITY_SERVICE);
         mIconSize = context.getResources().getDimensionPixelSize(R.dimen.shortcut_icon_size);
@@ -154,42 +184,104 @@ public class DynamicShortcuts {
         // after permissions are revoked (maybe)
         if (!hasRequiredPermissions()) return;
 
-        final List<ShortcutInfo> shortcuts = getStrequentShortcuts();
-        mShortcutManager.setDynamicShortcuts(shortcuts);
-        if (Log.isLoggable(TAG, Log.DEBUG)) {
-            Log.d(TAG, "set dynamic shortcuts " + shortcuts);
+        final List<ShortcutContact> contacts = getStrequentContacts();
+        if (isPublished(contacts)) {
+            // Nothing that is shown changed so the icons don't need to be created again.
+            if (Log.isLoggable(TAG, Log.DEBUG)) {
+                Log.d(TAG, "dynamic shortcuts are unchanged");
+            }
+        } else {
+            final List<ShortcutInfo> shortcuts = createShortcuts(contacts);
+            mShortcutManager.setDynamicShortcuts(shortcuts);
+            if (Log.isLoggable(TAG, Log.DEBUG)) {
+                Log.d(TAG, "set dynamic shortcuts " + shortcuts);
+            }
         }
         updatePinned();
     }
 
+    /**
+     * Returns whether the dynamic shortcuts that are published are for {@code contacts}, in the
+     * same order and with the same labels and icons.
+     */
+    private boolean isPublished(List<ShortcutContact> contacts) {
+        final List<ShortcutInfo> published = new ArrayList<>(
+                mShortcutManager.getDynamicShortcuts());
+        if (published.size() != contacts.size()) {
+            return false;
+        }
+        Collections.sort(published, new Comparator<ShortcutInfo>() {
+            @Override
+            public int compare(ShortcutInfo a, ShortcutInfo b) {
+                return Integer.compare(a.getRank(), b.getRank());
+            }
+        });
+        for (int i = 0; i < contacts.size(); i++) {
+            if (!contacts.get(i).isPublishedAs(published.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Updates the pinned contact shortcuts. All contacts are looked up with a single query and the
+     * icons are only recreated for contacts whose photo or name changed.
+     */
     @VisibleForTesting
     void updatePinned() {
+        final List<ShortcutInfo> pinned = new ArrayList<>();
+        final List<String> lookupKeys = new ArrayList<>();
+        for (ShortcutInfo shortcut : mShortcutManager.getPinnedShortcuts()) {
+            final PersistableBundle extras = shortcut.getExtras();
+            if (extras == null || extras.getInt(EXTRA_SHORTCUT_TYPE, SHORTCUT_TYPE_UNKNOWN) !=
+                    SHORTCUT_TYPE_CONTACT_URI) {
+                continue;
+            }
+            pinned.add(shortcut);
+            lookupKeys.add(shortcut.getId());
+        }
+
+        final Map<String, ShortcutContact> contacts = queryPinnedContacts(lookupKeys);
+
         final List<ShortcutInfo> updates = new ArrayList<>();
         final List<String> removedIds = new ArrayList<>();
         final List<String> enable = new ArrayList<>();
+        int unchanged = 0;
 
-        for (ShortcutInfo shortcut : mShortcutManager.getPinnedShortcuts()) {
+        for (ShortcutInfo shortcut : pinned) {
             final PersistableBundle extras = shortcut.getExtras();
+            ShortcutContact contact = contacts.get(shortcut.getId());
+            if (contact == null) {
+                // The lookup key may be out of date after contacts were joined or split, which
+                // only a lookup URI resolves. The contact ID may have changed but that's OK
+                // because it is just an optimization.
+                contact = queryShortcutContact(
+                        Contacts.getLookupUri(extras.getLong(Contacts._ID), shortcut.getId()));
+            }
 
-            if (extras == null || extras.getInt(EXTRA_SHORTCUT_TYPE, SHORTCUT_TYPE_UNKNOWN) !=
-                    SHORTCUT_TYPE_CONTACT_URI) {
+            if (contact == null || !contact.isValid()) {
+                if (shortcut.isEnabled()) {
+                    removedIds.add(shortcut.getId());
+                }
                 continue;
             }
 
-            // The contact ID may have changed but that's OK because it is just an optimization
-            final long contactId = extras.getLong(Contacts._ID);
-
-            final ShortcutInfo update = createShortcutForUri(
-                    Contacts.getLookupUri(contactId, shortcut.getId()));
-            if (update != null) {
-                updates.add(update);
-                if (!shortcut.isEnabled()) {
-                    // Handle the case that a contact is disabled because it doesn't exist but
-                    // later is created (for instance by a sync)
-                    enable.add(update.getId());
-                }
-            } else if (shortcut.isEnabled()) {
-                removedIds.add(shortcut.getId());
+            final boolean sameIcon = contact.hasSameIcon(extras);
+            if (sameIcon && shortcut.isEnabled()
+                    && contact.id == extras.getLong(Contacts._ID)
+                    && contact.lookupKey.equals(shortcut.getId())) {
+                unchanged++;
+                continue;
+            }
+
+            // Fields that aren't set are left as they are, which keeps the current icon.
+            final ShortcutInfo update = createShortcut(contact, !sameIcon);
+            updates.add(update);
+            if (!shortcut.isEnabled()) {
+                // Handle the case that a contact is disabled because it doesn't exist but
+                // later is created (for instance by a sync)
+                enable.add(update.getId());
             }
         }
 
@@ -197,21 +289,63 @@ public class DynamicShortcuts {
             Log.d(TAG, "updating " + updates);
             Log.d(TAG, "enabling " + enable);
             Log.d(TAG, "disabling " + removedIds);
+            Log.d(TAG, unchanged + " pinned shortcuts are unchanged");
         }
 
-        mShortcutManager.updateShortcuts(updates);
-        mShortcutManager.enableShortcuts(enable);
-        mShortcutManager.disableShortcuts(removedIds,
-                mContext.getString(R.string.dynamic_shortcut_contact_removed_message));
+        // Each of these is a call to the system server so they are only made for changes.
+        if (!updates.isEmpty()) {
+            mShortcutManager.updateShortcuts(updates);
+        }
+        if (!enable.isEmpty()) {
+            mShortcutManager.enableShortcuts(enable);
+        }
+        if (!removedIds.isEmpty()) {
+            mShortcutManager.disableShortcuts(removedIds,
+                    mContext.getString(R.string.dynamic_shortcut_contact_removed_message));
+        }
+    }
+
+    /**
+     * Returns the contacts with the given lookup keys by their lookup key.
+     */
+    private Map<String, ShortcutContact> queryPinnedContacts(List<String> lookupKeys) {
+        final Map<String, ShortcutContact> result = new HashMap<>();
+        for (int start = 0; start < lookupKeys.size(); start += MAX_LOOKUP_KEYS_PER_QUERY) {
+            final List<String> keys = lookupKeys.subList(start,
+                    Math.min(lookupKeys.size(), start + MAX_LOOKUP_KEYS_PER_QUERY));
+            final StringBuilder selection = new StringBuilder()
+                    .append(Contacts.LOOKUP_KEY).append(" IN (");
+            for (int i = 0; i < keys.size(); i++) {
+                selection.append("?,");
+            }
+            // Remove trailing ','
+            selection.deleteCharAt(selection.length() - 1).append(')');
+
+            final Cursor cursor = mContentResolver.query(Contacts.CONTENT_URI, PROJECTION,
+                    selection.toString(), keys.toArray(new String[keys.size()]), null);
+            if (cursor == null) continue;
+            try {
+                while (cursor.moveToNext()) {
+                    final ShortcutContact contact = new ShortcutContact(cursor);
+                    if (contact.lookupKey != null) {
+                        result.put(contact.lookupKey, contact);
+                    }
+                }
+            } finally {
+                cursor.close();
+            }
+        }
+        return result;
     }
 
-    private ShortcutInfo createShortcutForUri(Uri contactUri) {
-        final Cursor cursor = mContentResolver.query(contactUri, PROJECTION, null, null, null);
+    private ShortcutContact queryShortcutContact(Uri contactUri) {
+        final Cursor cursor = mContentResolver.query(contactUri, PROJECTION, null, null,
+                null);
         if (cursor == null) return null;
 
         try {
             if (cursor.moveToFirst()) {
-                return createShortcutFromRow(cursor);
+                return new ShortcutContact(cursor);
             }
         } finally {
             cursor.close();
@@ -219,7 +353,86 @@ public class DynamicShortcuts {
         return null;
     }
 
+    /**
+     * Creates the shortcut for {@code contact}. The photo and name that the icon is created from
+     * are kept in its extras so that it is only created again when they change.
+     */
+    private ShortcutInfo createShortcut(ShortcutContact contact, boolean createIcon) {
+        final PersistableBundle extras = new PersistableBundle();
+        extras.putLong(EXTRA_PHOTO_ID, contact.photoId);
+        extras.putLong(EXTRA_PHOTO_FILE_ID, contact.photoFileId);
+        extras.putString(EXTRA_DISPLAY_NAME, contact.displayName);
+        final ShortcutInfo.Builder builder = builderForContactShortcut(contact.id,
+                contact.lookupKey, contact.displayName, extras);
+        if (createIcon) {
+            addIconForContact(contact.id, contact.lookupKey, contact.displayName, contact.photoId,
+                    contact.photoFileId, builder);
+        }
+        return builder.build();
+    }
+
+    /**
+     * A row of {@link #PROJECTION}.
+     */
+    private static class ShortcutContact {
+        final long id;
+        final String lookupKey;
+        final String displayName;
+        final long photoId;
+        final long photoFileId;
+
+        ShortcutContact(Cursor cursor) {
+            id = cursor.getLong(0);
+            lookupKey = cursor.getString(1);
+            displayName = cursor.getString(2);
+            photoId = cursor.isNull(3) ? 0 : cursor.getLong(3);
+            photoFileId = cursor.isNull(4) ? 0 : cursor.getLong(4);
+        }
+
+        boolean isValid() {
+            return lookupKey != null && displayName != null;
+        }
+
+        /**
+         * Whether the shortcut with {@code extras} has an icon that was created from this photo
+         * and name. A photo without a photo file keeps its photo ID when it is replaced, so such
+         * an icon is never known to be the same.
+         */
+        boolean hasSameIcon(PersistableBundle extras) {
+            return (photoId == 0 || photoFileId != 0)
+                    && extras.containsKey(EXTRA_PHOTO_ID)
+                    && extras.getLong(EXTRA_PHOTO_ID) == photoId
+                    && extras.getLong(EXTRA_PHOTO_FILE_ID) == photoFileId
+                    && displayName.equals(extras.getString(EXTRA_DISPLAY_NAME));
+        }
+
+        /**
+         * Whether {@code shortcut} was created for this contact and is still up to date. The
+         * labels are created from the name so they are the same when the name is.
+         */
+        boolean isPublishedAs(ShortcutInfo shortcut) {
+            final PersistableBundle extras = shortcut.getExtras();
+            return lookupKey.equals(shortcut.getId()) && extras != null
+                    && extras.getLong(Contacts._ID) == id && hasSameIcon(extras);
+        }
+    }
+
     public List<ShortcutInfo> getStrequentShortcuts() {
+        return createShortcuts(getStrequentContacts());
+    }
+
+    private List<ShortcutInfo> createShortcuts(List<ShortcutContact> contacts) {
+        final List<ShortcutInfo> result = new ArrayList<>(contacts.size());
+        for (ShortcutContact contact : contacts) {
+            result.add(createShortcut(contact, true));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the first {@link #MAX_SHORTCUTS} strequent contacts that have a name.
+     */
+    private List<ShortcutContact> getStrequentContacts() {
         // The limit query parameter doesn't seem to work for this uri but we'll leave it because in
         // case it does work on some phones or platform versions.
         final Uri uri = Contacts.CONTENT_STREQUENT_URI.buildUpon()
@@ -230,17 +443,14 @@ public class DynamicShortcuts {
 
         if (cursor == null) return Collections.emptyList();
 
-        final List<ShortcutInfo> result = new ArrayList<>();
+        final List<ShortcutContact> result = new ArrayList<>();
 
         try {
-            int i = 0;
-            while (i < MAX_SHORTCUTS && cursor.moveToNext()) {
-                final ShortcutInfo shortcut = createShortcutFromRow(cursor);
-                if (shortcut == null) {
-                    continue;
+            while (result.size() < MAX_SHORTCUTS && cursor.moveToNext()) {
+                final ShortcutContact contact = new ShortcutContact(cursor);
+                if (contact.isValid()) {
+                    result.add(contact);
                 }
-                result.add(shortcut);
-                i++;
             }
         } finally {
             cursor.close();
@@ -248,17 +458,6 @@ public class DynamicShortcuts {
         return result;
     }
 
-
-    @VisibleForTesting
-    ShortcutInfo createShortcutFromRow(Cursor cursor) {
-        final ShortcutInfo.Builder builder = builderForContactShortcut(cursor);
-        if (builder == null) {
-            return null;
-        }
-        addIconForContact(cursor, builder);
-        return builder.build();
-    }
-
     @VisibleForTesting
     ShortcutInfo.Builder builderForContactShortcut(Cursor cursor) {
         final long id = cursor.getLong(0);
@@ -269,10 +468,14 @@ public class DynamicShortcuts {
 
     @VisibleForTesting
     ShortcutInfo.Builder builderForContactShortcut(long id, String lookupKey, String displayName) {
+        return builderForContactShortcut(id, lookupKey, displayName, new PersistableBundle());
+    }
+
+    private ShortcutInfo.Builder builderForContactShortcut(long id, String lookupKey,
+            String displayName, PersistableBundle extras) {
         if (lookupKey == null || displayName == null) {
             return null;
         }
-        final PersistableBundle extras = new PersistableBundle();
         extras.putLong(Contacts._ID, id);
         extras.putInt(EXTRA_SHORTCUT_TYPE, SHORTCUT_TYPE_CONTACT_URI);
 
@@ -309,7 +512,22 @@ public class DynamicShortcuts {
         if (builder == null) {
             return null;
         }
-        addIconForContact(id, lookupKey, displayName, builder);
+        setIcon(builder, createIcon(id, lookupKey, displayName, true));
+        return builder.build();
+    }
+
+    /**
+     * Like {@link #getQuickContactShortcutInfo(long, String, String)} but reuses the cached icon
+     * of the contact's photo, so the photo is only read if it changed.
+     */
+    @WorkerThread
+    public ShortcutInfo getQuickContactShortcutInfo(long id, String lookupKey, String displayName,
+            long photoId, long photoFileId) {
+        final ShortcutInfo.Builder builder = builderForContactShortcut(id, lookupKey, displayName);
+        if (builder == null) {
+            return null;
+        }
+        addIconForContact(id, lookupKey, displayName, photoId, photoFileId, builder);
         return builder.build();
     }
 
@@ -327,19 +545,48 @@ public class DynamicShortcuts {
         }
     }
 
-    private void addIconForContact(Cursor cursor, ShortcutInfo.Builder builder) {
-        final long id = cursor.getLong(0);
-        final String lookupKey = cursor.getString(1);
-        final String displayName = cursor.getString(2);
-        addIconForContact(id, lookupKey, displayName, builder);
+    /**
+     * Sets the cached icon for the contact's photo or letter tile, creating it on a cache miss.
+     * The photo isn't read at all when the icon is cached. Icons of photos that the cache can't
+     * identify are always created.
+     */
+    private void addIconForContact(long id, String lookupKey, String displayName, long photoId,
+            long photoFileId, ShortcutInfo.Builder builder) {
+        final String variant = BuildCompat.isAtLeastO()
+                ? ShortcutIconCache.VARIANT_SHORTCUT_ADAPTIVE
+                : ShortcutIconCache.VARIANT_SHORTCUT_CIRCULAR;
+        if (photoId != 0) {
+            final String photoSource = ShortcutIconCache.getPhotoSource(photoId, photoFileId);
+            Bitmap photo = photoSource == null ? null
+                    : mIconCache.get(photoSource, variant, mIconSize);
+            if (photo == null) {
+                photo = getContactPhoto(id);
+                if (photo != null && photoSource != null) {
+                    mIconCache.put(photoSource, variant, mIconSize, photo);
+                }
+            }
+            if (photo != null) {
+                setIcon(builder, photo);
+                return;
+            }
+            // The photo couldn't be read, maybe only for now, so the letter tile used instead
+            // mustn't be cached as the icon of the photo.
+        }
+        final String tileSource = ShortcutIconCache.getLetterTileSource(displayName, lookupKey);
+        Bitmap tile = mIconCache.get(tileSource, variant, mIconSize);
+        if (tile == null) {
+            tile = getFallbackAvatar(displayName, lookupKey);
+            mIconCache.put(tileSource, variant, mIconSize, tile);
+        }
+        setIcon(builder, tile);
     }
 
-    private void addIconForContact(long id, String lookupKey, String displayName,
-            ShortcutInfo.Builder builder) {
-        Bitmap bitmap = getContactPhoto(id);
-        if (bitmap == null) {
-            bitmap = getFallbackAvatar(displayName, lookupKey);
-        }
+    private Bitmap createIcon(long id, String lookupKey, String displayName, boolean hasPhoto) {
+        final Bitmap bitmap = hasPhoto ? getContactPhoto(id) : null;
+        return bitmap != null ? bitmap : getFallbackAvatar(displayName, lookupKey);
+    }
+
+    private void setIcon(ShortcutInfo.Builder builder, Bitmap bitmap) {
         final Icon icon;
         if (BuildCompat.isAtLeastO()) {
             icon = Icon.createWithAdaptiveBitmap(bitmap);
@@ -472,6 +719,39 @@ public class DynamicShortcuts {
         mJobScheduler.schedule(job);
     }
 
+    /**
+     * Schedules the update to run again after a delay instead of when contacts change, because
+     * contacts are being synced. {@code deferredSince} is when the update was first deferred.
+     */
+    @VisibleForTesting
+    void scheduleDeferredUpdateJob(long deferredSince) {
+        final PersistableBundle extras = new PersistableBundle();
+        extras.putLong(EXTRA_DEFERRED_SINCE, deferredSince);
+        final JobInfo job = new JobInfo.Builder(
+                ContactsJobService.DYNAMIC_SHORTCUTS_JOB_ID,
+                new ComponentName(mContext, ContactsJobService.class))
+                .setMinimumLatency(mSyncUpdateDelay)
+                .setOverrideDeadline(2 * mSyncUpdateDelay)
+                .setExtras(extras)
+                .build();
+        mJobScheduler.schedule(job);
+    }
+
+    /**
+     * Whether the update should wait because contacts are being synced. A sync changes contacts
+     * in many batches and each of them would trigger an update. Updates are deferred for at most
+     * {@link #MAX_SYNC_DEFERRAL_MILLIS} so that long syncs still update the shortcuts.
+     */
+    @VisibleForTesting
+    boolean shouldDeferUpdate(long deferredSince, long now) {
+        return now - deferredSince < MAX_SYNC_DEFERRAL_MILLIS && isContactsSyncActive();
+    }
+
+    @VisibleForTesting
+    boolean isContactsSyncActive() {
+        return SyncUtil.isAnyContactsSyncActive();
+    }
+
     void updateInBackground() {
         new ShortcutUpdateTask(this).execute();
     }
@@ -527,11 +807,32 @@ public class DynamicShortcuts {
     }
 
     public static void updateFromJob(final JobService service, final JobParameters jobParams) {
-        new ShortcutUpdateTask(new DynamicShortcuts(service)) {
+        final DynamicShortcuts shortcuts = new DynamicShortcuts(service);
+        final long now = System.currentTimeMillis();
+        final long deferredSince = jobParams.getExtras().getLong(EXTRA_DEFERRED_SINCE, now);
+        new ShortcutUpdateTask(shortcuts) {
+            private boolean mDeferred;
+
+            @Override
+            protected Void doInBackground(Void... voids) {
+                mDeferred = shortcuts.shouldDeferUpdate(deferredSince, now);
+                if (mDeferred) {
+                    return null;
+                }
+                return super.doInBackground(voids);
+            }
+
             @Override
             protected void onPostExecute(Void aVoid) {
-                // Must call super first which will reschedule the job before we call jobFinished
-                super.onPostExecute(aVoid);
+                // Must reschedule the job before we call jobFinished
+                if (mDeferred) {
+                    if (Log.isLoggable(TAG, Log.DEBUG)) {
+                        Log.d(TAG, "Deferring update while contacts are synced");
+                    }
+                    shortcuts.scheduleDeferredUpdateJob(deferredSince);
+                } else {
+                    super.onPostExecute(aVoid);
+                }
                 service.jobFinished(jobParams, false);
             }
         }.execute();
@@ -38,18 +38,96 @@ public final class Experiments {
     public static final String DYNAMIC_MIN_CONTENT_CHANGE_UPDATE_DELAY_MILLIS =
             "Shortcuts__dynamic_min_content_change_update_delay_millis";
 
+    /**
+     * Flags for the time to wait before checking again whether a contacts sync finished before
+     * updating the shortcuts.
+     */
+    public static final String DYNAMIC_SYNC_UPDATE_DELAY_MILLIS =
+            "Shortcuts__dynamic_sync_update_delay_millis";
+
+    /**
+     * Flag for finding aggregation suggestions in an in-app index of contact names instead of
+     * querying CP2 every time the name in the editor changes.
+     */
+    public static final String EDITOR_LOCAL_AGGREGATION_SUGGESTIONS_ENABLED =
+            "Editor__local_aggregation_suggestions_enabled";
+
+    /**
+     * Flag for inflating the common editor views while the contact editor loads its data.
+     */
+    public static final String EDITOR_VIEW_PREINFLATION_ENABLED =
+            "Editor__view_preinflation_enabled";
+
+    /**
+     * Flag for showing the editors of kind sections with very many values in a scrolling list
+     * that recycles them.
+     */
+    public static final String EDITOR_VIRTUALIZED_SECTIONS_ENABLED =
+            "Editor__virtualized_sections_enabled";
+
     /**
      * Flags for enabling video call from quick contact.
      */
     public static final String QUICK_CONTACT_VIDEO_CALL =
             "QuickContact__video_call_integration";
 
+    /**
+     * Flag for binding the entry views of quick contact cards to the entries of the next contact
+     * instead of inflating new ones.
+     */
+    public static final String QUICK_CONTACT_ENTRY_VIEW_RECYCLING_ENABLED =
+            "QuickContact__entry_view_recycling_enabled";
+
     /**
      * Flags for maximum time to show spinner for a contacts sync.
      */
     public static final String PULL_TO_REFRESH_CANCEL_REFRESH_MILLIS =
             "PullToRefresh__cancel_refresh_millis";
 
+    /**
+     * Flag for merging typo tolerant name matches below the exact contact search results.
+     */
+    public static final String SEARCH_FUZZY_MATCHING_ENABLED =
+            "Search__fuzzy_matching_enabled";
+
+    /**
+     * Flag for loading the main contact list a page at a time.
+     */
+    public static final String LIST_PAGED_LOADING_ENABLED =
+            "List__paged_loading_enabled";
+
+    /**
+     * Flag for querying favorites in parallel with the rest of the contact list.
+     */
+    public static final String LIST_CONCURRENT_FAVORITES_ENABLED =
+            "List__concurrent_favorites_enabled";
+
+    /**
+     * Flag for drawing contact list row text directly instead of through child text views.
+     */
+    public static final String LIST_FLAT_ROW_RENDERING_ENABLED =
+            "List__flat_row_rendering_enabled";
+
+    /**
+     * Flag for drawing letter tiles from bitmaps that are rendered once per letter, color, size
+     * and shape.
+     */
+    public static final String LETTER_TILE_CACHE_ENABLED =
+            "LetterTile__cache_enabled";
+
+    /**
+     * Flag for failing instead of logging when the main thread waits for accounts to load.
+     */
+    public static final String MAIN_THREAD_BLOCKING_PENALTY_DEATH =
+            "Debug__main_thread_blocking_penalty_death";
+
+    /**
+     * Flag for running initialization that isn't needed for the first screen after its first
+     * frame was drawn.
+     */
+    public static final String STARTUP_DEFERRED_INIT_ENABLED =
+            "Startup__deferred_init_enabled";
+
     private Experiments() {
     }
 }
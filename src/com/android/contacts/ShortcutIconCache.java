@@ -0,0 +1,197 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.contacts;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.util.AtomicFile;
+import android.util.Log;
+import androidx.annotation.VisibleForTesting;
+import androidx.annotation.WorkerThread;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Keeps the launcher shortcut icons of contacts on disk so that they aren't decoded and drawn
+ * again every time a shortcut is built.
+ *
+ * <p>An icon is identified by what it was drawn from, its size and its variant, e.g. whether it
+ * is an adaptive or a circular icon. A contact photo is identified by its photo ID and photo file
+ * ID because CP2 writes every new photo to a new photo file, so a changed photo is never returned
+ * for an old one. Photos that are only stored as a thumbnail have no photo file and keep their
+ * photo ID when they are replaced, so their icons aren't cached. Letter tiles are identified by
+ * the name and lookup key that they are drawn from. The file of an icon is named after a hash of
+ * all of these.</p>
+ */
+public class ShortcutIconCache {
+    private static final String TAG = "ShortcutIconCache";
+
+    private static final String DIRECTORY_NAME = "shortcut_icons";
+    private static final String FILE_EXTENSION = ".png";
+
+    // Icons are a few KB each. The least recently used ones are removed above this count.
+    private static final int MAX_ICONS = 200;
+
+    /**
+     * The photo {@link DynamicShortcuts} decodes and crops for a shortcut. Adaptive on O and
+     * circular before.
+     */
+    public static final String VARIANT_SHORTCUT_ADAPTIVE = "shortcut_adaptive";
+    public static final String VARIANT_SHORTCUT_CIRCULAR = "shortcut_circular";
+
+    /**
+     * The quick contact icon {@link ShortcutIntentBuilder} draws for a contact shortcut.
+     * Adaptive on O and rounded before.
+     */
+    public static final String VARIANT_LAUNCHER_ADAPTIVE = "launcher_adaptive";
+    public static final String VARIANT_LAUNCHER_ROUNDED = "launcher_rounded";
+
+    /**
+     * The decoded photo {@link ShortcutIntentBuilder} draws phone number shortcuts from.
+     */
+    public static final String VARIANT_PHOTO = "photo";
+
+    private static ShortcutIconCache sInstance;
+
+    private final File mDirectory;
+
+    public static synchronized ShortcutIconCache getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = new ShortcutIconCache(
+                    new File(context.getApplicationContext().getCacheDir(), DIRECTORY_NAME));
+        }
+        return sInstance;
+    }
+
+    @VisibleForTesting
+    ShortcutIconCache(File directory) {
+        mDirectory = directory;
+    }
+
+    /**
+     * Returns the source of an icon drawn from a contact photo, or null if the contact has
+     * no photo or if the photo has no photo file and so can't be told apart from a later one.
+     */
+    public static String getPhotoSource(long photoId, long photoFileId) {
+        return photoId == 0 || photoFileId == 0 ? null : "photo:" + photoId + ":" + photoFileId;
+    }
+
+    /**
+     * Returns the source of a letter tile icon.
+     */
+    public static String getLetterTileSource(String displayName, String lookupKey) {
+        return "tile:" + displayName + ":" + lookupKey;
+    }
+
+    /**
+     * Returns the cached icon or null if there is none.
+     */
+    @WorkerThread
+    public synchronized Bitmap get(String source, String variant, int size) {
+        final File file = getFile(source, variant, size);
+        if (!file.exists()) {
+            return null;
+        }
+        final AtomicFile atomicFile = new AtomicFile(file);
+        try {
+            final byte[] data = atomicFile.readFully();
+            final Bitmap bitmap = BitmapFactory.decodeByteArray(data, 0, data.length);
+            if (bitmap == null) {
+                throw new IOException("Undecodable icon");
+            }
+            // Keeps recently used icons when the cache is trimmed.
+            file.setLastModified(System.currentTimeMillis());
+            return bitmap;
+        } catch (IOException e) {
+            Log.w(TAG, "Discarding unreadable icon " + file.getName(), e);
+            atomicFile.delete();
+            return null;
+        }
+    }
+
+    /**
+     * Stores {@code icon} and removes the least recently used icons if there are too many.
+     */
+    @WorkerThread
+    public synchronized void put(String source, String variant, int size, Bitmap icon) {
+        if (!mDirectory.isDirectory() && !mDirectory.mkdirs()) {
+            Log.w(TAG, "Failed to create " + mDirectory);
+            return;
+        }
+        final AtomicFile atomicFile = new AtomicFile(getFile(source, variant, size));
+        FileOutputStream out = null;
+        try {
+            out = atomicFile.startWrite();
+            if (!icon.compress(Bitmap.CompressFormat.PNG, 100, out)) {
+                throw new IOException("Failed to encode icon");
+            }
+            atomicFile.finishWrite(out);
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to write icon", e);
+            if (out != null) {
+                atomicFile.failWrite(out);
+            }
+            return;
+        }
+        trim();
+    }
+
+    private File getFile(String source, String variant, int size) {
+        return new File(mDirectory, hash(variant + "|" + size + "|" + source) + FILE_EXTENSION);
+    }
+
+    private void trim() {
+        final File[] files = mDirectory.listFiles();
+        if (files == null || files.length <= MAX_ICONS) {
+            return;
+        }
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File a, File b) {
+                return Long.compare(a.lastModified(), b.lastModified());
+            }
+        });
+        for (int i = 0; i < files.length - MAX_ICONS; i++) {
+            if (!files[i].delete()) {
+                Log.w(TAG, "Failed to delete " + files[i].getName());
+            }
+        }
+    }
+
+    private static String hash(String key) {
+        try {
+            final byte[] digest = MessageDigest.getInstance("SHA-1")
+                    .digest(key.getBytes(StandardCharsets.UTF_8));
+            final StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xf, 16))
+                        .append(Character.forDigit(b & 0xf, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            // Every Android device provides SHA-1.
+            throw new IllegalStateException(e);
+        }
+    }
+}
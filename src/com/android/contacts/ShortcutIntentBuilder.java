@@ -53,6 +53,7 @@ import com.android.contacts.ContactPhotoManager.DefaultImageRequest;
 import com.android.contacts.lettertiles.LetterTileDrawable;
 import com.android.contacts.util.BitmapUtil;
 import com.android.contacts.util.ImplicitIntentsUtil;
+import com.android.contacts.util.concurrent.ContactsExecutors;
 
 /**
  * Constructs shortcut intents.
@@ -62,12 +63,14 @@ public class ShortcutIntentBuilder {
     private static final String[] CONTACT_COLUMNS = {
         Contacts.DISPLAY_NAME,
         Contacts.PHOTO_ID,
-        Contacts.LOOKUP_KEY
+        Contacts.LOOKUP_KEY,
+        Contacts.PHOTO_FILE_ID
     };
 
     private static final int CONTACT_DISPLAY_NAME_COLUMN_INDEX = 0;
     private static final int CONTACT_PHOTO_ID_COLUMN_INDEX = 1;
     private static final int CONTACT_LOOKUP_KEY_COLUMN_INDEX = 2;
+    private static final int CONTACT_PHOTO_FILE_ID_COLUMN_INDEX = 3;
 
     private static final String[] PHONE_COLUMNS = {
         Phone.DISPLAY_NAME,
@@ -75,7 +78,8 @@ public class ShortcutIntentBuilder {
         Phone.NUMBER,
         Phone.TYPE,
         Phone.LABEL,
-        Phone.LOOKUP_KEY
+        Phone.LOOKUP_KEY,
+        Phone.PHOTO_FILE_ID
     };
 
     private static final int PHONE_DISPLAY_NAME_COLUMN_INDEX = 0;
@@ -84,6 +88,7 @@ public class ShortcutIntentBuilder {
     private static final int PHONE_TYPE_COLUMN_INDEX = 3;
     private static final int PHONE_LABEL_COLUMN_INDEX = 4;
     private static final int PHONE_LOOKUP_KEY_COLUMN_INDEX = 5;
+    private static final int PHONE_PHOTO_FILE_ID_COLUMN_INDEX = 6;
 
     private static final String[] PHOTO_COLUMNS = {
         Photo.PHOTO,
@@ -99,6 +104,7 @@ public class ShortcutIntentBuilder {
     private final int mIconDensity;
     private final int mOverlayTextBackgroundColor;
     private final Resources mResources;
+    private final ShortcutIconCache mIconCache;
 
     /**
      * This is a hidden API of the launcher in JellyBean that allows us to disable the animation
@@ -137,6 +143,7 @@ public class ShortcutIntentBuilder {
         }
         mIconDensity = am.getLauncherLargeIconDensity();
         mOverlayTextBackgroundColor = mResources.getColor(R.color.shortcut_overlay_text_background);
+        mIconCache = ShortcutIconCache.getInstance(context);
     }
 
     public void createContactShortcutIntent(Uri contactUri) {
@@ -157,6 +164,9 @@ public class ShortcutIntentBuilder {
         protected String mLookupKey;
         protected byte[] mBitmapData;
         protected long mPhotoId;
+        protected long mPhotoFileId;
+        protected String mIconSource;
+        protected Bitmap mCachedIcon;
 
         public LoadingAsyncTask(Uri uri) {
             mUri = uri;
@@ -166,12 +176,26 @@ public class ShortcutIntentBuilder {
         protected Void doInBackground(Void... params) {
             mContentType = mContext.getContentResolver().getType(mUri);
             loadData();
-            loadPhoto();
+            mIconSource = getIconSource();
+            if (mIconSource != null) {
+                mCachedIcon = mIconCache.get(mIconSource, getIconVariant(), mIconSize);
+            }
+            // The photo is only needed to draw the icon.
+            if (mCachedIcon == null) {
+                loadPhoto();
+            }
             return null;
         }
 
         protected abstract void loadData();
 
+        /**
+         * Returns the source of the cached icon, or null if the icon isn't cached.
+         */
+        protected abstract String getIconSource();
+
+        protected abstract String getIconVariant();
+
         private void loadPhoto() {
             if (mPhotoId == 0) {
                 return;
@@ -193,6 +217,8 @@ public class ShortcutIntentBuilder {
     }
 
     private final class ContactLoadingAsyncTask extends LoadingAsyncTask {
+        private ShortcutInfo mShortcutInfo;
+
         public ContactLoadingAsyncTask(Uri uri) {
             super(uri);
         }
@@ -207,15 +233,44 @@ public class ShortcutIntentBuilder {
                         mDisplayName = cursor.getString(CONTACT_DISPLAY_NAME_COLUMN_INDEX);
                         mPhotoId = cursor.getLong(CONTACT_PHOTO_ID_COLUMN_INDEX);
                         mLookupKey = cursor.getString(CONTACT_LOOKUP_KEY_COLUMN_INDEX);
+                        mPhotoFileId = cursor.getLong(CONTACT_PHOTO_FILE_ID_COLUMN_INDEX);
                     }
                 } finally {
                     cursor.close();
                 }
             }
         }
+
+        @Override
+        protected Void doInBackground(Void... params) {
+            super.doInBackground(params);
+            if (BuildCompat.isAtLeastO()) {
+                // Reads and writes the icon cache, so it is built here and not on the UI thread.
+                final String displayName = TextUtils.isEmpty(mDisplayName)
+                        ? mContext.getResources().getString(R.string.missing_name)
+                        : mDisplayName;
+                mShortcutInfo = new DynamicShortcuts(mContext).getQuickContactShortcutInfo(
+                        ContentUris.parseId(mUri), mLookupKey, displayName, mPhotoId,
+                        mPhotoFileId);
+            }
+            return null;
+        }
+
+        @Override
+        protected String getIconSource() {
+            return mPhotoId != 0 ? ShortcutIconCache.getPhotoSource(mPhotoId, mPhotoFileId)
+                    : ShortcutIconCache.getLetterTileSource(mDisplayName, mLookupKey);
+        }
+
+        @Override
+        protected String getIconVariant() {
+            return getQuickContactIconVariant();
+        }
+
         @Override
         protected void onPostExecute(Void result) {
-            createContactShortcutIntent(mUri, mContentType, mDisplayName, mLookupKey, mBitmapData);
+            createContactShortcutIntent(mUri, mContentType, mDisplayName, mLookupKey, mBitmapData,
+                    mShortcutInfo, mIconSource, mCachedIcon);
         }
     }
 
@@ -243,6 +298,7 @@ public class ShortcutIntentBuilder {
                         mPhoneType = cursor.getInt(PHONE_TYPE_COLUMN_INDEX);
                         mPhoneLabel = cursor.getString(PHONE_LABEL_COLUMN_INDEX);
                         mLookupKey = cursor.getString(PHONE_LOOKUP_KEY_COLUMN_INDEX);
+                        mPhotoFileId = cursor.getLong(PHONE_PHOTO_FILE_ID_COLUMN_INDEX);
                     }
                 } finally {
                     cursor.close();
@@ -250,16 +306,34 @@ public class ShortcutIntentBuilder {
             }
         }
 
+        @Override
+        protected String getIconSource() {
+            // The type overlay is localized so only the photo is cached. Letter tiles are cheap
+            // to draw and need no photo.
+            return ShortcutIconCache.getPhotoSource(mPhotoId, mPhotoFileId);
+        }
+
+        @Override
+        protected String getIconVariant() {
+            return ShortcutIconCache.VARIANT_PHOTO;
+        }
+
         @Override
         protected void onPostExecute(Void result) {
             createPhoneNumberShortcutIntent(mUri, mDisplayName, mLookupKey, mBitmapData,
-                    mPhoneNumber, mPhoneType, mPhoneLabel, mShortcutAction);
+                    mIconSource, mCachedIcon, mPhoneNumber, mPhoneType, mPhoneLabel,
+                    mShortcutAction);
         }
     }
 
     private Drawable getPhotoDrawable(byte[] bitmapData, String displayName, String lookupKey) {
-        if (bitmapData != null) {
-            Bitmap bitmap = BitmapFactory.decodeByteArray(bitmapData, 0, bitmapData.length, null);
+        final Bitmap bitmap = bitmapData == null ? null
+                : BitmapFactory.decodeByteArray(bitmapData, 0, bitmapData.length, null);
+        return getPhotoDrawable(bitmap, displayName, lookupKey);
+    }
+
+    private Drawable getPhotoDrawable(Bitmap bitmap, String displayName, String lookupKey) {
+        if (bitmap != null) {
             return new BitmapDrawable(mContext.getResources(), bitmap);
         } else {
             final DefaultImageRequest request = new DefaultImageRequest(displayName, lookupKey,
@@ -273,31 +347,49 @@ public class ShortcutIntentBuilder {
         }
     }
 
+    private String getQuickContactIconVariant() {
+        return BuildCompat.isAtLeastO() ? ShortcutIconCache.VARIANT_LAUNCHER_ADAPTIVE
+                : ShortcutIconCache.VARIANT_LAUNCHER_ROUNDED;
+    }
+
+    /**
+     * Stores an icon that was drawn on the UI thread without blocking it.
+     */
+    private void putIconInCache(final String source, final String variant, final Bitmap icon) {
+        if (source == null || icon == null) {
+            return;
+        }
+        final int size = mIconSize;
+        ContactsExecutors.getDefaultThreadPoolExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                mIconCache.put(source, variant, size, icon);
+            }
+        });
+    }
+
     private void createContactShortcutIntent(Uri contactUri, String contentType, String displayName,
-            String lookupKey, byte[] bitmapData) {
+            String lookupKey, byte[] bitmapData, ShortcutInfo shortcutInfo, String iconSource,
+            Bitmap cachedIcon) {
         Intent intent = null;
         if (TextUtils.isEmpty(displayName)) {
             displayName = mContext.getResources().getString(R.string.missing_name);
         }
-        if (BuildCompat.isAtLeastO()) {
-            final long contactId = ContentUris.parseId(contactUri);
+        if (BuildCompat.isAtLeastO() && shortcutInfo != null) {
             final ShortcutManager sm = (ShortcutManager)
                     mContext.getSystemService(Context.SHORTCUT_SERVICE);
-            final DynamicShortcuts dynamicShortcuts = new DynamicShortcuts(mContext);
-            final ShortcutInfo shortcutInfo = dynamicShortcuts.getQuickContactShortcutInfo(
-                    contactId, lookupKey, displayName);
-            if (shortcutInfo != null) {
-                intent = sm.createShortcutResultIntent(shortcutInfo);
-            }
+            intent = sm.createShortcutResultIntent(shortcutInfo);
         }
-        final Drawable drawable = getPhotoDrawable(bitmapData, displayName, lookupKey);
-
         final Intent shortcutIntent = ImplicitIntentsUtil.getIntentForQuickContactLauncherShortcut(
                 mContext, contactUri);
 
         intent = intent == null ? new Intent() : intent;
 
-        final Bitmap icon = generateQuickContactIcon(drawable);
+        Bitmap icon = cachedIcon;
+        if (icon == null) {
+            icon = generateQuickContactIcon(getPhotoDrawable(bitmapData, displayName, lookupKey));
+            putIconInCache(iconSource, getQuickContactIconVariant(), icon);
+        }
         if (BuildCompat.isAtLeastO()) {
             final IconCompat compatIcon = IconCompat.createWithAdaptiveBitmap(icon);
             compatIcon.addToShortcutIntent(intent, null, mContext);
@@ -311,9 +403,14 @@ public class ShortcutIntentBuilder {
     }
 
     private void createPhoneNumberShortcutIntent(Uri uri, String displayName, String lookupKey,
-            byte[] bitmapData, String phoneNumber, int phoneType, String phoneLabel,
-            String shortcutAction) {
-        final Drawable drawable = getPhotoDrawable(bitmapData, displayName, lookupKey);
+            byte[] bitmapData, String photoSource, Bitmap cachedPhoto, String phoneNumber,
+            int phoneType, String phoneLabel, String shortcutAction) {
+        Bitmap photo = cachedPhoto;
+        if (photo == null && bitmapData != null) {
+            photo = BitmapFactory.decodeByteArray(bitmapData, 0, bitmapData.length, null);
+            putIconInCache(photoSource, ShortcutIconCache.VARIANT_PHOTO, photo);
+        }
+        final Drawable drawable = getPhotoDrawable(photo, displayName, lookupKey);
         final Bitmap icon;
         final Uri phoneUri;
         final String shortcutName;
@@ -20,9 +20,11 @@ import android.app.Fragment;
 import android.app.LoaderManager;
 import android.content.BroadcastReceiver;
 import android.content.Context;
+import android.content.Intent;
 import android.content.IntentFilter;
 import android.content.Loader;
 import android.os.Bundle;
+import android.telephony.SubscriptionManager;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import com.google.android.material.snackbar.Snackbar;
@@ -43,6 +45,7 @@ import android.widget.TextView;
 
 import com.android.contacts.compat.CompatUtils;
 import com.android.contacts.database.SimContactDao;
+import com.android.contacts.database.SimContactSnapshotCache;
 import com.android.contacts.editor.AccountHeaderPresenter;
 import com.android.contacts.model.AccountTypeManager;
 import com.android.contacts.model.SimCard;
@@ -53,6 +56,7 @@ import com.android.contacts.preference.ContactsPreferences;
 import com.android.contacts.util.concurrent.ContactsExecutors;
 import com.android.contacts.util.concurrent.ListenableFutureLoader;
 import com.google.common.base.Function;
+import com.google.common.util.concurrent.AsyncFunction;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 
@@ -249,6 +253,10 @@ public class SimImportFragment extends Fragment
         if (data == null) {
             return;
         }
+        if (!mAdapter.isEmpty()) {
+            // This is a refresh of contacts shown from the cache so keep what the user selected.
+            rememberSelectionsForCurrentAccount();
+        }
         mAccountHeaderPresenter.setAccounts(data.accounts);
         restoreAdapterSelectedStates(data.accounts);
         mAdapter.setData(data);
@@ -445,30 +453,130 @@ public class SimImportFragment extends Fragment
     }
 
 
+    /**
+     * Loads the SIM contacts, delivering the contacts cached from the last read of the SIM card
+     * first if there are any and then reading the SIM card again.
+     */
     private static class SimContactLoader extends ListenableFutureLoader<LoaderResult> {
+        // Not in TelephonyManager's public API.
+        private static final String ACTION_SIM_STATE_CHANGED =
+                "android.intent.action.SIM_STATE_CHANGED";
+        private static final String EXTRA_SIM_STATE = "ss";
+        private static final String EXTRA_SUBSCRIPTION_ID = "subscription";
+        private static final String SIM_STATE_ABSENT = "ABSENT";
+        private static final String SIM_STATE_LOADED = "LOADED";
+
         private SimContactDao mDao;
+        private SimContactSnapshotCache mSnapshotCache;
         private AccountTypeManager mAccountTypeManager;
         private final int mSubscriptionId;
+        private BroadcastReceiver mSimStateReceiver;
+        // Whether the cache was already consulted; later loads always read the SIM card.
+        private boolean mCacheChecked;
 
         public SimContactLoader(Context context, int subscriptionId) {
             super(context, new IntentFilter(AccountTypeManager.BROADCAST_ACCOUNTS_CHANGED));
             mDao = SimContactDao.create(context);
+            mSnapshotCache = SimContactSnapshotCache.getInstance(context);
             mAccountTypeManager = AccountTypeManager.getInstance(getContext());
             mSubscriptionId = subscriptionId;
         }
 
+        @Override
+        protected void onStartLoading() {
+            if (mSimStateReceiver == null) {
+                mSimStateReceiver = new BroadcastReceiver() {
+                    @Override
+                    public void onReceive(Context context, Intent intent) {
+                        // The broadcast is sticky, so the last state is delivered again as soon
+                        // as the receiver is registered.
+                        if (isInitialStickyBroadcast()) {
+                            return;
+                        }
+                        // Only a removed card or a card whose records finished loading can
+                        // have different contacts; the other states are intermediate.
+                        final String state = intent.getStringExtra(EXTRA_SIM_STATE);
+                        if (!SIM_STATE_ABSENT.equals(state) && !SIM_STATE_LOADED.equals(state)) {
+                            return;
+                        }
+                        final int subscriptionId = intent.getIntExtra(EXTRA_SUBSCRIPTION_ID,
+                                SubscriptionManager.INVALID_SUBSCRIPTION_ID);
+                        ContactsExecutors.getDefaultThreadPoolExecutor().execute(new Runnable() {
+                            @Override
+                            public void run() {
+                                if (subscriptionId
+                                        == SubscriptionManager.INVALID_SUBSCRIPTION_ID) {
+                                    mSnapshotCache.invalidate();
+                                } else {
+                                    mSnapshotCache.invalidate(subscriptionId);
+                                }
+                            }
+                        });
+                        onContentChanged();
+                    }
+                };
+                getContext().registerReceiver(mSimStateReceiver,
+                        new IntentFilter(ACTION_SIM_STATE_CHANGED));
+            }
+            super.onStartLoading();
+        }
+
+        @Override
+        protected void onReset() {
+            super.onReset();
+            mCacheChecked = false;
+            if (mSimStateReceiver != null) {
+                getContext().unregisterReceiver(mSimStateReceiver);
+                mSimStateReceiver = null;
+            }
+        }
+
+        @Override
+        public void deliverResult(LoaderResult data) {
+            super.deliverResult(data);
+            if (data != null && data.fromCache) {
+                // Refresh from the SIM card now that the cached contacts are shown.
+                onContentChanged();
+            }
+        }
+
+        @Override
+        protected boolean isSameData(LoaderResult previousData, LoaderResult newData) {
+            return !previousData.fromCache && previousData.contacts.equals(newData.contacts)
+                    && previousData.accounts.equals(newData.accounts)
+                    && previousData.accountsMap.equals(newData.accountsMap);
+        }
+
         @Override
         protected ListenableFuture<LoaderResult> loadData() {
+            final boolean tryCache = !mCacheChecked;
+            mCacheChecked = true;
+            final ListenableFuture<LoaderResult> simFuture;
+            if (tryCache) {
+                // Reading the cache doesn't touch the SIM so it shouldn't wait behind a SIM read.
+                simFuture = Futures.transform(
+                        ContactsExecutors.getDefaultThreadPoolExecutor().submit(
+                                new Callable<LoaderResult>() {
+                            @Override
+                            public LoaderResult call() throws Exception {
+                                return loadFromCache();
+                            }
+                        }),
+                        new AsyncFunction<LoaderResult, LoaderResult>() {
+                            @Override
+                            public ListenableFuture<LoaderResult> apply(LoaderResult cached) {
+                                return cached != null ? Futures.immediateFuture(cached)
+                                        : submitSimRead();
+                            }
+                        });
+            } else {
+                simFuture = submitSimRead();
+            }
+
             final ListenableFuture<List<Object>> future = Futures.<Object>allAsList(
                     mAccountTypeManager
                             .filterAccountsAsync(AccountTypeManager.writableFilter()),
-                    ContactsExecutors.getSimReadExecutor().<Object>submit(
-                            new Callable<Object>() {
-                        @Override
-                        public LoaderResult call() throws Exception {
-                            return loadFromSim();
-                        }
-                    }));
+                    simFuture);
             return Futures.transform(future, new Function<List<Object>, LoaderResult>() {
                 @Override
                 public LoaderResult apply(List<Object> input) {
@@ -480,6 +588,34 @@ public class SimImportFragment extends Fragment
             });
         }
 
+        private ListenableFuture<LoaderResult> submitSimRead() {
+            return ContactsExecutors.getSimReadExecutor().submit(
+                    new Callable<LoaderResult>() {
+                @Override
+                public LoaderResult call() throws Exception {
+                    return loadFromSim();
+                }
+            });
+        }
+
+        private LoaderResult loadFromCache() {
+            // Cards may have been removed or swapped while the app wasn't running.
+            mSnapshotCache.retain(mDao.getSimCards());
+            final SimCard sim = mDao.getSimBySubscriptionId(mSubscriptionId);
+            if (sim == null) {
+                return null;
+            }
+            final SimContactSnapshotCache.Snapshot snapshot = mSnapshotCache.get(sim);
+            if (snapshot == null) {
+                return null;
+            }
+            final LoaderResult result = new LoaderResult();
+            result.contacts = snapshot.getContacts();
+            result.accountsMap = mDao.findAccountsOfExistingSimContacts(result.contacts);
+            result.fromCache = true;
+            return result;
+        }
+
         private LoaderResult loadFromSim() {
             final SimCard sim = mDao.getSimBySubscriptionId(mSubscriptionId);
             LoaderResult result = new LoaderResult();
@@ -489,6 +625,7 @@ public class SimImportFragment extends Fragment
                 return result;
             }
             result.contacts = mDao.loadContactsForSim(sim);
+            mSnapshotCache.put(sim, result.contacts);
             result.accountsMap = mDao.findAccountsOfExistingSimContacts(result.contacts);
             return result;
         }
@@ -498,5 +635,7 @@ public class SimImportFragment extends Fragment
         public List<AccountInfo> accounts;
         public ArrayList<SimContact> contacts;
         public Map<AccountWithDataSet, Set<SimContact>> accountsMap;
+        /** Whether the contacts came from the cache rather than from reading the SIM card. */
+        public boolean fromCache;
     }
 }
@@ -28,6 +28,7 @@ import android.os.RemoteException;
 import androidx.annotation.Nullable;
 import androidx.core.app.NotificationCompat;
 import androidx.localbroadcastmanager.content.LocalBroadcastManager;
+import android.util.SparseArray;
 import android.util.TimingLogger;
 
 import com.android.contacts.activities.PeopleActivity;
@@ -90,7 +91,12 @@ public class SimImportService extends Service {
     // bigger number to prevent overlap.
     private static final int NOTIFICATION_ID = 100;
 
-    private ExecutorService mExecutor = Executors.newSingleThreadExecutor();
+    // One executor per subscription so that SIM cards are imported concurrently while imports
+    // from the same SIM still run in the order they were requested.
+    private final SparseArray<ExecutorService> mExecutors = new SparseArray<>();
+
+    // The most recent start id. The service stops itself with it once nothing is pending.
+    private int mLastStartId;
 
     // Keeps track of current tasks. This is only modified from the UI thread.
     private static List<ImportTask> sPending = new ArrayList<>();
@@ -154,13 +160,14 @@ public class SimImportService extends Service {
     @Override
     public int onStartCommand(Intent intent, int flags, final int startId) {
         ContactsNotificationChannelsUtil.createDefaultChannel(this);
-        final ImportTask task = createTaskForIntent(intent, startId);
+        mLastStartId = startId;
+        final ImportTask task = createTaskForIntent(intent);
         if (task == null) {
-            new StopTask(this, startId).executeOnExecutor(mExecutor);
+            stopSelfIfIdle();
             return START_NOT_STICKY;
         }
         sPending.add(task);
-        task.executeOnExecutor(mExecutor);
+        task.executeOnExecutor(getExecutor(task.getSim()));
         notifyStateChanged();
         return START_REDELIVER_INTENT;
     }
@@ -168,10 +175,28 @@ public class SimImportService extends Service {
     @Override
     public void onDestroy() {
         super.onDestroy();
-        mExecutor.shutdown();
+        for (int i = 0; i < mExecutors.size(); i++) {
+            mExecutors.valueAt(i).shutdown();
+        }
+        mExecutors.clear();
+    }
+
+    private ExecutorService getExecutor(SimCard sim) {
+        ExecutorService executor = mExecutors.get(sim.getSubscriptionId());
+        if (executor == null) {
+            executor = Executors.newSingleThreadExecutor();
+            mExecutors.put(sim.getSubscriptionId(), executor);
+        }
+        return executor;
+    }
+
+    private void stopSelfIfIdle() {
+        if (sPending.isEmpty()) {
+            stopSelf(mLastStartId);
+        }
     }
 
-    private ImportTask createTaskForIntent(Intent intent, int startId) {
+    private ImportTask createTaskForIntent(Intent intent) {
         final AccountWithDataSet targetAccount = intent.getParcelableExtra(EXTRA_ACCOUNT);
         final ArrayList<SimContact> contacts =
                 intent.getParcelableArrayListExtra(EXTRA_SIM_CONTACTS);
@@ -181,7 +206,7 @@ public class SimImportService extends Service {
         final SimContactDao dao = SimContactDao.create(this);
         final SimCard sim = dao.getSimBySubscriptionId(subscriptionId);
         if (sim != null) {
-            return new ImportTask(sim, contacts, targetAccount, dao, startId);
+            return new ImportTask(sim, contacts, targetAccount, dao);
         } else {
             return null;
         }
@@ -215,11 +240,19 @@ public class SimImportService extends Service {
     }
 
     private Notification getImportingNotification() {
+        // Progress is combined across all the imports that are running.
+        int imported = 0;
+        int total = 0;
+        for (ImportTask task : sPending) {
+            imported += task.getImportedCount();
+            total += task.getTotalCount();
+        }
         final NotificationCompat.Builder builder = new NotificationCompat.Builder(
                 this, ContactsNotificationChannelsUtil.DEFAULT_CHANNEL);
         final String description = getString(R.string.importing_sim_in_progress_title);
         builder.setOngoing(true)
-                .setProgress(/* current */ 0, /* max */ 100, /* indeterminate */ true)
+                .setOnlyAlertOnce(true)
+                .setProgress(total, imported, /* indeterminate */ imported == 0)
                 .setContentTitle(description)
                 .setColor(this.getResources().getColor(R.color.dialtacts_theme_color))
                 .setSmallIcon(android.R.drawable.stat_sys_download);
@@ -231,47 +264,24 @@ public class SimImportService extends Service {
                 new Intent(BROADCAST_SERVICE_STATE_CHANGED));
     }
 
-    // Schedule a task that calls stopSelf when it completes. This is used to ensure that the
-    // calls to stopSelf occur in the correct order (because this service uses a single thread
-    // executor this won't run until all work that was requested before it has finished)
-    private static class StopTask extends AsyncTask<Void, Void, Void> {
-        private Service mHost;
-        private final int mStartId;
-
-        private StopTask(Service host, int startId) {
-            mHost = host;
-            mStartId = startId;
-        }
-
-        @Override
-        protected Void doInBackground(Void... params) {
-            return null;
-        }
-
-        @Override
-        protected void onPostExecute(Void aVoid) {
-            super.onPostExecute(aVoid);
-            mHost.stopSelf(mStartId);
-        }
-    }
-
-    private class ImportTask extends AsyncTask<Void, Void, Boolean> {
+    private class ImportTask extends AsyncTask<Void, Integer, Boolean>
+            implements SimContactDao.ImportProgressListener {
         private final SimCard mSim;
         private final List<SimContact> mContacts;
         private final AccountWithDataSet mTargetAccount;
         private final SimContactDao mDao;
         private final NotificationManager mNotificationManager;
-        private final int mStartId;
         private final long mStartTime;
+        // Only accessed from the UI thread.
+        private int mImportedCount;
 
         public ImportTask(SimCard sim, List<SimContact> contacts, AccountWithDataSet targetAccount,
-                SimContactDao dao, int startId) {
+                SimContactDao dao) {
             mSim = sim;
             mContacts = contacts;
             mTargetAccount = targetAccount;
             mDao = dao;
             mNotificationManager = (NotificationManager) getSystemService(NOTIFICATION_SERVICE);
-            mStartId = startId;
             mStartTime = System.currentTimeMillis();
         }
 
@@ -285,12 +295,11 @@ public class SimImportService extends Service {
         protected Boolean doInBackground(Void... params) {
             final TimingLogger timer = new TimingLogger(TAG, "import");
             try {
-                // Just import them all at once.
                 // Experimented with using smaller batches (e.g. 25 and 50) so that percentage
                 // progress could be displayed however this slowed down the import by over a factor
-                // of 2. If the batch size is over a 100 then most cases will only require a single
-                // batch so we don't even worry about displaying accurate progress
-                mDao.importContacts(mContacts, mTargetAccount);
+                // of 2. So progress is only reported for each of the dao's large batches, which
+                // for most SIM cards means a single update.
+                mDao.importContacts(mContacts, mTargetAccount, this);
                 mDao.persistSimState(mSim.withImportedState(true));
                 timer.addSplit("done");
                 timer.dumpToLog();
@@ -302,14 +311,34 @@ public class SimImportService extends Service {
             return true;
         }
 
+        @Override
+        public void onContactsImported(int importedCount, int totalCount) {
+            publishProgress(importedCount);
+        }
+
+        @Override
+        protected void onProgressUpdate(Integer... values) {
+            mImportedCount = values[0];
+            if (mImportedCount < mContacts.size()) {
+                mNotificationManager.notify(NOTIFICATION_ID, getImportingNotification());
+            }
+        }
+
         public SimCard getSim() {
             return mSim;
         }
 
+        int getImportedCount() {
+            return mImportedCount;
+        }
+
+        int getTotalCount() {
+            return mContacts.size();
+        }
+
         @Override
         protected void onPostExecute(Boolean success) {
             super.onPostExecute(success);
-            stopSelf(mStartId);
 
             Intent result;
             final Notification notification;
@@ -341,6 +370,7 @@ public class SimImportService extends Service {
                 mNotificationManager.notify(NOTIFICATION_ID, notification);
             }
             notifyStateChanged();
+            stopSelfIfIdle();
         }
     }
 }
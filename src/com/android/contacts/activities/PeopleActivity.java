@@ -91,6 +91,8 @@ import com.android.contacts.util.Constants;
 import com.android.contacts.util.ImplicitIntentsUtil;
 import com.android.contacts.util.MaterialColorMapUtils;
 import com.android.contacts.util.SharedPreferenceUtil;
+import com.android.contacts.util.StartupMode;
+import com.android.contacts.util.StartupTracer;
 import com.android.contacts.util.SyncUtil;
 import com.android.contacts.util.ViewUtil;
 import com.android.contacts.widget.FloatingActionButtonController;
@@ -346,24 +348,43 @@ public class PeopleActivity extends AppCompatContactsActivity implements
         if (Log.isLoggable(Constants.PERFORMANCE_TAG, Log.DEBUG)) {
             Log.d(Constants.PERFORMANCE_TAG, "PeopleActivity.onCreate start");
         }
+        final StartupTracer tracer = StartupTracer.getInstance();
+        final StartupTracer.Span onCreateSpan = tracer.beginSpan("PeopleActivity.onCreate");
 
         // Make sure this is *before* calling super.onCreate
         setTheme(R.style.PeopleActivityTheme);
         super.onCreate(savedState);
 
+        StartupTracer.Span span = tracer.beginSpan("AccountTypeManager.getInstance");
         mAccountTypeManager = AccountTypeManager.getInstance(this);
+        span.end();
+        span = tracer.beginSpan("ContactListFilterController.getInstance");
         mContactListFilterController = ContactListFilterController.getInstance(this);
+        span.end();
 
         RequestPermissionsActivity.startPermissionActivityIfNeeded(this);
 
         if (!processIntent(false)) {
+            onCreateSpan.end();
             finish();
             return;
         }
 
-        mContactListFilterController.checkFilterValidity(false);
-
+        span = tracer.beginSpan("PeopleActivity.setContentView");
         super.setContentView(R.layout.contacts_drawer_activity);
+        span.end();
+
+        // The filter is only invalid if its account was removed, in which case the listener
+        // reloads the list, so this can wait for the first frame in the deferred startup mode.
+        StartupMode.runAfterFirstFrameIfDeferred(this, new Runnable() {
+            @Override
+            public void run() {
+                final StartupTracer.Span span = StartupTracer.getInstance()
+                        .beginSpan("ContactListFilterController.checkFilterValidity");
+                mContactListFilterController.checkFilterValidity(false);
+                span.end();
+            }
+        });
 
         // Set up the action bar.
         mToolbar = getView(R.id.toolbar);
@@ -373,6 +394,7 @@ public class PeopleActivity extends AppCompatContactsActivity implements
         ViewUtil.addRectangularOutlineProvider(findViewById(R.id.toolbar_parent), getResources());
 
         // Set up hamburger button.
+        span = tracer.beginSpan("PeopleActivity.initializeDrawer");
         mDrawerLayout = (DrawerLayout) findViewById(R.id.drawer_layout);
         mDrawerFragment = (DrawerFragment) getFragmentManager().findFragmentById(R.id.drawer);
         mToggle = new ContactsActionBarDrawerToggle(this, mDrawerLayout, mToolbar,
@@ -385,6 +407,7 @@ public class PeopleActivity extends AppCompatContactsActivity implements
                 onBackPressed();
             }
         });
+        span.end();
 
         // Set up navigation mode.
         if (savedState != null) {
@@ -407,12 +430,15 @@ public class PeopleActivity extends AppCompatContactsActivity implements
             mGroupUri = savedState.getParcelable(KEY_GROUP_URI);
         }
 
+        span = tracer.beginSpan("PeopleActivity.createViewsAndFragments");
         createViewsAndFragments();
+        span.end();
 
         if (Log.isLoggable(Constants.PERFORMANCE_TAG, Log.DEBUG)) {
             Log.d(Constants.PERFORMANCE_TAG, "PeopleActivity.onCreate finish");
         }
         getWindow().setBackgroundDrawable(null);
+        onCreateSpan.end();
     }
 
     @Override
@@ -604,6 +630,8 @@ public class PeopleActivity extends AppCompatContactsActivity implements
 
     @Override
     protected void onResume() {
+        final StartupTracer.Span onResumeSpan =
+                StartupTracer.getInstance().beginSpan("PeopleActivity.onResume");
         super.onResume();
 
         if (mDrawerLayout.isDrawerOpen(GravityCompat.START)) {
@@ -614,7 +642,10 @@ public class PeopleActivity extends AppCompatContactsActivity implements
             switchToAllContacts();
         }
 
+        final StartupTracer.Span span =
+                StartupTracer.getInstance().beginSpan("ProviderStatusWatcher.start");
         mProviderStatusWatcher.start();
+        span.end();
         updateViewConfiguration(true);
 
         mStatusChangeListenerHandle = ContentResolver.addStatusChangeListener(
@@ -630,6 +661,7 @@ public class PeopleActivity extends AppCompatContactsActivity implements
         mSaveServiceListener = new SaveServiceListener();
         LocalBroadcastManager.getInstance(this).registerReceiver(mSaveServiceListener,
                 new IntentFilter(ContactSaveService.BROADCAST_GROUP_DELETED));
+        onResumeSpan.end();
     }
 
     public void updateStatusBarBackground() {
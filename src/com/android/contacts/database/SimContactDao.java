@@ -39,6 +39,16 @@ import java.util.Set;
  */
 public abstract class SimContactDao {
 
+    /**
+     * Receives progress updates while SIM contacts are imported.
+     */
+    public interface ImportProgressListener {
+        /**
+         * Called from the importing thread after each batch of contacts is committed.
+         */
+        void onContactsImported(int importedCount, int totalCount);
+    }
+
     // Set to true for manual testing on an emulator or phone without a SIM card
     // DO NOT SUBMIT if set to true
     private static final boolean USE_FAKE_INSTANCE = false;
@@ -97,6 +107,18 @@ public abstract class SimContactDao {
             AccountWithDataSet targetAccount)
             throws RemoteException, OperationApplicationException;
 
+    /**
+     * Imports the contacts like {@link #importContacts(List, AccountWithDataSet)} reporting
+     * progress to {@code listener} as batches are committed.
+     */
+    public ContentProviderResult[] importContacts(List<SimContact> contacts,
+            AccountWithDataSet targetAccount, ImportProgressListener listener)
+            throws RemoteException, OperationApplicationException {
+        final ContentProviderResult[] results = importContacts(contacts, targetAccount);
+        listener.onContactsImported(contacts.size(), contacts.size());
+        return results;
+    }
+
     public abstract void persistSimStates(List<SimCard> simCards);
 
     public abstract SimCard getSimBySubscriptionId(int subscriptionId);
@@ -47,16 +47,22 @@ import com.android.contacts.model.SimContact;
 import com.android.contacts.model.account.AccountWithDataSet;
 import com.android.contacts.util.PermissionsUtil;
 import com.android.contacts.util.SharedPreferenceUtil;
-import com.google.common.base.Joiner;
+import com.android.contacts.util.concurrent.ContactsExecutors;
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.Uninterruptibles;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 /**
  * Provides data access methods for loading contacts from a SIM card and and migrating these
@@ -71,10 +77,6 @@ public class SimContactDaoImpl extends SimContactDao {
     // to work on any phone.
     private static final int IMPORT_MAX_BATCH_SIZE = 300;
 
-    // How many SIM contacts to consider in a single query. This prevents hitting the SQLite
-    // query parameter limit.
-    static final int QUERY_MAX_BATCH_SIZE = 100;
-
     @VisibleForTesting
     public static final Uri ICC_CONTENT_URI = Uri.parse("content://icc/adn");
 
@@ -158,6 +160,32 @@ public class SimContactDaoImpl extends SimContactDao {
         return results.toArray(new ContentProviderResult[results.size()]);
     }
 
+    /**
+     * Imports the contacts in batches, building the operations for the next batch on the default
+     * thread pool while the current batch is being applied.
+     */
+    @Override
+    public ContentProviderResult[] importContacts(List<SimContact> contacts,
+            final AccountWithDataSet targetAccount, ImportProgressListener listener)
+            throws RemoteException, OperationApplicationException {
+        if (contacts.isEmpty()) {
+            return new ContentProviderResult[0];
+        }
+        final List<ContentProviderResult> results = new ArrayList<>(contacts.size());
+        Future<ArrayList<ContentProviderOperation>> next =
+                buildImportOperationsAsync(contacts, 0, targetAccount);
+        for (int i = 0; i < contacts.size(); i += IMPORT_MAX_BATCH_SIZE) {
+            final ArrayList<ContentProviderOperation> ops = getUninterruptibly(next);
+            final int end = Math.min(contacts.size(), i + IMPORT_MAX_BATCH_SIZE);
+            if (end < contacts.size()) {
+                next = buildImportOperationsAsync(contacts, end, targetAccount);
+            }
+            results.addAll(Arrays.asList(mResolver.applyBatch(ContactsContract.AUTHORITY, ops)));
+            listener.onContactsImported(end, contacts.size());
+        }
+        return results.toArray(new ContentProviderResult[results.size()]);
+    }
+
     public void persistSimState(SimCard sim) {
         SharedPreferenceUtil.persistSimStates(mContext, Collections.singletonList(sim));
     }
@@ -188,59 +216,41 @@ public class SimContactDaoImpl extends SimContactDao {
     public Map<AccountWithDataSet, Set<SimContact>> findAccountsOfExistingSimContacts(
             List<SimContact> contacts) {
         final Map<AccountWithDataSet, Set<SimContact>> result = new ArrayMap<>();
-        for (int i = 0; i < contacts.size(); i += QUERY_MAX_BATCH_SIZE) {
-            findAccountsOfExistingSimContacts(
-                    contacts.subList(i, Math.min(contacts.size(), i + QUERY_MAX_BATCH_SIZE)),
-                    result);
+        if (contacts.isEmpty()) {
+            return result;
         }
-        return result;
-    }
-
-    private void findAccountsOfExistingSimContacts(List<SimContact> contacts,
-            Map<AccountWithDataSet, Set<SimContact>> result) {
-        final Map<Long, List<SimContact>> rawContactToSimContact = new HashMap<>();
-        Collections.sort(contacts, SimContact.compareByPhoneThenName());
-
-        final Cursor dataCursor = queryRawContactsForSimContacts(contacts);
+        final SimContactIndex index = new SimContactIndex(contacts, getCountryIso());
 
+        // A single pass over the phone (and if needed name) rows of CP2, each looked up in the
+        // index, instead of a query per batch of SIM contacts with their numbers as arguments.
+        final Cursor dataCursor = queryDataForSimContactMatching(index.hasNameOnlyContacts());
+        if (dataCursor == null) {
+            return result;
+        }
         try {
             while (dataCursor.moveToNext()) {
-                final String number = DataQuery.getPhoneNumber(dataCursor);
-                final String name = DataQuery.getDisplayName(dataCursor);
-
-                final int index = SimContact.findByPhoneAndName(contacts, number, name);
-                if (index < 0) {
+                final Collection<SimContact> matches = DataQuery.isPhoneNumber(dataCursor)
+                        ? index.findByPhone(DataQuery.getPhoneNumber(dataCursor),
+                                DataQuery.getNormalizedPhoneNumber(dataCursor),
+                                DataQuery.getDisplayName(dataCursor))
+                        : index.findByName(DataQuery.getDisplayName(dataCursor));
+                if (matches.isEmpty()) {
                     continue;
                 }
-                final SimContact contact = contacts.get(index);
-                final long id = DataQuery.getRawContactId(dataCursor);
-                if (!rawContactToSimContact.containsKey(id)) {
-                    rawContactToSimContact.put(id, new ArrayList<SimContact>());
+                final AccountWithDataSet account = DataQuery.getAccount(dataCursor);
+                Set<SimContact> existing = result.get(account);
+                if (existing == null) {
+                    existing = new HashSet<>();
+                    result.put(account, existing);
                 }
-                rawContactToSimContact.get(id).add(contact);
+                existing.addAll(matches);
             }
         } finally {
             dataCursor.close();
         }
-
-        final Cursor accountsCursor = queryAccountsOfRawContacts(rawContactToSimContact.keySet());
-        try {
-            while (accountsCursor.moveToNext()) {
-                final AccountWithDataSet account = AccountQuery.getAccount(accountsCursor);
-                final long id = AccountQuery.getId(accountsCursor);
-                if (!result.containsKey(account)) {
-                    result.put(account, new HashSet<SimContact>());
-                }
-                for (SimContact contact : rawContactToSimContact.get(id)) {
-                    result.get(account).add(contact);
-                }
-            }
-        } finally {
-            accountsCursor.close();
-        }
+        return result;
     }
 
-
     private ContentProviderResult[] importBatch(List<SimContact> contacts,
             AccountWithDataSet targetAccount)
             throws RemoteException, OperationApplicationException {
@@ -310,77 +320,49 @@ public class SimContactDaoImpl extends SimContactDao {
         return result;
     }
 
-    private Cursor queryRawContactsForSimContacts(List<SimContact> contacts) {
-        final StringBuilder selectionBuilder = new StringBuilder();
-
-        int phoneCount = 0;
-        int nameCount = 0;
-        for (SimContact contact : contacts) {
-            if (contact.hasPhone()) {
-                phoneCount++;
-            } else if (contact.hasName()) {
-                nameCount++;
-            }
-        }
-        List<String> selectionArgs = new ArrayList<>(phoneCount + 1);
-
-        selectionBuilder.append('(');
-        selectionBuilder.append(Data.MIMETYPE).append("=? AND ");
-        selectionArgs.add(Phone.CONTENT_ITEM_TYPE);
-
-        selectionBuilder.append(Phone.NUMBER).append(" IN (")
-                .append(Joiner.on(',').join(Collections.nCopies(phoneCount, '?')))
-                .append(')');
-        for (SimContact contact : contacts) {
-            if (contact.hasPhone()) {
-                selectionArgs.add(contact.getPhone());
-            }
-        }
-        selectionBuilder.append(')');
-
-        if (nameCount > 0) {
-            selectionBuilder.append(" OR (");
-
-            selectionBuilder.append(Data.MIMETYPE).append("=? AND ");
-            selectionArgs.add(StructuredName.CONTENT_ITEM_TYPE);
-
-            selectionBuilder.append(Data.DISPLAY_NAME).append(" IN (")
-                    .append(Joiner.on(',').join(Collections.nCopies(nameCount, '?')))
-                    .append(')');
-            for (SimContact contact : contacts) {
-                if (!contact.hasPhone() && contact.hasName()) {
-                    selectionArgs.add(contact.getName());
-                }
-            }
-            selectionBuilder.append(')');
+    private Cursor queryDataForSimContactMatching(boolean includeNames) {
+        final String selection;
+        final String[] selectionArgs;
+        if (includeNames) {
+            selection = Data.MIMETYPE + " IN (?,?)";
+            selectionArgs = new String[] {
+                    Phone.CONTENT_ITEM_TYPE, StructuredName.CONTENT_ITEM_TYPE };
+        } else {
+            selection = Data.MIMETYPE + "=?";
+            selectionArgs = new String[] { Phone.CONTENT_ITEM_TYPE };
         }
-
         return mResolver.query(Data.CONTENT_URI.buildUpon()
                         .appendQueryParameter(Data.VISIBLE_CONTACTS_ONLY, "true")
                         .build(),
-                DataQuery.PROJECTION,
-                selectionBuilder.toString(),
-                selectionArgs.toArray(new String[selectionArgs.size()]),
-                null);
+                DataQuery.PROJECTION, selection, selectionArgs, null);
     }
 
-    private Cursor queryAccountsOfRawContacts(Set<Long> ids) {
-        final StringBuilder selectionBuilder = new StringBuilder();
+    private String getCountryIso() {
+        final String countryIso = mTelephonyManager != null
+                ? mTelephonyManager.getSimCountryIso() : null;
+        return TextUtils.isEmpty(countryIso) ? null : countryIso.toUpperCase(Locale.US);
+    }
 
-        final String[] args = new String[ids.size()];
+    private Future<ArrayList<ContentProviderOperation>> buildImportOperationsAsync(
+            List<SimContact> contacts, int start, final AccountWithDataSet targetAccount) {
+        final List<SimContact> batch = contacts.subList(start,
+                Math.min(contacts.size(), start + IMPORT_MAX_BATCH_SIZE));
+        return ContactsExecutors.getDefaultThreadPoolExecutor().submit(
+                new Callable<ArrayList<ContentProviderOperation>>() {
+                    @Override
+                    public ArrayList<ContentProviderOperation> call() {
+                        return createImportOperations(batch, targetAccount);
+                    }
+                });
+    }
 
-        selectionBuilder.append(RawContacts._ID).append(" IN (")
-                .append(Joiner.on(',').join(Collections.nCopies(args.length, '?')))
-                .append(")");
-        int i = 0;
-        for (long id : ids) {
-            args[i++] = String.valueOf(id);
+    private static <V> V getUninterruptibly(Future<V> future) {
+        try {
+            return Uninterruptibles.getUninterruptibly(future);
+        } catch (ExecutionException e) {
+            Throwables.propagateIfPossible(e.getCause());
+            throw new IllegalStateException(e.getCause());
         }
-        return mResolver.query(RawContacts.CONTENT_URI,
-                AccountQuery.PROJECTION,
-                selectionBuilder.toString(),
-                args,
-                null);
     }
 
     private ArrayList<ContentProviderOperation> createImportOperations(List<SimContact> contacts,
@@ -442,22 +424,26 @@ public class SimContactDaoImpl extends SimContactDao {
     private static final class DataQuery {
 
         public static final String[] PROJECTION = new String[] {
-                Data.RAW_CONTACT_ID, Phone.NUMBER, Data.DISPLAY_NAME, Data.MIMETYPE
+                Phone.NUMBER, Phone.NORMALIZED_NUMBER, Data.DISPLAY_NAME, Data.MIMETYPE,
+                RawContacts.ACCOUNT_NAME, RawContacts.ACCOUNT_TYPE, RawContacts.DATA_SET
         };
 
-        public static final int RAW_CONTACT_ID = 0;
-        public static final int PHONE_NUMBER = 1;
+        public static final int PHONE_NUMBER = 0;
+        public static final int NORMALIZED_PHONE_NUMBER = 1;
         public static final int DISPLAY_NAME = 2;
         public static final int MIMETYPE = 3;
-
-        public static long getRawContactId(Cursor cursor) {
-            return cursor.getLong(RAW_CONTACT_ID);
-        }
+        public static final int ACCOUNT_NAME = 4;
+        public static final int ACCOUNT_TYPE = 5;
+        public static final int DATA_SET = 6;
 
         public static String getPhoneNumber(Cursor cursor) {
             return isPhoneNumber(cursor) ? cursor.getString(PHONE_NUMBER) : null;
         }
 
+        public static String getNormalizedPhoneNumber(Cursor cursor) {
+            return isPhoneNumber(cursor) ? cursor.getString(NORMALIZED_PHONE_NUMBER) : null;
+        }
+
         public static String getDisplayName(Cursor cursor) {
             return cursor.getString(DISPLAY_NAME);
         }
@@ -465,21 +451,10 @@ public class SimContactDaoImpl extends SimContactDao {
         public static boolean isPhoneNumber(Cursor cursor) {
             return Phone.CONTENT_ITEM_TYPE.equals(cursor.getString(MIMETYPE));
         }
-    }
-
-    private static final class AccountQuery {
-        public static final String[] PROJECTION = new String[] {
-                RawContacts._ID, RawContacts.ACCOUNT_NAME, RawContacts.ACCOUNT_TYPE,
-                RawContacts.DATA_SET
-        };
-
-        public static long getId(Cursor cursor) {
-            return cursor.getLong(0);
-        }
 
         public static AccountWithDataSet getAccount(Cursor cursor) {
-            return new AccountWithDataSet(cursor.getString(1), cursor.getString(2),
-                    cursor.getString(3));
+            return new AccountWithDataSet(cursor.getString(ACCOUNT_NAME),
+                    cursor.getString(ACCOUNT_TYPE), cursor.getString(DATA_SET));
         }
     }
 }
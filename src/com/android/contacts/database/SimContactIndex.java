@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.contacts.database;
+
+import android.telephony.PhoneNumberUtils;
+import android.text.TextUtils;
+
+import com.android.contacts.model.SimContact;
+import com.android.contacts.util.PhoneNumberHelper;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Hash index of SIM contacts by phone number and name used to find the SIM contacts that
+ * already exist in CP2 while streaming over its data rows.
+ *
+ * <p>A SIM contact with a phone number matches a phone row with the same name and the same
+ * number, where numbers are compared both in E.164 form and as plain digits so that differences
+ * in formatting don't matter. A SIM contact without a phone number matches a structured name row
+ * with the same display name.</p>
+ */
+final class SimContactIndex {
+
+    // Separates the number from the name in keys and starts name-only keys, so a key for a
+    // (non-empty) number never equals a name-only key.
+    private static final char SEPARATOR = '\u0000';
+
+    private final String mCountryIso;
+    private final Map<String, List<SimContact>> mContactsByKey = new HashMap<>();
+    private boolean mHasNameOnlyContacts;
+
+    /**
+     * @param countryIso used to convert numbers without a country code to E.164. May be null.
+     */
+    SimContactIndex(Collection<SimContact> contacts, String countryIso) {
+        mCountryIso = countryIso;
+        for (SimContact contact : contacts) {
+            if (contact.hasPhone()) {
+                final String digits = PhoneNumberHelper.normalizeNumber(contact.getPhone());
+                final String e164 = toE164(contact.getPhone());
+                if (!digits.isEmpty()) {
+                    add(phoneKey(digits, contact.getName()), contact);
+                }
+                if (e164 != null && !e164.equals(digits)) {
+                    add(phoneKey(e164, contact.getName()), contact);
+                }
+            } else if (contact.hasName()) {
+                add(nameKey(contact.getName()), contact);
+                mHasNameOnlyContacts = true;
+            }
+        }
+    }
+
+    /**
+     * Whether any SIM contact can only be matched by name.
+     */
+    boolean hasNameOnlyContacts() {
+        return mHasNameOnlyContacts;
+    }
+
+    /**
+     * Returns the SIM contacts that match a CP2 phone row.
+     *
+     * @param number the number as entered
+     * @param normalizedNumber the E.164 number computed by CP2. May be null.
+     * @param name the display name of the contact
+     */
+    Collection<SimContact> findByPhone(String number, String normalizedNumber, String name) {
+        if (TextUtils.isEmpty(number)) {
+            return Collections.emptyList();
+        }
+        final String digits = PhoneNumberHelper.normalizeNumber(number);
+        final List<SimContact> byDigits = !digits.isEmpty()
+                ? mContactsByKey.get(phoneKey(digits, name)) : null;
+        final List<SimContact> byE164 = !TextUtils.isEmpty(normalizedNumber)
+                ? mContactsByKey.get(phoneKey(normalizedNumber, name)) : null;
+        if (byE164 == null || byE164 == byDigits) {
+            return byDigits != null ? byDigits : Collections.<SimContact>emptyList();
+        }
+        if (byDigits == null) {
+            return byE164;
+        }
+        final Set<SimContact> union = new LinkedHashSet<>(byDigits);
+        union.addAll(byE164);
+        return union;
+    }
+
+    /**
+     * Returns the SIM contacts without a phone number that match a CP2 structured name row.
+     */
+    Collection<SimContact> findByName(String displayName) {
+        final List<SimContact> matches = mContactsByKey.get(nameKey(displayName));
+        return matches != null ? matches : Collections.<SimContact>emptyList();
+    }
+
+    private void add(String key, SimContact contact) {
+        List<SimContact> contacts = mContactsByKey.get(key);
+        if (contacts == null) {
+            contacts = new ArrayList<>(1);
+            mContactsByKey.put(key, contacts);
+        }
+        contacts.add(contact);
+    }
+
+    private String toE164(String number) {
+        if (mCountryIso == null) {
+            return null;
+        }
+        return PhoneNumberUtils.formatNumberToE164(number, mCountryIso);
+    }
+
+    private static String phoneKey(String number, String name) {
+        return number + SEPARATOR + (name != null ? name : "");
+    }
+
+    private static String nameKey(String name) {
+        return SEPARATOR + (name != null ? name : "");
+    }
+}
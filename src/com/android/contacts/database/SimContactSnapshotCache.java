@@ -0,0 +1,349 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.contacts.database;
+
+import android.content.Context;
+import android.util.AtomicFile;
+import android.util.Log;
+import androidx.annotation.VisibleForTesting;
+import androidx.annotation.WorkerThread;
+
+import com.android.contacts.model.SimCard;
+import com.android.contacts.model.SimContact;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Keeps the contacts last read from each SIM card so that they can be shown immediately while
+ * the SIM, which can take seconds to read, is read again in the background.
+ *
+ * <p>Snapshots are stored per subscription and SIM card, in a file named after the
+ * subscription and a hash of the ICCID, so they are only returned for the card they were read
+ * from. They hold names and numbers, so they are kept in the no-backup directory rather than the
+ * cache, and the snapshot of a card is deleted as soon as another card is seen in its slot or
+ * the card is no longer present. A fingerprint of the record count and contents is kept with
+ * each snapshot so that re-reading an unchanged SIM does not rewrite it.</p>
+ */
+public class SimContactSnapshotCache {
+    private static final String TAG = "SimSnapshotCache";
+
+    private static final String DIRECTORY_NAME = "sim_contacts";
+
+    private static final String KEY_SIM_ID = "simId";
+    private static final String KEY_COUNT = "count";
+    private static final String KEY_HASH = "hash";
+    private static final String KEY_CONTACTS = "contacts";
+    private static final String KEY_ID = "id";
+    private static final String KEY_NAME = "name";
+    private static final String KEY_PHONE = "phone";
+    private static final String KEY_EMAILS = "emails";
+
+    /**
+     * The contacts read from a SIM along with their fingerprint.
+     */
+    public static final class Snapshot {
+        private final String mSimId;
+        private final List<SimContact> mContacts;
+        private final int mCount;
+        private final int mHash;
+
+        Snapshot(String simId, List<SimContact> contacts) {
+            mSimId = simId;
+            mContacts = new ArrayList<>(contacts);
+            mCount = contacts.size();
+            mHash = computeHash(contacts);
+        }
+
+        public ArrayList<SimContact> getContacts() {
+            return new ArrayList<>(mContacts);
+        }
+
+        public boolean isSameAs(Snapshot other) {
+            return other != null && mCount == other.mCount && mHash == other.mHash
+                    && Objects.equals(mSimId, other.mSimId);
+        }
+
+        private static int computeHash(List<SimContact> contacts) {
+            int hash = 1;
+            for (SimContact contact : contacts) {
+                hash = 31 * hash + contact.hashCode();
+            }
+            return hash;
+        }
+    }
+
+    private static SimContactSnapshotCache sInstance;
+
+    private final File mDirectory;
+    private final Map<String, Snapshot> mSnapshots = new HashMap<>();
+
+    public static synchronized SimContactSnapshotCache getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = new SimContactSnapshotCache(
+                    new File(context.getApplicationContext().getNoBackupFilesDir(),
+                            DIRECTORY_NAME));
+        }
+        return sInstance;
+    }
+
+    @VisibleForTesting
+    SimContactSnapshotCache(File directory) {
+        mDirectory = directory;
+    }
+
+    /**
+     * Returns the contacts last read from {@code sim}, or null if there are none. Deletes the
+     * snapshots of other SIM cards that were in the same slot.
+     */
+    @WorkerThread
+    public synchronized Snapshot get(SimCard sim) {
+        final String key = getKey(sim);
+        deleteSnapshots(getSlotPrefix(sim.getSubscriptionId()), key);
+        Snapshot snapshot = mSnapshots.get(key);
+        if (snapshot == null) {
+            snapshot = restore(key);
+            if (snapshot == null) {
+                return null;
+            }
+            mSnapshots.put(key, snapshot);
+        }
+        return Objects.equals(snapshot.mSimId, sim.getSimId()) ? snapshot : null;
+    }
+
+    /**
+     * Stores the contacts read from {@code sim}. Returns false without touching storage if they
+     * are the same as the cached snapshot.
+     */
+    @WorkerThread
+    public synchronized boolean put(SimCard sim, List<SimContact> contacts) {
+        final Snapshot snapshot = new Snapshot(sim.getSimId(), contacts);
+        if (snapshot.isSameAs(get(sim))) {
+            return false;
+        }
+        final String key = getKey(sim);
+        mSnapshots.put(key, snapshot);
+        persist(key, snapshot);
+        return true;
+    }
+
+    /**
+     * Drops the snapshots of the SIM cards that aren't in {@code sims}, e.g. of cards that were
+     * removed while the app wasn't running.
+     */
+    @WorkerThread
+    public synchronized void retain(List<SimCard> sims) {
+        final Set<String> keys = new HashSet<>();
+        for (SimCard sim : sims) {
+            keys.add(getKey(sim));
+        }
+        mSnapshots.keySet().retainAll(keys);
+        final File[] files = mDirectory.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (!keys.contains(getKeyOfFile(file)) && !file.delete()) {
+                Log.w(TAG, "Failed to delete " + file.getName());
+            }
+        }
+    }
+
+    /**
+     * Drops every snapshot, e.g. when a SIM card is inserted or removed.
+     */
+    @WorkerThread
+    public synchronized void invalidate() {
+        mSnapshots.clear();
+        final File[] files = mDirectory.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (!file.delete()) {
+                Log.w(TAG, "Failed to delete " + file.getName());
+            }
+        }
+    }
+
+    /**
+     * Drops the snapshot of the SIM card in the slot of {@code subscriptionId}, e.g. when that
+     * card is removed or reloaded.
+     */
+    @WorkerThread
+    public synchronized void invalidate(int subscriptionId) {
+        deleteSnapshots(getSlotPrefix(subscriptionId), null);
+    }
+
+    /**
+     * Deletes the snapshots whose key starts with {@code prefix}, except {@code keepKey}.
+     */
+    private void deleteSnapshots(String prefix, String keepKey) {
+        final Iterator<String> keys = mSnapshots.keySet().iterator();
+        while (keys.hasNext()) {
+            final String key = keys.next();
+            if (key.startsWith(prefix) && !key.equals(keepKey)) {
+                keys.remove();
+            }
+        }
+        final File[] files = mDirectory.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            final String key = getKeyOfFile(file);
+            if (key.startsWith(prefix) && !key.equals(keepKey) && !file.delete()) {
+                Log.w(TAG, "Failed to delete " + file.getName());
+            }
+        }
+    }
+
+    private static String getKey(SimCard sim) {
+        // The ICCID is hashed so that it isn't stored in a file name.
+        return getSlotPrefix(sim.getSubscriptionId())
+                + (sim.getSimId() == null ? "" : hash(sim.getSimId()));
+    }
+
+    private static String getSlotPrefix(int subscriptionId) {
+        return "sub_" + subscriptionId + "_";
+    }
+
+    /**
+     * Returns the key of a snapshot file or of the backup and new files of its AtomicFile.
+     */
+    private static String getKeyOfFile(File file) {
+        final String name = file.getName();
+        final int extension = name.indexOf('.');
+        return extension < 0 ? name : name.substring(0, extension);
+    }
+
+    private static String hash(String simId) {
+        try {
+            final byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(simId.getBytes(StandardCharsets.UTF_8));
+            final StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xf, 16))
+                        .append(Character.forDigit(b & 0xf, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            // Every Android device provides SHA-256.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Snapshot restore(String key) {
+        final File file = new File(mDirectory, key);
+        if (!file.exists()) {
+            return null;
+        }
+        final AtomicFile atomicFile = new AtomicFile(file);
+        try {
+            final JSONObject json = new JSONObject(
+                    new String(atomicFile.readFully(), StandardCharsets.UTF_8));
+            final JSONArray contactsJson = json.getJSONArray(KEY_CONTACTS);
+            final List<SimContact> contacts = new ArrayList<>(contactsJson.length());
+            for (int i = 0; i < contactsJson.length(); i++) {
+                contacts.add(contactFromJson(contactsJson.getJSONObject(i)));
+            }
+            final Snapshot snapshot = new Snapshot(json.getString(KEY_SIM_ID), contacts);
+            if (snapshot.mCount != json.getInt(KEY_COUNT)
+                    || snapshot.mHash != json.getInt(KEY_HASH)) {
+                throw new JSONException("Fingerprint mismatch");
+            }
+            return snapshot;
+        } catch (IOException | JSONException e) {
+            Log.w(TAG, "Discarding unreadable SIM snapshot " + key, e);
+            atomicFile.delete();
+            return null;
+        }
+    }
+
+    private void persist(String key, Snapshot snapshot) {
+        if (!mDirectory.isDirectory() && !mDirectory.mkdirs()) {
+            Log.w(TAG, "Failed to create " + mDirectory);
+            return;
+        }
+        final AtomicFile atomicFile = new AtomicFile(new File(mDirectory, key));
+        FileOutputStream out = null;
+        try {
+            final JSONArray contactsJson = new JSONArray();
+            for (SimContact contact : snapshot.mContacts) {
+                contactsJson.put(contactToJson(contact));
+            }
+            final JSONObject json = new JSONObject();
+            json.put(KEY_SIM_ID, snapshot.mSimId);
+            json.put(KEY_COUNT, snapshot.mCount);
+            json.put(KEY_HASH, snapshot.mHash);
+            json.put(KEY_CONTACTS, contactsJson);
+
+            out = atomicFile.startWrite();
+            out.write(json.toString().getBytes(StandardCharsets.UTF_8));
+            atomicFile.finishWrite(out);
+        } catch (IOException | JSONException e) {
+            Log.w(TAG, "Failed to write SIM snapshot " + key, e);
+            if (out != null) {
+                atomicFile.failWrite(out);
+            }
+        }
+    }
+
+    private static JSONObject contactToJson(SimContact contact) throws JSONException {
+        final JSONObject json = new JSONObject();
+        json.put(KEY_ID, contact.getId());
+        json.putOpt(KEY_NAME, contact.getName());
+        json.putOpt(KEY_PHONE, contact.getPhone());
+        if (contact.hasEmails()) {
+            final JSONArray emails = new JSONArray();
+            for (String email : contact.getEmails()) {
+                emails.put(email);
+            }
+            json.put(KEY_EMAILS, emails);
+        }
+        return json;
+    }
+
+    private static SimContact contactFromJson(JSONObject json) throws JSONException {
+        final JSONArray emailsJson = json.optJSONArray(KEY_EMAILS);
+        String[] emails = null;
+        if (emailsJson != null) {
+            emails = new String[emailsJson.length()];
+            for (int i = 0; i < emails.length; i++) {
+                emails[i] = emailsJson.getString(i);
+            }
+        }
+        return new SimContact(json.getLong(KEY_ID),
+                json.has(KEY_NAME) ? json.getString(KEY_NAME) : null,
+                json.has(KEY_PHONE) ? json.getString(KEY_PHONE) : null, emails);
+    }
+}
@@ -0,0 +1,316 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.contacts.editor;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.database.ContentObserver;
+import android.database.Cursor;
+import android.provider.ContactsContract.Contacts;
+import android.text.TextUtils;
+import android.util.Log;
+import androidx.annotation.VisibleForTesting;
+import androidx.annotation.WorkerThread;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * An in memory index from the name tokens of all contacts to their IDs, used to find aggregation
+ * suggestions while a name is typed in the editor without querying CP2 on every pause.
+ *
+ * <p>The index is built from the display names and phonetic names of the contacts table, which
+ * is what the contact list shows. Names are lower cased and stripped of accents and punctuation,
+ * and a Soundex key of each Latin token is indexed as well so that names that are spelled
+ * differently but sound the same match. The index is rebuilt on the next lookup after contacts
+ * change.</p>
+ */
+public class AggregationCandidateIndex {
+    private static final String TAG = "AggregationIndex";
+
+    private static final String[] PROJECTION = new String[] {
+            Contacts._ID,
+            Contacts.DISPLAY_NAME_PRIMARY,
+            Contacts.DISPLAY_NAME_ALTERNATIVE,
+            Contacts.PHONETIC_NAME
+    };
+
+    private static final int CONTACT_ID = 0;
+    private static final int FIRST_NAME_COLUMN = 1;
+
+    // A typed token matches the tokens that it is the prefix of only if it is at least this long,
+    // so that a single typed letter doesn't match most contacts.
+    private static final int MIN_PREFIX_LENGTH = 3;
+
+    private static final int EXACT_MATCH_SCORE = 3;
+    private static final int PHONETIC_MATCH_SCORE = 2;
+    private static final int PREFIX_MATCH_SCORE = 1;
+
+    private static final Pattern ACCENTS = Pattern.compile("\\p{M}+");
+    private static final Pattern TOKEN_SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final String SOUNDEX_CODES = "01230120022455012623010202";
+
+    private static AggregationCandidateIndex sInstance;
+
+    private final TreeMap<String, List<Long>> mTokens = new TreeMap<>();
+    private final Map<String, List<Long>> mPhoneticKeys = new HashMap<>();
+    private final Map<Long, Integer> mTokenCounts = new HashMap<>();
+
+    private volatile boolean mStale = true;
+    private ContentObserver mObserver;
+
+    public static synchronized AggregationCandidateIndex getInstance() {
+        if (sInstance == null) {
+            sInstance = new AggregationCandidateIndex();
+        }
+        return sInstance;
+    }
+
+    @VisibleForTesting
+    AggregationCandidateIndex() {
+    }
+
+    /**
+     * Returns the IDs of up to {@code limit} contacts other than {@code excludedContactId} whose
+     * name matches every token of {@code name} and {@code phoneticName}, best matches first.
+     * Returns null if the index couldn't be loaded.
+     */
+    @WorkerThread
+    public synchronized long[] findCandidates(Context context, String name, String phoneticName,
+            long excludedContactId, int limit) {
+        if (mStale && !load(context)) {
+            return null;
+        }
+        return findCandidates(name, phoneticName, excludedContactId, limit);
+    }
+
+    @VisibleForTesting
+    synchronized long[] findCandidates(String name, String phoneticName, long excludedContactId,
+            int limit) {
+        final List<String> queryTokens = new ArrayList<>();
+        addTokens(queryTokens, name);
+        addTokens(queryTokens, phoneticName);
+        if (queryTokens.isEmpty()) {
+            return new long[0];
+        }
+
+        // Every token must match for a contact to be a candidate. Only the last token can match
+        // as a prefix because it may not be typed completely yet.
+        Map<Long, Integer> scores = null;
+        for (int i = 0; i < queryTokens.size(); i++) {
+            final Map<Long, Integer> tokenScores = scoreToken(queryTokens.get(i),
+                    i == queryTokens.size() - 1);
+            if (scores == null) {
+                scores = tokenScores;
+            } else {
+                scores.keySet().retainAll(tokenScores.keySet());
+                for (Map.Entry<Long, Integer> entry : scores.entrySet()) {
+                    entry.setValue(entry.getValue() + tokenScores.get(entry.getKey()));
+                }
+            }
+            if (scores.isEmpty()) {
+                return new long[0];
+            }
+        }
+        scores.remove(excludedContactId);
+
+        final Map<Long, Integer> finalScores = scores;
+        final List<Long> candidates = new ArrayList<>(scores.keySet());
+        Collections.sort(candidates, new Comparator<Long>() {
+            @Override
+            public int compare(Long a, Long b) {
+                final int byScore = Integer.compare(finalScores.get(b), finalScores.get(a));
+                if (byScore != 0) {
+                    return byScore;
+                }
+                // Prefer names without tokens that weren't typed.
+                final int byTokenCount = Integer.compare(mTokenCounts.get(a),
+                        mTokenCounts.get(b));
+                return byTokenCount != 0 ? byTokenCount : Long.compare(a, b);
+            }
+        });
+        final long[] result = new long[Math.min(limit, candidates.size())];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = candidates.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the best score of each contact that {@code token} matches.
+     */
+    private Map<Long, Integer> scoreToken(String token, boolean matchPrefix) {
+        final Map<Long, Integer> scores = new HashMap<>();
+        if (matchPrefix && token.length() >= MIN_PREFIX_LENGTH) {
+            final SortedMap<String, List<Long>> prefixed =
+                    mTokens.subMap(token, token + Character.MAX_VALUE);
+            for (List<Long> ids : prefixed.values()) {
+                addScores(scores, ids, PREFIX_MATCH_SCORE);
+            }
+        }
+        addScores(scores, mPhoneticKeys.get(soundex(token)), PHONETIC_MATCH_SCORE);
+        addScores(scores, mTokens.get(token), EXACT_MATCH_SCORE);
+        return scores;
+    }
+
+    private static void addScores(Map<Long, Integer> scores, List<Long> ids, int score) {
+        if (ids == null) {
+            return;
+        }
+        for (Long id : ids) {
+            final Integer current = scores.get(id);
+            if (current == null || current < score) {
+                scores.put(id, score);
+            }
+        }
+    }
+
+    private boolean load(Context context) {
+        final ContentResolver resolver = context.getContentResolver();
+        if (mObserver == null) {
+            mObserver = new ContentObserver(null) {
+                @Override
+                public void onChange(boolean selfChange) {
+                    mStale = true;
+                }
+            };
+            resolver.registerContentObserver(Contacts.CONTENT_URI, true, mObserver);
+        }
+        // Marked before the query so that changes made while it runs aren't missed.
+        mStale = false;
+        Cursor cursor;
+        try {
+            cursor = resolver.query(Contacts.CONTENT_URI, PROJECTION, null, null, null);
+        } catch (SecurityException e) {
+            Log.w(TAG, "Failed to load contact names", e);
+            cursor = null;
+        }
+        if (cursor == null) {
+            mStale = true;
+            return false;
+        }
+        try {
+            load(cursor);
+        } finally {
+            cursor.close();
+        }
+        return true;
+    }
+
+    /**
+     * Replaces the index with the contacts of {@code cursor}, which has the columns of
+     * {@link #PROJECTION}.
+     */
+    @VisibleForTesting
+    synchronized void load(Cursor cursor) {
+        mTokens.clear();
+        mPhoneticKeys.clear();
+        mTokenCounts.clear();
+        final Set<String> contactTokens = new HashSet<>();
+        final List<String> nameTokens = new ArrayList<>();
+        while (cursor.moveToNext()) {
+            final long contactId = cursor.getLong(CONTACT_ID);
+            contactTokens.clear();
+            for (int column = FIRST_NAME_COLUMN; column < PROJECTION.length; column++) {
+                nameTokens.clear();
+                addTokens(nameTokens, cursor.getString(column));
+                contactTokens.addAll(nameTokens);
+            }
+            if (contactTokens.isEmpty()) {
+                continue;
+            }
+            final Set<String> phoneticKeys = new HashSet<>();
+            for (String token : contactTokens) {
+                add(mTokens, token, contactId);
+                final String key = soundex(token);
+                if (key != null && phoneticKeys.add(key)) {
+                    add(mPhoneticKeys, key, contactId);
+                }
+            }
+            mTokenCounts.put(contactId, contactTokens.size());
+        }
+    }
+
+    private static void add(Map<String, List<Long>> index, String key, long contactId) {
+        List<Long> ids = index.get(key);
+        if (ids == null) {
+            ids = new ArrayList<>(1);
+            index.put(key, ids);
+        }
+        ids.add(contactId);
+    }
+
+    /**
+     * Adds the normalized tokens of {@code name} to {@code tokens}.
+     */
+    @VisibleForTesting
+    static void addTokens(List<String> tokens, String name) {
+        if (TextUtils.isEmpty(name)) {
+            return;
+        }
+        final String normalized = ACCENTS.matcher(Normalizer.normalize(name, Normalizer.Form.NFD))
+                .replaceAll("").toLowerCase(Locale.ROOT);
+        for (String token : TOKEN_SEPARATORS.split(normalized)) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+    }
+
+    /**
+     * Returns the Soundex key of a lower case token, or null if it doesn't start with a Latin
+     * letter.
+     */
+    @VisibleForTesting
+    static String soundex(String token) {
+        final char first = token.charAt(0);
+        if (first < 'a' || first > 'z') {
+            return null;
+        }
+        final StringBuilder key = new StringBuilder(4).append(first);
+        char last = SOUNDEX_CODES.charAt(first - 'a');
+        for (int i = 1; i < token.length() && key.length() < 4; i++) {
+            final char c = token.charAt(i);
+            if (c < 'a' || c > 'z') {
+                continue;
+            }
+            final char code = SOUNDEX_CODES.charAt(c - 'a');
+            // H and W don't separate letters with the same code, vowels do.
+            if (code != '0' && code != last) {
+                key.append(code);
+            }
+            if (c != 'h' && c != 'w') {
+                last = code;
+            }
+        }
+        while (key.length() < 4) {
+            key.append('0');
+        }
+        return key.toString();
+    }
+}
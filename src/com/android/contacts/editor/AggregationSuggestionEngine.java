@@ -16,7 +16,6 @@
 
 package com.android.contacts.editor;
 
-import android.content.ContentResolver;
 import android.content.Context;
 import android.database.ContentObserver;
 import android.database.Cursor;
@@ -38,9 +37,11 @@ import android.provider.ContactsContract.Data;
 import android.provider.ContactsContract.RawContacts;
 import android.text.TextUtils;
 
+import com.android.contacts.Experiments;
 import com.android.contacts.compat.AggregationSuggestionsCompat;
 import com.android.contacts.model.ValuesDelta;
 import com.android.contacts.model.account.AccountWithDataSet;
+import com.android.contactsbind.experiments.Flags;
 
 import com.google.common.base.MoreObjects;
 import com.google.common.collect.Lists;
@@ -93,12 +94,31 @@ public class AggregationSuggestionEngine extends HandlerThread {
         }
     }
 
+    /**
+     * The name to find suggestions for.
+     */
+    private static final class NameQuery {
+        final Uri suggestionsUri;
+        final String name;
+        final String phoneticName;
+
+        NameQuery(Uri suggestionsUri, String name, String phoneticName) {
+            this.suggestionsUri = suggestionsUri;
+            this.name = name;
+            this.phoneticName = phoneticName;
+        }
+    }
+
     private static final int MESSAGE_RESET = 0;
     private static final int MESSAGE_NAME_CHANGE = 1;
     private static final int MESSAGE_DATA_CURSOR = 2;
 
     private static final long SUGGESTION_LOOKUP_DELAY_MILLIS = 300;
 
+    // Local lookups are cheap so they only wait for a frame, which coalesces the name changes of
+    // a single edit.
+    private static final long LOCAL_SUGGESTION_LOOKUP_DELAY_MILLIS = 16;
+
     private static final int SUGGESTIONS_LIMIT = 3;
 
     private final Context mContext;
@@ -111,11 +131,14 @@ public class AggregationSuggestionEngine extends HandlerThread {
     private Listener mListener;
     private Cursor mDataCursor;
     private ContentObserver mContentObserver;
-    private Uri mSuggestionsUri;
+    private NameQuery mNameQuery;
+    private final boolean mLocalSuggestionsEnabled;
 
     public AggregationSuggestionEngine(Context context) {
         super("AggregationSuggestions", Process.THREAD_PRIORITY_BACKGROUND);
         mContext = context.getApplicationContext();
+        mLocalSuggestionsEnabled = Flags.getInstance()
+                .getBoolean(Experiments.EDITOR_LOCAL_AGGREGATION_SUGGESTIONS_ENABLED);
         mMainHandler = new Handler() {
             @Override
             public void handleMessage(Message msg) {
@@ -171,8 +194,8 @@ public class AggregationSuggestionEngine extends HandlerThread {
     }
 
     public void onNameChange(ValuesDelta values) {
-        mSuggestionsUri = buildAggregationSuggestionUri(values);
-        if (mSuggestionsUri != null) {
+        mNameQuery = buildNameQuery(values);
+        if (mNameQuery != null) {
             if (mContentObserver == null) {
                 mContentObserver = new SuggestionContentObserver(getHandler());
                 mContext.getContentResolver().registerContentObserver(
@@ -189,15 +212,16 @@ public class AggregationSuggestionEngine extends HandlerThread {
         Handler handler = getHandler();
         handler.removeMessages(MESSAGE_NAME_CHANGE);
 
-        if (mSuggestionsUri == null) {
+        if (mNameQuery == null) {
             return;
         }
 
-        Message msg = handler.obtainMessage(MESSAGE_NAME_CHANGE, mSuggestionsUri);
-        handler.sendMessageDelayed(msg, SUGGESTION_LOOKUP_DELAY_MILLIS);
+        Message msg = handler.obtainMessage(MESSAGE_NAME_CHANGE, mNameQuery);
+        handler.sendMessageDelayed(msg, mLocalSuggestionsEnabled
+                ? LOCAL_SUGGESTION_LOOKUP_DELAY_MILLIS : SUGGESTION_LOOKUP_DELAY_MILLIS);
     }
 
-    private Uri buildAggregationSuggestionUri(ValuesDelta values) {
+    private NameQuery buildNameQuery(ValuesDelta values) {
         StringBuilder nameSb = new StringBuilder();
         appendValue(nameSb, values, StructuredName.PREFIX);
         appendValue(nameSb, values, StructuredName.GIVEN_NAME);
@@ -214,6 +238,12 @@ public class AggregationSuggestionEngine extends HandlerThread {
             return null;
         }
 
+        return new NameQuery(buildAggregationSuggestionUri(nameSb, phoneticNameSb),
+                nameSb.toString(), phoneticNameSb.toString());
+    }
+
+    private Uri buildAggregationSuggestionUri(StringBuilder nameSb,
+            StringBuilder phoneticNameSb) {
         // AggregationSuggestions.Builder() became visible in API level 23, so use it if applicable.
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
             final Builder uriBuilder = new AggregationSuggestions.Builder()
@@ -258,7 +288,7 @@ public class AggregationSuggestionEngine extends HandlerThread {
                 mSuggestedContactIds = new long[0];
                 break;
             case MESSAGE_NAME_CHANGE:
-                loadAggregationSuggestions((Uri) msg.obj);
+                loadAggregationSuggestions((NameQuery) msg.obj);
                 break;
         }
     }
@@ -299,62 +329,77 @@ public class AggregationSuggestionEngine extends HandlerThread {
         public static final int PHOTO_ID = 9;
     }
 
-    private void loadAggregationSuggestions(Uri uri) {
-        ContentResolver contentResolver = mContext.getContentResolver();
-        Cursor cursor = contentResolver.query(uri, new String[]{Contacts._ID}, null, null, null);
-        if (cursor == null) {
+    private void loadAggregationSuggestions(NameQuery query) {
+        final long[] contactIds = mLocalSuggestionsEnabled ? findLocalCandidates(query)
+                : querySuggestedContactIds(query.suggestionsUri);
+        // If a new request is pending, chuck the result of the previous request
+        if (contactIds == null || getHandler().hasMessages(MESSAGE_NAME_CHANGE)) {
             return;
         }
-        try {
-            // If a new request is pending, chuck the result of the previous request
-            if (getHandler().hasMessages(MESSAGE_NAME_CHANGE)) {
-                return;
-            }
 
-            boolean changed = updateSuggestedContactIds(cursor);
-            if (!changed) {
-                return;
-            }
+        boolean changed = updateSuggestedContactIds(contactIds);
+        if (!changed) {
+            return;
+        }
 
-            StringBuilder sb = new StringBuilder(DataQuery.SELECTION_PREFIX);
-            int count = mSuggestedContactIds.length;
-            for (int i = 0; i < count; i++) {
-                if (i > 0) {
-                    sb.append(',');
-                }
-                sb.append(mSuggestedContactIds[i]);
+        // The details of the suggested contacts also confirm that the candidates from the local
+        // index still exist.
+        StringBuilder sb = new StringBuilder(DataQuery.SELECTION_PREFIX);
+        int count = mSuggestedContactIds.length;
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                sb.append(',');
             }
-            sb.append(')');
+            sb.append(mSuggestedContactIds[i]);
+        }
+        sb.append(')');
+
+        Cursor dataCursor = mContext.getContentResolver().query(Data.CONTENT_URI,
+                DataQuery.COLUMNS, sb.toString(), null, Data.CONTACT_ID);
+        if (dataCursor != null) {
+            mMainHandler.sendMessage(
+                    mMainHandler.obtainMessage(MESSAGE_DATA_CURSOR, dataCursor));
+        }
+    }
 
-            Cursor dataCursor = contentResolver.query(Data.CONTENT_URI,
-                    DataQuery.COLUMNS, sb.toString(), null, Data.CONTACT_ID);
-            if (dataCursor != null) {
-                mMainHandler.sendMessage(
-                        mMainHandler.obtainMessage(MESSAGE_DATA_CURSOR, dataCursor));
+    /**
+     * Finds the suggestions in {@link AggregationCandidateIndex}, falling back to CP2 if it
+     * can't be loaded.
+     */
+    private long[] findLocalCandidates(NameQuery query) {
+        final long[] contactIds = AggregationCandidateIndex.getInstance().findCandidates(
+                mContext, query.name, query.phoneticName, mContactId, SUGGESTIONS_LIMIT);
+        return contactIds != null ? contactIds : querySuggestedContactIds(query.suggestionsUri);
+    }
+
+    private long[] querySuggestedContactIds(Uri uri) {
+        Cursor cursor = mContext.getContentResolver().query(uri, new String[]{Contacts._ID},
+                null, null, null);
+        if (cursor == null) {
+            return null;
+        }
+        try {
+            final long[] contactIds = new long[cursor.getCount()];
+            int i = 0;
+            while (cursor.moveToNext() && i < contactIds.length) {
+                contactIds[i++] = cursor.getLong(0);
             }
+            return contactIds;
         } finally {
             cursor.close();
         }
     }
 
-    private boolean updateSuggestedContactIds(final Cursor cursor) {
-        final int count = cursor.getCount();
-        boolean changed = count != mSuggestedContactIds.length;
-        final ArrayList<Long> newIds = new ArrayList<Long>(count);
-        while (cursor.moveToNext()) {
-            final long contactId = cursor.getLong(0);
+    private boolean updateSuggestedContactIds(final long[] contactIds) {
+        boolean changed = contactIds.length != mSuggestedContactIds.length;
+        for (long contactId : contactIds) {
             if (!changed && Arrays.binarySearch(mSuggestedContactIds, contactId) < 0) {
                 changed = true;
             }
-            newIds.add(contactId);
         }
 
         if (changed) {
-            mSuggestedContactIds = new long[newIds.size()];
-            int i = 0;
-            for (final Long newId : newIds) {
-                mSuggestedContactIds[i++] = newId;
-            }
+            mSuggestedContactIds = Arrays.copyOf(contactIds, contactIds.length);
             Arrays.sort(mSuggestedContactIds);
         }
 
@@ -33,6 +33,7 @@ import android.net.Uri;
 import android.os.Bundle;
 import android.os.Handler;
 import android.os.SystemClock;
+import android.os.Trace;
 import android.provider.ContactsContract;
 import android.provider.ContactsContract.CommonDataKinds.Email;
 import android.provider.ContactsContract.CommonDataKinds.Event;
@@ -60,6 +61,7 @@ import android.widget.ListPopupWindow;
 import android.widget.Toast;
 
 import com.android.contacts.ContactSaveService;
+import com.android.contacts.Experiments;
 import com.android.contacts.GroupMetaDataLoader;
 import com.android.contacts.R;
 import com.android.contacts.activities.ContactEditorAccountsChangedActivity;
@@ -87,11 +89,15 @@ import com.android.contacts.preference.ContactsPreferences;
 import com.android.contacts.quickcontact.InvisibleContactUtil;
 import com.android.contacts.quickcontact.QuickContactActivity;
 import com.android.contacts.util.ContactDisplayUtils;
+import com.android.contacts.util.Constants;
 import com.android.contacts.util.ContactPhotoUtils;
 import com.android.contacts.util.ImplicitIntentsUtil;
 import com.android.contacts.util.MaterialColorMapUtils;
+import com.android.contacts.util.SchedulingUtils;
+import com.android.contacts.util.StopWatch;
 import com.android.contacts.util.UiClosables;
 import com.android.contactsbind.HelpUtils;
+import com.android.contactsbind.experiments.Flags;
 
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
@@ -340,6 +346,9 @@ public class ContactEditorFragment extends Fragment implements
     protected RawContactDeltaComparator mComparator;
     protected ViewIdGenerator mViewIdGenerator;
     private AggregationSuggestionEngine mAggregationSuggestionEngine;
+    private EditorViewPool mViewPool;
+    // Times opening the editor until the first frame with the bound editors is drawn
+    private StopWatch mOpenStopWatch;
 
     //
     // Loaded data
@@ -483,6 +492,12 @@ public class ContactEditorFragment extends Fragment implements
 
         super.onCreate(savedState);
 
+        mOpenStopWatch = Log.isLoggable(Constants.PERFORMANCE_TAG, Log.DEBUG)
+                ? StopWatch.start("Open contact editor") : null;
+        if (Flags.getInstance().getBoolean(Experiments.EDITOR_VIEW_PREINFLATION_ENABLED)) {
+            mViewPool = new EditorViewPool(getActivity());
+        }
+
         inputMethodManager =
             (InputMethodManager) getActivity().getSystemService(Context.INPUT_METHOD_SERVICE);
 
@@ -506,6 +521,11 @@ public class ContactEditorFragment extends Fragment implements
 
             // Read state from savedState. No loading involved here
             mState = savedState.<RawContactDeltaList> getParcelable(KEY_EDIT_STATE);
+            if (mState == null) {
+                // The state was too large for the bundle and its file can't be read anymore,
+                // so the contact is loaded again.
+                mState = new RawContactDeltaList();
+            }
             mStatus = savedState.getInt(KEY_STATUS);
 
             mHasNewContact = savedState.getBoolean(KEY_HAS_NEW_CONTACT);
@@ -540,6 +560,7 @@ public class ContactEditorFragment extends Fragment implements
         final View view = inflater.inflate(
                 R.layout.contact_editor_fragment, container, false);
         mContent = (LinearLayout) view.findViewById(R.id.raw_contacts_editor_view);
+        getContent().setViewPool(mViewPool);
         return view;
     }
 
@@ -591,6 +612,11 @@ public class ContactEditorFragment extends Fragment implements
         if (mHasNewContact) {
             AccountsLoader.loadAccounts(this, LOADER_ACCOUNTS, AccountTypeManager.writableFilter());
         }
+
+        // Inflate the editor views while the loaders run
+        if (mViewPool != null && mState.isEmpty()) {
+            mViewPool.start();
+        }
     }
 
     @Override
@@ -678,6 +704,14 @@ public class ContactEditorFragment extends Fragment implements
         if (mAggregationSuggestionEngine != null) {
             mAggregationSuggestionEngine.quit();
         }
+        if (mViewPool != null) {
+            mViewPool.stop();
+        }
+        final Activity activity = getActivity();
+        if (mState != null && activity != null && activity.isFinishing()) {
+            // The saved instance state won't be restored anymore.
+            mState.deleteSpillFile();
+        }
     }
 
     @Override
@@ -1294,9 +1328,14 @@ public class ContactEditorFragment extends Fragment implements
         if (mCopyReadOnlyName) {
             copyReadOnlyName();
         }
+        if (mOpenStopWatch != null) {
+            mOpenStopWatch.lap("loaded");
+        }
+        Trace.beginSection("bindEditors");
         editorView.setState(mState, mMaterialPalette, mViewIdGenerator,
                 mHasNewContact, mIsUserProfile, mAccountWithDataSet,
                 mRawContactIdToDisplayAlone);
+        Trace.endSection();
         if (isEditingReadOnlyRawContact()) {
             final Toolbar toolbar = getEditorActivity().getToolbar();
             if (toolbar != null) {
@@ -1329,12 +1368,33 @@ public class ContactEditorFragment extends Fragment implements
         // The editor is ready now so make it visible
         editorView.setEnabled(mEnabled);
         editorView.setVisibility(View.VISIBLE);
+        if (mOpenStopWatch != null) {
+            logOpenTimeOnFirstDraw(editorView);
+        }
 
         // Refresh the ActionBar as the visibility of the join command
         // Activity can be null if we have been detached from the Activity.
         invalidateOptionsMenu();
     }
 
+    private void logOpenTimeOnFirstDraw(View editorView) {
+        final StopWatch stopWatch = mOpenStopWatch;
+        mOpenStopWatch = null;
+        stopWatch.lap("bound");
+        SchedulingUtils.doOnPreDraw(editorView, /* drawNextFrame =*/ true, new Runnable() {
+            @Override
+            public void run() {
+                stopWatch.lap("laid out");
+                stopWatch.stopAndLog(Constants.PERFORMANCE_TAG, 0);
+                if (mViewPool != null) {
+                    Log.d(Constants.PERFORMANCE_TAG, "Editor views taken from the pool: "
+                            + mViewPool.getHitCount() + ", inflated: "
+                            + mViewPool.getMissCount());
+                }
+            }
+        });
+    }
+
     /**
      * Invalidates the options menu if we are still associated with an Activity.
      */
@@ -0,0 +1,222 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.contacts.editor;
+
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.android.contacts.model.RawContactDelta;
+import com.android.contacts.model.RawContactModifier;
+import com.android.contacts.model.ValuesDelta;
+import com.android.contacts.model.dataitem.DataKind;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Binds the values of a {@link KindSectionView} to recycled editors, for sections with too many
+ * values to inflate an editor for each of them.
+ *
+ * <p>Editors write every change to the {@link ValuesDelta} they are bound to as it is made, so
+ * binding a recycled editor to another value loses no edits. Values are added and deleted
+ * through {@link RawContactModifier} and {@link ValuesDelta#markDeleted()} like
+ * {@link KindSectionView} does, so the {@link RawContactDelta} is saved the same way.</p>
+ *
+ * <p>The view type of an editor is its layout, so rows can be shared with the sections of other
+ * kinds that use the same layout through a common {@link RecyclerView.RecycledViewPool}.</p>
+ */
+class EditorFieldAdapter extends RecyclerView.Adapter<EditorFieldAdapter.EditorViewHolder> {
+
+    static class EditorViewHolder extends RecyclerView.ViewHolder {
+        EditorViewHolder(View itemView) {
+            super(itemView);
+        }
+    }
+
+    /**
+     * Like {@link KindSectionView}'s listener for non-name editors, but updates the values of the
+     * adapter instead of adding and removing views.
+     */
+    private class FieldEditorListener implements Editor.EditorListener {
+        private final EditorViewHolder mHolder;
+
+        FieldEditorListener(EditorViewHolder holder) {
+            mHolder = holder;
+        }
+
+        @Override
+        public void onRequest(int request) {
+            if (request == FIELD_TURNED_EMPTY || request == FIELD_TURNED_NON_EMPTY) {
+                updateEmptyValues(mHolder.getAdapterPosition());
+            }
+        }
+
+        @Override
+        public void onDeleteRequested(Editor editor) {
+            final int position = mHolder.getAdapterPosition();
+            if (position == RecyclerView.NO_POSITION) {
+                return;
+            }
+            if (mShowOneEmptyEditor && mValuesDeltas.size() == 1) {
+                // Don't allow the user to delete the only editor, just clear its fields.
+                editor.clearAllFields();
+                return;
+            }
+            editor.markDeleted();
+            mValuesDeltas.remove(position);
+            notifyItemRemoved(position);
+            updateEmptyValues(RecyclerView.NO_POSITION);
+        }
+    }
+
+    private final KindSectionData mKindSectionData;
+    private final ViewIdGenerator mViewIdGenerator;
+    private final int mLayoutResId;
+    private final List<ValuesDelta> mValuesDeltas;
+
+    private boolean mEnabled = true;
+    private boolean mShowOneEmptyEditor;
+    private RecyclerView mRecyclerView;
+
+    /**
+     * @param valuesDeltas the visible values of the section, in the order they are displayed in
+     */
+    EditorFieldAdapter(KindSectionData kindSectionData, List<ValuesDelta> valuesDeltas,
+            ViewIdGenerator viewIdGenerator) {
+        mKindSectionData = kindSectionData;
+        mViewIdGenerator = viewIdGenerator;
+        mLayoutResId = EditorUiUtils.getLayoutResourceId(kindSectionData.getMimeType());
+        mValuesDeltas = new ArrayList<>(valuesDeltas);
+    }
+
+    void setEnabled(boolean enabled) {
+        if (mEnabled != enabled) {
+            mEnabled = enabled;
+            notifyDataSetChanged();
+        }
+    }
+
+    /**
+     * @see KindSectionView#setShowOneEmptyEditor
+     */
+    void setShowOneEmptyEditor(boolean showOneEmptyEditor) {
+        mShowOneEmptyEditor = showOneEmptyEditor;
+    }
+
+    boolean hasOnlyEmptyValues() {
+        for (ValuesDelta valuesDelta : mValuesDeltas) {
+            if (!mKindSectionData.isEmpty(valuesDelta)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Deletes all empty values but one, preferably the one at {@code keptPosition}, or adds an
+     * empty value if there is none and one should be shown. Like {@link KindSectionView}, empty
+     * values whose editor has focus are never deleted.
+     */
+    void updateEmptyValues(int keptPosition) {
+        final List<Integer> emptyPositions = new ArrayList<>();
+        final List<Integer> focusedPositions = new ArrayList<>();
+        for (int i = 0; i < mValuesDeltas.size(); i++) {
+            if (mKindSectionData.isEmpty(mValuesDeltas.get(i))) {
+                emptyPositions.add(i);
+                if (hasFocus(i)) {
+                    focusedPositions.add(i);
+                }
+            }
+        }
+        if (emptyPositions.size() > 1) {
+            if (!emptyPositions.contains(keptPosition)) {
+                keptPosition = focusedPositions.isEmpty()
+                        ? emptyPositions.get(emptyPositions.size() - 1)
+                        : focusedPositions.get(0);
+            }
+            // Remove from the end so that the remaining positions stay valid
+            for (int i = emptyPositions.size() - 1; i >= 0; i--) {
+                final int position = emptyPositions.get(i);
+                if (position != keptPosition && !focusedPositions.contains(position)) {
+                    mValuesDeltas.remove(position).markDeleted();
+                    notifyItemRemoved(position);
+                }
+            }
+            return;
+        }
+        final DataKind dataKind = mKindSectionData.getDataKind();
+        final RawContactDelta rawContactDelta = mKindSectionData.getRawContactDelta();
+        if (!emptyPositions.isEmpty() || !mShowOneEmptyEditor
+                || !RawContactModifier.canInsert(rawContactDelta, dataKind)) {
+            return;
+        }
+        mValuesDeltas.add(RawContactModifier.insertChild(rawContactDelta, dataKind));
+        notifyItemInserted(mValuesDeltas.size() - 1);
+    }
+
+    /**
+     * Whether the editor bound to {@code position}, if any, has focus.
+     */
+    private boolean hasFocus(int position) {
+        if (mRecyclerView == null) {
+            return false;
+        }
+        final RecyclerView.ViewHolder holder =
+                mRecyclerView.findViewHolderForAdapterPosition(position);
+        return holder != null && holder.itemView.findFocus() != null;
+    }
+
+    @Override
+    public void onAttachedToRecyclerView(RecyclerView recyclerView) {
+        mRecyclerView = recyclerView;
+    }
+
+    @Override
+    public void onDetachedFromRecyclerView(RecyclerView recyclerView) {
+        mRecyclerView = null;
+    }
+
+    @Override
+    public int getItemCount() {
+        return mValuesDeltas.size();
+    }
+
+    @Override
+    public int getItemViewType(int position) {
+        return mLayoutResId;
+    }
+
+    @Override
+    public EditorViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+        final View view = LayoutInflater.from(parent.getContext())
+                .inflate(viewType, parent, /* attachToRoot =*/ false);
+        return new EditorViewHolder(view);
+    }
+
+    @Override
+    public void onBindViewHolder(EditorViewHolder holder, int position) {
+        final DataKind dataKind = mKindSectionData.getDataKind();
+        final Editor editor = (Editor) holder.itemView;
+        holder.itemView.setEnabled(mEnabled);
+        editor.setDeletable(true);
+        // Set on every bind because the row may have been bound by the adapter of another section
+        editor.setEditorListener(new FieldEditorListener(holder));
+        editor.setValues(dataKind, mValuesDeltas.get(position),
+                mKindSectionData.getRawContactDelta(), !dataKind.editable, mViewIdGenerator);
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.contacts.editor;
+
+import android.content.Context;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.util.Log;
+import android.util.SparseArray;
+import android.view.InflateException;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.LinearLayout;
+import androidx.annotation.MainThread;
+import androidx.annotation.VisibleForTesting;
+
+import com.android.contacts.R;
+
+import java.util.ArrayDeque;
+
+/**
+ * Inflates the views that the editor of almost every contact needs while the contact is still
+ * loading, and hands them out when the editor is bound.
+ *
+ * <p>Views are inflated on the main thread whenever its message queue is idle, one view at a
+ * time, so that the inflation happens while the editor waits for its loaders without delaying
+ * input or drawing. They aren't inflated on a background thread because the label spinners of
+ * the editors create their popups, and the handlers of those, on the thread they are inflated
+ * on.</p>
+ *
+ * <p>Only {@link KindSectionView}s are recycled when the editor is bound again. The editors in
+ * them keep listeners and text watchers for the values they were bound to and are never
+ * reused.</p>
+ */
+class EditorViewPool implements MessageQueue.IdleHandler {
+    private static final String TAG = "EditorViewPool";
+
+    // A section is inflated for every kind of the account type, even the hidden ones, and most
+    // contacts have a name, a phonetic name, a phone number and an email address.
+    private static final int KIND_SECTION_COUNT = 12;
+    private static final int TEXT_FIELDS_EDITOR_COUNT = 4;
+
+    // More recycled sections than this are dropped.
+    private static final int MAX_POOLED_VIEWS = 16;
+
+    private final LayoutInflater mInflater;
+    // Only provides the layout params of the pooled views. Views are never added to it.
+    private final ViewGroup mParent;
+    private final int[] mPrefetchLayouts;
+    private final SparseArray<ArrayDeque<View>> mViews = new SparseArray<>();
+
+    private int mPrefetched;
+    private boolean mStarted;
+    private int mHits;
+    private int mMisses;
+
+    EditorViewPool(Context context) {
+        this(context, buildPrefetchLayouts());
+    }
+
+    @VisibleForTesting
+    EditorViewPool(Context context, int[] prefetchLayouts) {
+        mInflater = LayoutInflater.from(context);
+        mParent = new LinearLayout(context);
+        mPrefetchLayouts = prefetchLayouts;
+    }
+
+    /**
+     * Returns the layouts to inflate in the order that binding the editor uses them in.
+     */
+    private static int[] buildPrefetchLayouts() {
+        final int[] layouts = new int[KIND_SECTION_COUNT + TEXT_FIELDS_EDITOR_COUNT + 1];
+        int i = 0;
+        // The name section comes first
+        layouts[i++] = R.layout.item_kind_section;
+        layouts[i++] = R.layout.structured_name_editor_view;
+        for (int section = 1; section < KIND_SECTION_COUNT; section++) {
+            layouts[i++] = R.layout.item_kind_section;
+            if (section <= TEXT_FIELDS_EDITOR_COUNT) {
+                layouts[i++] = R.layout.text_fields_editor_view;
+            }
+        }
+        return layouts;
+    }
+
+    /**
+     * Starts inflating views whenever the main thread is idle.
+     */
+    @MainThread
+    void start() {
+        if (mStarted || mPrefetched >= mPrefetchLayouts.length) {
+            return;
+        }
+        mStarted = true;
+        Looper.myQueue().addIdleHandler(this);
+    }
+
+    /**
+     * Stops inflating views and drops the ones that weren't used.
+     */
+    @MainThread
+    void stop() {
+        if (mStarted) {
+            Looper.myQueue().removeIdleHandler(this);
+            mStarted = false;
+        }
+        mPrefetched = mPrefetchLayouts.length;
+        mViews.clear();
+    }
+
+    @Override
+    public boolean queueIdle() {
+        if (mPrefetched >= mPrefetchLayouts.length) {
+            mStarted = false;
+            return false;
+        }
+        final int layoutResId = mPrefetchLayouts[mPrefetched++];
+        try {
+            add(layoutResId, mInflater.inflate(layoutResId, mParent, /* attachToRoot =*/ false));
+        } catch (InflateException e) {
+            // The editor inflates the view itself when it is needed, so just stop prefetching.
+            Log.w(TAG, "Failed to inflate a view ahead of time", e);
+            mPrefetched = mPrefetchLayouts.length;
+        }
+        mStarted = mPrefetched < mPrefetchLayouts.length;
+        return mStarted;
+    }
+
+    /**
+     * Returns a view inflated from {@code layoutResId} for {@code parent}, either from the pool or
+     * inflated now if the pool has none.
+     */
+    @MainThread
+    View obtain(int layoutResId, ViewGroup parent) {
+        final ArrayDeque<View> views = mViews.get(layoutResId);
+        final View view = views == null ? null : views.poll();
+        if (view != null) {
+            mHits++;
+            return view;
+        }
+        mMisses++;
+        return LayoutInflater.from(parent.getContext())
+                .inflate(layoutResId, parent, /* attachToRoot =*/ false);
+    }
+
+    /**
+     * Puts a view that was inflated from {@code layoutResId} and was removed from its parent
+     * back into the pool.
+     */
+    @MainThread
+    void recycle(int layoutResId, View view) {
+        if (view.getParent() == null) {
+            add(layoutResId, view);
+        }
+    }
+
+    private void add(int layoutResId, View view) {
+        ArrayDeque<View> views = mViews.get(layoutResId);
+        if (views == null) {
+            views = new ArrayDeque<>();
+            mViews.put(layoutResId, views);
+        }
+        if (views.size() < MAX_POOLED_VIEWS) {
+            views.add(view);
+        }
+    }
+
+    @VisibleForTesting
+    int getPooledCount(int layoutResId) {
+        final ArrayDeque<View> views = mViews.get(layoutResId);
+        return views == null ? 0 : views.size();
+    }
+
+    int getHitCount() {
+        return mHits;
+    }
+
+    int getMissCount() {
+        return mMisses;
+    }
+}
@@ -100,7 +100,8 @@ public final class KindSectionData {
         return null;
     }
 
-    private boolean isEmpty(ValuesDelta valuesDelta) {
+    /** Returns whether all fields of the data kind this section represents are empty. */
+    public boolean isEmpty(ValuesDelta valuesDelta) {
         if (mDataKind.fieldList != null) {
             for (EditField editField : mDataKind.fieldList) {
                 final String column = editField.column;
@@ -29,7 +29,10 @@ import android.view.ViewGroup;
 import android.widget.ImageView;
 import android.widget.LinearLayout;
 import android.widget.TextView;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 
+import com.android.contacts.Experiments;
 import com.android.contacts.R;
 import com.android.contacts.model.RawContactDelta;
 import com.android.contacts.model.RawContactModifier;
@@ -37,6 +40,7 @@ import com.android.contacts.model.ValuesDelta;
 import com.android.contacts.model.account.AccountType;
 import com.android.contacts.model.dataitem.DataKind;
 import com.android.contacts.preference.ContactsPreferences;
+import com.android.contactsbind.experiments.Flags;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -48,6 +52,9 @@ import java.util.List;
  */
 public class KindSectionView extends LinearLayout {
 
+    // Sections with at least this many values show their editors in a RecyclerView
+    private static final int VIRTUALIZED_EDITOR_THRESHOLD = 50;
+
     /**
      * Marks a name as super primary when it is changed.
      *
@@ -159,6 +166,9 @@ public class KindSectionView extends LinearLayout {
     private boolean mHideIfEmpty = true;
 
     private LayoutInflater mLayoutInflater;
+    private EditorViewPool mViewPool;
+    private RecyclerView.RecycledViewPool mRecycledEditorPool;
+    private EditorFieldAdapter mEditorAdapter;
     private ViewGroup mEditors;
     private ImageView mIcon;
 
@@ -173,6 +183,9 @@ public class KindSectionView extends LinearLayout {
     @Override
     public void setEnabled(boolean enabled) {
         super.setEnabled(enabled);
+        if (mEditorAdapter != null) {
+            mEditorAdapter.setEnabled(enabled);
+        }
         if (mEditors != null) {
             int childCount = mEditors.getChildCount();
             for (int i = 0; i < childCount; i++) {
@@ -194,6 +207,36 @@ public class KindSectionView extends LinearLayout {
         mIcon = (ImageView) findViewById(R.id.kind_icon);
     }
 
+    /**
+     * Sets the pool that editors are taken from instead of being inflated, or null to always
+     * inflate them.
+     */
+    void setViewPool(EditorViewPool viewPool) {
+        mViewPool = viewPool;
+    }
+
+    /**
+     * Sets the pool that the editors of sections with very many values are recycled through,
+     * shared with the other sections of the editor.
+     */
+    void setRecycledEditorPool(RecyclerView.RecycledViewPool recycledEditorPool) {
+        mRecycledEditorPool = recycledEditorPool;
+    }
+
+    /**
+     * Drops the editors and the state of the last bind so that this view can be bound to another
+     * kind.
+     */
+    void resetForReuse() {
+        mEditors.removeAllViews();
+        mEditorAdapter = null;
+        mKindSectionData = null;
+        mListener = null;
+        mShowOneEmptyEditor = false;
+        mHideIfEmpty = true;
+        setVisibility(VISIBLE);
+    }
+
     public void setIsUserProfile(boolean isUserProfile) {
         mIsUserProfile = isUserProfile;
     }
@@ -205,6 +248,9 @@ public class KindSectionView extends LinearLayout {
      */
     public void setShowOneEmptyEditor(boolean showOneEmptyEditor) {
         mShowOneEmptyEditor = showOneEmptyEditor;
+        if (mEditorAdapter != null) {
+            mEditorAdapter.setShowOneEmptyEditor(showOneEmptyEditor);
+        }
     }
 
     /**
@@ -301,6 +347,7 @@ public class KindSectionView extends LinearLayout {
 
     private void rebuildFromState() {
         mEditors.removeAllViews();
+        mEditorAdapter = null;
 
         final String mimeType = mKindSectionData.getMimeType();
         if (StructuredName.CONTENT_ITEM_TYPE.equals(mimeType)) {
@@ -319,6 +366,10 @@ public class KindSectionView extends LinearLayout {
                 editorListener = new NonNameEditorListener();
             }
             final List<ValuesDelta> valuesDeltas = mKindSectionData.getVisibleValuesDeltas();
+            if (shouldVirtualizeEditors(mimeType, valuesDeltas.size())) {
+                addVirtualizedEditors(valuesDeltas);
+                return;
+            }
             for (int i = 0; i < valuesDeltas.size(); i++ ) {
                 addNonNameEditorView(mKindSectionData.getRawContactDelta(),
                         mKindSectionData.getDataKind(), valuesDeltas.get(i), editorListener);
@@ -354,8 +405,8 @@ public class KindSectionView extends LinearLayout {
         }
 
         // Structured name
-        final StructuredNameEditorView nameView = (StructuredNameEditorView) mLayoutInflater
-                .inflate(R.layout.structured_name_editor_view, mEditors, /* attachToRoot =*/ false);
+        final StructuredNameEditorView nameView = (StructuredNameEditorView) inflateEditor(
+                R.layout.structured_name_editor_view);
         if (!mIsUserProfile) {
             // Don't set super primary for the me contact
             nameView.setEditorListener(new StructuredNameEditorListener(
@@ -375,8 +426,8 @@ public class KindSectionView extends LinearLayout {
         // The account type doesn't support phonetic name.
         if (phoneticNameKind == null) return;
 
-        final TextFieldsEditorView phoneticNameView = (TextFieldsEditorView) mLayoutInflater
-                .inflate(R.layout.text_fields_editor_view, mEditors, /* attachToRoot =*/ false);
+        final TextFieldsEditorView phoneticNameView = (TextFieldsEditorView) inflateEditor(
+                R.layout.text_fields_editor_view);
         phoneticNameView.setEditorListener(new OtherNameKindEditorListener());
         phoneticNameView.setDeletable(false);
         phoneticNameView.setValues(
@@ -409,8 +460,7 @@ public class KindSectionView extends LinearLayout {
     private View addNonNameEditorView(RawContactDelta rawContactDelta, DataKind dataKind,
             ValuesDelta valuesDelta, Editor.EditorListener editorListener) {
         // Inflate the layout
-        final View view = mLayoutInflater.inflate(
-                EditorUiUtils.getLayoutResourceId(dataKind.mimeType), mEditors, false);
+        final View view = inflateEditor(EditorUiUtils.getLayoutResourceId(dataKind.mimeType));
         view.setEnabled(isEnabled());
         if (view instanceof Editor) {
             final Editor editor = (Editor) view;
@@ -424,6 +474,44 @@ public class KindSectionView extends LinearLayout {
         return view;
     }
 
+    /**
+     * Whether to bind the editors of this section through an {@link EditorFieldAdapter} instead
+     * of adding a view for each value. Only kinds whose editors can be deleted individually and
+     * need no special handling, like the birthday of events, are virtualized.
+     */
+    private boolean shouldVirtualizeEditors(String mimeType, int valuesCount) {
+        return valuesCount >= VIRTUALIZED_EDITOR_THRESHOLD
+                && !Nickname.CONTENT_ITEM_TYPE.equals(mimeType)
+                && EditorUiUtils.getLayoutResourceId(mimeType) == R.layout.text_fields_editor_view
+                && Flags.getInstance().getBoolean(Experiments.EDITOR_VIRTUALIZED_SECTIONS_ENABLED);
+    }
+
+    private void addVirtualizedEditors(List<ValuesDelta> valuesDeltas) {
+        mEditorAdapter = new EditorFieldAdapter(mKindSectionData, valuesDeltas, mViewIdGenerator);
+        mEditorAdapter.setEnabled(isEnabled());
+        mEditorAdapter.setShowOneEmptyEditor(mShowOneEmptyEditor);
+
+        // The list scrolls inside the editor's ScrollView so it needs a height of its own to
+        // only create the editors that are visible.
+        final RecyclerView recyclerView = new RecyclerView(getContext());
+        recyclerView.setLayoutParams(new LinearLayout.LayoutParams(
+                LinearLayout.LayoutParams.MATCH_PARENT,
+                getResources().getDimensionPixelSize(R.dimen.editor_virtualized_section_height)));
+        recyclerView.setLayoutManager(new LinearLayoutManager(getContext()));
+        if (mRecycledEditorPool != null) {
+            recyclerView.setRecycledViewPool(mRecycledEditorPool);
+        }
+        recyclerView.setAdapter(mEditorAdapter);
+        mEditors.addView(recyclerView);
+    }
+
+    private View inflateEditor(int layoutResId) {
+        if (mViewPool != null) {
+            return mViewPool.obtain(layoutResId, mEditors);
+        }
+        return mLayoutInflater.inflate(layoutResId, mEditors, /* attachToRoot =*/ false);
+    }
+
     /**
      * Updates the editors being displayed to the user removing extra empty
      * {@link Editor}s, so there is only max 1 empty {@link Editor} view at a time.
@@ -460,6 +548,13 @@ public class KindSectionView extends LinearLayout {
             setVisibility(VISIBLE);
 
             // We don't check the emptiness of the group views
+        } else if (mEditorAdapter != null) {
+            if (mHideIfEmpty && mEditorAdapter.hasOnlyEmptyValues()) {
+                setVisibility(GONE);
+                return;
+            }
+            setVisibility(VISIBLE);
+            mEditorAdapter.updateEmptyValues(RecyclerView.NO_POSITION);
         } else {
             // Determine if the entire kind section should be visible
             final int editorCount = mEditors.getChildCount();
@@ -49,6 +49,7 @@ import android.widget.ImageView;
 import android.widget.LinearLayout;
 import android.widget.ListPopupWindow;
 import android.widget.TextView;
+import androidx.recyclerview.widget.RecyclerView;
 
 import com.android.contacts.GeoUtil;
 import com.android.contacts.R;
@@ -196,6 +197,10 @@ public class RawContactEditorView extends LinearLayout implements View.OnClickLi
 
     private AccountTypeManager mAccountTypeManager;
     private LayoutInflater mLayoutInflater;
+    private EditorViewPool mViewPool;
+    // Shared by the sections with so many values that their editors are recycled
+    private final RecyclerView.RecycledViewPool mRecycledEditorPool =
+            new RecyclerView.RecycledViewPool();
 
     private ViewIdGenerator mViewIdGenerator;
     private MaterialColorMapUtils.MaterialPalette mMaterialPalette;
@@ -433,6 +438,14 @@ public class RawContactEditorView extends LinearLayout implements View.OnClickLi
         }
     }
 
+    /**
+     * Sets the pool that kind sections and editors are taken from instead of being inflated, or
+     * null to always inflate them.
+     */
+    void setViewPool(EditorViewPool viewPool) {
+        mViewPool = viewPool;
+    }
+
     public void setIntentExtras(Bundle extras) {
         mIntentExtras = extras;
     }
@@ -446,7 +459,7 @@ public class RawContactEditorView extends LinearLayout implements View.OnClickLi
         mRawContactIdToDisplayAlone = rawContactIdToDisplayAlone;
 
         mKindSectionViewMap.clear();
-        mKindSectionViews.removeAllViews();
+        removeKindSectionViews();
         mMoreFields.setVisibility(View.VISIBLE);
 
         mMaterialPalette = materialPalette;
@@ -641,7 +654,7 @@ public class RawContactEditorView extends LinearLayout implements View.OnClickLi
     }
 
     private void addReadOnlyRawContactEditorViews() {
-        mKindSectionViews.removeAllViews();
+        removeKindSectionViews();
         final AccountTypeManager accountTypes = AccountTypeManager.getInstance(
                 getContext());
         final AccountType type = mCurrentRawContactDelta.getAccountType(accountTypes);
@@ -892,11 +905,37 @@ public class RawContactEditorView extends LinearLayout implements View.OnClickLi
         }
     }
 
+    /**
+     * Removes all kind sections and puts them back into the view pool if there is one.
+     */
+    private void removeKindSectionViews() {
+        if (mViewPool == null) {
+            mKindSectionViews.removeAllViews();
+            return;
+        }
+        final int count = mKindSectionViews.getChildCount();
+        final List<KindSectionView> kindSectionViews = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            final View view = mKindSectionViews.getChildAt(i);
+            if (view instanceof KindSectionView) {
+                kindSectionViews.add((KindSectionView) view);
+            }
+        }
+        mKindSectionViews.removeAllViews();
+        for (KindSectionView kindSectionView : kindSectionViews) {
+            kindSectionView.resetForReuse();
+            mViewPool.recycle(R.layout.item_kind_section, kindSectionView);
+        }
+    }
+
     private KindSectionView inflateKindSectionView(ViewGroup viewGroup,
             KindSectionData kindSectionData, String mimeType) {
-        final KindSectionView kindSectionView = (KindSectionView)
-                mLayoutInflater.inflate(R.layout.item_kind_section, viewGroup,
-                        /* attachToRoot =*/ false);
+        final KindSectionView kindSectionView = (KindSectionView) (mViewPool != null
+                ? mViewPool.obtain(R.layout.item_kind_section, viewGroup)
+                : mLayoutInflater.inflate(R.layout.item_kind_section, viewGroup,
+                        /* attachToRoot =*/ false));
+        kindSectionView.setViewPool(mViewPool);
+        kindSectionView.setRecycledEditorPool(mRecycledEditorPool);
         kindSectionView.setIsUserProfile(mIsUserProfile);
 
         if (Phone.CONTENT_ITEM_TYPE.equals(mimeType)
@@ -0,0 +1,173 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.contacts.lettertiles;
+
+import android.content.ComponentCallbacks2;
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.util.LruCache;
+import androidx.annotation.VisibleForTesting;
+
+import com.android.contacts.R;
+
+/**
+ * Holds pre-rendered letter tiles so that {@link LetterTileDrawable}s of the same letter, color,
+ * size and shape only draw a bitmap instead of measuring and drawing text on every draw.
+ *
+ * <p>Tiles are kept in an {@link LruCache} that is bounded by the byte count of the bitmaps. It is
+ * sized for a number of list tiles at the density of the device, since nearly every row of the
+ * list has a key of its own. Tiles that would take more than a small part of it, like the large
+ * tiles of quick contact, are not cached. The hit rate is logged with the stats of
+ * {@link com.android.contacts.ContactPhotoManager}.</p>
+ */
+public final class LetterTileCache {
+
+    /**
+     * Number of list tiles the cache has room for. The letter and one of the tile colors make the
+     * key of a row, so most rows have a different key and the cache holds a few screens of rows.
+     */
+    private static final int MAX_LIST_TILES = 64;
+
+    // ARGB_8888, since circular tiles have transparent corners
+    private static final int BYTES_PER_PIXEL = 4;
+
+    /** Tiles larger than this part of the cache are drawn directly. */
+    private static final int MAX_TILE_FRACTION = 8;
+
+    private static LetterTileCache sInstance;
+
+    private final LruCache<Key, Bitmap> mTiles;
+
+    public static synchronized LetterTileCache getInstance(Resources res) {
+        if (sInstance == null) {
+            final int tileSize = res.getDimensionPixelSize(
+                    R.dimen.contact_browser_list_item_photo_size);
+            sInstance = new LetterTileCache(
+                    MAX_LIST_TILES * tileSize * tileSize * BYTES_PER_PIXEL);
+        }
+        return sInstance;
+    }
+
+    @VisibleForTesting
+    LetterTileCache(int maxSizeBytes) {
+        mTiles = new LruCache<Key, Bitmap>(maxSizeBytes) {
+            @Override
+            protected int sizeOf(Key key, Bitmap value) {
+                return value.getByteCount();
+            }
+        };
+    }
+
+    /**
+     * Returns the tile rendered for {@code key}, or null if there is none.
+     */
+    Bitmap get(Key key) {
+        return mTiles.get(key);
+    }
+
+    /**
+     * Returns whether a tile of the given size would be kept.
+     */
+    boolean canCache(int width, int height) {
+        return (long) width * height * BYTES_PER_PIXEL <= mTiles.maxSize() / MAX_TILE_FRACTION;
+    }
+
+    void put(Key key, Bitmap tile) {
+        mTiles.put(key, tile);
+    }
+
+    /**
+     * Releases tiles according to the level passed to
+     * {@link ComponentCallbacks2#onTrimMemory}.
+     */
+    public void onTrimMemory(int level) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE) {
+            mTiles.evictAll();
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND) {
+            mTiles.trimToSize(mTiles.maxSize() / 2);
+        }
+    }
+
+    /**
+     * Returns the byte count of the cached tiles.
+     */
+    public int size() {
+        return mTiles.size();
+    }
+
+    @Override
+    public String toString() {
+        return mTiles.toString();
+    }
+
+    /**
+     * Identifies a rendered tile. Two tiles with equal keys have the same pixels.
+     */
+    static final class Key {
+        private final char mLetter;
+        private final int mContactType;
+        private final int mColor;
+        private final int mWidth;
+        private final int mHeight;
+        private final float mScale;
+        private final float mOffset;
+        private final boolean mIsCircle;
+
+        /**
+         * @param letter the letter of the tile, or 0 if it shows the avatar of its contact type
+         */
+        Key(char letter, int contactType, int color, int width, int height, float scale,
+                float offset, boolean isCircle) {
+            mLetter = letter;
+            // The contact type only matters for the avatar
+            mContactType = letter == 0 ? contactType : 0;
+            mColor = color;
+            mWidth = width;
+            mHeight = height;
+            mScale = scale;
+            mOffset = offset;
+            mIsCircle = isCircle;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) o;
+            return mLetter == other.mLetter && mContactType == other.mContactType
+                    && mColor == other.mColor && mWidth == other.mWidth
+                    && mHeight == other.mHeight && mScale == other.mScale
+                    && mOffset == other.mOffset && mIsCircle == other.mIsCircle;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = mLetter;
+            result = 31 * result + mContactType;
+            result = 31 * result + mColor;
+            result = 31 * result + mWidth;
+            result = 31 * result + mHeight;
+            result = 31 * result + Float.floatToIntBits(mScale);
+            result = 31 * result + Float.floatToIntBits(mOffset);
+            result = 31 * result + (mIsCircle ? 1 : 0);
+            return result;
+        }
+    }
+}
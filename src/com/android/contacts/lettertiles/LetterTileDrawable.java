@@ -30,7 +30,9 @@ import android.graphics.drawable.AdaptiveIconDrawable;
 import android.graphics.drawable.Drawable;
 import android.text.TextUtils;
 
+import com.android.contacts.Experiments;
 import com.android.contacts.R;
+import com.android.contactsbind.experiments.Flags;
 
 import com.google.common.base.Preconditions;
 
@@ -52,6 +54,8 @@ public class LetterTileDrawable extends Drawable {
     private static Bitmap DEFAULT_PERSON_AVATAR;
     private static Bitmap DEFAULT_BUSINESS_AVATAR;
     private static Bitmap DEFAULT_VOICEMAIL_AVATAR;
+    private static Typeface sLetterTypeface;
+    private static LetterTileCache sTileCache;
 
     /** Reusable components to avoid new allocations */
     private static final Paint sPaint = new Paint();
@@ -75,6 +79,9 @@ public class LetterTileDrawable extends Drawable {
     private int mColor;
     private Character mLetter = null;
 
+    /** The tile rendered for the current properties and bounds, if it was cached. */
+    private Bitmap mTile;
+
     public LetterTileDrawable(final Resources res) {
         if (sColors == null) {
             sColors = res.obtainTypedArray(R.array.letter_tile_colors);
@@ -91,6 +98,11 @@ public class LetterTileDrawable extends Drawable {
                     res.getString(R.string.letter_tile_letter_font_family), Typeface.NORMAL));
             sPaint.setTextAlign(Align.CENTER);
             sPaint.setAntiAlias(true);
+            sLetterTypeface = Typeface.create("@*android:string/config_bodyFontFamily",
+                    Typeface.NORMAL);
+            if (Flags.getInstance().getBoolean(Experiments.LETTER_TILE_CACHE_ENABLED)) {
+                sTileCache = LetterTileCache.getInstance(res);
+            }
         }
         mPaint = new Paint();
         mPaint.setFilterBitmap(true);
@@ -104,10 +116,54 @@ public class LetterTileDrawable extends Drawable {
         if (!isVisible() || bounds.isEmpty()) {
             return;
         }
+        // The alpha of the drawable only applies to the background, so tiles are only cached
+        // when it is opaque.
+        if (sTileCache != null && mPaint.getAlpha() == 255) {
+            final Bitmap tile = getTile(bounds);
+            if (tile != null) {
+                canvas.drawBitmap(tile, bounds.left, bounds.top, null);
+                return;
+            }
+        }
         // Draw letter tile.
         drawLetterTile(canvas);
     }
 
+    @Override
+    protected void onBoundsChange(Rect bounds) {
+        super.onBoundsChange(bounds);
+        mTile = null;
+    }
+
+    /**
+     * Returns the cached tile for the current properties and bounds, rendering it if there is
+     * none, or null if it is too large to be cached.
+     */
+    private Bitmap getTile(Rect bounds) {
+        if (mTile != null) {
+            return mTile;
+        }
+        final LetterTileCache cache = sTileCache;
+        final int width = bounds.width();
+        final int height = bounds.height();
+        if (!cache.canCache(width, height)) {
+            return null;
+        }
+        final LetterTileCache.Key key = new LetterTileCache.Key(
+                mLetter == null ? (char) 0 : mLetter.charValue(), mContactType, mColor, width,
+                height, mScale, mOffset, mIsCircle);
+        Bitmap tile = cache.get(key);
+        if (tile == null) {
+            tile = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+            final Canvas tileCanvas = new Canvas(tile);
+            tileCanvas.translate(-bounds.left, -bounds.top);
+            drawLetterTile(tileCanvas);
+            cache.put(key, tile);
+        }
+        mTile = tile;
+        return tile;
+    }
+
     /**
      * Draw the bitmap onto the canvas at the current bounds taking into account the current scale.
      */
@@ -158,7 +214,7 @@ public class LetterTileDrawable extends Drawable {
             // Scale text by canvas bounds and user selected scaling factor
             sPaint.setTextSize(mScale * sLetterToTileRatio * minDimension);
             sPaint.getTextBounds(sFirstChar, 0, 1, sRect);
-            sPaint.setTypeface(Typeface.create("@*android:string/config_bodyFontFamily", Typeface.NORMAL));
+            sPaint.setTypeface(sLetterTypeface);
             sPaint.setColor(sTileFontColor);
             sPaint.setAlpha(ALPHA);
 
@@ -232,6 +288,7 @@ public class LetterTileDrawable extends Drawable {
      * size, from a scale of 0 to 2.0f. The default is 1.0f.
      */
     public LetterTileDrawable setScale(float scale) {
+        mTile = null;
         mScale = scale;
         return this;
     }
@@ -250,22 +307,26 @@ public class LetterTileDrawable extends Drawable {
      */
     public LetterTileDrawable setOffset(float offset) {
         Preconditions.checkArgument(offset >= -0.5f && offset <= 0.5f);
+        mTile = null;
         mOffset = offset;
         return this;
     }
 
     public LetterTileDrawable setLetter(Character letter){
+        mTile = null;
         mLetter = letter;
         return this;
     }
 
     public LetterTileDrawable setColor(int color){
+        mTile = null;
         mColor = color;
         return this;
     }
 
     public LetterTileDrawable setLetterAndColorFromContactDetails(final String displayName,
             final String identifier) {
+        mTile = null;
         if (displayName != null && displayName.length() > 0
                 && isEnglishLetter(displayName.charAt(0))) {
             mLetter = Character.toUpperCase(displayName.charAt(0));
@@ -277,11 +338,13 @@ public class LetterTileDrawable extends Drawable {
     }
 
     public LetterTileDrawable setContactType(int contactType) {
+        mTile = null;
         mContactType = contactType;
         return this;
     }
 
     public LetterTileDrawable setIsCircular(boolean isCircle) {
+        mTile = null;
         mIsCircle = isCircle;
         return this;
     }
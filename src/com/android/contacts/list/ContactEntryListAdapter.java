@@ -37,12 +37,20 @@ import android.widget.TextView;
 import com.android.contacts.ContactPhotoManager;
 import com.android.contacts.ContactPhotoManager.DefaultImageRequest;
 import com.android.contacts.ContactsUtils;
+import com.android.contacts.Experiments;
 import com.android.contacts.R;
 import com.android.contacts.compat.CompatUtils;
 import com.android.contacts.compat.DirectoryCompat;
 import com.android.contacts.util.SearchUtil;
+import com.android.contacts.util.concurrent.ContactsExecutors;
+import com.android.contactsbind.experiments.Flags;
+
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
 
 import java.util.HashSet;
+import java.util.Locale;
+import java.util.concurrent.Callable;
 
 /**
  * Common base class for various contact-related lists, e.g. contact list, phone number list
@@ -65,6 +73,7 @@ public abstract class ContactEntryListAdapter extends IndexerListAdapter {
     private boolean mCircularPhotos = true;
     private boolean mQuickContactEnabled;
     private boolean mAdjustSelectionBoundsEnabled;
+    private boolean mFlatRowRenderingEnabled;
 
     /**
      * indicates if contact queries include favorites
@@ -96,10 +105,15 @@ public abstract class ContactEntryListAdapter extends IndexerListAdapter {
     /** Resource used to provide header-text for default filter. */
     private CharSequence mDefaultFilterHeaderText;
 
+    /** Key of the cached index being read from storage, until it or the provider's arrives. */
+    private String mRestoringIndexKey;
+
     public ContactEntryListAdapter(Context context) {
         super(context);
         setDefaultFilterHeaderText(R.string.local_search_label);
         addPartitions();
+        mFlatRowRenderingEnabled = Flags.getInstance().getBoolean(
+                Experiments.LIST_FLAT_ROW_RENDERING_ENABLED);
     }
 
     /**
@@ -118,6 +132,7 @@ public abstract class ContactEntryListAdapter extends IndexerListAdapter {
     protected ContactListItemView newView(
             Context context, int partition, Cursor cursor, int position, ViewGroup parent) {
         final ContactListItemView view = new ContactListItemView(context, null);
+        view.setFlatTextEnabled(mFlatRowRenderingEnabled);
         view.setIsSectionHeaderEnabled(isSectionHeaderDisplayEnabled());
         view.setAdjustSelectionBoundsEnabled(isAdjustSelectionBoundsEnabled());
         return view;
@@ -359,6 +374,18 @@ public abstract class ContactEntryListAdapter extends IndexerListAdapter {
         mAdjustSelectionBoundsEnabled = enabled;
     }
 
+    public boolean isFlatRowRenderingEnabled() {
+        return mFlatRowRenderingEnabled;
+    }
+
+    /**
+     * Whether new rows draw their text directly instead of through child text views. Only
+     * affects rows created after the call.
+     */
+    public void setFlatRowRenderingEnabled(boolean enabled) {
+        mFlatRowRenderingEnabled = enabled;
+    }
+
     public boolean shouldIncludeFavorites() {
         return mIncludeFavorites;
     }
@@ -489,6 +516,8 @@ public abstract class ContactEntryListAdapter extends IndexerListAdapter {
      * Updates the indexer, which is used to produce section headers.
      */
     private void updateIndexer(Cursor cursor) {
+        // The provider's index replaces a cached one that is still being read.
+        mRestoringIndexKey = null;
         if (cursor == null || cursor.isClosed()) {
             setIndexer(null);
             return;
@@ -502,25 +531,84 @@ public abstract class ContactEntryListAdapter extends IndexerListAdapter {
             int counts[] = bundle.getIntArray(
                     Contacts.EXTRA_ADDRESS_BOOK_INDEX_COUNTS);
 
-            if (getExtraStartingSection()) {
-                // Insert an additional unnamed section at the top of the list.
-                String allSections[] = new String[sections.length + 1];
-                int allCounts[] = new int[counts.length + 1];
-                for (int i = 0; i < sections.length; i++) {
-                    allSections[i + 1] = sections[i];
-                    allCounts[i + 1] = counts[i];
-                }
-                allCounts[0] = 1;
-                allSections[0] = "";
-                setIndexer(new ContactsSectionIndexer(allSections, allCounts));
-            } else {
-                setIndexer(new ContactsSectionIndexer(sections, counts));
+            if (!isSearchMode()) {
+                ContactsSectionIndexCache.getInstance(getContext())
+                        .put(getSectionIndexCacheKey(), sections, counts);
             }
+            setIndexer(createIndexer(sections, counts));
         } else {
             setIndexer(null);
         }
     }
 
+    /**
+     * Installs the last address book index seen for the current filter, sort order and locale
+     * so that fast scrolling is available before the provider returns a fresh one. An index that
+     * isn't in memory is read from storage in the background and installed if it arrives first.
+     */
+    public void restoreCachedIndexer() {
+        if (getIndexer() != null || !isSectionHeaderDisplayEnabled() || isSearchMode()) {
+            return;
+        }
+        final String key = getSectionIndexCacheKey();
+        final ContactsSectionIndexCache cache = ContactsSectionIndexCache.getInstance(getContext());
+        final ContactsSectionIndexCache.Index index = cache.getIfLoaded(key);
+        if (index != null) {
+            setIndexer(createIndexer(index.getTitles(), index.getCounts()));
+            return;
+        }
+        if (key.equals(mRestoringIndexKey)) {
+            return;
+        }
+        mRestoringIndexKey = key;
+        Futures.addCallback(ContactsExecutors.getDefaultThreadPoolExecutor().submit(
+                new Callable<ContactsSectionIndexCache.Index>() {
+                    @Override
+                    public ContactsSectionIndexCache.Index call() {
+                        return cache.get(key);
+                    }
+                }), new FutureCallback<ContactsSectionIndexCache.Index>() {
+                    @Override
+                    public void onSuccess(ContactsSectionIndexCache.Index index) {
+                        if (!key.equals(mRestoringIndexKey)) {
+                            return;
+                        }
+                        mRestoringIndexKey = null;
+                        if (index != null && getIndexer() == null) {
+                            setIndexer(createIndexer(index.getTitles(), index.getCounts()));
+                        }
+                    }
+
+                    @Override
+                    public void onFailure(Throwable t) {
+                        if (key.equals(mRestoringIndexKey)) {
+                            mRestoringIndexKey = null;
+                        }
+                    }
+                }, ContactsExecutors.newUiThreadExecutor());
+    }
+
+    private String getSectionIndexCacheKey() {
+        return ContactsSectionIndexCache.buildKey(getClass().getName(), getFilter(),
+                getSortOrder(), Locale.getDefault());
+    }
+
+    private ContactsSectionIndexer createIndexer(String[] sections, int[] counts) {
+        if (getExtraStartingSection()) {
+            // Insert an additional unnamed section at the top of the list.
+            String allSections[] = new String[sections.length + 1];
+            int allCounts[] = new int[counts.length + 1];
+            for (int i = 0; i < sections.length; i++) {
+                allSections[i + 1] = sections[i];
+                allCounts[i + 1] = counts[i];
+            }
+            allCounts[0] = 1;
+            allSections[0] = "";
+            return new ContactsSectionIndexer(allSections, allCounts);
+        }
+        return new ContactsSectionIndexer(sections, counts);
+    }
+
     protected boolean getExtraStartingSection() {
         return false;
     }
@@ -329,6 +329,7 @@ public abstract class ContactEntryListFragment<T extends ContactEntryListAdapter
         }
 
         configureAdapter();
+        mAdapter.restoreCachedIndexer();
         int partitionCount = mAdapter.getPartitionCount();
         for (int i = 0; i < partitionCount; i++) {
             Partition partition = mAdapter.getPartition(i);
@@ -18,6 +18,7 @@ package com.android.contacts.list;
 import android.content.Context;
 import android.database.Cursor;
 import android.net.Uri;
+import android.os.Bundle;
 import android.provider.ContactsContract;
 import android.provider.ContactsContract.Contacts;
 import android.provider.ContactsContract.Data;
@@ -30,9 +31,12 @@ import android.widget.ListView;
 import com.android.contacts.ContactPhotoManager.DefaultImageRequest;
 import com.android.contacts.R;
 import com.android.contacts.compat.ContactsCompat;
+import com.android.contacts.util.concurrent.ContactsExecutors;
 import com.android.contacts.preference.ContactsPreferences;
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -40,6 +44,9 @@ import java.util.Set;
  */
 public abstract class ContactListAdapter extends MultiSelectEntryContactListAdapter {
 
+    /** Number of names laid out ahead of binding when flat row rendering is enabled. */
+    private static final int FLAT_ROW_PREFETCH_COUNT = 32;
+
     public static class ContactQuery {
         public static final String[] CONTACT_PROJECTION_PRIMARY = new String[] {
             Contacts._ID,                           // 0
@@ -109,6 +116,8 @@ public abstract class ContactListAdapter extends MultiSelectEntryContactListAdap
     private String mSelectedContactLookupKey;
     private long mSelectedContactId;
     private ContactListItemView.PhotoPosition mPhotoPosition;
+    /** A row using flat rendering, used to find the width names are laid out at. */
+    private ContactListItemView mFlatRowTemplate;
 
     public ContactListAdapter(Context context) {
         super(context, ContactQuery.CONTACT_ID);
@@ -227,6 +236,9 @@ public abstract class ContactListAdapter extends MultiSelectEntryContactListAdap
         if (mPhotoPosition != null) {
             view.setPhotoPosition(mPhotoPosition);
         }
+        if (view.isFlatTextEnabled()) {
+            mFlatRowTemplate = view;
+        }
         return view;
     }
 
@@ -377,7 +389,16 @@ public abstract class ContactListAdapter extends MultiSelectEntryContactListAdap
         }
 
         if (shouldIncludeFavorites()) {
-            if (cursor.getInt(ContactQuery.CONTACT_STARRED) == 1) {
+            final Bundle extras = cursor.getExtras();
+            if (extras != null
+                    && extras.containsKey(FavoritesAndContactsLoader.EXTRA_FAVORITES_COUNT)) {
+                // The loader knows where the favorites end, no need to walk the cursor.
+                final int favoritesCount =
+                        extras.getInt(FavoritesAndContactsLoader.EXTRA_FAVORITES_COUNT);
+                if (favoritesCount > 0) {
+                    setFavoritesSectionHeader(favoritesCount);
+                }
+            } else if (cursor.getInt(ContactQuery.CONTACT_STARRED) == 1) {
                 final Set<Integer> favorites = new HashSet<>();
                 favorites.add(cursor.getInt(ContactQuery.CONTACT_ID));
                 while (cursor != null && cursor.moveToNext()) {
@@ -390,6 +411,28 @@ public abstract class ContactListAdapter extends MultiSelectEntryContactListAdap
                 setFavoritesSectionHeader(favorites.size());
             }
         }
+
+        prefetchFlatRowNames(cursor);
+    }
+
+    /**
+     * Builds the text layouts of the first names of a new cursor in the background so that the
+     * rows shown next do not lay out text while binding. Highlighted search results are styled
+     * per query and are not cached, so they are skipped.
+     */
+    private void prefetchFlatRowNames(Cursor cursor) {
+        if (mFlatRowTemplate == null || isSearchMode() || !cursor.moveToFirst()) {
+            return;
+        }
+        final List<String> names = new ArrayList<>(FLAT_ROW_PREFETCH_COUNT);
+        do {
+            final String name = cursor.getString(ContactQuery.CONTACT_DISPLAY_NAME);
+            if (name != null) {
+                names.add(name);
+            }
+        } while (names.size() < FLAT_ROW_PREFETCH_COUNT && cursor.moveToNext());
+        mFlatRowTemplate.prefetchFlatNames(
+                ContactsExecutors.getDefaultThreadPoolExecutor(), names);
     }
 
     /**
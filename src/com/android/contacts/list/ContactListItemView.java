@@ -32,6 +32,7 @@ import android.provider.ContactsContract.Contacts;
 import android.provider.ContactsContract.SearchSnippets;
 import android.text.Spannable;
 import android.text.SpannableString;
+import android.text.SpannableStringBuilder;
 import android.text.TextUtils;
 import android.text.TextUtils.TruncateAt;
 import android.util.AttributeSet;
@@ -40,6 +41,7 @@ import android.view.Gravity;
 import android.view.MotionEvent;
 import android.view.View;
 import android.view.ViewGroup;
+import android.view.accessibility.AccessibilityNodeInfo;
 import android.widget.AbsListView.SelectionBoundsAdjuster;
 import android.widget.ImageView;
 import android.widget.ImageView.ScaleType;
@@ -63,6 +65,7 @@ import com.google.common.collect.Lists;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.Executor;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -194,6 +197,16 @@ public class ContactListItemView extends ViewGroup
 
     private ColorStateList mSecondaryTextColor;
 
+    /**
+     * When true the name, data and snippet are drawn directly from precomputed layouts instead of
+     * through child text views.
+     */
+    private boolean mFlatTextEnabled;
+    private FlatTextLayout mFlatName;
+    private FlatTextLayout mFlatData;
+    private FlatTextLayout mFlatSnippet;
+    private int mFlatDataWidth;
+
     private int mDefaultPhotoViewSize = 0;
     /**
      * Can be effective even when {@link #mPhotoView} is null, as we want to have horizontal padding
@@ -492,6 +505,8 @@ public class ContactListItemView extends ViewGroup
                     MeasureSpec.makeMeasureSpec(nameTextWidth, MeasureSpec.EXACTLY),
                     MeasureSpec.makeMeasureSpec(0, MeasureSpec.UNSPECIFIED));
             mNameTextViewHeight = mNameTextView.getMeasuredHeight();
+        } else if (isFlatVisible(mFlatName)) {
+            mNameTextViewHeight = mFlatName.getHeight();
         }
 
         if (isVisible(mPhoneticNameTextView)) {
@@ -505,7 +520,7 @@ public class ContactListItemView extends ViewGroup
         // we should ellipsize both using appropriate ratio.
         final int dataWidth;
         final int labelWidth;
-        if (isVisible(mDataView)) {
+        if (isVisible(mDataView) || isFlatVisible(mFlatData)) {
             if (isVisible(mLabelView)) {
                 final int totalWidth = effectiveWidth - mGapBetweenLabelAndData;
                 dataWidth = ((totalWidth * mDataViewWidthWeight)
@@ -529,7 +544,10 @@ public class ContactListItemView extends ViewGroup
             mDataView.measure(MeasureSpec.makeMeasureSpec(dataWidth, MeasureSpec.EXACTLY),
                     MeasureSpec.makeMeasureSpec(0, MeasureSpec.UNSPECIFIED));
             mDataViewHeight = mDataView.getMeasuredHeight();
+        } else if (isFlatVisible(mFlatData)) {
+            mDataViewHeight = mFlatData.getHeight();
         }
+        mFlatDataWidth = dataWidth;
 
         if (isVisible(mLabelView)) {
             mLabelView.measure(MeasureSpec.makeMeasureSpec(labelWidth, MeasureSpec.AT_MOST),
@@ -543,6 +561,8 @@ public class ContactListItemView extends ViewGroup
                     MeasureSpec.makeMeasureSpec(effectiveWidth, MeasureSpec.EXACTLY),
                     MeasureSpec.makeMeasureSpec(0, MeasureSpec.UNSPECIFIED));
             mSnippetTextViewHeight = mSnippetView.getMeasuredHeight();
+        } else if (isFlatVisible(mFlatSnippet)) {
+            mSnippetTextViewHeight = mFlatSnippet.getHeight();
         }
 
         // Status view height is the biggest of the text view and the presence icon
@@ -793,9 +813,20 @@ public class ContactListItemView extends ViewGroup
                         rightBound,
                         textTopBound + mNameTextViewHeight);
             }
+        } else if (isFlatVisible(mFlatName)) {
+            final int distanceFromEnd = workProfileIconWidth
+                    + (mCheckBoxWidth > 0 ? mCheckBoxWidth + mGapBetweenImageAndText : 0);
+            final int nameTop = textTopBound + (mNameTextViewHeight - mFlatName.getHeight()) / 2;
+            if (mPhotoPosition == PhotoPosition.LEFT) {
+                mFlatName.layout(leftBound, nameTop, rightBound - distanceFromEnd - leftBound);
+            } else {
+                mFlatName.layout(leftBound + distanceFromEnd, nameTop,
+                        rightBound - leftBound - distanceFromEnd);
+            }
         }
 
-        if (isVisible(mNameTextView) || isVisible(mWorkProfileIcon)) {
+        if (isVisible(mNameTextView) || isFlatVisible(mFlatName)
+                || isVisible(mWorkProfileIcon)) {
             textTopBound += mNameTextViewHeight;
         }
 
@@ -882,8 +913,16 @@ public class ContactListItemView extends ViewGroup
                         rightBound,
                         textTopBound + mLabelAndDataViewMaxHeight);
             }
+        } else if (isFlatVisible(mFlatData)) {
+            final int dataTop = textTopBound + mLabelAndDataViewMaxHeight - mDataViewHeight;
+            if (!isLayoutRtl) {
+                mFlatData.layout(dataLeftBound, dataTop, rightBound - dataLeftBound);
+            } else {
+                final int dataWidth = Math.min(mFlatDataWidth, rightBound - leftBound);
+                mFlatData.layout(rightBound - dataWidth, dataTop, dataWidth);
+            }
         }
-        if (isVisible(mLabelView) || isVisible(mDataView)) {
+        if (isVisible(mLabelView) || isVisible(mDataView) || isFlatVisible(mFlatData)) {
             textTopBound += mLabelAndDataViewMaxHeight;
         }
 
@@ -892,6 +931,8 @@ public class ContactListItemView extends ViewGroup
                     textTopBound,
                     rightBound,
                     textTopBound + mSnippetTextViewHeight);
+        } else if (isFlatVisible(mFlatSnippet)) {
+            mFlatSnippet.layout(leftBound, textTopBound, rightBound - leftBound);
         }
     }
 
@@ -909,6 +950,10 @@ public class ContactListItemView extends ViewGroup
         return view != null && view.getVisibility() == View.VISIBLE;
     }
 
+    private boolean isFlatVisible(FlatTextLayout text) {
+        return mFlatTextEnabled && text != null && text.isVisible();
+    }
+
     /**
      * Extracts width and height from the style
      */
@@ -950,6 +995,10 @@ public class ContactListItemView extends ViewGroup
         if (mActivatedStateSupported) {
             mActivatedBackgroundDrawable.setState(getDrawableState());
         }
+        if (mFlatTextEnabled) {
+            // Flat text picks its color from the drawable state when drawn.
+            invalidate();
+        }
     }
 
     @Override
@@ -972,6 +1021,101 @@ public class ContactListItemView extends ViewGroup
         }
 
         super.dispatchDraw(canvas);
+
+        if (mFlatTextEnabled) {
+            final int[] state = getDrawableState();
+            if (isFlatVisible(mFlatName)) mFlatName.draw(canvas, state);
+            if (isFlatVisible(mFlatData)) mFlatData.draw(canvas, state);
+            if (isFlatVisible(mFlatSnippet)) mFlatSnippet.draw(canvas, state);
+        }
+    }
+
+    /**
+     * Draws the name, data and snippet directly from cached text layouts instead of creating
+     * child text views for them. Labels, status and the photo still use child views.
+     *
+     * <p>Must be called before any text is bound to the view.</p>
+     */
+    public void setFlatTextEnabled(boolean enabled) {
+        if (mFlatTextEnabled == enabled) {
+            return;
+        }
+        mFlatTextEnabled = enabled;
+        if (enabled && mFlatName == null) {
+            mFlatName = new FlatTextLayout(mNameTextViewTextSize,
+                    ResourcesCompat.getColorStateList(getResources(),
+                            R.color.contact_list_name_text_color, getContext().getTheme()),
+                    /* bold */ false);
+            mFlatData = createFlatTextLayout(R.style.TextAppearanceSmall);
+            mFlatSnippet = createFlatTextLayout(android.R.style.TextAppearance_Small);
+        }
+    }
+
+    public boolean isFlatTextEnabled() {
+        return mFlatTextEnabled;
+    }
+
+    @Override
+    public void onInitializeAccessibilityNodeInfo(AccessibilityNodeInfo info) {
+        super.onInitializeAccessibilityNodeInfo(info);
+        if (mFlatTextEnabled) {
+            // Flat text has no views of its own, so the row describes all of its text.
+            info.setContentDescription(getFlatTextContentDescription());
+        }
+    }
+
+    private CharSequence getFlatTextContentDescription() {
+        final SpannableStringBuilder description = new SpannableStringBuilder();
+        appendAccessibilityText(description, mFlatName.getText());
+        if (isVisible(mPhoneticNameTextView)) {
+            appendAccessibilityText(description, mPhoneticNameTextView.getText());
+        }
+        if (isVisible(mLabelView)) {
+            appendAccessibilityText(description, mLabelView.getText());
+        }
+        appendAccessibilityText(description, mFlatData.getText());
+        appendAccessibilityText(description, mFlatSnippet.getText());
+        return description.length() == 0 ? null : description;
+    }
+
+    private static void appendAccessibilityText(SpannableStringBuilder description,
+            CharSequence text) {
+        if (TextUtils.isEmpty(text)) {
+            return;
+        }
+        if (description.length() > 0) {
+            description.append(", ");
+        }
+        // Drop the highlighting spans so that talkback doesn't read the text in parts, and give
+        // the text-to-speech engine a hint if it's a phone number.
+        final String plainText = text.toString();
+        description.append(ContactDisplayUtils.isPossiblePhoneNumber(plainText)
+                ? PhoneNumberUtilsCompat.createTtsSpannable(plainText) : plainText);
+    }
+
+    /**
+     * Warms the shared layout cache for names about to be bound, on {@code executor}. Does
+     * nothing until this view has been laid out once, since the width is not known before.
+     */
+    public void prefetchFlatNames(Executor executor, List<? extends CharSequence> names) {
+        if (mFlatTextEnabled && mFlatName.getLayoutWidth() > 0) {
+            mFlatName.prefetch(executor, names, mFlatName.getLayoutWidth(),
+                    ViewUtil.isViewLayoutRtl(this));
+        }
+    }
+
+    private FlatTextLayout createFlatTextLayout(int textAppearance) {
+        // Attributes must be sorted by id for obtainStyledAttributes.
+        final TypedArray a = getContext().obtainStyledAttributes(textAppearance,
+                new int[] { android.R.attr.textSize, android.R.attr.textColor });
+        final float textSize = a.getDimension(0, mNameTextViewTextSize);
+        ColorStateList textColor = a.getColorStateList(1);
+        a.recycle();
+        if (textColor == null) {
+            textColor = mSecondaryTextColor != null
+                    ? mSecondaryTextColor : ColorStateList.valueOf(Color.GRAY);
+        }
+        return new FlatTextLayout(textSize, textColor, /* bold */ false);
     }
 
     /**
@@ -1249,6 +1393,12 @@ public class ContactListItemView extends ViewGroup
      * Adds or updates a text view for the data element.
      */
     public void setData(char[] text, int size) {
+        if (mFlatTextEnabled) {
+            mFlatData.setText(text == null || size == 0 ? null : new String(text, 0, size),
+                    ViewUtil.isViewLayoutRtl(this));
+            invalidate();
+            return;
+        }
         if (text == null || size == 0) {
             if (mDataView != null) {
                 mDataView.setVisibility(View.GONE);
@@ -1265,6 +1415,20 @@ public class ContactListItemView extends ViewGroup
      * mask exists.
      */
     public void setPhoneNumber(String text, String countryIso) {
+        if (mFlatTextEnabled) {
+            CharSequence textToSet = text;
+            if (text != null && mNumberHighlightSequence.size() != 0) {
+                final SpannableString spannable = new SpannableString(text);
+                final HighlightSequence highlightSequence = mNumberHighlightSequence.get(0);
+                mTextHighlighter.applyMaskingHighlight(spannable, highlightSequence.start,
+                        highlightSequence.end);
+                textToSet = spannable;
+            }
+            // Phone numbers are always shown left to right.
+            mFlatData.setText(textToSet, /* isRtl =*/ false);
+            invalidate();
+            return;
+        }
         if (text == null) {
             if (mDataView != null) {
                 mDataView.setVisibility(View.GONE);
@@ -1387,6 +1551,13 @@ public class ContactListItemView extends ViewGroup
      * Adds or updates a text view for the search snippet.
      */
     public void setSnippet(String text) {
+        if (mFlatTextEnabled) {
+            mFlatSnippet.setText(TextUtils.isEmpty(text) ? null
+                    : mTextHighlighter.applyPrefixHighlight(text, mHighlightedPrefix),
+                    ViewUtil.isViewLayoutRtl(this));
+            invalidate();
+            return;
+        }
         if (TextUtils.isEmpty(text)) {
             if (mSnippetView != null) {
                 mSnippetView.setVisibility(View.GONE);
@@ -1501,7 +1672,8 @@ public class ContactListItemView extends ViewGroup
         // do it here too.
         if (mQuickContact != null) {
             mQuickContact.setContentDescription(getContext().getString(
-                    R.string.description_quick_contact_for, mNameTextView.getText()));
+                    R.string.description_quick_contact_for, mFlatTextEnabled
+                            ? mFlatName.getText() : mNameTextView.getText()));
         }
     }
 
@@ -1529,6 +1701,12 @@ public class ContactListItemView extends ViewGroup
         } else {
             name = mUnknownNameText;
         }
+        if (mFlatTextEnabled) {
+            // Read out by onInitializeAccessibilityNodeInfo along with the data and snippet.
+            mFlatName.setText(name, ViewUtil.isViewLayoutRtl(this));
+            invalidate();
+            return;
+        }
         setMarqueeText(getNameTextView(), name);
 
         if (ContactDisplayUtils.isPossiblePhoneNumber(name)) {
@@ -1558,6 +1736,9 @@ public class ContactListItemView extends ViewGroup
     }
 
     public void hideDisplayName() {
+        if (mFlatTextEnabled) {
+            mFlatName.clear();
+        }
         if (mNameTextView != null) {
             removeView(mNameTextView);
             mNameTextView = null;
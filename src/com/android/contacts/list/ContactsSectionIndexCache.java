@@ -0,0 +1,212 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.contacts.list;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+import android.util.LruCache;
+import androidx.annotation.VisibleForTesting;
+
+import com.android.contacts.util.concurrent.ContactsExecutors;
+import com.google.common.util.concurrent.MoreExecutors;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.Executor;
+
+/**
+ * Remembers the address book index (section titles and counts) returned by the provider for a
+ * given list configuration so that fast scrolling is available before the next query finishes,
+ * including after the process restarts.
+ *
+ * <p>Entries are keyed by adapter, filter, sort order and locale. They are only rewritten when
+ * the provider returns a different index.</p>
+ */
+public class ContactsSectionIndexCache {
+    private static final String TAG = "SectionIndexCache";
+
+    private static final String PREFERENCES_NAME = "section_index_cache";
+
+    /** Number of list configurations kept in memory. */
+    private static final int MAX_ENTRIES = 8;
+
+    private static final String KEY_TITLES = "titles";
+    private static final String KEY_COUNTS = "counts";
+
+    /**
+     * Section titles and the number of rows in each section.
+     */
+    public static final class Index {
+        private final String[] mTitles;
+        private final int[] mCounts;
+
+        public Index(String[] titles, int[] counts) {
+            mTitles = titles.clone();
+            mCounts = counts.clone();
+        }
+
+        /** Returns a copy of the titles since {@link ContactsSectionIndexer} modifies them. */
+        public String[] getTitles() {
+            return mTitles.clone();
+        }
+
+        public int[] getCounts() {
+            return mCounts.clone();
+        }
+
+        public boolean matches(String[] titles, int[] counts) {
+            return Arrays.equals(mTitles, titles) && Arrays.equals(mCounts, counts);
+        }
+    }
+
+    private static ContactsSectionIndexCache sInstance;
+
+    private final SharedPreferences mPreferences;
+    private final Executor mPersistExecutor;
+    private final LruCache<String, Index> mIndexes = new LruCache<>(MAX_ENTRIES);
+
+    public static synchronized ContactsSectionIndexCache getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = new ContactsSectionIndexCache(context.getApplicationContext()
+                    .getSharedPreferences(PREFERENCES_NAME, Context.MODE_PRIVATE),
+                    ContactsExecutors.getDefaultThreadPoolExecutor());
+        }
+        return sInstance;
+    }
+
+    @VisibleForTesting
+    ContactsSectionIndexCache(SharedPreferences preferences) {
+        this(preferences, MoreExecutors.directExecutor());
+    }
+
+    private ContactsSectionIndexCache(SharedPreferences preferences, Executor persistExecutor) {
+        mPreferences = preferences;
+        mPersistExecutor = persistExecutor;
+    }
+
+    /**
+     * Builds the cache key for a list configuration.
+     */
+    public static String buildKey(String listType, ContactListFilter filter, int sortOrder,
+            Locale locale) {
+        return listType + '|' + (filter == null ? "" : filter.getId()) + '|' + sortOrder + '|'
+                + locale.toString();
+    }
+
+    /**
+     * Returns the last index stored for {@code key}, or null if there is none. Reads storage if
+     * the index isn't in memory.
+     */
+    public synchronized Index get(String key) {
+        Index index = mIndexes.get(key);
+        if (index == null) {
+            final Index restored = restore(key);
+            synchronized (mIndexes) {
+                // Don't replace an index put while storage was read.
+                index = mIndexes.get(key);
+                if (index == null && restored != null) {
+                    index = restored;
+                    mIndexes.put(key, index);
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Returns the index for {@code key} if it is in memory, without reading storage.
+     */
+    public Index getIfLoaded(String key) {
+        return mIndexes.get(key);
+    }
+
+    /**
+     * Stores the index for {@code key} and writes it to storage in the background. Returns false
+     * if it is the same as the index in memory. Only compares against memory, so it doesn't
+     * block on reading storage and may rewrite an index that wasn't restored yet.
+     */
+    public boolean put(final String key, String[] titles, int[] counts) {
+        final Index index;
+        synchronized (mIndexes) {
+            final Index existing = mIndexes.get(key);
+            if (existing != null && existing.matches(titles, counts)) {
+                return false;
+            }
+            index = new Index(titles, counts);
+            mIndexes.put(key, index);
+        }
+        mPersistExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final Index latest = mIndexes.get(key);
+                if (latest != null && latest != index) {
+                    // A newer index was put, which is persisted by its own task.
+                    return;
+                }
+                persist(key, index.mTitles, index.mCounts);
+            }
+        });
+        return true;
+    }
+
+    private Index restore(String key) {
+        final String serialized = mPreferences.getString(key, null);
+        if (serialized == null) {
+            return null;
+        }
+        try {
+            final JSONObject json = new JSONObject(serialized);
+            final JSONArray titlesJson = json.getJSONArray(KEY_TITLES);
+            final JSONArray countsJson = json.getJSONArray(KEY_COUNTS);
+            if (titlesJson.length() != countsJson.length()) {
+                return null;
+            }
+            final String[] titles = new String[titlesJson.length()];
+            final int[] counts = new int[countsJson.length()];
+            for (int i = 0; i < titles.length; i++) {
+                titles[i] = titlesJson.getString(i);
+                counts[i] = countsJson.getInt(i);
+            }
+            return new Index(titles, counts);
+        } catch (JSONException e) {
+            Log.w(TAG, "Discarding corrupt section index for " + key);
+            mPreferences.edit().remove(key).apply();
+            return null;
+        }
+    }
+
+    private void persist(String key, String[] titles, int[] counts) {
+        final JSONArray titlesJson = new JSONArray();
+        final JSONArray countsJson = new JSONArray();
+        for (int i = 0; i < titles.length; i++) {
+            titlesJson.put(titles[i] == null ? "" : titles[i]);
+            countsJson.put(counts[i]);
+        }
+        final JSONObject json = new JSONObject();
+        try {
+            json.put(KEY_TITLES, titlesJson);
+            json.put(KEY_COUNTS, countsJson);
+        } catch (JSONException e) {
+            return;
+        }
+        mPreferences.edit().putString(key, json.toString()).apply();
+    }
+}
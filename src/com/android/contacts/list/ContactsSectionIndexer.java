@@ -32,6 +32,7 @@ public class ContactsSectionIndexer implements SectionIndexer {
     private String[] mSections;
     private int[] mPositions;
     private int mCount;
+    private int mFavoritesCount = -1;
 
     /**
      * Constructor.
@@ -104,6 +105,20 @@ public class ContactsSectionIndexer implements SectionIndexer {
 
     public void setFavoritesHeader(int numberOfItemsToAdd) {
         if (mSections != null) {
+            if (mFavoritesCount >= 0) {
+                // The header is already there; shift the other sections in place if the number
+                // of favorites changed since the indexer was last used.
+                final int delta = numberOfItemsToAdd - mFavoritesCount;
+                if (delta != 0) {
+                    for (int i = 1; i < mPositions.length; i++) {
+                        mPositions[i] += delta;
+                    }
+                    mCount += delta;
+                    mFavoritesCount = numberOfItemsToAdd;
+                }
+                return;
+            }
+
             // Don't do anything if the header is already set properly.
             if (mSections.length > 0 && mSections[0].isEmpty()) {
                 return;
@@ -123,6 +138,7 @@ public class ContactsSectionIndexer implements SectionIndexer {
             mSections = tempSections;
             mPositions = tempPositions;
             mCount = mCount + numberOfItemsToAdd;
+            mFavoritesCount = numberOfItemsToAdd;
         }
     }
 }
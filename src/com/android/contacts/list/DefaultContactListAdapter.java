@@ -30,9 +30,11 @@ import android.provider.ContactsContract.Directory;
 import android.provider.ContactsContract.SearchSnippets;
 import android.text.TextUtils;
 import android.view.View;
+import com.android.contacts.Experiments;
 import com.android.contacts.compat.ContactsCompat;
 import com.android.contacts.model.account.AccountWithDataSet;
 import com.android.contacts.preference.ContactsPreferences;
+import com.android.contactsbind.experiments.Flags;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -52,7 +54,15 @@ public class DefaultContactListAdapter extends ContactListAdapter {
     @Override
     public void configureLoader(CursorLoader loader, long directoryId) {
         if (loader instanceof FavoritesAndContactsLoader) {
-            ((FavoritesAndContactsLoader) loader).setLoadFavorites(shouldIncludeFavorites());
+            final FavoritesAndContactsLoader favoritesLoader = (FavoritesAndContactsLoader) loader;
+            final Flags flags = Flags.getInstance();
+            favoritesLoader.setLoadFavorites(shouldIncludeFavorites());
+            favoritesLoader.setFilter(getFilter());
+            favoritesLoader.setConcurrentFavorites(
+                    flags.getBoolean(Experiments.LIST_CONCURRENT_FAVORITES_ENABLED));
+            favoritesLoader.setFuzzyQuery(null);
+            favoritesLoader.setPagingEnabled(!isSearchMode() && directoryId == Directory.DEFAULT
+                    && flags.getBoolean(Experiments.LIST_PAGED_LOADING_ENABLED));
         }
 
         String sortOrder = null;
@@ -85,6 +95,12 @@ public class DefaultContactListAdapter extends ContactListAdapter {
                 loader.setUri(builder.build());
                 loader.setProjection(getProjection(true));
                 sortOrder = Contacts.SORT_KEY_PRIMARY;
+                if (loader instanceof FavoritesAndContactsLoader
+                        && directoryId == Directory.DEFAULT
+                        && Flags.getInstance().getBoolean(
+                                Experiments.SEARCH_FUZZY_MATCHING_ENABLED)) {
+                    ((FavoritesAndContactsLoader) loader).setFuzzyQuery(query);
+                }
             }
         } else {
             final ContactListFilter filter = getFilter();
@@ -18,25 +18,217 @@ package com.android.contacts.list;
 import android.content.Context;
 import android.content.CursorLoader;
 import android.database.Cursor;
+import android.database.CursorWrapper;
+import android.database.DataSetObserver;
+import android.database.MatrixCursor;
 import android.database.MergeCursor;
 import android.database.sqlite.SQLiteException;
+import android.net.Uri;
 import android.os.Bundle;
+import android.os.CancellationSignal;
+import android.provider.ContactsContract;
 import android.provider.ContactsContract.Contacts;
+import android.provider.ContactsContract.SearchSnippets;
+import android.text.TextUtils;
+import android.util.LongSparseArray;
+
+import com.android.contacts.util.Constants;
+import com.android.contacts.util.StopWatch;
+import com.android.contacts.util.concurrent.ContactsExecutors;
 
 import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
 
 /**
  * A loader for use in the default contact list, which will also query for favorite contacts
  * if configured to do so.
  */
 public class FavoritesAndContactsLoader extends CursorLoader {
+    private static final String TAG = "FavoritesAndContacts";
+
+    /**
+     * Key of the cursor extra holding the number of favorites rows at the start of the result,
+     * present only if favorites were loaded.
+     */
+    public static final String EXTRA_FAVORITES_COUNT = "favorites_count";
+
+    /** Maximum number of typo tolerant matches appended after the exact search results. */
+    private static final int MAX_FUZZY_RESULTS = 50;
+
+    /** Number of rows in the first page, enough for the first screen plus a scroll margin. */
+    private static final int FIRST_PAGE_SIZE = 64;
+
+    /** Upper bound for the size of the following pages, which double each time. */
+    private static final int MAX_PAGE_SIZE = 4096;
 
     private boolean mLoadFavorites;
 
     private String[] mProjection;
 
+    private String mFuzzyQuery;
+
+    private boolean mPagingEnabled;
+
+    private boolean mConcurrentFavorites;
+
+    private ContactListFilter mFilter;
+
+    /** Pages of the result that is currently delivered to the client. Main thread only. */
+    private PageSet mDeliveredPages;
+
+    /**
+     * Pages being loaded, either a new result or the continuation of the delivered one. Set by
+     * the loader thread and cleared on the main thread when the content changes or the loader is
+     * reset. The pages themselves are only handed over with the result, which the loader posts to
+     * the main thread.
+     */
+    private volatile PageSet mLoadingPages;
+
+    private final ForceLoadContentObserver mPageObserver = new ForceLoadContentObserver();
+
+    /**
+     * Rows of the contacts query loaded so far, in sort order, fetched page by page using the
+     * sort key of the last loaded row.
+     */
+    private static final class PageSet {
+        Cursor favorites;
+        final List<Cursor> pages = new ArrayList<>();
+        final Bundle extras = new Bundle();
+        int nextPageSize = FIRST_PAGE_SIZE;
+        String lastSortKey;
+        long lastId = -1;
+        boolean complete;
+
+        void close() {
+            if (favorites != null) {
+                favorites.close();
+            }
+            for (Cursor page : pages) {
+                page.close();
+            }
+        }
+    }
+
+    /**
+     * The pages loaded so far. Pages are shared by consecutive results so closing this cursor
+     * leaves them open; the loader closes them once a newer result replaces them.
+     *
+     * <p>Until the last page is loaded the address book index in the extras is cut down to the
+     * loaded rows, so that section headers and the fast scroller don't point past them.</p>
+     */
+    private static final class PagedCursor extends MergeCursor {
+        final PageSet pageSet;
+        final boolean complete;
+        private final SharedPage[] mSharedPages;
+        private final Bundle mExtras;
+
+        PagedCursor(PageSet pageSet) {
+            this(pageSet, wrapPages(pageSet));
+        }
+
+        private PagedCursor(PageSet pageSet, SharedPage[] sharedPages) {
+            super(sharedPages);
+            this.pageSet = pageSet;
+            this.complete = pageSet.complete;
+            mSharedPages = sharedPages;
+            mExtras = complete ? pageSet.extras : clampIndex(pageSet);
+        }
+
+        @Override
+        public Bundle getExtras() {
+            return mExtras;
+        }
+
+        @Override
+        public void close() {
+            super.close();
+            // MergeCursor registers an observer on every page, which would keep this cursor
+            // reachable from the pages until the PageSet is closed.
+            for (SharedPage page : mSharedPages) {
+                if (page != null) {
+                    page.unregisterAllDataSetObservers();
+                }
+            }
+        }
+
+        private static SharedPage[] wrapPages(PageSet pageSet) {
+            final SharedPage[] cursors = new SharedPage[pageSet.pages.size() + 1];
+            cursors[0] = pageSet.favorites == null ? null : new SharedPage(pageSet.favorites);
+            for (int i = 0; i < pageSet.pages.size(); i++) {
+                cursors[i + 1] = new SharedPage(pageSet.pages.get(i));
+            }
+            return cursors;
+        }
+
+        private static Bundle clampIndex(PageSet pageSet) {
+            final Bundle extras = new Bundle(pageSet.extras);
+            final String[] titles =
+                    extras.getStringArray(Contacts.EXTRA_ADDRESS_BOOK_INDEX_TITLES);
+            final int[] counts = extras.getIntArray(Contacts.EXTRA_ADDRESS_BOOK_INDEX_COUNTS);
+            if (titles == null || counts == null || titles.length != counts.length) {
+                return extras;
+            }
+            int remaining = 0;
+            for (Cursor page : pageSet.pages) {
+                remaining += page.getCount();
+            }
+            int sections = 0;
+            final int[] loadedCounts = new int[counts.length];
+            while (sections < counts.length && remaining > 0) {
+                loadedCounts[sections] = Math.min(counts[sections], remaining);
+                remaining -= loadedCounts[sections];
+                sections++;
+            }
+            extras.putStringArray(Contacts.EXTRA_ADDRESS_BOOK_INDEX_TITLES,
+                    Arrays.copyOf(titles, sections));
+            extras.putIntArray(Contacts.EXTRA_ADDRESS_BOOK_INDEX_COUNTS,
+                    Arrays.copyOf(loadedCounts, sections));
+            return extras;
+        }
+    }
+
+    private static final class SharedPage extends CursorWrapper {
+        private final List<DataSetObserver> mObservers = new ArrayList<>();
+
+        SharedPage(Cursor cursor) {
+            super(cursor);
+        }
+
+        @Override
+        public void registerDataSetObserver(DataSetObserver observer) {
+            super.registerDataSetObserver(observer);
+            mObservers.add(observer);
+        }
+
+        @Override
+        public void unregisterDataSetObserver(DataSetObserver observer) {
+            super.unregisterDataSetObserver(observer);
+            mObservers.remove(observer);
+        }
+
+        void unregisterAllDataSetObservers() {
+            for (DataSetObserver observer : mObservers) {
+                super.unregisterDataSetObserver(observer);
+            }
+            mObservers.clear();
+        }
+
+        @Override
+        public void close() {
+            // Owned by the PageSet.
+        }
+    }
 
     public FavoritesAndContactsLoader(Context context) {
         super(context);
@@ -47,6 +239,37 @@ public class FavoritesAndContactsLoader extends CursorLoader {
         mLoadFavorites = flag;
     }
 
+    /**
+     * The filter applied to the contacts query, which the favorites query needs to follow too.
+     */
+    public void setFilter(ContactListFilter filter) {
+        mFilter = filter;
+    }
+
+    /**
+     * Whether the favorites query should run in parallel with the contacts query instead of
+     * before it.
+     */
+    public void setConcurrentFavorites(boolean flag) {
+        mConcurrentFavorites = flag;
+    }
+
+    /**
+     * Query for which typo tolerant matches should be merged in below the exact search results,
+     * or null to disable fuzzy matching.
+     */
+    public void setFuzzyQuery(String query) {
+        mFuzzyQuery = query;
+    }
+
+    /**
+     * Whether to load the contacts a page at a time, delivering a new result after each page,
+     * instead of waiting for the provider to return the whole list.
+     */
+    public void setPagingEnabled(boolean flag) {
+        mPagingEnabled = flag;
+    }
+
     public void setProjection(String[] projection) {
         super.setProjection(projection);
         mProjection = projection;
@@ -54,19 +277,280 @@ public class FavoritesAndContactsLoader extends CursorLoader {
 
     @Override
     public Cursor loadInBackground() {
-        List<Cursor> cursors = Lists.newArrayList();
-        if (mLoadFavorites) {
-            cursors.add(loadFavoritesContacts());
+        if (isPagingSupported()) {
+            return loadNextPage();
         }
-        final Cursor contactsCursor = loadContacts();
-        cursors.add(contactsCursor);
-        return new MergeCursor(cursors.toArray(new Cursor[cursors.size()])) {
+        final StopWatch stopWatch = StopWatch.start(TAG + (mConcurrentFavorites
+                ? " concurrent" : " sequential"));
+        final CancellationSignal favoritesSignal = new CancellationSignal();
+        final ListenableFuture<Cursor> favoritesFuture = startFavoritesQuery(favoritesSignal);
+        boolean returned = false;
+        try {
+            stopWatch.lap("start favorites");
+            final Cursor contactsCursor = loadContacts();
+            stopWatch.lap("contacts");
+            final Cursor favoritesCursor = getFavorites(favoritesFuture);
+            stopWatch.lap("join favorites");
+
+            List<Cursor> cursors = Lists.newArrayList();
+            cursors.add(favoritesCursor);
+            cursors.add(contactsCursor);
+            if (mFuzzyQuery != null) {
+                cursors.add(loadFuzzyContacts(contactsCursor));
+                stopWatch.lap("fuzzy");
+            }
+            // Need to get the extras from the contacts cursor.
+            final Bundle extras = contactsCursor == null || contactsCursor.getExtras() == null
+                    ? new Bundle() : new Bundle(contactsCursor.getExtras());
+            putFavoritesCount(extras, favoritesCursor);
+            stopWatch.stopAndLog(Constants.PERFORMANCE_TAG, 0);
+            final Cursor result = new MergeCursor(cursors.toArray(new Cursor[cursors.size()])) {
+                @Override
+                public Bundle getExtras() {
+                    return extras;
+                }
+            };
+            returned = true;
+            return result;
+        } finally {
+            if (!returned) {
+                // The contacts query threw or the load was canceled.
+                discardFavorites(favoritesFuture, favoritesSignal);
+            }
+        }
+    }
+
+    /**
+     * Starts loading the favorites, on another thread if {@link #mConcurrentFavorites} is set so
+     * that both provider queries run at the same time.
+     */
+    private ListenableFuture<Cursor> startFavoritesQuery(final CancellationSignal signal) {
+        if (!mLoadFavorites) {
+            return Futures.immediateFuture(null);
+        }
+        if (!mConcurrentFavorites) {
+            return Futures.immediateFuture(loadFavoritesContacts(signal));
+        }
+        return ContactsExecutors.getDefaultThreadPoolExecutor().submit(new Callable<Cursor>() {
             @Override
-            public Bundle getExtras() {
-                // Need to get the extras from the contacts cursor.
-                return contactsCursor == null ? new Bundle() : contactsCursor.getExtras();
+            public Cursor call() {
+                return loadFavoritesContacts(signal);
             }
-        };
+        });
+    }
+
+    /**
+     * Cancels a favorites query whose result won't be used and closes its cursor. The future
+     * itself isn't canceled because a query that already returned would leak its cursor.
+     */
+    private static void discardFavorites(ListenableFuture<Cursor> future,
+            CancellationSignal signal) {
+        signal.cancel();
+        Futures.addCallback(future, new FutureCallback<Cursor>() {
+            @Override
+            public void onSuccess(Cursor cursor) {
+                if (cursor != null) {
+                    cursor.close();
+                }
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                // Nothing to close.
+            }
+        }, MoreExecutors.directExecutor());
+    }
+
+    private static Cursor getFavorites(ListenableFuture<Cursor> future) {
+        try {
+            return Futures.getUnchecked(future);
+        } catch (UncheckedExecutionException e) {
+            // Surface provider exceptions just like when the query runs on the loader thread.
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private static void putFavoritesCount(Bundle extras, Cursor favoritesCursor) {
+        if (favoritesCursor != null) {
+            extras.putInt(EXTRA_FAVORITES_COUNT, favoritesCursor.getCount());
+        }
+    }
+
+    /**
+     * Paging relies on the sort key of the last row so it only applies to the plain sorted
+     * contacts list, not to search, lookups or data rows.
+     */
+    private boolean isPagingSupported() {
+        return mPagingEnabled && mFuzzyQuery == null
+                && Contacts.CONTENT_URI.getPath().equals(getUri().getPath())
+                && getSortKeyColumn() != null;
+    }
+
+    private String getSortKeyColumn() {
+        final String sortOrder = getSortOrder();
+        if (Contacts.SORT_KEY_PRIMARY.equals(sortOrder)
+                || Contacts.SORT_KEY_ALTERNATIVE.equals(sortOrder)) {
+            return sortOrder;
+        }
+        return null;
+    }
+
+    private Cursor loadNextPage() {
+        PageSet pageSet = mLoadingPages;
+        final CancellationSignal favoritesSignal = new CancellationSignal();
+        ListenableFuture<Cursor> favoritesFuture = null;
+        if (pageSet == null || pageSet.complete) {
+            pageSet = new PageSet();
+            mLoadingPages = pageSet;
+            favoritesFuture = startFavoritesQuery(favoritesSignal);
+        }
+        final boolean firstPage = pageSet.pages.isEmpty();
+        final String sortKeyColumn = getSortKeyColumn();
+
+        // The address book index describes the whole list, so only the first page asks for it.
+        Uri uri = getUri();
+        if (!firstPage) {
+            uri = removeQueryParameter(uri, Contacts.EXTRA_ADDRESS_BOOK_INDEX);
+        }
+        uri = uri.buildUpon().appendQueryParameter(ContactsContract.LIMIT_PARAM_KEY,
+                String.valueOf(pageSet.nextPageSize)).build();
+
+        final String[] projection = Arrays.copyOf(mProjection, mProjection.length + 1);
+        projection[mProjection.length] = sortKeyColumn;
+
+        final StringBuilder selection = new StringBuilder();
+        final List<String> selectionArgs = new ArrayList<>();
+        if (!TextUtils.isEmpty(getSelection())) {
+            selection.append('(').append(getSelection()).append(')');
+            if (getSelectionArgs() != null) {
+                selectionArgs.addAll(Arrays.asList(getSelectionArgs()));
+            }
+        }
+        if (!firstPage) {
+            if (selection.length() > 0) {
+                selection.append(" AND ");
+            }
+            // Rows strictly after the last loaded one in (sort key, _id) order. Null sort keys
+            // come first in SQLite.
+            if (pageSet.lastSortKey == null) {
+                selection.append("((").append(sortKeyColumn).append(" IS NULL AND ")
+                        .append(Contacts._ID).append(">?) OR ").append(sortKeyColumn)
+                        .append(" IS NOT NULL)");
+                selectionArgs.add(String.valueOf(pageSet.lastId));
+            } else {
+                selection.append('(').append(sortKeyColumn).append(">? OR (")
+                        .append(sortKeyColumn).append("=? AND ").append(Contacts._ID)
+                        .append(">?))");
+                selectionArgs.add(pageSet.lastSortKey);
+                selectionArgs.add(pageSet.lastSortKey);
+                selectionArgs.add(String.valueOf(pageSet.lastId));
+            }
+        }
+
+        Cursor page = null;
+        try {
+            page = getContext().getContentResolver().query(uri, projection,
+                    selection.length() == 0 ? null : selection.toString(),
+                    selectionArgs.toArray(new String[selectionArgs.size()]),
+                    sortKeyColumn + ", " + Contacts._ID);
+        } catch (NullPointerException | SQLiteException | SecurityException e) {
+            // Ignore NPEs, SQLiteExceptions and SecurityExceptions thrown by providers
+        } catch (RuntimeException e) {
+            if (favoritesFuture != null) {
+                discardFavorites(favoritesFuture, favoritesSignal);
+            }
+            throw e;
+        }
+        if (favoritesFuture != null) {
+            pageSet.favorites = getFavorites(favoritesFuture);
+            putFavoritesCount(pageSet.extras, pageSet.favorites);
+        }
+        if (page == null) {
+            pageSet.complete = true;
+            return new PagedCursor(pageSet);
+        }
+
+        if (firstPage) {
+            if (page.getExtras() != null) {
+                pageSet.extras.putAll(page.getExtras());
+            }
+            page.registerContentObserver(mPageObserver);
+        }
+        final int count = page.getCount();
+        if (count > 0 && page.moveToLast()) {
+            pageSet.lastSortKey = page.getString(mProjection.length);
+            pageSet.lastId = page.getLong(ContactListAdapter.ContactQuery.CONTACT_ID);
+        }
+        page.moveToPosition(-1);
+        pageSet.pages.add(page);
+        pageSet.complete = count < pageSet.nextPageSize;
+        pageSet.nextPageSize = Math.min(pageSet.nextPageSize * 2, MAX_PAGE_SIZE);
+        return new PagedCursor(pageSet);
+    }
+
+    private static Uri removeQueryParameter(Uri uri, String key) {
+        final Uri.Builder builder = uri.buildUpon().clearQuery();
+        for (String name : uri.getQueryParameterNames()) {
+            if (!name.equals(key)) {
+                for (String value : uri.getQueryParameters(name)) {
+                    builder.appendQueryParameter(name, value);
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    @Override
+    public void deliverResult(Cursor cursor) {
+        super.deliverResult(cursor);
+        if (!(cursor instanceof PagedCursor) || isReset()) {
+            return;
+        }
+        final PagedCursor pagedCursor = (PagedCursor) cursor;
+        if (mDeliveredPages != pagedCursor.pageSet) {
+            if (mDeliveredPages != null) {
+                mDeliveredPages.close();
+            }
+            mDeliveredPages = pagedCursor.pageSet;
+        }
+        if (!pagedCursor.complete && isStarted()) {
+            // Stream the next page in the background; the client keeps showing this result.
+            forceLoad();
+        }
+    }
+
+    @Override
+    public void onCanceled(Cursor cursor) {
+        super.onCanceled(cursor);
+        if (cursor instanceof PagedCursor) {
+            final PageSet pageSet = ((PagedCursor) cursor).pageSet;
+            if (pageSet != mDeliveredPages) {
+                pageSet.close();
+                if (pageSet == mLoadingPages) {
+                    mLoadingPages = null;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void onContentChanged() {
+        // Start over from the first page rather than continuing a stale result.
+        mLoadingPages = null;
+        super.onContentChanged();
+    }
+
+    @Override
+    protected void onReset() {
+        super.onReset();
+        if (mDeliveredPages != null) {
+            mDeliveredPages.close();
+            mDeliveredPages = null;
+        }
+        mLoadingPages = null;
     }
 
     private Cursor loadContacts() {
@@ -81,16 +565,99 @@ public class FavoritesAndContactsLoader extends CursorLoader {
         return null;
     }
 
-    private Cursor loadFavoritesContacts() {
+    private Cursor loadFavoritesContacts(CancellationSignal signal) {
         final StringBuilder selection = new StringBuilder();
         selection.append(Contacts.STARRED + "=?");
-        final ContactListFilter filter =
-                ContactListFilterController.getInstance(getContext()).getFilter();
+        final ContactListFilter filter = mFilter;
         if (filter != null && filter.filterType == ContactListFilter.FILTER_TYPE_CUSTOM) {
             selection.append(" AND ").append(Contacts.IN_VISIBLE_GROUP + "=1");
         }
         return getContext().getContentResolver().query(
                 Contacts.CONTENT_URI, mProjection, selection.toString(), new String[]{"1"},
-                getSortOrder());
+                getSortOrder(), signal);
+    }
+
+    /**
+     * Returns contacts that match {@link #mFuzzyQuery} within a small edit distance but were not
+     * already returned by the provider, ranked by {@link FuzzyContactIndex#RANKING}.
+     */
+    private Cursor loadFuzzyContacts(Cursor exactCursor) {
+        final Set<Long> exactIds = new HashSet<>();
+        if (exactCursor != null) {
+            exactCursor.moveToPosition(-1);
+            while (exactCursor.moveToNext()) {
+                exactIds.add(exactCursor.getLong(ContactListAdapter.ContactQuery.CONTACT_ID));
+            }
+            exactCursor.moveToPosition(-1);
+        }
+        final List<FuzzyContactIndex.Match> matches = FuzzyContactIndex.getInstance(getContext())
+                .query(mFuzzyQuery, exactIds, MAX_FUZZY_RESULTS);
+        if (matches.isEmpty() || isLoadInBackgroundCanceled()) {
+            return null;
+        }
+
+        // The filter projection contains the snippet column which only the filter URI supports.
+        final List<String> columns = new ArrayList<>();
+        for (String column : mProjection) {
+            if (!SearchSnippets.SNIPPET.equals(column)) {
+                columns.add(column);
+            }
+        }
+        final StringBuilder selection = new StringBuilder(Contacts._ID + " IN (");
+        final String[] selectionArgs = new String[matches.size()];
+        for (int i = 0; i < matches.size(); i++) {
+            if (i > 0) selection.append(',');
+            selection.append('?');
+            selectionArgs[i] = String.valueOf(matches.get(i).contactId);
+        }
+        selection.append(')');
+
+        final Cursor cursor;
+        try {
+            cursor = getContext().getContentResolver().query(Contacts.CONTENT_URI,
+                    columns.toArray(new String[columns.size()]), selection.toString(),
+                    selectionArgs, null);
+        } catch (SQLiteException | SecurityException e) {
+            return null;
+        }
+        if (cursor == null) {
+            return null;
+        }
+
+        final LongSparseArray<Object[]> rows = new LongSparseArray<>(cursor.getCount());
+        try {
+            final int idColumn = cursor.getColumnIndex(Contacts._ID);
+            while (cursor.moveToNext()) {
+                final Object[] row = new Object[mProjection.length];
+                for (int i = 0; i < mProjection.length; i++) {
+                    final int column = cursor.getColumnIndex(mProjection[i]);
+                    if (column < 0) {
+                        continue;
+                    }
+                    switch (cursor.getType(column)) {
+                        case Cursor.FIELD_TYPE_INTEGER:
+                            row[i] = cursor.getLong(column);
+                            break;
+                        case Cursor.FIELD_TYPE_NULL:
+                            break;
+                        default:
+                            row[i] = cursor.getString(column);
+                            break;
+                    }
+                }
+                rows.put(cursor.getLong(idColumn), row);
+            }
+        } finally {
+            cursor.close();
+        }
+
+        final MatrixCursor result = new MatrixCursor(mProjection, rows.size());
+        for (FuzzyContactIndex.Match match : matches) {
+            final Object[] row = rows.get(match.contactId);
+            if (row != null) {
+                result.addRow(row);
+            }
+        }
+        return result;
     }
 }
@@ -0,0 +1,179 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.contacts.list;
+
+import android.content.res.ColorStateList;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.text.Layout;
+import android.text.Spanned;
+import android.text.StaticLayout;
+import android.text.TextDirectionHeuristics;
+import android.text.TextPaint;
+import android.text.TextUtils;
+import android.util.LruCache;
+
+import java.util.concurrent.Executor;
+
+/**
+ * A single line of text drawn directly by {@link ContactListItemView} in flat rendering mode,
+ * instead of through a child {@link android.widget.TextView}.
+ *
+ * <p>The ellipsized {@link StaticLayout} is built once per text and width. Layouts for plain
+ * text are also kept in a small shared cache that can be filled from a background thread with
+ * {@link #prefetch} before the rows are bound.</p>
+ */
+final class FlatTextLayout {
+
+    private static final int CACHE_SIZE = 256;
+
+    private static final LruCache<String, StaticLayout> sLayoutCache =
+            new LruCache<>(CACHE_SIZE);
+
+    private final TextPaint mPaint;
+    private final ColorStateList mTextColor;
+    private final int mHeight;
+    /** Identifies the paint configuration in {@link #sLayoutCache} keys. */
+    private final String mStyleKey;
+
+    private CharSequence mText;
+    private boolean mRtl;
+    private StaticLayout mLayout;
+    private int mLayoutWidth = -1;
+    private int mLeft;
+    private int mTop;
+
+    FlatTextLayout(float textSize, ColorStateList textColor, boolean bold) {
+        mPaint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+        mPaint.setTextSize(textSize);
+        mPaint.setFakeBoldText(bold);
+        mTextColor = textColor;
+        final Paint.FontMetricsInt metrics = mPaint.getFontMetricsInt();
+        mHeight = metrics.bottom - metrics.top;
+        mStyleKey = textSize + (bold ? "b" : "") + "|";
+    }
+
+    void setText(CharSequence text, boolean rtl) {
+        if (mRtl != rtl || !isSameText(mText, text)) {
+            mText = text;
+            mRtl = rtl;
+            mLayout = null;
+            mLayoutWidth = -1;
+        }
+    }
+
+    CharSequence getText() {
+        return mText;
+    }
+
+    boolean isVisible() {
+        return !TextUtils.isEmpty(mText);
+    }
+
+    void clear() {
+        setText(null, false);
+    }
+
+    /** Height of the single line, independent of the text so it never needs a layout pass. */
+    int getHeight() {
+        return mHeight;
+    }
+
+    /** Width of the last layout, or -1 if the line has not been laid out yet. */
+    int getLayoutWidth() {
+        return mLayoutWidth;
+    }
+
+    /**
+     * Positions the line and makes sure a layout exists for the given width.
+     */
+    void layout(int left, int top, int width) {
+        mLeft = left;
+        mTop = top;
+        if (mLayout == null || mLayoutWidth != width) {
+            mLayout = obtainLayout(mText, width, mRtl);
+            mLayoutWidth = width;
+        }
+    }
+
+    void draw(Canvas canvas, int[] drawableState) {
+        if (mLayout == null) {
+            return;
+        }
+        mLayout.getPaint().setColor(
+                mTextColor.getColorForState(drawableState, mTextColor.getDefaultColor()));
+        canvas.save();
+        canvas.translate(mLeft, mTop);
+        mLayout.draw(canvas);
+        canvas.restore();
+    }
+
+    /**
+     * Builds the layouts of plain (unstyled) texts on {@code executor} so that binding the rows
+     * later only hits the cache.
+     */
+    void prefetch(Executor executor, final Iterable<? extends CharSequence> texts,
+            final int width, final boolean rtl) {
+        if (width <= 0) {
+            return;
+        }
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                for (CharSequence text : texts) {
+                    if (!TextUtils.isEmpty(text) && !(text instanceof Spanned)) {
+                        obtainLayout(text, width, rtl);
+                    }
+                }
+            }
+        });
+    }
+
+    private StaticLayout obtainLayout(CharSequence text, int width, boolean rtl) {
+        if (TextUtils.isEmpty(text) || width <= 0) {
+            return null;
+        }
+        final boolean cacheable = !(text instanceof Spanned);
+        final String key = cacheable ? mStyleKey + width + (rtl ? "r|" : "l|") + text : null;
+        if (cacheable) {
+            final StaticLayout cached = sLayoutCache.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        // Each layout gets its own paint since cached layouts are shared between rows and may be
+        // built on another thread; drawing only changes the color.
+        final TextPaint paint = new TextPaint(mPaint);
+        final CharSequence ellipsized = TextUtils.ellipsize(text, paint, width,
+                TextUtils.TruncateAt.END);
+        // Align to the start of the view like TEXT_ALIGNMENT_VIEW_START does.
+        final boolean textRtl = TextDirectionHeuristics.FIRSTSTRONG_LTR.isRtl(
+                ellipsized, 0, ellipsized.length());
+        final Layout.Alignment alignment = textRtl == rtl ? Layout.Alignment.ALIGN_NORMAL
+                : Layout.Alignment.ALIGN_OPPOSITE;
+        final StaticLayout layout = new StaticLayout(ellipsized, paint, width, alignment,
+                1f, 0f, true);
+        if (cacheable) {
+            sLayoutCache.put(key, layout);
+        }
+        return layout;
+    }
+
+    private static boolean isSameText(CharSequence a, CharSequence b) {
+        // Highlighted names are rebuilt on every bind, so treat any styled text as new.
+        return TextUtils.equals(a, b) && !(a instanceof Spanned) && !(b instanceof Spanned);
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.contacts.list;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.database.ContentObserver;
+import android.database.Cursor;
+import android.os.Handler;
+import android.os.Looper;
+import android.provider.ContactsContract.Contacts;
+import android.util.Log;
+import androidx.annotation.VisibleForTesting;
+import androidx.annotation.WorkerThread;
+
+import com.android.contacts.util.Constants;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Process wide cache of normalized contact name tokens used for typo tolerant search.
+ *
+ * <p>The index is built lazily on the first fuzzy query and rebuilt after any change to the
+ * contacts provider. All queries must be made off the main thread.</p>
+ */
+public class FuzzyContactIndex {
+    private static final String TAG = "FuzzyContactIndex";
+
+    private static final String[] PROJECTION = new String[] {
+            Contacts._ID,
+            Contacts.DISPLAY_NAME_PRIMARY,
+            Contacts.DISPLAY_NAME_ALTERNATIVE,
+            Contacts.PHONETIC_NAME,
+            Contacts.STARRED,
+            Contacts.TIMES_CONTACTED,
+    };
+
+    private static final int ID = 0;
+    private static final int DISPLAY_NAME_PRIMARY = 1;
+    private static final int DISPLAY_NAME_ALTERNATIVE = 2;
+    private static final int PHONETIC_NAME = 3;
+    private static final int STARRED = 4;
+    private static final int TIMES_CONTACTED = 5;
+
+    /**
+     * A contact that matched a fuzzy query.
+     */
+    public static final class Match {
+        public final long contactId;
+        public final int distance;
+        public final boolean starred;
+        public final int timesContacted;
+
+        Match(long contactId, int distance, boolean starred, int timesContacted) {
+            this.contactId = contactId;
+            this.distance = distance;
+            this.starred = starred;
+            this.timesContacted = timesContacted;
+        }
+    }
+
+    /**
+     * Orders matches by edit distance, then starred contacts first, then by times contacted.
+     */
+    @VisibleForTesting
+    static final Comparator<Match> RANKING = new Comparator<Match>() {
+        @Override
+        public int compare(Match lhs, Match rhs) {
+            if (lhs.distance != rhs.distance) {
+                return lhs.distance < rhs.distance ? -1 : 1;
+            }
+            if (lhs.starred != rhs.starred) {
+                return lhs.starred ? -1 : 1;
+            }
+            if (lhs.timesContacted != rhs.timesContacted) {
+                return lhs.timesContacted > rhs.timesContacted ? -1 : 1;
+            }
+            return Long.compare(lhs.contactId, rhs.contactId);
+        }
+    };
+
+    @VisibleForTesting
+    static final class Entry {
+        final long contactId;
+        final String[] tokens;
+        final boolean starred;
+        final int timesContacted;
+
+        Entry(long contactId, String[] tokens, boolean starred, int timesContacted) {
+            this.contactId = contactId;
+            this.tokens = tokens;
+            this.starred = starred;
+            this.timesContacted = timesContacted;
+        }
+    }
+
+    private static FuzzyContactIndex sInstance;
+
+    private final ContentResolver mResolver;
+    private List<Entry> mEntries;
+
+    public static synchronized FuzzyContactIndex getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = new FuzzyContactIndex(context.getApplicationContext().getContentResolver());
+            sInstance.registerObserver();
+        }
+        return sInstance;
+    }
+
+    private FuzzyContactIndex(ContentResolver resolver) {
+        mResolver = resolver;
+    }
+
+    @VisibleForTesting
+    FuzzyContactIndex(List<Entry> entries) {
+        mResolver = null;
+        mEntries = entries;
+    }
+
+    private void registerObserver() {
+        mResolver.registerContentObserver(Contacts.CONTENT_URI, true,
+                new ContentObserver(new Handler(Looper.getMainLooper())) {
+                    @Override
+                    public void onChange(boolean selfChange) {
+                        invalidate();
+                    }
+                });
+    }
+
+    /**
+     * Drops the cached tokens so that the next query rebuilds the index.
+     */
+    public synchronized void invalidate() {
+        mEntries = null;
+    }
+
+    /**
+     * Returns at most {@code limit} contacts fuzzily matching {@code query}, skipping those in
+     * {@code excludedIds}, in {@link #RANKING} order.
+     */
+    @WorkerThread
+    public List<Match> query(String query, Set<Long> excludedIds, int limit) {
+        final FuzzyNameMatcher matcher = new FuzzyNameMatcher(query);
+        if (!matcher.isFuzzyQuery()) {
+            return Collections.emptyList();
+        }
+        final List<Entry> entries = getEntries();
+        final List<Match> matches = new ArrayList<>();
+        for (Entry entry : entries) {
+            if (excludedIds.contains(entry.contactId)) {
+                continue;
+            }
+            final int distance = matcher.match(entry.tokens);
+            if (distance != FuzzyNameMatcher.NO_MATCH) {
+                matches.add(new Match(entry.contactId, distance, entry.starred,
+                        entry.timesContacted));
+            }
+        }
+        Collections.sort(matches, RANKING);
+        return matches.size() > limit ? matches.subList(0, limit) : matches;
+    }
+
+    private synchronized List<Entry> getEntries() {
+        if (mEntries == null) {
+            mEntries = load();
+        }
+        return mEntries;
+    }
+
+    private List<Entry> load() {
+        final long start = System.currentTimeMillis();
+        final List<Entry> entries = new ArrayList<>();
+        final Cursor cursor;
+        try {
+            cursor = mResolver.query(Contacts.CONTENT_URI, PROJECTION, null, null, null);
+        } catch (SecurityException e) {
+            Log.w(TAG, "Unable to load contacts for fuzzy search", e);
+            return entries;
+        }
+        if (cursor == null) {
+            return entries;
+        }
+        try {
+            while (cursor.moveToNext()) {
+                final List<String> tokens = new ArrayList<>();
+                tokens.addAll(FuzzyNameMatcher.tokenize(cursor.getString(DISPLAY_NAME_PRIMARY)));
+                for (String token : FuzzyNameMatcher.tokenize(
+                        cursor.getString(DISPLAY_NAME_ALTERNATIVE))) {
+                    if (!tokens.contains(token)) tokens.add(token);
+                }
+                for (String token : FuzzyNameMatcher.tokenize(cursor.getString(PHONETIC_NAME))) {
+                    if (!tokens.contains(token)) tokens.add(token);
+                }
+                if (tokens.isEmpty()) {
+                    continue;
+                }
+                entries.add(new Entry(cursor.getLong(ID),
+                        tokens.toArray(new String[tokens.size()]),
+                        cursor.getInt(STARRED) != 0, cursor.getInt(TIMES_CONTACTED)));
+            }
+        } finally {
+            cursor.close();
+        }
+        if (Log.isLoggable(Constants.PERFORMANCE_TAG, Log.DEBUG)) {
+            Log.d(Constants.PERFORMANCE_TAG, "Fuzzy index of " + entries.size()
+                    + " contacts built in " + (System.currentTimeMillis() - start) + "ms");
+        }
+        return entries;
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.contacts.list;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Typo tolerant matching of a search query against contact name tokens.
+ *
+ * <p>Each query token must match some name token, either as a whole or as a prefix, within a
+ * bounded Damerau-Levenshtein (optimal string alignment) distance. The bound depends on the
+ * length of the query token so that very short tokens never match fuzzily.</p>
+ */
+public final class FuzzyNameMatcher {
+
+    /** Returned by {@link #match} when the name does not match the query. */
+    public static final int NO_MATCH = -1;
+
+    /** Query tokens shorter than this are only matched exactly (as a prefix). */
+    private static final int MIN_FUZZY_TOKEN_LENGTH = 3;
+
+    /** Query tokens at least this long may be off by two edits instead of one. */
+    private static final int TWO_EDITS_TOKEN_LENGTH = 6;
+
+    private final String[] mQueryTokens;
+    private final int[] mMaxDistances;
+
+    // Scratch rows for the distance computation. A matcher is only used from a single thread.
+    private int[] mPrevPrev = new int[0];
+    private int[] mPrev = new int[0];
+    private int[] mCurrent = new int[0];
+
+    public FuzzyNameMatcher(String query) {
+        final List<String> tokens = tokenize(query);
+        mQueryTokens = tokens.toArray(new String[tokens.size()]);
+        mMaxDistances = new int[mQueryTokens.length];
+        for (int i = 0; i < mQueryTokens.length; i++) {
+            mMaxDistances[i] = getMaxDistance(mQueryTokens[i].length());
+        }
+    }
+
+    /**
+     * Whether the query contains at least one token that is long enough to be matched fuzzily.
+     */
+    public boolean isFuzzyQuery() {
+        for (int maxDistance : mMaxDistances) {
+            if (maxDistance > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the total edit distance between the query and the best matching name tokens, or
+     * {@link #NO_MATCH} if any query token has no name token within its bound.
+     *
+     * @param nameTokens normalized tokens as returned by {@link #tokenize}
+     */
+    public int match(String[] nameTokens) {
+        if (mQueryTokens.length == 0 || nameTokens == null || nameTokens.length == 0) {
+            return NO_MATCH;
+        }
+        int total = 0;
+        for (int i = 0; i < mQueryTokens.length; i++) {
+            final String queryToken = mQueryTokens[i];
+            final int maxDistance = mMaxDistances[i];
+            int best = NO_MATCH;
+            for (String nameToken : nameTokens) {
+                final int distance = tokenDistance(queryToken, nameToken, maxDistance);
+                if (distance != NO_MATCH && (best == NO_MATCH || distance < best)) {
+                    best = distance;
+                    if (best == 0) break;
+                }
+            }
+            if (best == NO_MATCH) {
+                return NO_MATCH;
+            }
+            total += best;
+        }
+        return total;
+    }
+
+    /**
+     * Distance between a query token and a name token, where the name token may be truncated so
+     * that a query like "jonh" still matches "johnathan".
+     */
+    private int tokenDistance(String queryToken, String nameToken, int maxDistance) {
+        // Cheap length filter: a prefix of the name can only be shorter than the query by at
+        // most maxDistance characters.
+        if (nameToken.length() + maxDistance < queryToken.length()) {
+            return NO_MATCH;
+        }
+        if (nameToken.startsWith(queryToken)) {
+            return 0;
+        }
+        if (maxDistance == 0) {
+            return NO_MATCH;
+        }
+        return boundedPrefixDistance(queryToken, nameToken, maxDistance);
+    }
+
+    /**
+     * Computes the minimum optimal string alignment distance between {@code query} and any
+     * prefix of {@code target}, giving up as soon as every cell of a row exceeds
+     * {@code maxDistance}. Only a band of width {@code 2 * maxDistance + 1} around the diagonal
+     * is evaluated.
+     */
+    private int boundedPrefixDistance(String query, String target, int maxDistance) {
+        final int n = query.length();
+        // Prefixes longer than the query by more than maxDistance can never be within bounds.
+        final int m = Math.min(target.length(), n + maxDistance);
+        ensureCapacity(n + 1);
+        final int overflow = maxDistance + 1;
+
+        int[] prevPrev = mPrevPrev;
+        int[] prev = mPrev;
+        int[] current = mCurrent;
+        // Row 0: distance from the empty prefix of target to query[0..i).
+        for (int i = 0; i <= n; i++) {
+            prev[i] = i <= maxDistance ? i : overflow;
+        }
+        int best = prev[n];
+        for (int j = 1; j <= m; j++) {
+            final char tc = target.charAt(j - 1);
+            final int from = Math.max(1, j - maxDistance);
+            final int to = Math.min(n, j + maxDistance);
+            current[0] = j <= maxDistance ? j : overflow;
+            if (from > 1) {
+                current[from - 1] = overflow;
+            }
+            int rowMin = current[0];
+            for (int i = from; i <= to; i++) {
+                final char qc = query.charAt(i - 1);
+                final int cost = qc == tc ? 0 : 1;
+                int value = Math.min(prev[i - 1] + cost,
+                        Math.min(prev[i] + 1, current[i - 1] + 1));
+                if (i > 1 && j > 1 && qc == target.charAt(j - 2)
+                        && query.charAt(i - 2) == tc) {
+                    value = Math.min(value, prevPrev[i - 2] + 1);
+                }
+                current[i] = Math.min(value, overflow);
+                rowMin = Math.min(rowMin, current[i]);
+            }
+            if (to < n) {
+                current[to + 1] = overflow;
+            }
+            if (rowMin > maxDistance) {
+                break;
+            }
+            if (to == n) {
+                best = Math.min(best, current[n]);
+            }
+            final int[] recycled = prevPrev;
+            prevPrev = prev;
+            prev = current;
+            current = recycled;
+        }
+        return best <= maxDistance ? best : NO_MATCH;
+    }
+
+    private void ensureCapacity(int size) {
+        if (mPrev.length < size) {
+            mPrevPrev = new int[size];
+            mPrev = new int[size];
+            mCurrent = new int[size];
+        }
+    }
+
+    private static int getMaxDistance(int tokenLength) {
+        if (tokenLength < MIN_FUZZY_TOKEN_LENGTH) {
+            return 0;
+        }
+        return tokenLength < TWO_EDITS_TOKEN_LENGTH ? 1 : 2;
+    }
+
+    /**
+     * Splits a display name or query into lower case tokens with diacritics and apostrophes
+     * removed, so that "O'Brien, Jos\u00e9" yields {"obrien", "jose"}.
+     */
+    public static List<String> tokenize(String text) {
+        final List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        final String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD)
+                .toLowerCase(Locale.ROOT);
+        final StringBuilder token = new StringBuilder();
+        for (int i = 0; i < decomposed.length(); i++) {
+            final char c = decomposed.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK
+                    || c == '\'' || c == '\u2019') {
+                continue;
+            }
+            if (Character.isLetterOrDigit(c)) {
+                token.append(c);
+            } else if (token.length() > 0) {
+                tokens.add(token.toString());
+                token.setLength(0);
+            }
+        }
+        if (token.length() > 0) {
+            tokens.add(token.toString());
+        }
+        return tokens;
+    }
+}
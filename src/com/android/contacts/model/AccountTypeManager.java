@@ -43,18 +43,21 @@ import com.android.contacts.list.ContactListFilterController;
 import com.android.contacts.model.account.AccountInfo;
 import com.android.contacts.model.account.AccountType;
 import com.android.contacts.model.account.AccountTypeProvider;
+import com.android.contacts.model.account.AccountTypeSnapshot;
 import com.android.contacts.model.account.AccountTypeWithDataSet;
 import com.android.contacts.model.account.AccountWithDataSet;
 import com.android.contacts.model.account.FallbackAccountType;
 import com.android.contacts.model.account.GoogleAccountType;
 import com.android.contacts.model.dataitem.DataKind;
 import com.android.contacts.util.concurrent.ContactsExecutors;
+import com.android.contacts.util.concurrent.MainThreadBlockingDetector;
 import com.android.contactsbind.experiments.Flags;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Function;
 import com.google.common.base.Objects;
 import com.google.common.base.Predicate;
 import com.google.common.collect.Collections2;
+import com.google.common.util.concurrent.AsyncFunction;
 import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
@@ -62,8 +65,11 @@ import com.google.common.util.concurrent.ListeningExecutorService;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Executor;
 
 import javax.annotation.Nullable;
@@ -82,6 +88,17 @@ public abstract class AccountTypeManager {
             ".AccountsChanged";
     public static final String DEVICE_ACCOUNT_NAME = "DEVICE";
 
+    /**
+     * Notified on the main thread when a new {@link AccountsSnapshot} is published.
+     */
+    public interface AccountsListener {
+        void onAccountsChanged(AccountsSnapshot accounts);
+    }
+
+    private final Handler mListenerHandler = new Handler(Looper.getMainLooper());
+    private final List<AccountsListener> mAccountsListeners = new CopyOnWriteArrayList<>();
+    private volatile AccountsSnapshot mLastKnownAccounts = AccountsSnapshot.UNKNOWN;
+
     public enum AccountFilter implements Predicate<AccountInfo> {
         ALL {
             @Override
@@ -175,7 +192,9 @@ public abstract class AccountTypeManager {
     public List<AccountWithDataSet> getAccounts(boolean contactWritableOnly) {
         return contactWritableOnly
                 ? blockForWritableAccounts()
-                : AccountInfo.extractAccounts(Futures.getUnchecked(getAccountsAsync()));
+                : AccountInfo.extractAccounts(MainThreadBlockingDetector.getUnchecked(
+                        getAccountsSnapshotAsync(), "AccountTypeManager.getAccounts")
+                        .getAccounts());
     }
 
     /**
@@ -185,10 +204,13 @@ public abstract class AccountTypeManager {
      * accounts in infrequently used features where refactoring to asynchronous loading is
      * not justified. The chance that this will actually block is pretty low if the app has been
      * launched previously</p>
+     *
+     * <p>Prefer {@link #getAccountsSnapshotAsync()} or {@link #getLastKnownAccounts()}.</p>
      */
     public List<AccountWithDataSet> blockForWritableAccounts() {
-        return AccountInfo.extractAccounts(
-                Futures.getUnchecked(filterAccountsAsync(AccountFilter.CONTACTS_WRITABLE)));
+        return AccountInfo.extractAccounts(MainThreadBlockingDetector.getUnchecked(
+                filterAccountsAsync(AccountFilter.CONTACTS_WRITABLE),
+                "AccountTypeManager.blockForWritableAccounts"));
     }
 
     /**
@@ -202,6 +224,76 @@ public abstract class AccountTypeManager {
     public abstract ListenableFuture<List<AccountInfo>> filterAccountsAsync(
             Predicate<AccountInfo> filter);
 
+    /**
+     * Loads accounts in background and returns a future that completes with a snapshot of them.
+     * The snapshot also becomes the one returned by {@link #getLastKnownAccounts()}.
+     */
+    public ListenableFuture<AccountsSnapshot> getAccountsSnapshotAsync() {
+        return Futures.transform(getAccountsAsync(),
+                new Function<List<AccountInfo>, AccountsSnapshot>() {
+                    @Override
+                    public AccountsSnapshot apply(List<AccountInfo> accounts) {
+                        return publishAccounts(accounts);
+                    }
+                });
+    }
+
+    /**
+     * Returns the most recently loaded accounts without blocking. This is
+     * {@link AccountsSnapshot#UNKNOWN} until the accounts have been loaded once, e.g. by
+     * {@link #getAccountsSnapshotAsync()} or by adding an {@link AccountsListener}.
+     */
+    public AccountsSnapshot getLastKnownAccounts() {
+        return mLastKnownAccounts;
+    }
+
+    /**
+     * Registers a listener that is notified whenever the accounts change, and starts loading the
+     * accounts if that hasn't happened yet.
+     */
+    public void addAccountsListener(AccountsListener listener) {
+        mAccountsListeners.add(listener);
+        if (!mLastKnownAccounts.isLoaded()) {
+            getAccountsSnapshotAsync();
+        }
+    }
+
+    public void removeAccountsListener(AccountsListener listener) {
+        mAccountsListeners.remove(listener);
+    }
+
+    /**
+     * Reloads the last known accounts if anyone is interested in them.
+     */
+    protected void refreshLastKnownAccounts() {
+        if (mLastKnownAccounts.isLoaded() || !mAccountsListeners.isEmpty()) {
+            getAccountsSnapshotAsync();
+        }
+    }
+
+    private synchronized AccountsSnapshot publishAccounts(List<AccountInfo> accounts) {
+        final AccountsSnapshot previous = mLastKnownAccounts;
+        if (previous.isLoaded() && previous.hasSameAccounts(accounts)) {
+            return previous;
+        }
+        final AccountsSnapshot snapshot =
+                new AccountsSnapshot(previous.getVersion() + 1, accounts);
+        mLastKnownAccounts = snapshot;
+        mListenerHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                // Skip snapshots that were already replaced by a newer one.
+                if (mLastKnownAccounts != snapshot) {
+                    return;
+                }
+                for (AccountsListener listener : mAccountsListeners) {
+                    listener.onAccountsChanged(snapshot);
+                }
+            }
+        });
+        return snapshot;
+    }
+
     public abstract AccountInfo getAccountInfoForAccount(AccountWithDataSet account);
 
     /**
@@ -218,28 +310,22 @@ public abstract class AccountTypeManager {
      */
     public List<AccountInfo> getWritableGoogleAccounts() {
         // This implementation may block and should be overridden by the Impl class
-        return Futures.getUnchecked(filterAccountsAsync(new Predicate<AccountInfo>() {
-            @Override
-            public boolean apply(@Nullable AccountInfo input) {
-                return  input.getType().areContactsWritable() &&
-                        GoogleAccountType.ACCOUNT_TYPE.equals(input.getType().accountType);
-            }
-        }));
+        return MainThreadBlockingDetector.getUnchecked(
+                filterAccountsAsync(new Predicate<AccountInfo>() {
+                    @Override
+                    public boolean apply(@Nullable AccountInfo input) {
+                        return  input.getType().areContactsWritable() &&
+                                GoogleAccountType.ACCOUNT_TYPE.equals(input.getType().accountType);
+                    }
+                }), "AccountTypeManager.getWritableGoogleAccounts");
     }
 
     /**
      * Returns true if there are real accounts (not "local" account) in the list of accounts.
      */
     public boolean hasNonLocalAccount() {
-        final List<AccountWithDataSet> allAccounts =
-                AccountInfo.extractAccounts(Futures.getUnchecked(getAccountsAsync()));
-        if (allAccounts == null || allAccounts.size() == 0) {
-            return false;
-        }
-        if (allAccounts.size() > 1) {
-            return true;
-        }
-        return !allAccounts.get(0).isNullAccount();
+        return MainThreadBlockingDetector.getUnchecked(getAccountsSnapshotAsync(),
+                "AccountTypeManager.hasNonLocalAccount").hasNonLocalAccount();
     }
 
     static Account getDefaultGoogleAccount(AccountManager accountManager,
@@ -296,9 +382,8 @@ public abstract class AccountTypeManager {
      * Returns whether the specified account still exists
      */
     public boolean exists(AccountWithDataSet account) {
-        final List<AccountWithDataSet> accounts =
-                AccountInfo.extractAccounts(Futures.getUnchecked(getAccountsAsync()));
-        return accounts.contains(account);
+        return MainThreadBlockingDetector.getUnchecked(getAccountsSnapshotAsync(),
+                "AccountTypeManager.exists").contains(account);
     }
 
     /**
@@ -335,12 +420,19 @@ public abstract class AccountTypeManager {
 class AccountTypeManagerImpl extends AccountTypeManager
         implements OnAccountsUpdateListener, SyncStatusObserver {
 
+    private static final String SNAPSHOT_PREFERENCES = "account_type_snapshot";
+
     private final Context mContext;
     private final AccountManager mAccountManager;
     private final DeviceLocalAccountLocator mLocalAccountLocator;
     private final Executor mMainThreadExecutor;
     private final ListeningExecutorService mExecutor;
-    private AccountTypeProvider mTypeProvider;
+    private volatile AccountTypeProvider mTypeProvider;
+
+    private final SharedPreferences mSnapshotPreferences;
+    /** The snapshot {@link #mTypeProvider} was restored from or last saved to. */
+    private AccountTypeSnapshot mSnapshot;
+    private int mLoadGeneration;
 
     private final AccountType mFallbackAccountType;
 
@@ -367,7 +459,12 @@ class AccountTypeManagerImpl extends AccountTypeManager
         public void onReceive(Context context, Intent intent) {
             // Don't use reloadAccountTypesIfNeeded when packages change in case a contacts.xml
             // was updated.
-            reloadAccountTypes();
+            if (Intent.ACTION_LOCALE_CHANGED.equals(intent.getAction())) {
+                // The labels and field order of every type depend on the locale.
+                reloadAccountTypes(null);
+            } else {
+                reloadAccountTypes(getChangedPackages(intent));
+            }
         }
     };
 
@@ -377,7 +474,14 @@ class AccountTypeManagerImpl extends AccountTypeManager
     public AccountTypeManagerImpl(Context context) {
         mContext = context;
         mLocalAccountLocator = DeviceLocalAccountLocator.create(context);
-        mTypeProvider = new AccountTypeProvider(context);
+        // Start from the authenticators seen by the last process so that account types can be
+        // resolved without waiting for AccountManager. They are revalidated in loadAccountTypes.
+        mSnapshotPreferences = context.getSharedPreferences(SNAPSHOT_PREFERENCES,
+                Context.MODE_PRIVATE);
+        mSnapshot = AccountTypeSnapshot.restore(mSnapshotPreferences);
+        mTypeProvider = mSnapshot != null
+                ? AccountTypeProvider.fromSnapshot(context, mSnapshot)
+                : new AccountTypeProvider(context);
         mFallbackAccountType = new FallbackAccountType(context);
 
         mAccountManager = AccountManager.get(mContext);
@@ -427,7 +531,7 @@ class AccountTypeManagerImpl extends AccountTypeManager
                         }
                     });
         }
-        loadAccountTypes();
+        loadAccountTypes(Collections.<String>emptySet());
     }
 
     @Override
@@ -453,6 +557,7 @@ class AccountTypeManagerImpl extends AccountTypeManager
     }
 
     private void notifyAccountsChanged() {
+        refreshLastKnownAccounts();
         ContactListFilterController.getInstance(mContext).checkFilterValidity(true);
         LocalBroadcastManager.getInstance(mContext).sendBroadcast(
                 new Intent(BROADCAST_ACCOUNTS_CHANGED));
@@ -467,19 +572,70 @@ class AccountTypeManagerImpl extends AccountTypeManager
         }
     }
 
-    private synchronized void loadAccountTypes() {
-        mTypeProvider = new AccountTypeProvider(mContext);
+    /**
+     * Reads the current authenticators in the background and swaps in a new
+     * {@link AccountTypeProvider} if they differ from those {@link #mTypeProvider} was created
+     * from. Account types already loaded are kept unless their package is in
+     * {@code changedPackages} or was updated since the snapshot was saved.
+     *
+     * @param changedPackages packages known to have changed, or null to reload every type
+     */
+    private synchronized void loadAccountTypes(final Set<String> changedPackages) {
+        final AccountTypeProvider previous = mTypeProvider;
+        final AccountTypeSnapshot previousSnapshot = mSnapshot;
+        final int generation = ++mLoadGeneration;
 
         mAccountTypesFuture = mExecutor.submit(new Callable<AccountTypeProvider>() {
             @Override
             public AccountTypeProvider call() throws Exception {
+                final PackageManager packageManager = mContext.getPackageManager();
+                final AccountTypeProvider fresh = new AccountTypeProvider(mContext);
+                AccountTypeProvider typeProvider = fresh;
+                if (changedPackages != null) {
+                    final Set<String> changed = new HashSet<>(changedPackages);
+                    if (previousSnapshot != null) {
+                        changed.addAll(previousSnapshot.getChangedPackages(packageManager));
+                    }
+                    if (changed.isEmpty() && !previous.shouldUpdate(fresh)) {
+                        typeProvider = previous;
+                    } else {
+                        fresh.retainLoadedTypes(previous, changed);
+                    }
+                }
                 // This will request the AccountType for each Account forcing them to be loaded
-                getAccountsWithDataSets(mAccountManager.getAccounts(), mTypeProvider);
-                return mTypeProvider;
+                getAccountsWithDataSets(mAccountManager.getAccounts(), typeProvider);
+
+                final AccountTypeSnapshot snapshot =
+                        AccountTypeSnapshot.capture(packageManager, typeProvider);
+                synchronized (AccountTypeManagerImpl.this) {
+                    // A later load may have been started for newer changes.
+                    if (generation == mLoadGeneration) {
+                        mTypeProvider = typeProvider;
+                        if (!snapshot.isSameAs(mSnapshot)) {
+                            snapshot.save(mSnapshotPreferences);
+                        }
+                        mSnapshot = snapshot;
+                    }
+                }
+                return typeProvider;
             }
         });
     }
 
+    private static Set<String> getChangedPackages(Intent intent) {
+        final Set<String> result = new HashSet<>();
+        final Uri data = intent.getData();
+        if (data != null && data.getSchemeSpecificPart() != null) {
+            result.add(data.getSchemeSpecificPart());
+        }
+        final String[] packages =
+                intent.getStringArrayExtra(Intent.EXTRA_CHANGED_PACKAGE_LIST);
+        if (packages != null) {
+            Collections.addAll(result, packages);
+        }
+        return result;
+    }
+
     private FutureCallback<List<AccountWithDataSet>> newAccountsUpdatedCallback(
             final List<AccountWithDataSet> currentAccounts) {
         return new FutureCallback<List<AccountWithDataSet>>() {
@@ -497,12 +653,12 @@ class AccountTypeManagerImpl extends AccountTypeManager
     private synchronized void reloadAccountTypesIfNeeded() {
         if (mTypeProvider == null || mTypeProvider.shouldUpdate(
                 mAccountManager.getAuthenticatorTypes(), ContentResolver.getSyncAdapterTypes())) {
-            reloadAccountTypes();
+            reloadAccountTypes(Collections.<String>emptySet());
         }
     }
 
-    private synchronized void reloadAccountTypes() {
-        loadAccountTypes();
+    private synchronized void reloadAccountTypes(Set<String> changedPackages) {
+        loadAccountTypes(changedPackages);
         Futures.addCallback(
                 Futures.transform(mAccountTypesFuture, mAccountsExtractor),
                 newAccountsUpdatedCallback(mAccountManagerAccounts),
@@ -531,35 +687,45 @@ class AccountTypeManagerImpl extends AccountTypeManager
 
     private synchronized ListenableFuture<List<AccountInfo>> getAllAccountsAsyncInternal() {
         startLoadingIfNeeded();
-        final AccountTypeProvider typeProvider = mTypeProvider;
+        final ListenableFuture<AccountTypeProvider> typeProviderFuture = mAccountTypesFuture;
         final ListenableFuture<List<List<AccountWithDataSet>>> all =
                 Futures.nonCancellationPropagating(
                         Futures.successfulAsList(
                                 Futures.transform(mAccountTypesFuture, mAccountsExtractor),
                                 mLocalAccountsFuture));
 
-        return Futures.transform(all, new Function<List<List<AccountWithDataSet>>,
-                List<AccountInfo>>() {
-            @Nullable
+        // The accounts were resolved with this provider so it has a type for each. Chained
+        // instead of read in the function so that no thread blocks on it.
+        return Futures.transform(typeProviderFuture,
+                new AsyncFunction<AccountTypeProvider, List<AccountInfo>>() {
             @Override
-            public List<AccountInfo> apply(@Nullable List<List<AccountWithDataSet>> input) {
-                // input.get(0) contains accounts from AccountManager
-                // input.get(1) contains device local accounts
-                Preconditions.checkArgument(input.size() == 2,
-                        "List should have exactly 2 elements");
-
-                final List<AccountInfo> result = new ArrayList<>();
-                for (AccountWithDataSet account : input.get(0)) {
-                    result.add(
-                            typeProvider.getTypeForAccount(account).wrapAccount(mContext, account));
-                }
+            public ListenableFuture<List<AccountInfo>> apply(
+                    final AccountTypeProvider typeProvider) {
+                return Futures.transform(all, new Function<List<List<AccountWithDataSet>>,
+                        List<AccountInfo>>() {
+                    @Nullable
+                    @Override
+                    public List<AccountInfo> apply(
+                            @Nullable List<List<AccountWithDataSet>> input) {
+                        // input.get(0) contains accounts from AccountManager
+                        // input.get(1) contains device local accounts
+                        Preconditions.checkArgument(input.size() == 2,
+                                "List should have exactly 2 elements");
+
+                        final List<AccountInfo> result = new ArrayList<>();
+                        for (AccountWithDataSet account : input.get(0)) {
+                            result.add(typeProvider.getTypeForAccount(account)
+                                    .wrapAccount(mContext, account));
+                        }
 
-                for (AccountWithDataSet account : input.get(1)) {
-                    result.add(
-                            typeProvider.getTypeForAccount(account).wrapAccount(mContext, account));
-                }
-                AccountInfo.sortAccounts(null, result);
-                return result;
+                        for (AccountWithDataSet account : input.get(1)) {
+                            result.add(typeProvider.getTypeForAccount(account)
+                                    .wrapAccount(mContext, account));
+                        }
+                        AccountInfo.sortAccounts(null, result);
+                        return result;
+                    }
+                });
             }
         });
     }
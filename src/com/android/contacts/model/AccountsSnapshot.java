@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.contacts.model;
+
+import com.android.contacts.model.account.AccountInfo;
+import com.android.contacts.model.account.AccountWithDataSet;
+import com.google.common.base.Predicate;
+import com.google.common.collect.Collections2;
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+
+/**
+ * Immutable list of the accounts known to {@link AccountTypeManager} at some point in time.
+ *
+ * <p>Each time the accounts change a snapshot with a higher version is published, so callers
+ * can cheaply tell whether anything changed since they last looked.</p>
+ */
+public final class AccountsSnapshot {
+
+    /**
+     * Returned by {@link AccountTypeManager#getLastKnownAccounts()} before the accounts have been
+     * loaded for the first time.
+     */
+    public static final AccountsSnapshot UNKNOWN =
+            new AccountsSnapshot(0, ImmutableList.<AccountInfo>of());
+
+    private final long mVersion;
+    private final ImmutableList<AccountInfo> mAccounts;
+    private final List<AccountWithDataSet> mAccountsWithDataSets;
+
+    AccountsSnapshot(long version, List<AccountInfo> accounts) {
+        mVersion = version;
+        mAccounts = ImmutableList.copyOf(accounts);
+        mAccountsWithDataSets = AccountInfo.extractAccounts(mAccounts);
+    }
+
+    /**
+     * Increases each time the accounts change. 0 means the accounts haven't been loaded yet.
+     */
+    public long getVersion() {
+        return mVersion;
+    }
+
+    public boolean isLoaded() {
+        return mVersion > 0;
+    }
+
+    public List<AccountInfo> getAccounts() {
+        return mAccounts;
+    }
+
+    public List<AccountInfo> filter(Predicate<AccountInfo> filter) {
+        return ImmutableList.copyOf(Collections2.filter(mAccounts, filter));
+    }
+
+    public List<AccountWithDataSet> getWritableAccounts() {
+        return AccountInfo.extractAccounts(filter(AccountTypeManager.writableFilter()));
+    }
+
+    public boolean contains(AccountWithDataSet account) {
+        return mAccountsWithDataSets.contains(account);
+    }
+
+    /**
+     * Returns true if there are real accounts (not "local" account) in the snapshot.
+     */
+    public boolean hasNonLocalAccount() {
+        if (mAccountsWithDataSets.size() != 1) {
+            return mAccountsWithDataSets.size() > 1;
+        }
+        return !mAccountsWithDataSets.get(0).isNullAccount();
+    }
+
+    /**
+     * Whether {@code accounts} are the same accounts as the ones in this snapshot.
+     */
+    boolean hasSameAccounts(List<AccountInfo> accounts) {
+        return mAccountsWithDataSets.equals(AccountInfo.extractAccounts(accounts));
+    }
+
+    @Override
+    public String toString() {
+        return "AccountsSnapshot{version=" + mVersion + ", accounts=" + mAccountsWithDataSets
+                + "}";
+    }
+}
@@ -0,0 +1,552 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.contacts.model;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.net.Uri;
+import android.os.Parcel;
+import android.util.AtomicFile;
+import android.util.Log;
+import androidx.annotation.VisibleForTesting;
+
+import com.android.contacts.util.concurrent.ContactsExecutors;
+import com.google.common.util.concurrent.MoreExecutors;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes the {@link RawContactDelta}s of a {@link RawContactDeltaList} in a compact format, which
+ * is used when the editor state is saved and when it is sent to
+ * {@link com.android.contacts.ContactSaveService}.
+ *
+ * <p>Every column name is written once and referred to by its index after that, values are
+ * written as tagged primitives and no class names are written for the deltas. The "after" values
+ * of an existing row already only hold the columns that were changed. It is written with a
+ * {@link DataOutputStream} since the data of a {@link Parcel} must not be stored.</p>
+ *
+ * <p>Binder transactions are limited to 1MB, so if the written state is larger than
+ * {@link #SPILL_THRESHOLD_BYTES} it is written to a file in the cache directory and only the
+ * path of the file is put into the parcel. A list always writes to the same file, and the save
+ * service gets a copy of the list so that it has a file of its own. The file is written in the
+ * background, and is read from memory in this process until it was written.</p>
+ *
+ * <p>{@link com.android.contacts.ContactSaveService} deletes its file once the state is saved and
+ * the editor deletes its file when it finishes. Files left behind because the process died are
+ * deleted when the app starts once they are older than {@link #SPILL_FILE_MAX_AGE_MILLIS}.</p>
+ */
+public final class DeltaParceler {
+    private static final String TAG = "DeltaParceler";
+
+    // Incremented when the format changes, so that state written by another version of the app
+    // is dropped instead of being misread.
+    private static final int FORMAT_VERSION = 2;
+
+    private static final int STORAGE_INLINE = 0;
+    private static final int STORAGE_FILE = 1;
+
+    @VisibleForTesting
+    static final int SPILL_THRESHOLD_BYTES = 256 * 1024;
+
+    private static final String SPILL_DIRECTORY_NAME = "editor_state";
+    private static final String SPILL_FILE_PREFIX = "delta-";
+    // Saved instance state may be restored long after it was written, but not after this.
+    private static final long SPILL_FILE_MAX_AGE_MILLIS = TimeUnit.DAYS.toMillis(7);
+
+    private static final int NEW_KEY = -1;
+
+    private static final byte TYPE_NULL = 0;
+    private static final byte TYPE_STRING = 1;
+    private static final byte TYPE_LONG = 2;
+    private static final byte TYPE_INTEGER = 3;
+    private static final byte TYPE_BOOLEAN = 4;
+    private static final byte TYPE_BYTE_ARRAY = 5;
+    private static final byte TYPE_DOUBLE = 6;
+    private static final byte TYPE_FLOAT = 7;
+    private static final byte TYPE_SHORT = 8;
+    private static final byte TYPE_BYTE = 9;
+
+    private static File sSpillDirectory;
+    private static Context sContext;
+    private static Executor sFileExecutor;
+
+    // The data of the files that are still to be written, by path. Guarded by the class.
+    private static final Map<String, byte[]> sPendingWrites = new HashMap<>();
+
+    private DeltaParceler() {
+    }
+
+    /**
+     * Sets the context whose cache directory large state is written to, and deletes the files
+     * that were left behind for too long. Until this is called state is always written to the
+     * parcel itself.
+     */
+    public static void initialize(Context context) {
+        synchronized (DeltaParceler.class) {
+            sContext = context.getApplicationContext();
+        }
+        getFileExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                final File directory = getSpillDirectory();
+                if (directory != null) {
+                    deleteOldSpillFiles(directory);
+                }
+            }
+        });
+    }
+
+    @VisibleForTesting
+    static synchronized void setSpillDirectory(File directory) {
+        sSpillDirectory = directory;
+    }
+
+    /**
+     * Sets the executor that files are written and deleted on, or restores the default one if
+     * {@code executor} is null.
+     */
+    @VisibleForTesting
+    static synchronized void setFileExecutor(Executor executor) {
+        sFileExecutor = executor;
+    }
+
+    private static synchronized File getSpillDirectory() {
+        if (sSpillDirectory == null && sContext != null) {
+            sSpillDirectory = new File(sContext.getCacheDir(), SPILL_DIRECTORY_NAME);
+        }
+        return sSpillDirectory;
+    }
+
+    private static synchronized Executor getFileExecutor() {
+        if (sFileExecutor == null) {
+            // Sequential so that the writes and deletes of a file are done in order.
+            sFileExecutor = MoreExecutors.newSequentialExecutor(
+                    ContactsExecutors.getDefaultThreadPoolExecutor());
+        }
+        return sFileExecutor;
+    }
+
+    /**
+     * Writes {@code data} to {@code dest}, or to the file of {@code list} whose path is written to
+     * {@code dest} if it is too large. The file is written in the background.
+     */
+    static void writeTo(Parcel dest, byte[] data, RawContactDeltaList list) {
+        final File directory = getSpillDirectory();
+        if (data.length > SPILL_THRESHOLD_BYTES && directory != null) {
+            if (list.mSpillFile == null) {
+                list.mSpillFile = new File(directory, SPILL_FILE_PREFIX + UUID.randomUUID());
+            }
+            spill(directory, list.mSpillFile, data);
+            dest.writeInt(STORAGE_FILE);
+            dest.writeString(list.mSpillFile.getPath());
+            return;
+        }
+        dest.writeInt(STORAGE_INLINE);
+        dest.writeByteArray(data);
+    }
+
+    /**
+     * Returns the data written by {@link #writeTo}, or null if it was written to a file that
+     * can't be read anymore. If the data was read from a file, {@code list} keeps writing to that
+     * file.
+     */
+    static byte[] readFrom(Parcel source, RawContactDeltaList list) {
+        if (source.readInt() != STORAGE_FILE) {
+            return source.createByteArray();
+        }
+        final File file = new File(source.readString());
+        final byte[] data = readSpilled(file);
+        if (data != null) {
+            list.mSpillFile = file;
+        }
+        return data;
+    }
+
+    /**
+     * Deletes the file that the data of {@code list} was written to or read from, if any. The
+     * file is deleted in the background.
+     */
+    static void deleteSpillFile(RawContactDeltaList list) {
+        final File file = list.mSpillFile;
+        if (file == null) {
+            return;
+        }
+        list.mSpillFile = null;
+        synchronized (DeltaParceler.class) {
+            sPendingWrites.remove(file.getPath());
+        }
+        getFileExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                new AtomicFile(file).delete();
+            }
+        });
+    }
+
+    private static void spill(final File directory, final File file, final byte[] data) {
+        synchronized (DeltaParceler.class) {
+            sPendingWrites.put(file.getPath(), data);
+        }
+        getFileExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                final byte[] pending;
+                synchronized (DeltaParceler.class) {
+                    pending = sPendingWrites.get(file.getPath());
+                }
+                if (pending != data) {
+                    // The file was written again or deleted since.
+                    return;
+                }
+                write(directory, file, data);
+                synchronized (DeltaParceler.class) {
+                    if (sPendingWrites.get(file.getPath()) == data) {
+                        sPendingWrites.remove(file.getPath());
+                    }
+                }
+            }
+        });
+    }
+
+    private static void write(File directory, File file, byte[] data) {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            Log.w(TAG, "Failed to create " + directory);
+            return;
+        }
+        final AtomicFile atomicFile = new AtomicFile(file);
+        FileOutputStream out = null;
+        try {
+            out = atomicFile.startWrite();
+            out.write(data);
+            atomicFile.finishWrite(out);
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to write editor state", e);
+            if (out != null) {
+                atomicFile.failWrite(out);
+            }
+        }
+    }
+
+    private static byte[] readSpilled(File file) {
+        synchronized (DeltaParceler.class) {
+            final byte[] pending = sPendingWrites.get(file.getPath());
+            if (pending != null) {
+                return pending;
+            }
+        }
+        try {
+            return new AtomicFile(file).readFully();
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to read editor state from " + file.getName(), e);
+            return null;
+        }
+    }
+
+    private static void deleteOldSpillFiles(File directory) {
+        final File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        final long oldest = System.currentTimeMillis() - SPILL_FILE_MAX_AGE_MILLIS;
+        for (File file : files) {
+            if (file.lastModified() < oldest && !file.delete()) {
+                Log.w(TAG, "Failed to delete " + file.getName());
+            }
+        }
+    }
+
+    /**
+     * Writes deltas in the compact format. Column names are assigned indexes in the order they
+     * are first written.
+     */
+    static final class Writer {
+        private final ByteArrayOutputStream mBytes = new ByteArrayOutputStream();
+        private final DataOutputStream mDest = new DataOutputStream(mBytes);
+        private final Map<String, Integer> mKeys = new HashMap<>();
+
+        Writer() throws IOException {
+            mDest.writeInt(FORMAT_VERSION);
+        }
+
+        byte[] toByteArray() {
+            return mBytes.toByteArray();
+        }
+
+        void writeInt(int value) throws IOException {
+            mDest.writeInt(value);
+        }
+
+        void writeLongArray(long[] values) throws IOException {
+            if (values == null) {
+                mDest.writeInt(-1);
+                return;
+            }
+            mDest.writeInt(values.length);
+            for (long value : values) {
+                mDest.writeLong(value);
+            }
+        }
+
+        void writeRawContactDelta(RawContactDelta delta) throws IOException {
+            writeValuesDelta(delta.getValues());
+            writeKey(delta.getContactsQueryUri().toString());
+            mDest.writeInt(delta.getEntryCount(false));
+            for (List<ValuesDelta> mimeEntries : delta.getEntries()) {
+                for (ValuesDelta child : mimeEntries) {
+                    writeValuesDelta(child);
+                }
+            }
+        }
+
+        private void writeValuesDelta(ValuesDelta values) throws IOException {
+            if (values == null) {
+                mDest.writeInt(0);
+                return;
+            }
+            mDest.writeInt(1);
+            writeKey(values.mIdColumn);
+            writeContentValues(values.mBefore);
+            writeContentValues(values.mAfter);
+        }
+
+        private void writeContentValues(ContentValues values) throws IOException {
+            if (values == null) {
+                mDest.writeInt(-1);
+                return;
+            }
+            mDest.writeInt(values.size());
+            for (Map.Entry<String, Object> entry : values.valueSet()) {
+                writeKey(entry.getKey());
+                writeValue(entry.getValue());
+            }
+        }
+
+        private void writeValue(Object value) throws IOException {
+            if (value == null) {
+                mDest.writeByte(TYPE_NULL);
+            } else if (value instanceof String) {
+                mDest.writeByte(TYPE_STRING);
+                writeString((String) value);
+            } else if (value instanceof Long) {
+                mDest.writeByte(TYPE_LONG);
+                mDest.writeLong((Long) value);
+            } else if (value instanceof Integer) {
+                mDest.writeByte(TYPE_INTEGER);
+                mDest.writeInt((Integer) value);
+            } else if (value instanceof Boolean) {
+                mDest.writeByte(TYPE_BOOLEAN);
+                mDest.writeBoolean((Boolean) value);
+            } else if (value instanceof byte[]) {
+                mDest.writeByte(TYPE_BYTE_ARRAY);
+                writeByteArray((byte[]) value);
+            } else if (value instanceof Double) {
+                mDest.writeByte(TYPE_DOUBLE);
+                mDest.writeDouble((Double) value);
+            } else if (value instanceof Float) {
+                mDest.writeByte(TYPE_FLOAT);
+                mDest.writeFloat((Float) value);
+            } else if (value instanceof Short) {
+                mDest.writeByte(TYPE_SHORT);
+                mDest.writeShort((Short) value);
+            } else if (value instanceof Byte) {
+                mDest.writeByte(TYPE_BYTE);
+                mDest.writeByte((Byte) value);
+            } else {
+                throw new IllegalArgumentException("Unsupported value type " + value.getClass());
+            }
+        }
+
+        private void writeKey(String key) throws IOException {
+            final Integer index = mKeys.get(key);
+            if (index != null) {
+                mDest.writeInt(index);
+                return;
+            }
+            mDest.writeInt(NEW_KEY);
+            writeString(key);
+            mKeys.put(key, mKeys.size());
+        }
+
+        // DataOutputStream#writeUTF is limited to 64KB, which a note can exceed.
+        private void writeString(String value) throws IOException {
+            writeByteArray(value == null ? null : value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        private void writeByteArray(byte[] value) throws IOException {
+            if (value == null) {
+                mDest.writeInt(-1);
+                return;
+            }
+            mDest.writeInt(value.length);
+            mDest.write(value);
+        }
+    }
+
+    /**
+     * Reads deltas written by a {@link Writer}. Throws {@link IOException} if the data is
+     * truncated or corrupt.
+     */
+    static final class Reader {
+        private final DataInputStream mSource;
+        private final List<String> mKeys = new ArrayList<>();
+        private final boolean mSupported;
+
+        Reader(byte[] data) throws IOException {
+            mSource = new DataInputStream(new ByteArrayInputStream(data));
+            mSupported = mSource.readInt() == FORMAT_VERSION;
+        }
+
+        /**
+         * Whether the data was written in the format that this reader reads.
+         */
+        boolean isSupported() {
+            return mSupported;
+        }
+
+        int readInt() throws IOException {
+            return mSource.readInt();
+        }
+
+        long[] readLongArray() throws IOException {
+            final int length = mSource.readInt();
+            if (length < 0) {
+                return null;
+            }
+            final long[] values = new long[length];
+            for (int i = 0; i < length; i++) {
+                values[i] = mSource.readLong();
+            }
+            return values;
+        }
+
+        RawContactDelta readRawContactDelta() throws IOException {
+            final RawContactDelta delta = new RawContactDelta(readValuesDelta());
+            delta.setContactsQueryUri(Uri.parse(readKey()));
+            final int count = mSource.readInt();
+            for (int i = 0; i < count; i++) {
+                delta.addEntry(readValuesDelta());
+            }
+            return delta;
+        }
+
+        private ValuesDelta readValuesDelta() throws IOException {
+            if (mSource.readInt() == 0) {
+                return null;
+            }
+            final ValuesDelta values = new ValuesDelta();
+            values.mIdColumn = readKey();
+            values.mBefore = readContentValues();
+            values.mAfter = readContentValues();
+            return values;
+        }
+
+        private ContentValues readContentValues() throws IOException {
+            final int size = mSource.readInt();
+            if (size < 0) {
+                return null;
+            }
+            final ContentValues values = new ContentValues(size);
+            for (int i = 0; i < size; i++) {
+                readValue(readKey(), values);
+            }
+            return values;
+        }
+
+        private void readValue(String key, ContentValues values) throws IOException {
+            final byte type = mSource.readByte();
+            switch (type) {
+                case TYPE_NULL:
+                    values.putNull(key);
+                    break;
+                case TYPE_STRING:
+                    values.put(key, readString());
+                    break;
+                case TYPE_LONG:
+                    values.put(key, mSource.readLong());
+                    break;
+                case TYPE_INTEGER:
+                    values.put(key, mSource.readInt());
+                    break;
+                case TYPE_BOOLEAN:
+                    values.put(key, mSource.readBoolean());
+                    break;
+                case TYPE_BYTE_ARRAY:
+                    values.put(key, readByteArray());
+                    break;
+                case TYPE_DOUBLE:
+                    values.put(key, mSource.readDouble());
+                    break;
+                case TYPE_FLOAT:
+                    values.put(key, mSource.readFloat());
+                    break;
+                case TYPE_SHORT:
+                    values.put(key, mSource.readShort());
+                    break;
+                case TYPE_BYTE:
+                    values.put(key, mSource.readByte());
+                    break;
+                default:
+                    throw new IOException("Unknown value type " + type);
+            }
+        }
+
+        private String readKey() throws IOException {
+            final int index = mSource.readInt();
+            if (index != NEW_KEY) {
+                if (index < 0 || index >= mKeys.size()) {
+                    throw new IOException("Unknown key index " + index);
+                }
+                return mKeys.get(index);
+            }
+            final String key = readString();
+            mKeys.add(key);
+            return key;
+        }
+
+        private String readString() throws IOException {
+            final byte[] bytes = readByteArray();
+            return bytes == null ? null : new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        private byte[] readByteArray() throws IOException {
+            final int length = mSource.readInt();
+            if (length < 0) {
+                return null;
+            }
+            // Checked so that a corrupt length can't allocate more than the data holds.
+            if (length > mSource.available()) {
+                throw new IOException("Truncated data");
+            }
+            final byte[] bytes = new byte[length];
+            mSource.readFully(bytes);
+            return bytes;
+        }
+    }
+}
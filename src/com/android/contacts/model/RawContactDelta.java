@@ -37,6 +37,7 @@ import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 
 /**
@@ -75,6 +76,13 @@ public class RawContactDelta implements Parcelable {
      */
     private final HashMap<String, ArrayList<ValuesDelta>> mEntries = Maps.newHashMap();
 
+    /**
+     * Children from {@link #mEntries} by their {@link BaseColumns#_ID}, which is kept up to
+     * date by {@link #addEntry(ValuesDelta)}. IDs are only ever dropped from a child, when the
+     * diff of an insert is built, so a hit is checked against the child before it is used.
+     */
+    private final HashMap<Long, ValuesDelta> mEntriesById = Maps.newHashMap();
+
     public RawContactDelta() {
     }
 
@@ -279,6 +287,10 @@ public class RawContactDelta implements Parcelable {
     public ValuesDelta addEntry(ValuesDelta entry) {
         final String mimeType = entry.getMimetype();
         getMimeEntries(mimeType, true).add(entry);
+        final Long id = entry.getId();
+        if (id != null && !mEntriesById.containsKey(id)) {
+            mEntriesById.put(id, entry);
+        }
         return entry;
     }
 
@@ -303,15 +315,8 @@ public class RawContactDelta implements Parcelable {
             return null;
         }
 
-        // Search all children for requested entry
-        for (ArrayList<ValuesDelta> mimeEntries : mEntries.values()) {
-            for (ValuesDelta entry : mimeEntries) {
-                if (childId.equals(entry.getId())) {
-                    return entry;
-                }
-            }
-        }
-        return null;
+        final ValuesDelta entry = mEntriesById.get(childId);
+        return entry != null && childId.equals(entry.getId()) ? entry : null;
     }
 
     /**
@@ -644,6 +649,21 @@ public class RawContactDelta implements Parcelable {
         mContactsQueryUri = Profile.CONTENT_RAW_CONTACTS_URI;
     }
 
+    Uri getContactsQueryUri() {
+        return mContactsQueryUri;
+    }
+
+    void setContactsQueryUri(Uri contactsQueryUri) {
+        mContactsQueryUri = contactsQueryUri;
+    }
+
+    /**
+     * Returns the children grouped by mimetype, for {@link DeltaParceler}.
+     */
+    Collection<ArrayList<ValuesDelta>> getEntries() {
+        return mEntries.values();
+    }
+
     public static final Parcelable.Creator<RawContactDelta> CREATOR =
             new Parcelable.Creator<RawContactDelta>() {
         public RawContactDelta createFromParcel(Parcel in) {
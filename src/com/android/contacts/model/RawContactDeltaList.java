@@ -34,8 +34,11 @@ import com.android.contacts.compat.CompatUtils;
 
 import com.google.common.collect.Lists;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Iterator;
 
 /**
@@ -50,6 +53,19 @@ public class RawContactDeltaList extends ArrayList<RawContactDelta> implements P
     private boolean mSplitRawContacts;
     private long[] mJoinWithRawContactIds;
 
+    /**
+     * Index of the first {@link RawContactDelta} with each {@link RawContacts#_ID}, built on
+     * demand and dropped whenever the list is modified.
+     */
+    private transient HashMap<Long, Integer> mIndexByRawContactId;
+    private transient int mIndexModCount;
+
+    /**
+     * The file that {@link DeltaParceler} wrote this state to or read it from, if it was too
+     * large for a parcel.
+     */
+    transient File mSpillFile;
+
     public RawContactDeltaList() {
     }
 
@@ -330,6 +346,14 @@ public class RawContactDeltaList extends ArrayList<RawContactDelta> implements P
      */
     public int indexOfRawContactId(Long rawContactId) {
         if (rawContactId == null) return -1;
+        final Integer index = getIndexByRawContactId().get(rawContactId);
+        if (index == null) {
+            return -1;
+        }
+        if (rawContactId.equals(getRawContactId(index))) {
+            return index;
+        }
+        // The indexed raw contact was deleted since, so look for a later one with the same ID.
         final int size = this.size();
         for (int i = 0; i < size; i++) {
             final Long currentId = getRawContactId(i);
@@ -340,6 +364,44 @@ public class RawContactDeltaList extends ArrayList<RawContactDelta> implements P
         return -1;
     }
 
+    private HashMap<Long, Integer> getIndexByRawContactId() {
+        // Structural changes update modCount, set() drops the index itself.
+        if (mIndexByRawContactId == null || mIndexModCount != modCount) {
+            final int size = size();
+            final HashMap<Long, Integer> index = new HashMap<>(size * 2);
+            for (int i = 0; i < size; i++) {
+                final Long rawContactId = get(i).getValues().getAsLong(RawContacts._ID);
+                if (rawContactId != null && !index.containsKey(rawContactId)) {
+                    index.put(rawContactId, i);
+                }
+            }
+            mIndexByRawContactId = index;
+            mIndexModCount = modCount;
+        }
+        return mIndexByRawContactId;
+    }
+
+    @Override
+    public boolean add(RawContactDelta delta) {
+        final boolean indexed = mIndexByRawContactId != null && mIndexModCount == modCount;
+        super.add(delta);
+        if (indexed) {
+            // Appending is what mergeAfter() does, so keep the index instead of rebuilding it.
+            final Long rawContactId = delta.getValues().getAsLong(RawContacts._ID);
+            if (rawContactId != null && !mIndexByRawContactId.containsKey(rawContactId)) {
+                mIndexByRawContactId.put(rawContactId, size() - 1);
+            }
+            mIndexModCount = modCount;
+        }
+        return true;
+    }
+
+    @Override
+    public RawContactDelta set(int index, RawContactDelta element) {
+        mIndexByRawContactId = null;
+        return super.set(index, element);
+    }
+
     /**
      * Return the index of the first RawContactDelta corresponding to a writable raw-contact, or -1.
      * */
@@ -409,36 +471,100 @@ public class RawContactDeltaList extends ArrayList<RawContactDelta> implements P
         return 0;
     }
 
-    /** {@inheritDoc} */
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The deltas are written in the compact format of {@link DeltaParceler}, which may write
+     * them to a file if they are too large for a binder transaction.</p>
+     */
     @Override
     public void writeToParcel(Parcel dest, int flags) {
-        final int size = this.size();
-        dest.writeInt(size);
-        for (RawContactDelta delta : this) {
-            dest.writeParcelable(delta, flags);
+        final byte[] data;
+        try {
+            final DeltaParceler.Writer writer = new DeltaParceler.Writer();
+            writer.writeInt(size());
+            for (RawContactDelta delta : this) {
+                writer.writeRawContactDelta(delta);
+            }
+            writer.writeLongArray(mJoinWithRawContactIds);
+            writer.writeInt(mSplitRawContacts ? 1 : 0);
+            data = writer.toByteArray();
+        } catch (IOException e) {
+            // Only thrown by streams other than the in-memory one that is written to.
+            throw new IllegalStateException(e);
         }
-        dest.writeLongArray(mJoinWithRawContactIds);
-        dest.writeInt(mSplitRawContacts ? 1 : 0);
+        DeltaParceler.writeTo(dest, data, this);
     }
 
-    @SuppressWarnings("unchecked")
+    /**
+     * Reads the deltas written by {@link #writeToParcel}. The list stays empty if they can't be
+     * read anymore.
+     */
     public void readFromParcel(Parcel source) {
-        final ClassLoader loader = getClass().getClassLoader();
-        final int size = source.readInt();
-        for (int i = 0; i < size; i++) {
-            this.add(source.<RawContactDelta> readParcelable(loader));
+        readDeltas(source);
+    }
+
+    /**
+     * Returns false if the deltas were written to a file that can't be read anymore or in
+     * another format.
+     */
+    private boolean readDeltas(Parcel source) {
+        final byte[] data = DeltaParceler.readFrom(source, this);
+        if (data == null) {
+            return false;
         }
-        mJoinWithRawContactIds = source.createLongArray();
-        mSplitRawContacts = source.readInt() != 0;
+        try {
+            final DeltaParceler.Reader reader = new DeltaParceler.Reader(data);
+            if (!reader.isSupported()) {
+                Log.w(TAG, "Dropping editor state written in another format");
+                return false;
+            }
+            final int size = reader.readInt();
+            for (int i = 0; i < size; i++) {
+                this.add(reader.readRawContactDelta());
+            }
+            mJoinWithRawContactIds = reader.readLongArray();
+            mSplitRawContacts = reader.readInt() != 0;
+            return true;
+        } catch (IOException e) {
+            Log.w(TAG, "Dropping corrupt editor state", e);
+            clear();
+            return false;
+        }
+    }
+
+    /**
+     * Deletes the file that this state was written to if it was too large for a parcel. Called
+     * once the state is saved or the editor finishes, so that the contact data doesn't stay in
+     * the cache directory.
+     */
+    public void deleteSpillFile() {
+        DeltaParceler.deleteSpillFile(this);
     }
 
+    /**
+     * Returns a list with the same deltas that writes them to a file of its own if they are too
+     * large for a parcel. Used for the state sent to the save service, which deletes its file
+     * once it is saved, while the editor may still restore its own state.
+     */
+    public RawContactDeltaList copyForParceling() {
+        final RawContactDeltaList copy = new RawContactDeltaList();
+        copy.addAll(this);
+        copy.mSplitRawContacts = mSplitRawContacts;
+        copy.mJoinWithRawContactIds = mJoinWithRawContactIds;
+        return copy;
+    }
+
+    /**
+     * Returns null if the deltas can't be read anymore, so that a save fails instead of saving
+     * nothing.
+     */
     public static final Parcelable.Creator<RawContactDeltaList> CREATOR =
             new Parcelable.Creator<RawContactDeltaList>() {
         @Override
         public RawContactDeltaList createFromParcel(Parcel in) {
             final RawContactDeltaList state = new RawContactDeltaList();
-            state.readFromParcel(in);
-            return state;
+            return state.readDeltas(in) ? state : null;
         }
 
         @Override
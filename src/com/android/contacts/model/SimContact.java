@@ -29,12 +29,8 @@ import android.text.TextUtils;
 import com.android.contacts.ContactPhotoManager;
 import com.android.contacts.model.account.AccountWithDataSet;
 
-import com.google.common.collect.ComparisonChain;
-import com.google.common.collect.Ordering;
-
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Objects;
@@ -224,30 +220,6 @@ public class SimContact implements Parcelable {
         return result;
     }
 
-    /**
-     * Returns the index of a contact with a matching name and phone
-     * @param contacts list to search. Should be sorted using
-     * {@link SimContact#compareByPhoneThenName()}
-     * @param phone the phone to search for
-     * @param name the name to search for
-     */
-    public static int findByPhoneAndName(List<SimContact> contacts, String phone, String name) {
-        return Collections.binarySearch(contacts, new SimContact(-1, name, phone, null),
-                compareByPhoneThenName());
-    }
-
-    public static final Comparator<SimContact> compareByPhoneThenName() {
-        return new Comparator<SimContact>() {
-            @Override
-            public int compare(SimContact lhs, SimContact rhs) {
-                return ComparisonChain.start()
-                        .compare(lhs.mPhone, rhs.mPhone)
-                        .compare(lhs.mName, rhs.mName, Ordering.<String>natural().nullsFirst())
-                        .result();
-            }
-        };
-    }
-
     public static final Comparator<SimContact> compareById() {
         return new Comparator<SimContact>() {
             @Override
@@ -98,6 +98,14 @@ public abstract class AccountType {
      */
     private HashMap<String, DataKind> mMimeKinds = Maps.newHashMap();
 
+    /**
+     * False until {@link #inflateKinds()} has run for types that called
+     * {@link #deferKindInflation()}.
+     */
+    private volatile boolean mKindsInflated = true;
+    /** Set while {@link #inflateKinds()} runs, which may look up the kinds it added. */
+    private boolean mInflatingKinds;
+
     protected boolean mIsInitialized;
 
     protected static class DefinitionException extends Exception {
@@ -309,6 +317,7 @@ public abstract class AccountType {
      * {@link DataKind#weight}.
      */
     public ArrayList<DataKind> getSortedDataKinds() {
+        ensureKindsInflated();
         // TODO: optimize by marking if already sorted
         Collections.sort(mKinds, sWeightComparator);
         return mKinds;
@@ -319,9 +328,52 @@ public abstract class AccountType {
      * this data source.
      */
     public DataKind getKindForMimetype(String mimeType) {
+        ensureKindsInflated();
         return this.mMimeKinds.get(mimeType);
     }
 
+    /**
+     * Postpones adding the {@link DataKind}s of this type until they are first requested, at
+     * which point {@link #inflateKinds()} is called exactly once.
+     */
+    protected final void deferKindInflation() {
+        mKindsInflated = false;
+    }
+
+    /**
+     * Adds the {@link DataKind}s of a type that called {@link #deferKindInflation()}. Called at
+     * most once, with a lock held.
+     */
+    protected void inflateKinds() {
+    }
+
+    /**
+     * Removes all {@link DataKind}s, e.g. to start over after a definition turned out to be
+     * invalid.
+     */
+    protected final void clearKinds() {
+        mKinds.clear();
+        mMimeKinds.clear();
+    }
+
+    private void ensureKindsInflated() {
+        if (mKindsInflated) {
+            return;
+        }
+        synchronized (mKinds) {
+            if (mKindsInflated || mInflatingKinds) {
+                return;
+            }
+            mInflatingKinds = true;
+            try {
+                inflateKinds();
+            } finally {
+                mInflatingKinds = false;
+                mKindsInflated = true;
+            }
+        }
+    }
+
     public void initializeFieldsFromAuthenticator(AuthenticatorDescription authenticator) {
         accountType = authenticator.type;
         titleRes = authenticator.labelId;
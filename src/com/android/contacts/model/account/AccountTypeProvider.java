@@ -73,6 +73,25 @@ public class AccountTypeProvider {
         mAuthTypes = onlyContactSyncable(authenticatorDescriptions, syncAdapterTypes);
     }
 
+    private AccountTypeProvider(Context context, DeviceLocalAccountTypeFactory localTypeFactory,
+            ImmutableMap<String, AuthenticatorDescription> contactSyncableAuthenticators) {
+        mContext = context;
+        mLocalAccountTypeFactory = localTypeFactory;
+        mAuthTypes = contactSyncableAuthenticators;
+    }
+
+    /**
+     * Creates a provider for the authenticators recorded in {@code snapshot} without querying
+     * {@link AccountManager} or the sync adapters so that it can be used on the main thread at
+     * startup. The account types are still loaded lazily from their packages.
+     */
+    public static AccountTypeProvider fromSnapshot(Context context,
+            AccountTypeSnapshot snapshot) {
+        return new AccountTypeProvider(context,
+                ObjectFactory.getDeviceLocalAccountTypeFactory(context),
+                snapshot.getAuthenticators());
+    }
+
     /**
      * Returns all account types associated with the provided type
      *
@@ -141,7 +160,17 @@ public class AccountTypeProvider {
     }
 
     public boolean shouldUpdate(AuthenticatorDescription[] auths, SyncAdapterType[] syncTypes) {
-        Map<String, AuthenticatorDescription> contactsAuths = onlyContactSyncable(auths, syncTypes);
+        return shouldUpdate(onlyContactSyncable(auths, syncTypes));
+    }
+
+    /**
+     * Returns whether {@code other} was created from different authenticators than this provider.
+     */
+    public boolean shouldUpdate(AccountTypeProvider other) {
+        return shouldUpdate(other.mAuthTypes);
+    }
+
+    private boolean shouldUpdate(Map<String, AuthenticatorDescription> contactsAuths) {
         if (!contactsAuths.keySet().equals(mAuthTypes.keySet())) {
             return true;
         }
@@ -157,6 +186,58 @@ public class AccountTypeProvider {
         return mAuthTypes.containsKey(accountType);
     }
 
+    public ImmutableMap<String, AuthenticatorDescription> getContactSyncableAuthenticators() {
+        return mAuthTypes;
+    }
+
+    /**
+     * Returns the packages the account types of this provider come from: those of the
+     * authenticators and the extension packages of the types that have been loaded so far.
+     */
+    public Set<String> getPackageNames() {
+        final Set<String> result = new HashSet<>();
+        for (AuthenticatorDescription auth : mAuthTypes.values()) {
+            result.add(auth.packageName);
+        }
+        for (List<AccountType> types : mCache.values()) {
+            addPackageNames(types, result);
+        }
+        return result;
+    }
+
+    /**
+     * Reuses the account types already loaded by {@code previous} whose authenticator is
+     * unchanged and that don't come from one of {@code changedPackages}, so that only the types
+     * of packages that were updated need to be parsed again.
+     */
+    public void retainLoadedTypes(AccountTypeProvider previous, Set<String> changedPackages) {
+        final Set<String> packageNames = new HashSet<>();
+        for (Map.Entry<String, List<AccountType>> entry : previous.mCache.entrySet()) {
+            final String type = entry.getKey();
+            final AuthenticatorDescription auth = mAuthTypes.get(type);
+            if (auth == null || !deepEquals(auth, previous.mAuthTypes.get(type))) {
+                continue;
+            }
+            packageNames.clear();
+            packageNames.add(auth.packageName);
+            addPackageNames(entry.getValue(), packageNames);
+            if (Collections.disjoint(packageNames, changedPackages)) {
+                mCache.putIfAbsent(type, entry.getValue());
+            }
+        }
+    }
+
+    private static void addPackageNames(List<AccountType> types, Set<String> result) {
+        for (AccountType type : types) {
+            if (type.syncAdapterPackageName != null) {
+                result.add(type.syncAdapterPackageName);
+            }
+            if (type.resourcePackageName != null) {
+                result.add(type.resourcePackageName);
+            }
+        }
+    }
+
     private List<AccountType> loadTypes(String type) {
         final AuthenticatorDescription auth = mAuthTypes.get(type);
         if (auth == null) {
@@ -266,7 +347,7 @@ public class AccountTypeProvider {
      *
      * <p>By default {@link AuthenticatorDescription#equals(Object)} only checks the type</p>
      */
-    private boolean deepEquals(AuthenticatorDescription auth1, AuthenticatorDescription auth2) {
+    static boolean deepEquals(AuthenticatorDescription auth1, AuthenticatorDescription auth2) {
         return Objects.equal(auth1, auth2) &&
                 Objects.equal(auth1.packageName, auth2.packageName) &&
                 auth1.labelId == auth2.labelId &&
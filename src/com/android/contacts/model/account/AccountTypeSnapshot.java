@@ -0,0 +1,214 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.contacts.model.account;
+
+import android.accounts.AuthenticatorDescription;
+import android.content.SharedPreferences;
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager;
+import android.util.Log;
+import androidx.annotation.WorkerThread;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableMap;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The contact syncable authenticators that an {@link AccountTypeProvider} was built from along
+ * with the versions of the packages providing them.
+ *
+ * <p>This is persisted so that on the next process start an {@link AccountTypeProvider} can be
+ * created without querying {@link android.accounts.AccountManager} and the sync adapters, and
+ * so that the packages that changed since can be told apart from those that didn't.</p>
+ *
+ * <p>Only the identities of the authenticators and packages are recorded, not the parsed
+ * {@link AccountType}s and their {@link com.android.contacts.model.dataitem.DataKind}s, which
+ * hold resources of other packages. After a process start the contacts.xml of an external
+ * account type is still parsed, the first time the type is used.</p>
+ */
+public final class AccountTypeSnapshot {
+    private static final String TAG = "AccountTypeSnapshot";
+
+    private static final String KEY_SNAPSHOT = "snapshot";
+
+    private static final String KEY_AUTHENTICATORS = "authenticators";
+    private static final String KEY_PACKAGE_VERSIONS = "packageVersions";
+    private static final String KEY_TYPE = "type";
+    private static final String KEY_PACKAGE = "package";
+    private static final String KEY_LABEL = "label";
+    private static final String KEY_ICON = "icon";
+    private static final String KEY_SMALL_ICON = "smallIcon";
+    private static final String KEY_PREFERENCES = "preferences";
+    private static final String KEY_CUSTOM_TOKENS = "customTokens";
+
+    private final ImmutableMap<String, AuthenticatorDescription> mAuthenticators;
+    private final ImmutableMap<String, String> mPackageVersions;
+
+    private AccountTypeSnapshot(Map<String, AuthenticatorDescription> authenticators,
+            Map<String, String> packageVersions) {
+        mAuthenticators = ImmutableMap.copyOf(authenticators);
+        mPackageVersions = ImmutableMap.copyOf(packageVersions);
+    }
+
+    /**
+     * Records the authenticators of {@code provider} and the current versions of their packages
+     * and of the extension packages of the account types it has loaded.
+     */
+    @WorkerThread
+    public static AccountTypeSnapshot capture(PackageManager packageManager,
+            AccountTypeProvider provider) {
+        final Map<String, String> versions = new HashMap<>();
+        for (String packageName : provider.getPackageNames()) {
+            final String version = getPackageVersion(packageManager, packageName);
+            if (version != null) {
+                versions.put(packageName, version);
+            }
+        }
+        return new AccountTypeSnapshot(provider.getContactSyncableAuthenticators(), versions);
+    }
+
+    /**
+     * Returns the last snapshot saved to {@code preferences} or null if there is none.
+     */
+    public static AccountTypeSnapshot restore(SharedPreferences preferences) {
+        final String serialized = preferences.getString(KEY_SNAPSHOT, null);
+        if (serialized == null) {
+            return null;
+        }
+        try {
+            final JSONObject json = new JSONObject(serialized);
+            final Map<String, AuthenticatorDescription> authenticators = new HashMap<>();
+            final JSONArray authenticatorsJson = json.getJSONArray(KEY_AUTHENTICATORS);
+            for (int i = 0; i < authenticatorsJson.length(); i++) {
+                final AuthenticatorDescription auth =
+                        authenticatorFromJson(authenticatorsJson.getJSONObject(i));
+                authenticators.put(auth.type, auth);
+            }
+            final Map<String, String> versions = new HashMap<>();
+            final JSONObject versionsJson = json.getJSONObject(KEY_PACKAGE_VERSIONS);
+            final JSONArray packageNames = versionsJson.names();
+            for (int i = 0; packageNames != null && i < packageNames.length(); i++) {
+                final String packageName = packageNames.getString(i);
+                versions.put(packageName, versionsJson.getString(packageName));
+            }
+            return new AccountTypeSnapshot(authenticators, versions);
+        } catch (JSONException e) {
+            Log.w(TAG, "Discarding corrupt account type snapshot", e);
+            preferences.edit().remove(KEY_SNAPSHOT).apply();
+            return null;
+        }
+    }
+
+    public void save(SharedPreferences preferences) {
+        try {
+            final JSONArray authenticatorsJson = new JSONArray();
+            for (AuthenticatorDescription auth : mAuthenticators.values()) {
+                authenticatorsJson.put(authenticatorToJson(auth));
+            }
+            final JSONObject json = new JSONObject();
+            json.put(KEY_AUTHENTICATORS, authenticatorsJson);
+            json.put(KEY_PACKAGE_VERSIONS, new JSONObject(mPackageVersions));
+            preferences.edit().putString(KEY_SNAPSHOT, json.toString()).apply();
+        } catch (JSONException e) {
+            Log.w(TAG, "Failed to save account type snapshot", e);
+        }
+    }
+
+    public ImmutableMap<String, AuthenticatorDescription> getAuthenticators() {
+        return mAuthenticators;
+    }
+
+    /**
+     * Returns the packages in this snapshot that were updated or removed since it was captured.
+     */
+    @WorkerThread
+    public Set<String> getChangedPackages(PackageManager packageManager) {
+        final Set<String> changed = new HashSet<>();
+        for (Map.Entry<String, String> entry : mPackageVersions.entrySet()) {
+            if (!entry.getValue().equals(getPackageVersion(packageManager, entry.getKey()))) {
+                changed.add(entry.getKey());
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Whether {@code other} describes the same authenticators and package versions.
+     */
+    public boolean isSameAs(AccountTypeSnapshot other) {
+        if (other == null || !mPackageVersions.equals(other.mPackageVersions)
+                || !mAuthenticators.keySet().equals(other.mAuthenticators.keySet())) {
+            return false;
+        }
+        for (AuthenticatorDescription auth : mAuthenticators.values()) {
+            if (!AccountTypeProvider.deepEquals(auth, other.mAuthenticators.get(auth.type))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The version code and last update time identify an installed build of a package. Because
+     * an update can't change the signing certificate they also cover signature changes.
+     */
+    private static String getPackageVersion(PackageManager packageManager, String packageName) {
+        try {
+            final PackageInfo info = packageManager.getPackageInfo(packageName, 0);
+            return info.versionCode + ":" + info.lastUpdateTime;
+        } catch (PackageManager.NameNotFoundException e) {
+            return null;
+        }
+    }
+
+    private static JSONObject authenticatorToJson(AuthenticatorDescription auth)
+            throws JSONException {
+        final JSONObject json = new JSONObject();
+        json.put(KEY_TYPE, auth.type);
+        json.put(KEY_PACKAGE, auth.packageName);
+        json.put(KEY_LABEL, auth.labelId);
+        json.put(KEY_ICON, auth.iconId);
+        json.put(KEY_SMALL_ICON, auth.smallIconId);
+        json.put(KEY_PREFERENCES, auth.accountPreferencesId);
+        json.put(KEY_CUSTOM_TOKENS, auth.customTokens);
+        return json;
+    }
+
+    private static AuthenticatorDescription authenticatorFromJson(JSONObject json)
+            throws JSONException {
+        return new AuthenticatorDescription(json.getString(KEY_TYPE), json.getString(KEY_PACKAGE),
+                json.getInt(KEY_LABEL), json.getInt(KEY_ICON), json.getInt(KEY_SMALL_ICON),
+                json.getInt(KEY_PREFERENCES), json.getBoolean(KEY_CUSTOM_TOKENS));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof AccountTypeSnapshot && isSameAs((AccountTypeSnapshot) o);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(mAuthenticators.keySet(), mPackageVersions);
+    }
+}
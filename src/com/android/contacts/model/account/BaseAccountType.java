@@ -52,9 +52,11 @@ import org.xmlpull.v1.XmlPullParser;
 import org.xmlpull.v1.XmlPullParserException;
 
 import java.io.IOException;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 
 public abstract class BaseAccountType extends AccountType {
     private static final String TAG = "BaseAccountType";
@@ -679,6 +681,37 @@ public abstract class BaseAccountType extends AccountType {
         }
     }
 
+    /**
+     * Reads the kind names of the DataKind tags in the EditSchema tag in contacts.xml without
+     * building the kinds, so the schema can be checked before {@link #parseEditSchema} runs.
+     *
+     * @throws DefinitionException if a kind is undefined or declared twice
+     */
+    protected static Set<String> readEditSchemaKindNames(XmlPullParser parser,
+            AttributeSet attrs) throws XmlPullParserException, IOException, DefinitionException {
+        final Set<String> kindNames = new HashSet<>();
+        final int outerDepth = parser.getDepth();
+        int type;
+        while ((type = parser.next()) != XmlPullParser.END_DOCUMENT
+                && (type != XmlPullParser.END_TAG || parser.getDepth() > outerDepth)) {
+            final int depth = parser.getDepth();
+            if (type != XmlPullParser.START_TAG || depth != outerDepth + 1) {
+                continue; // Not direct child tag
+            }
+
+            if (Tag.DATA_KIND.equals(parser.getName())) {
+                final String kind = getAttr(attrs, Attr.KIND);
+                if (!KindParser.INSTANCE.isDefined(kind)) {
+                    throw new DefinitionException("Undefined data kind '" + kind + "'");
+                }
+                if (!kindNames.add(kind)) {
+                    throw new DefinitionException("Data kind '" + kind + "' is already defined");
+                }
+            }
+        }
+        return kindNames;
+    }
+
     // Utility methods to keep code shorter.
     private static boolean getAttr(AttributeSet attrs, String attribute, boolean defaultValue) {
         return attrs.getAttributeBooleanValue(null, attribute, defaultValue);
@@ -719,6 +752,10 @@ public abstract class BaseAccountType extends AccountType {
             mBuilders.put(builder.getTagName(), builder);
         }
 
+        public boolean isDefined(String kind) {
+            return mBuilders.containsKey(kind);
+        }
+
         /**
          * Takes a {@link XmlPullParser} at the start of a DataKind tag, parses it and returns
          * {@link DataKind}s.  (Usually just one, but there are three for the "name" kind.)
@@ -45,6 +45,7 @@ import org.xmlpull.v1.XmlPullParserException;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 /**
  * A general contacts account type descriptor.
@@ -72,6 +73,10 @@ public class ExternalAccountType extends BaseAccountType {
     private static final String TAG_CONTACTS_DATA_KIND = "ContactsDataKind";
     private static final String TAG_EDIT_SCHEMA = "EditSchema";
 
+    private static final String KIND_NAME = "name";
+    private static final String KIND_PHOTO = "photo";
+    private static final String KIND_GROUP_MEMBERSHIP = "group_membership";
+
     private static final String ATTR_INVITE_CONTACT_ACTIVITY = "inviteContactActivity";
     private static final String ATTR_INVITE_CONTACT_ACTION_LABEL = "inviteContactActionLabel";
     private static final String ATTR_VIEW_CONTACT_NOTIFY_SERVICE = "viewContactNotifyService";
@@ -99,8 +104,12 @@ public class ExternalAccountType extends BaseAccountType {
     private String mAccountTypeLabelAttribute;
     private String mAccountTypeIconAttribute;
     private boolean mHasContactsMetadata;
-    private boolean mHasEditSchema;
-    private boolean mGroupMembershipEditable;
+    // Read from any thread, and cleared if inflating the deferred kinds fails.
+    private volatile boolean mHasEditSchema;
+    private volatile boolean mGroupMembershipEditable;
+
+    /** Used to inflate the kinds on first use. Cleared once they are inflated. */
+    private Context mKindsContext;
 
     public ExternalAccountType(Context context, String resPackageName, boolean isExtension) {
         this(context, resPackageName, isExtension, null);
@@ -124,25 +133,26 @@ public class ExternalAccountType extends BaseAccountType {
         } else {
             parser = injectedMetadata;
         }
+        // Most screens only need the label and icon of a type, so only the attributes of the
+        // root tag are read here and the kinds are inflated when first requested. Injected
+        // metadata can't be read a second time so it's inflated right away.
+        final boolean deferKinds = injectedMetadata == null;
         boolean needLineNumberInErrorLog = true;
         try {
             if (parser != null) {
-                inflate(context, parser);
+                inflate(context, parser, /* parseHeader */ true, /* parseKinds */ !deferKinds);
             }
 
             // Done parsing; line number no longer needed in error log.
             needLineNumberInErrorLog = false;
-            if (mHasEditSchema) {
-                checkKindExists(StructuredName.CONTENT_ITEM_TYPE);
-                checkKindExists(DataKind.PSEUDO_MIME_TYPE_NAME);
-                checkKindExists(DataKind.PSEUDO_MIME_TYPE_PHONETIC_NAME);
-                checkKindExists(Photo.CONTENT_ITEM_TYPE);
+            if (deferKinds) {
+                mKindsContext = context;
+                deferKindInflation();
             } else {
-                // Bring in name and photo from fallback source, which are non-optional
-                addDataKindStructuredName(context);
-                addDataKindName(context);
-                addDataKindPhoneticName(context);
-                addDataKindPhoto(context);
+                addRequiredKinds(context);
+                final DataKind groupMembership =
+                        getKindForMimetype(GroupMembership.CONTENT_ITEM_TYPE);
+                mGroupMembershipEditable = groupMembership != null && groupMembership.editable;
             }
         } catch (DefinitionException e) {
             final StringBuilder error = new StringBuilder();
@@ -176,9 +186,6 @@ public class ExternalAccountType extends BaseAccountType {
         iconRes = resolveExternalResId(context, mAccountTypeIconAttribute,
                 syncAdapterPackageName, ATTR_ACCOUNT_ICON);
 
-        final DataKind dataKind = getKindForMimetype(GroupMembership.CONTENT_ITEM_TYPE);
-        mGroupMembershipEditable = dataKind != null && dataKind.editable;
-
         // If we reach this point, the account type has been successfully initialized.
         mIsInitialized = true;
     }
@@ -232,6 +239,72 @@ public class ExternalAccountType extends BaseAccountType {
         return loadContactsXml(context, resPackageName) != null;
     }
 
+    @Override
+    protected void inflateKinds() {
+        final Context context = mKindsContext;
+        mKindsContext = null;
+        final XmlResourceParser parser = mHasContactsMetadata
+                ? loadContactsXml(context, syncAdapterPackageName) : null;
+        try {
+            if (parser != null) {
+                inflate(context, parser, /* parseHeader */ false, /* parseKinds */ true);
+            }
+            addRequiredKinds(context);
+        } catch (DefinitionException e) {
+            FeedbackHelper.sendFeedback(context, TAG,
+                    "Failed to inflate kinds of external package " + syncAdapterPackageName, e);
+            // The edit schema was checked when the type was created, so this only happens if a
+            // kind itself is malformed. The type was already handed out so keep it usable, but
+            // read-only with just the non-optional kinds.
+            mHasEditSchema = false;
+            mGroupMembershipEditable = false;
+            clearKinds();
+            try {
+                addRequiredKinds(context);
+            } catch (DefinitionException ignored) {
+                // The fallback kinds are always valid.
+            }
+        } finally {
+            if (parser != null) {
+                parser.close();
+            }
+        }
+    }
+
+    /**
+     * Checks that an edit schema defines the non-optional kinds, or adds them from the fallback
+     * type if there is no edit schema.
+     */
+    private void addRequiredKinds(Context context) throws DefinitionException {
+        if (mHasEditSchema) {
+            checkKindExists(StructuredName.CONTENT_ITEM_TYPE);
+            checkKindExists(DataKind.PSEUDO_MIME_TYPE_NAME);
+            checkKindExists(DataKind.PSEUDO_MIME_TYPE_PHONETIC_NAME);
+            checkKindExists(Photo.CONTENT_ITEM_TYPE);
+        } else {
+            // Bring in name and photo from fallback source, which are non-optional
+            addDataKindStructuredName(context);
+            addDataKindName(context);
+            addDataKindPhoneticName(context);
+            addDataKindPhoto(context);
+        }
+    }
+
+    /**
+     * Does the checks of {@link #addRequiredKinds} on the kind names of an edit schema that
+     * hasn't been parsed yet.
+     */
+    private void checkEditSchema(Set<String> kindNames) throws DefinitionException {
+        if (!kindNames.contains(KIND_NAME)) {
+            throw new DefinitionException(StructuredName.CONTENT_ITEM_TYPE + " must be supported");
+        }
+        if (!kindNames.contains(KIND_PHOTO)) {
+            throw new DefinitionException(Photo.CONTENT_ITEM_TYPE + " must be supported");
+        }
+        // Kinds in the edit schema are always editable.
+        mGroupMembershipEditable = kindNames.contains(KIND_GROUP_MEMBERSHIP);
+    }
+
     private void checkKindExists(String mimeType) throws DefinitionException {
         if (getKindForMimetype(mimeType) == null) {
             throw new DefinitionException(mimeType + " must be supported");
@@ -292,6 +365,7 @@ public class ExternalAccountType extends BaseAccountType {
 
     @Override
     public boolean isGroupMembershipEditable() {
+        // Known without inflating the kinds, since this is used to filter all types.
         return mGroupMembershipEditable;
     }
 
@@ -300,6 +374,17 @@ public class ExternalAccountType extends BaseAccountType {
      * load details matching the publicly-defined schema.
      */
     protected void inflate(Context context, XmlPullParser parser) throws DefinitionException {
+        inflate(context, parser, true, true);
+    }
+
+    /**
+     * @param parseHeader whether to read the attributes of the root tag
+     * @param parseKinds whether to add the kinds of the EditSchema and ContactsDataKind tags.
+     *     Otherwise only the kind names in the EditSchema are read, to reject a schema without
+     *     the non-optional kinds up front.
+     */
+    private void inflate(Context context, XmlPullParser parser, boolean parseHeader,
+            boolean parseKinds) throws DefinitionException {
         final AttributeSet attrs = Xml.asAttributeSet(parser);
 
         try {
@@ -322,7 +407,7 @@ public class ExternalAccountType extends BaseAccountType {
 
             mHasContactsMetadata = true;
 
-            int attributeCount = parser.getAttributeCount();
+            int attributeCount = parseHeader ? parser.getAttributeCount() : 0;
             for (int i = 0; i < attributeCount; i++) {
                 String attr = parser.getAttributeName(i);
                 String value = parser.getAttributeValue(i);
@@ -367,8 +452,12 @@ public class ExternalAccountType extends BaseAccountType {
                 String tag = parser.getName();
                 if (TAG_EDIT_SCHEMA.equals(tag)) {
                     mHasEditSchema = true;
-                    parseEditSchema(context, parser, attrs);
-                } else if (TAG_CONTACTS_DATA_KIND.equals(tag)) {
+                    if (parseKinds) {
+                        parseEditSchema(context, parser, attrs);
+                    } else {
+                        checkEditSchema(readEditSchemaKindNames(parser, attrs));
+                    }
+                } else if (TAG_CONTACTS_DATA_KIND.equals(tag) && parseKinds) {
                     final TypedArray a = context.obtainStyledAttributes(attrs,
                             R.styleable.ContactsDataKind);
                     final DataKind kind = new DataKind();
@@ -22,11 +22,13 @@ import android.animation.ObjectAnimator;
 import android.app.Activity;
 import android.content.Context;
 import android.content.Intent;
+import android.content.res.ColorStateList;
 import android.content.res.Resources;
 import android.graphics.ColorFilter;
 import android.graphics.Rect;
 import android.graphics.drawable.Drawable;
 import android.os.Bundle;
+import androidx.annotation.VisibleForTesting;
 import androidx.cardview.widget.CardView;
 import android.text.Spannable;
 import android.text.TextUtils;
@@ -50,8 +52,10 @@ import android.widget.LinearLayout;
 import android.widget.RelativeLayout;
 import android.widget.TextView;
 
+import com.android.contacts.Experiments;
 import com.android.contacts.R;
 import com.android.contacts.dialog.CallSubjectDialog;
+import com.android.contactsbind.experiments.Flags;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -276,6 +280,12 @@ public class ExpandingEntryCardView extends CardView {
      */
     private List<View> mSeparators;
     private LinearLayout mContainer;
+    /**
+     * Entry views of the entries that were displayed before the card was initialized again, which
+     * are bound to the new entries instead of inflating views for them.
+     */
+    private final List<EntryView> mRecycledEntryViews = new ArrayList<>();
+    private boolean mRecycleEntryViews;
 
     private final OnClickListener mExpandCollapseButtonListener = new OnClickListener() {
         @Override
@@ -308,10 +318,18 @@ public class ExpandingEntryCardView extends CardView {
         mExpandCollapseButton.setOnClickListener(mExpandCollapseButtonListener);
         mDividerLineHeightPixels = getResources()
                 .getDimensionPixelSize(R.dimen.divider_line_height);
+        mRecycleEntryViews = Flags.getInstance()
+                .getBoolean(Experiments.QUICK_CONTACT_ENTRY_VIEW_RECYCLING_ENABLED);
+    }
+
+    @VisibleForTesting
+    void setRecycleEntryViews(boolean recycleEntryViews) {
+        mRecycleEntryViews = recycleEntryViews;
     }
 
     /**
-     * Sets the Entry list to display.
+     * Sets the Entry list to display. Only the entries that are visible are inflated, the others
+     * are inflated when the card is expanded.
      *
      * @param entries The Entry list to display.
      */
@@ -319,6 +337,7 @@ public class ExpandingEntryCardView extends CardView {
             boolean isExpanded, boolean isAlwaysExpanded, ExpandingEntryCardViewListener listener,
             ViewGroup animationViewGroup) {
         LayoutInflater layoutInflater = LayoutInflater.from(getContext());
+        recycleEntryViews();
         mIsExpanded = isExpanded;
         mIsAlwaysExpanded = isAlwaysExpanded;
         // If isAlwaysExpanded is true, mIsExpanded should be true
@@ -360,6 +379,33 @@ public class ExpandingEntryCardView extends CardView {
         mOnCreateContextMenuListener = listener;
     }
 
+    /**
+     * Keeps the views of the entries that are currently displayed so that they can be bound to
+     * the entries the card is initialized with next.
+     */
+    private void recycleEntryViews() {
+        if (!mRecycleEntryViews || mEntryViews == null) {
+            return;
+        }
+        mEntriesViewGroup.removeAllViews();
+        for (List<View> viewList : mEntryViews) {
+            for (View view : viewList) {
+                mRecycledEntryViews.add((EntryView) view);
+            }
+        }
+        mEntryViews = null;
+    }
+
+    private EntryView obtainEntryView(LayoutInflater layoutInflater) {
+        if (mRecycledEntryViews.isEmpty()) {
+            return (EntryView) layoutInflater.inflate(
+                    R.layout.expanding_entry_card_item, this, false);
+        }
+        final EntryView view = mRecycledEntryViews.remove(mRecycledEntryViews.size() - 1);
+        view.resetForReuse();
+        return view;
+    }
+
     private List<View> calculateEntriesToRemoveDuringCollapse() {
         final List<View> viewsToRemove = getViewsToDisplay(true);
         final List<View> viewsCollapsed = getViewsToDisplay(false);
@@ -629,8 +675,7 @@ public class ExpandingEntryCardView extends CardView {
 
     private View createEntryView(LayoutInflater layoutInflater, final Entry entry,
             int iconVisibility) {
-        final EntryView view = (EntryView) layoutInflater.inflate(
-                R.layout.expanding_entry_card_item, this, false);
+        final EntryView view = obtainEntryView(layoutInflater);
 
         view.setContextMenuInfo(entry.getEntryContextMenuInfo());
         if (!TextUtils.isEmpty(entry.getPrimaryContentDescription())) {
@@ -932,6 +977,15 @@ public class ExpandingEntryCardView extends CardView {
     public static final class EntryView extends RelativeLayout {
         private EntryContextMenuInfo mEntryContextMenuInfo;
 
+        // What binding an entry may change, as inflated.
+        private Drawable mDefaultBackground;
+        private int mDefaultPaddingTop;
+        private boolean mDefaultClickable;
+        private int mDefaultHeaderTopMargin;
+        private int mDefaultHeaderBottomMargin;
+        private ColorStateList mDefaultHeaderTextColors;
+        private ColorStateList mDefaultSubHeaderTextColors;
+
         public EntryView(Context context) {
             super(context);
         }
@@ -940,6 +994,76 @@ public class ExpandingEntryCardView extends CardView {
             super(context, attrs);
         }
 
+        @Override
+        protected void onFinishInflate() {
+            super.onFinishInflate();
+            mDefaultBackground = getBackground();
+            mDefaultPaddingTop = getPaddingTop();
+            mDefaultClickable = isClickable();
+            final TextView header = (TextView) findViewById(R.id.header);
+            final RelativeLayout.LayoutParams headerLayoutParams =
+                    (RelativeLayout.LayoutParams) header.getLayoutParams();
+            mDefaultHeaderTopMargin = headerLayoutParams.topMargin;
+            mDefaultHeaderBottomMargin = headerLayoutParams.bottomMargin;
+            mDefaultHeaderTextColors = header.getTextColors();
+            mDefaultSubHeaderTextColors =
+                    ((TextView) findViewById(R.id.sub_header)).getTextColors();
+        }
+
+        /**
+         * Undoes everything that binding an entry and collapsing the card did to this view, so
+         * that it can be bound to another entry.
+         */
+        void resetForReuse() {
+            animate().cancel();
+            setAlpha(1);
+            final ViewGroup.LayoutParams layoutParams = getLayoutParams();
+            if (layoutParams != null) {
+                layoutParams.height = ViewGroup.LayoutParams.WRAP_CONTENT;
+            }
+            setBackground(mDefaultBackground);
+            setPaddingRelative(getPaddingStart(), mDefaultPaddingTop, getPaddingEnd(),
+                    getPaddingBottom());
+            setContentDescription(null);
+            setContextMenuInfo(null);
+            setTag(null);
+            setOnClickListener(null);
+            setClickable(mDefaultClickable);
+
+            final TextView header = (TextView) findViewById(R.id.header);
+            final RelativeLayout.LayoutParams headerLayoutParams =
+                    (RelativeLayout.LayoutParams) header.getLayoutParams();
+            headerLayoutParams.topMargin = mDefaultHeaderTopMargin;
+            headerLayoutParams.bottomMargin = mDefaultHeaderBottomMargin;
+            header.setLayoutParams(headerLayoutParams);
+            header.setTextColor(mDefaultHeaderTextColors);
+            final TextView subHeader = (TextView) findViewById(R.id.sub_header);
+            subHeader.setTextColor(mDefaultSubHeaderTextColors);
+            resetText(header);
+            resetText(subHeader);
+            resetText((TextView) findViewById(R.id.text));
+
+            resetImage((ImageView) findViewById(R.id.icon), View.VISIBLE);
+            resetImage((ImageView) findViewById(R.id.icon_sub_header), View.VISIBLE);
+            resetImage((ImageView) findViewById(R.id.icon_text), View.VISIBLE);
+            resetImage((ImageView) findViewById(R.id.icon_alternate), View.GONE);
+            resetImage((ImageView) findViewById(R.id.third_icon), View.GONE);
+        }
+
+        private static void resetText(TextView textView) {
+            textView.setText(null);
+            textView.setVisibility(View.VISIBLE);
+        }
+
+        private static void resetImage(ImageView imageView, int visibility) {
+            imageView.setImageDrawable(null);
+            imageView.setVisibility(visibility);
+            imageView.setTag(null);
+            imageView.setContentDescription(null);
+            imageView.setOnClickListener(null);
+            imageView.setClickable(false);
+        }
+
         public void setContextMenuInfo(EntryContextMenuInfo info) {
             mEntryContextMenuInfo = info;
         }
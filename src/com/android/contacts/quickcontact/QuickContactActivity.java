@@ -292,6 +292,10 @@ public class QuickContactActivity extends ContactsActivity {
      * The last copy of Cp2DataCardModel that was passed to {@link #populateContactAndAboutCard}.
      */
     private Cp2DataCardModel mCachedCp2DataCardModel;
+    /**
+     * The Cp2DataCardModel that the cards currently display.
+     */
+    private Cp2DataCardModel mBoundCp2DataCardModel;
     /**
      *  This scrim's opacity is controlled in two different ways. 1) Before the initial entrance
      *  animation finishes, the opacity is animated by a value animator. This is designed to
@@ -1028,7 +1032,7 @@ public class QuickContactActivity extends ContactsActivity {
         final List<DataItem> emailDataItems = dataItemsMap.get(Email.CONTENT_ITEM_TYPE);
         mOnlyOneEmail = emailDataItems != null && emailDataItems.size() == 1;
 
-        populateContactAndAboutCard(cp2DataCardModel, /* shouldAddPhoneticName */ true);
+        populateContactAndAboutCard(cp2DataCardModel);
     }
 
     private void showActivity() {
@@ -1068,7 +1072,7 @@ public class QuickContactActivity extends ContactsActivity {
         // If returning from a launched activity, repopulate the contact and about card
         if (mHasIntentLaunched) {
             mHasIntentLaunched = false;
-            populateContactAndAboutCard(mCachedCp2DataCardModel, /* shouldAddPhoneticName */ false);
+            populateContactAndAboutCard(mCachedCp2DataCardModel);
         }
 
         maybeShowProgressDialog();
@@ -1081,12 +1085,15 @@ public class QuickContactActivity extends ContactsActivity {
         dismissProgressBar();
     }
 
-    private void populateContactAndAboutCard(Cp2DataCardModel cp2DataCardModel,
-            boolean shouldAddPhoneticName) {
+    private void populateContactAndAboutCard(Cp2DataCardModel cp2DataCardModel) {
         mCachedCp2DataCardModel = cp2DataCardModel;
-        if (mHasIntentLaunched || cp2DataCardModel == null) {
+        // The model is never changed after it is built, so there is nothing to do if the cards
+        // already display it, e.g. when returning from an activity that was launched from them.
+        if (mHasIntentLaunched || cp2DataCardModel == null
+                || cp2DataCardModel == mBoundCp2DataCardModel) {
             return;
         }
+        mBoundCp2DataCardModel = cp2DataCardModel;
         Trace.beginSection("bind contact card");
 
         final List<List<Entry>> contactCardEntries = cp2DataCardModel.contactCardEntries;
@@ -1111,47 +1118,6 @@ public class QuickContactActivity extends ContactsActivity {
         Trace.endSection();
 
         Trace.beginSection("bind about card");
-        // Phonetic name is not a data item, so the entry needs to be created separately
-        // But if mCachedCp2DataCardModel is passed to this method (e.g. returning from editor
-        // without saving any changes), then it should include phoneticName and the phoneticName
-        // shouldn't be changed. If this is the case, we shouldn't add it again. b/27459294
-        final String phoneticName = mContactData.getPhoneticName();
-        if (shouldAddPhoneticName && !TextUtils.isEmpty(phoneticName)) {
-            Entry phoneticEntry = new Entry(/* viewId = */ -1,
-                    /* icon = */ null,
-                    getResources().getString(R.string.name_phonetic),
-                    phoneticName,
-                    /* subHeaderIcon = */ null,
-                    /* text = */ null,
-                    /* textIcon = */ null,
-                    /* primaryContentDescription = */ null,
-                    /* intent = */ null,
-                    /* alternateIcon = */ null,
-                    /* alternateIntent = */ null,
-                    /* alternateContentDescription = */ null,
-                    /* shouldApplyColor = */ false,
-                    /* isEditable = */ false,
-                    /* EntryContextMenuInfo = */ new EntryContextMenuInfo(phoneticName,
-                            getResources().getString(R.string.name_phonetic),
-                            /* mimeType = */ null, /* id = */ -1, /* isPrimary = */ false),
-                    /* thirdIcon = */ null,
-                    /* thirdIntent = */ null,
-                    /* thirdContentDescription = */ null,
-                    /* thirdAction = */ Entry.ACTION_NONE,
-                    /* thirdExtras = */ null,
-                    /* shouldApplyThirdIconColor = */ true,
-                    /* iconResourceId = */  0);
-            List<Entry> phoneticList = new ArrayList<>();
-            phoneticList.add(phoneticEntry);
-            // Phonetic name comes after nickname. Check to see if the first entry type is nickname
-            if (aboutCardEntries.size() > 0 && aboutCardEntries.get(0).get(0).getHeader().equals(
-                    getResources().getString(R.string.header_nickname_entry))) {
-                aboutCardEntries.add(1, phoneticList);
-            } else {
-                aboutCardEntries.add(0, phoneticList);
-            }
-        }
-
         if (!TextUtils.isEmpty(customAboutCardName)) {
             mAboutCard.setTitle(customAboutCardName);
         }
@@ -1319,6 +1285,7 @@ public class QuickContactActivity extends ContactsActivity {
         final List<List<Entry>> contactCardEntries = new ArrayList<>();
         final List<List<Entry>> aboutCardEntries = buildAboutCardEntries(dataItemsMap);
         final MutableString aboutCardName = new MutableString();
+        addPhoneticNameEntry(aboutCardEntries, data.getPhoneticName());
 
         for (int i = 0; i < dataItemsList.size(); ++i) {
             final List<DataItem> dataItemsByMimeType = dataItemsList.get(i);
@@ -1339,13 +1306,64 @@ public class QuickContactActivity extends ContactsActivity {
 
         final Cp2DataCardModel dataModel = new Cp2DataCardModel();
         dataModel.customAboutCardName = aboutCardName.value;
-        dataModel.aboutCardEntries = aboutCardEntries;
-        dataModel.contactCardEntries = contactCardEntries;
+        dataModel.aboutCardEntries = unmodifiableEntries(aboutCardEntries);
+        dataModel.contactCardEntries = unmodifiableEntries(contactCardEntries);
         dataModel.dataItemsMap = dataItemsMap;
         dataModel.areAllRawContactsSimAccounts = data.areAllRawContactsSimAccounts(this);
         return dataModel;
     }
 
+    /**
+     * Phonetic name is not a data item, so its entry is added to the About card separately. It
+     * comes after the nickname.
+     */
+    private void addPhoneticNameEntry(List<List<Entry>> aboutCardEntries, String phoneticName) {
+        if (TextUtils.isEmpty(phoneticName)) {
+            return;
+        }
+        final Entry phoneticEntry = new Entry(/* viewId = */ -1,
+                /* icon = */ null,
+                getResources().getString(R.string.name_phonetic),
+                phoneticName,
+                /* subHeaderIcon = */ null,
+                /* text = */ null,
+                /* textIcon = */ null,
+                /* primaryContentDescription = */ null,
+                /* intent = */ null,
+                /* alternateIcon = */ null,
+                /* alternateIntent = */ null,
+                /* alternateContentDescription = */ null,
+                /* shouldApplyColor = */ false,
+                /* isEditable = */ false,
+                /* EntryContextMenuInfo = */ new EntryContextMenuInfo(phoneticName,
+                        getResources().getString(R.string.name_phonetic),
+                        /* mimeType = */ null, /* id = */ -1, /* isPrimary = */ false),
+                /* thirdIcon = */ null,
+                /* thirdIntent = */ null,
+                /* thirdContentDescription = */ null,
+                /* thirdAction = */ Entry.ACTION_NONE,
+                /* thirdExtras = */ null,
+                /* shouldApplyThirdIconColor = */ true,
+                /* iconResourceId = */  0);
+        final List<Entry> phoneticList = new ArrayList<>();
+        phoneticList.add(phoneticEntry);
+        // Check to see if the first entry type is nickname
+        if (aboutCardEntries.size() > 0 && aboutCardEntries.get(0).get(0).getHeader().equals(
+                getResources().getString(R.string.header_nickname_entry))) {
+            aboutCardEntries.add(1, phoneticList);
+        } else {
+            aboutCardEntries.add(0, phoneticList);
+        }
+    }
+
+    private static List<List<Entry>> unmodifiableEntries(List<List<Entry>> entries) {
+        final List<List<Entry>> result = new ArrayList<>(entries.size());
+        for (List<Entry> entryList : entries) {
+            result.add(Collections.unmodifiableList(entryList));
+        }
+        return Collections.unmodifiableList(result);
+    }
+
     /**
      * Bind the custom data items to each {@link PhoneDataItem} that is Tachyon reachable, the data
      * will be needed when creating the {@link Entry} for the {@link PhoneDataItem}.
@@ -1370,7 +1388,8 @@ public class QuickContactActivity extends ContactsActivity {
 
     /**
      * Class used to hold the About card and Contact cards' data model that gets generated
-     * on a background thread. All data is from CP2.
+     * on a background thread. All data is from CP2. The entries are complete, with their
+     * intents, icons and strings, and are not changed after the model is built.
      */
     private static class Cp2DataCardModel {
         /**
@@ -1777,16 +1796,17 @@ public class QuickContactActivity extends ContactsActivity {
             }
         }
 
+        final ResolveCache resolveCache = ResolveCache.getInstance(context);
         if (intent != null) {
             // Do not set the intent is there are no resolves
-            if (!PhoneCapabilityTester.isIntentRegistered(context, intent)) {
+            if (!resolveCache.isIntentRegistered(intent)) {
                 intent = null;
             }
         }
 
         if (alternateIntent != null) {
             // Do not set the alternate intent is there are no resolves
-            if (!PhoneCapabilityTester.isIntentRegistered(context, alternateIntent)) {
+            if (!resolveCache.isIntentRegistered(alternateIntent)) {
                 alternateIntent = null;
             } else if (TextUtils.isEmpty(alternateContentDescription)) {
                 // Attempt to use package manager to find a suitable content description if needed
@@ -24,22 +24,53 @@ import android.content.pm.ApplicationInfo;
 import android.content.pm.PackageManager;
 import android.content.pm.ResolveInfo;
 import android.graphics.drawable.Drawable;
+import android.net.Uri;
+import android.os.AsyncTask;
 import android.provider.ContactsContract.CommonDataKinds.SipAddress;
+import android.telecom.PhoneAccount;
+import android.util.Log;
+import android.util.LruCache;
+import androidx.annotation.VisibleForTesting;
 
+import com.android.contacts.ContactsUtils;
+import com.android.contacts.util.Constants;
 import com.android.contacts.util.PhoneCapabilityTester;
+import com.android.contacts.util.StructuredPostalUtils;
 
 import com.google.common.collect.Sets;
 
-import java.lang.ref.SoftReference;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Internally hold a cache of scaled icons based on {@link PackageManager}
  * queries, keyed internally on MIME-type.
+ *
+ * <p>The cache may be used from any thread and keeps the most recently used entries only. When a
+ * package changes, only the entries that it could resolve are dropped.</p>
  */
 public class ResolveCache {
+    private static final String TAG = "ResolveCache";
+
+    private static final int MAX_ENTRIES = 64;
+
+    /**
+     * Schemes of intents whose resolution only depends on their action, scheme and type, and not
+     * on the rest of their data, so that {@link #isIntentRegistered} can cache it.
+     */
+    private static final Set<String> CACHEABLE_SCHEMES = Sets.newHashSet(
+            PhoneAccount.SCHEME_TEL,
+            PhoneAccount.SCHEME_SIP,
+            PhoneAccount.SCHEME_VOICEMAIL,
+            ContactsUtils.SCHEME_SMSTO,
+            ContactsUtils.SCHEME_MAILTO,
+            "geo");
+
     /**
      * Specific list {@link ApplicationInfo#packageName} of apps that are
      * prefered <strong>only</strong> for the purposes of default icons when
@@ -75,7 +106,7 @@ public class ResolveCache {
             final Context applicationContext = context.getApplicationContext();
             sInstance = new ResolveCache(applicationContext);
 
-            // Register for package-changes so that we can flush our cache
+            // Register for package-changes so that we can invalidate our cache
             final IntentFilter filter = new IntentFilter(Intent.ACTION_PACKAGE_ADDED);
             filter.addAction(Intent.ACTION_PACKAGE_REPLACED);
             filter.addAction(Intent.ACTION_PACKAGE_REMOVED);
@@ -86,31 +117,61 @@ public class ResolveCache {
         return sInstance;
     }
 
-    private synchronized static void flush() {
-        sInstance = null;
-    }
-
     /**
-     * Called anytime a package is installed, uninstalled etc, so that we can wipe our cache
+     * Called anytime a package is installed, uninstalled etc, so that we can drop the entries
+     * that it may resolve
      */
     private BroadcastReceiver mPackageIntentReceiver = new BroadcastReceiver() {
         @Override
         public void onReceive(Context context, Intent intent) {
-            flush();
+            final Uri data = intent.getData();
+            final String packageName = data == null ? null : data.getSchemeSpecificPart();
+            if (packageName == null) {
+                clear();
+                return;
+            }
+            // A package that was removed can't handle intents it didn't handle before
+            invalidatePackage(packageName,
+                    !Intent.ACTION_PACKAGE_REMOVED.equals(intent.getAction()));
         }
     };
 
     /**
      * Cached entry holding the best {@link ResolveInfo} for a specific
-     * MIME-type, along with a {@link SoftReference} to its icon.
+     * MIME-type, along with its icon, which is loaded when it is first needed.
      */
     private static class Entry {
-        public ResolveInfo bestResolve;
-        public Drawable icon;
+        /** The intent that was resolved, or null if it wasn't resolved. */
+        public final Intent intent;
+        public final ResolveInfo bestResolve;
+        /** The packages of all activities that the intent resolved to. */
+        public final Set<String> packageNames;
+        private Drawable mIcon;
+        private boolean mIconLoaded;
+
+        public Entry(Intent intent, ResolveInfo bestResolve, Set<String> packageNames) {
+            this.intent = intent;
+            this.bestResolve = bestResolve;
+            this.packageNames = packageNames;
+        }
+
+        public synchronized Drawable getIcon(PackageManager packageManager) {
+            if (!mIconLoaded && bestResolve != null) {
+                mIcon = bestResolve.loadIcon(packageManager);
+            }
+            mIconLoaded = true;
+            return mIcon;
+        }
     }
 
-    private HashMap<String, Entry> mCache = new HashMap<String, Entry>();
+    // LruCache is thread safe
+    private final LruCache<String, Entry> mCache = new LruCache<>(MAX_ENTRIES);
 
+    /**
+     * Incremented whenever entries are invalidated, so that an entry resolved before that isn't
+     * put into the cache after it.
+     */
+    private final AtomicInteger mGeneration = new AtomicInteger();
 
     private ResolveCache(Context context) {
         mContext = context;
@@ -124,14 +185,16 @@ public class ResolveCache {
     protected Entry getEntry(String mimeType, Intent intent) {
         Entry entry = mCache.get(mimeType);
         if (entry != null) return entry;
-        entry = new Entry();
 
+        final int generation = mGeneration.get();
         if (SipAddress.CONTENT_ITEM_TYPE.equals(mimeType)
                 && !PhoneCapabilityTester.isSipPhone(mContext)) {
             intent = null;
         }
 
-        if (intent != null) {
+        if (intent == null) {
+            entry = new Entry(null, null, Collections.<String>emptySet());
+        } else {
             final List<ResolveInfo> matches = mPackageManager.queryIntentActivities(intent,
                     PackageManager.MATCH_DEFAULT_ONLY);
 
@@ -144,18 +207,55 @@ public class ResolveCache {
                 bestResolve = getBestResolve(intent, matches);
             }
 
-            if (bestResolve != null) {
-                final Drawable icon = bestResolve.loadIcon(mPackageManager);
-
-                entry.bestResolve = bestResolve;
-                entry.icon = icon;
+            final Set<String> packageNames = new HashSet<>(size);
+            for (ResolveInfo match : matches) {
+                packageNames.add(match.activityInfo.packageName);
             }
+            entry = new Entry(new Intent(intent), bestResolve, packageNames);
         }
 
-        mCache.put(mimeType, entry);
+        if (mGeneration.get() == generation) {
+            mCache.put(mimeType, entry);
+        }
         return entry;
     }
 
+    /**
+     * Drops the entries that {@code packageName} resolved. If {@code mayResolveMore}, the other
+     * entries are checked in the background and dropped if the package can resolve them now.
+     */
+    @VisibleForTesting
+    void invalidatePackage(final String packageName, boolean mayResolveMore) {
+        mGeneration.incrementAndGet();
+        final List<String> unresolvedKeys = new ArrayList<>();
+        final Map<String, Entry> snapshot = mCache.snapshot();
+        for (Map.Entry<String, Entry> cached : snapshot.entrySet()) {
+            final Entry entry = cached.getValue();
+            if (entry.packageNames.contains(packageName)) {
+                mCache.remove(cached.getKey());
+            } else if (mayResolveMore && entry.intent != null) {
+                unresolvedKeys.add(cached.getKey());
+            }
+        }
+        if (unresolvedKeys.isEmpty()) {
+            return;
+        }
+        AsyncTask.THREAD_POOL_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                for (String key : unresolvedKeys) {
+                    final Intent intent = new Intent(snapshot.get(key).intent)
+                            .setPackage(packageName);
+                    if (!mPackageManager.queryIntentActivities(intent,
+                            PackageManager.MATCH_DEFAULT_ONLY).isEmpty()) {
+                        mGeneration.incrementAndGet();
+                        mCache.remove(key);
+                    }
+                }
+            }
+        });
+    }
+
     /**
      * Best {@link ResolveInfo} when multiple found. Ties are broken by
      * selecting first from the {@link QuickContactActivity#sPreferResolve} list of
@@ -207,10 +307,75 @@ public class ResolveCache {
      * {@link PackageManager} query.
      */
     public Drawable getIcon(String mimeType, Intent intent) {
-        return getEntry(mimeType, intent).icon;
+        return getEntry(mimeType, intent).getIcon(mPackageManager);
+    }
+
+    /**
+     * Check {@link PackageManager} to see if any apps offer to handle the given {@link Intent},
+     * like {@link PhoneCapabilityTester#isIntentRegistered}, but caches the answer for intents
+     * whose answer doesn't depend on the rest of their data, like the ones for calling, texting,
+     * emailing and showing an address on a map.
+     */
+    public boolean isIntentRegistered(Intent intent) {
+        final String key = getResolveKey(intent);
+        if (key == null) {
+            return PhoneCapabilityTester.isIntentRegistered(mContext, intent);
+        }
+        return getEntry(key, intent).bestResolve != null;
+    }
+
+    /**
+     * Returns the key that the resolution of {@code intent} is cached with, or null if it depends
+     * on more than the action, scheme and type of the intent.
+     */
+    @VisibleForTesting
+    static String getResolveKey(Intent intent) {
+        if (intent.getComponent() != null || intent.getPackage() != null
+                || intent.getSelector() != null || intent.getCategories() != null
+                || !CACHEABLE_SCHEMES.contains(intent.getScheme())) {
+            return null;
+        }
+        return intent.getAction() + " " + intent.getScheme() + " " + intent.getType();
+    }
+
+    /**
+     * Resolves the intents of the common actions of quick contact entries, so that the first
+     * contact that is shown doesn't have to. Should be called on a background thread.
+     */
+    public void warmUp() {
+        final int misses = getMissCount();
+        // Phone numbers
+        isIntentRegistered(new Intent(Intent.ACTION_CALL,
+                Uri.fromParts(PhoneAccount.SCHEME_TEL, "", null)));
+        isIntentRegistered(new Intent(Intent.ACTION_SENDTO,
+                Uri.fromParts(ContactsUtils.SCHEME_SMSTO, "", null)));
+        // Email addresses
+        isIntentRegistered(new Intent(Intent.ACTION_SENDTO,
+                Uri.fromParts(ContactsUtils.SCHEME_MAILTO, "", null)));
+        // Postal addresses
+        isIntentRegistered(StructuredPostalUtils.getViewPostalAddressIntent(""));
+        if (Log.isLoggable(Constants.PERFORMANCE_TAG, Log.DEBUG)) {
+            Log.d(Constants.PERFORMANCE_TAG, "ResolveCache warmed up "
+                    + (getMissCount() - misses) + " entries");
+        }
+    }
+
+    /**
+     * Returns how often a cached entry was used.
+     */
+    public int getHitCount() {
+        return mCache.hitCount();
+    }
+
+    /**
+     * Returns how often an entry had to be resolved with {@link PackageManager}.
+     */
+    public int getMissCount() {
+        return mCache.missCount();
     }
 
     public void clear() {
-        mCache.clear();
+        mGeneration.incrementAndGet();
+        mCache.evictAll();
     }
 }
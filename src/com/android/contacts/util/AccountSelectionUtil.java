@@ -91,9 +91,21 @@ public class AccountSelectionUtil {
     public static Dialog getSelectAccountDialog(Activity activity, int resId,
             DialogInterface.OnClickListener onClickListener,
             DialogInterface.OnCancelListener onCancelListener) {
+        return getSelectAccountDialog(activity, resId,
+                AccountTypeManager.getInstance(activity).blockForWritableAccounts(),
+                onClickListener, onCancelListener);
+    }
+
+    /**
+     * Like {@link #getSelectAccountDialog(Activity, int, DialogInterface.OnClickListener,
+     * DialogInterface.OnCancelListener)} but for accounts that were already loaded, which
+     * avoids waiting for them on the main thread.
+     */
+    public static Dialog getSelectAccountDialog(Activity activity, int resId,
+            List<AccountWithDataSet> writableAccountList,
+            DialogInterface.OnClickListener onClickListener,
+            DialogInterface.OnCancelListener onCancelListener) {
         final AccountTypeManager accountTypes = AccountTypeManager.getInstance(activity);
-        final List<AccountWithDataSet> writableAccountList =
-                accountTypes.blockForWritableAccounts();
 
         Log.i(LOG_TAG, "The number of available accounts: " + writableAccountList.size());
 
@@ -61,6 +61,9 @@ public class SharedPreferenceUtil {
     public static final String PREFERENCE_WELCOME_CARD_DISMISSED =
             "welcome-reminder-card-dismissed";
 
+    /** Guards the read-modify-write of the imported and dismissed SIM sets. */
+    private static final Object sSimStatesLock = new Object();
+
     public static boolean getHamburgerPromoDisplayedBefore(Context context) {
         return getSharedPreferences(context)
                 .getBoolean(PREFERENCE_KEY_HAMBURGER_PROMO_DISPLAYED, false);
@@ -166,28 +169,30 @@ public class SharedPreferenceUtil {
     }
 
     public static void persistSimStates(Context context, Collection<SimCard> sims) {
-        final Set<String> imported = new HashSet<>(getImportedSims(context));
-        final Set<String> dismissed = new HashSet<>(getDismissedSims(context));
-        for (SimCard sim : sims) {
-            final String id = sim.getSimId();
-            if (id == null) {
-                continue;
-            }
-            if (sim.isImported()) {
-                imported.add(id);
-            } else {
-                imported.remove(id);
-            }
-            if (sim.isDismissed()) {
-                dismissed.add(id);
-            } else {
-                dismissed.remove(id);
+        synchronized (sSimStatesLock) {
+            final Set<String> imported = new HashSet<>(getImportedSims(context));
+            final Set<String> dismissed = new HashSet<>(getDismissedSims(context));
+            for (SimCard sim : sims) {
+                final String id = sim.getSimId();
+                if (id == null) {
+                    continue;
+                }
+                if (sim.isImported()) {
+                    imported.add(id);
+                } else {
+                    imported.remove(id);
+                }
+                if (sim.isDismissed()) {
+                    dismissed.add(id);
+                } else {
+                    dismissed.remove(id);
+                }
             }
+            getSharedPreferences(context).edit()
+                    .putStringSet(PREFERENCE_KEY_IMPORTED_SIM_CARDS, imported)
+                    .putStringSet(PREFERENCE_KEY_DISMISSED_SIM_CARDS, dismissed)
+                    .apply();
         }
-        getSharedPreferences(context).edit()
-                .putStringSet(PREFERENCE_KEY_IMPORTED_SIM_CARDS, imported)
-                .putStringSet(PREFERENCE_KEY_DISMISSED_SIM_CARDS, dismissed)
-                .apply();
     }
 
     public static List<SimCard> restoreSimStates(Context context, List<SimCard> sims) {
@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.contacts.util;
+
+import android.app.Activity;
+import android.os.Handler;
+import android.os.Looper;
+import android.view.View;
+import android.view.ViewTreeObserver;
+
+import com.android.contacts.Experiments;
+import com.android.contactsbind.experiments.Flags;
+
+/**
+ * Decides which initialization runs before the first frame of the app is drawn.
+ *
+ * <p>In the deferred startup mode work that isn't needed to show the first screen is run
+ * with {@link #runAfterFirstFrame(Activity, Runnable)} instead of during
+ * {@link android.app.Application#onCreate()} and {@link Activity#onCreate}.</p>
+ */
+public final class StartupMode {
+
+    private StartupMode() {}
+
+    /**
+     * Whether non-critical initializers should wait for the first frame.
+     */
+    public static boolean isDeferredInitEnabled() {
+        return Flags.getInstance().getBoolean(Experiments.STARTUP_DEFERRED_INIT_ENABLED);
+    }
+
+    /**
+     * Runs {@code task} on the main thread once {@code activity} has drawn its first frame, or
+     * right away in the default startup mode.
+     */
+    public static void runAfterFirstFrameIfDeferred(Activity activity, Runnable task) {
+        if (isDeferredInitEnabled()) {
+            runAfterFirstFrame(activity, task);
+        } else {
+            task.run();
+        }
+    }
+
+    /**
+     * Runs {@code task} on the main thread once {@code activity} has drawn its first frame.
+     * Must be called after the content view of the activity was set.
+     */
+    public static void runAfterFirstFrame(Activity activity, final Runnable task) {
+        final View decorView = activity.getWindow().getDecorView();
+        final Handler handler = new Handler(Looper.getMainLooper());
+        decorView.getViewTreeObserver().addOnDrawListener(new ViewTreeObserver.OnDrawListener() {
+            private boolean mDrawn;
+
+            @Override
+            public void onDraw() {
+                if (mDrawn) {
+                    return;
+                }
+                mDrawn = true;
+                final ViewTreeObserver.OnDrawListener listener = this;
+                // Posting runs the task once the frame was handed off for rendering. The
+                // listener can't be removed while the draw is being dispatched.
+                handler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        decorView.getViewTreeObserver().removeOnDrawListener(listener);
+                        task.run();
+                    }
+                });
+            }
+        });
+    }
+}
@@ -0,0 +1,239 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.contacts.util;
+
+import android.content.Context;
+import android.os.Looper;
+import android.os.Process;
+import android.os.Trace;
+import android.util.AtomicFile;
+import android.util.Log;
+import androidx.annotation.VisibleForTesting;
+
+import com.android.contacts.util.concurrent.ContactsExecutors;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link StopWatch} for the cold start of the app that also records named spans, possibly on
+ * different threads, from process start until the first frame is drawn.
+ *
+ * <p>Spans are also emitted as {@link Trace} sections. When the first frame has been drawn the
+ * laps are logged like any {@link StopWatch} and all spans are written to
+ * {@value #TRACE_FILE_NAME} in the cache directory in the Chrome trace event format, which can
+ * be opened with chrome://tracing or Perfetto.</p>
+ *
+ * <p>Tracing is only enabled when {@link Constants#PERFORMANCE_TAG} is loggable at DEBUG when
+ * the process starts. Otherwise {@link #getInstance()} returns a tracer that does nothing.</p>
+ */
+public class StartupTracer extends StopWatch {
+    private static final String TAG = Constants.PERFORMANCE_TAG;
+
+    @VisibleForTesting
+    static final String TRACE_FILE_NAME = "startup_trace.json";
+
+    /**
+     * A timed section of the startup. Must be ended on the thread that began it.
+     */
+    public static class Span {
+        private final StartupTracer mTracer;
+        private final String mName;
+        private final long mThreadId;
+        private final String mThreadName;
+        private final long mStartNanos;
+        private long mEndNanos = -1;
+
+        Span(StartupTracer tracer, String name) {
+            mTracer = tracer;
+            mName = name;
+            final Thread thread = Thread.currentThread();
+            mThreadId = thread.getId();
+            mThreadName = thread.getName();
+            mStartNanos = System.nanoTime();
+        }
+
+        public void end() {
+            if (mEndNanos >= 0) {
+                return;
+            }
+            mEndNanos = System.nanoTime();
+            Trace.endSection();
+            mTracer.add(this);
+        }
+    }
+
+    private static final Span NULL_SPAN = new Span(null, null) {
+        @Override
+        public void end() {
+        }
+    };
+
+    private static StartupTracer sInstance;
+
+    private final long mOriginNanos;
+    private final List<Span> mSpans = new ArrayList<>();
+    private boolean mFinished;
+
+    /**
+     * Returns the tracer for this process.
+     */
+    public static synchronized StartupTracer getInstance() {
+        if (sInstance == null) {
+            sInstance = Log.isLoggable(TAG, Log.DEBUG)
+                    ? new StartupTracer("Startup", TimeUnit.MILLISECONDS.toNanos(
+                            Process.getStartUptimeMillis()))
+                    : new NullStartupTracer();
+        }
+        return sInstance;
+    }
+
+    /**
+     * @param originNanos when the traced process started, on the {@link System#nanoTime()} clock
+     */
+    @VisibleForTesting
+    StartupTracer(String label, long originNanos) {
+        super(label);
+        mOriginNanos = originNanos;
+    }
+
+    /**
+     * Starts a span named {@code name} on the current thread. Nothing is recorded once the first
+     * frame has been drawn.
+     */
+    public Span beginSpan(String name) {
+        synchronized (this) {
+            if (mFinished) {
+                return NULL_SPAN;
+            }
+        }
+        Trace.beginSection(name);
+        return new Span(this, name);
+    }
+
+    public boolean isEnabled() {
+        return true;
+    }
+
+    /**
+     * Ends the trace after the first frame was drawn: logs the laps and writes the spans to
+     * {@value #TRACE_FILE_NAME} in the background. Only the first call has an effect.
+     */
+    public void finish(final Context context) {
+        final JSONObject trace;
+        synchronized (this) {
+            if (mFinished) {
+                return;
+            }
+            mFinished = true;
+            trace = toTraceEvents();
+        }
+        lap("firstFrame");
+        stopAndLog(TAG, 0);
+        ContactsExecutors.getDefaultThreadPoolExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                writeTrace(new File(context.getCacheDir(), TRACE_FILE_NAME), trace);
+            }
+        });
+    }
+
+    private synchronized void add(Span span) {
+        if (!mFinished) {
+            mSpans.add(span);
+        }
+        if (Log.isLoggable(TAG, Log.VERBOSE)) {
+            Log.v(TAG, span.mName + " took "
+                    + TimeUnit.NANOSECONDS.toMillis(span.mEndNanos - span.mStartNanos) + "ms"
+                    + (Looper.myLooper() == Looper.getMainLooper() ? " on the main thread" : ""));
+        }
+    }
+
+    @VisibleForTesting
+    synchronized JSONObject toTraceEvents() {
+        final JSONArray events = new JSONArray();
+        try {
+            final int pid = Process.myPid();
+            for (Span span : mSpans) {
+                final JSONObject event = new JSONObject();
+                event.put("name", span.mName);
+                event.put("ph", "X");
+                event.put("pid", pid);
+                event.put("tid", span.mThreadId);
+                event.put("ts", TimeUnit.NANOSECONDS.toMicros(span.mStartNanos - mOriginNanos));
+                event.put("dur", TimeUnit.NANOSECONDS.toMicros(span.mEndNanos - span.mStartNanos));
+                event.put("args", new JSONObject().put("thread", span.mThreadName));
+                events.put(event);
+            }
+            return new JSONObject().put("traceEvents", events).put("displayTimeUnit", "ms");
+        } catch (JSONException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void writeTrace(File file, JSONObject trace) {
+        final AtomicFile atomicFile = new AtomicFile(file);
+        FileOutputStream out = null;
+        try {
+            out = atomicFile.startWrite();
+            out.write(trace.toString().getBytes(StandardCharsets.UTF_8));
+            atomicFile.finishWrite(out);
+            Log.d(TAG, "Wrote startup trace to " + file);
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to write startup trace", e);
+            if (out != null) {
+                atomicFile.failWrite(out);
+            }
+        }
+    }
+
+    private static class NullStartupTracer extends StartupTracer {
+        NullStartupTracer() {
+            super(null, 0);
+        }
+
+        @Override
+        public Span beginSpan(String name) {
+            return NULL_SPAN;
+        }
+
+        @Override
+        public boolean isEnabled() {
+            return false;
+        }
+
+        @Override
+        public void finish(Context context) {
+        }
+
+        @Override
+        public void lap(String lapLabel) {
+        }
+
+        @Override
+        public void stopAndLog(String TAG, int timeThresholdToLog) {
+        }
+    }
+}
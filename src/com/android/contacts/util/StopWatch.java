@@ -32,7 +32,7 @@ public class StopWatch {
     private final ArrayList<Long> mTimes = Lists.newArrayList();
     private final ArrayList<String> mLapLabels = Lists.newArrayList();
 
-    private StopWatch(String label) {
+    protected StopWatch(String label) {
         mLabel = label;
         lap("");
     }
@@ -18,6 +18,7 @@ package com.android.contacts.util;
 import android.accounts.Account;
 import android.content.ContentResolver;
 import android.content.Context;
+import android.content.SyncInfo;
 import android.net.ConnectivityManager;
 import android.net.NetworkInfo;
 import android.provider.ContactsContract;
@@ -62,6 +63,18 @@ public final class SyncUtil {
         return false;
     }
 
+    /**
+     * Returns true if contacts are being synced for any account.
+     */
+    public static final boolean isAnyContactsSyncActive() {
+        for (SyncInfo sync : ContentResolver.getCurrentSyncs()) {
+            if (ContactsContract.AUTHORITY.equals(sync.authority)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Returns true if the given Google account is not syncable.
      */
@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.contacts.util.concurrent;
+
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+import androidx.annotation.VisibleForTesting;
+
+import com.android.contacts.Experiments;
+import com.android.contactsbind.experiments.Flags;
+import com.google.common.util.concurrent.Futures;
+
+import java.util.concurrent.Future;
+
+/**
+ * Reports main thread waits on futures that haven't completed yet, in the spirit of
+ * {@link android.os.StrictMode}.
+ *
+ * <p>Use {@link #getUnchecked(Future, String)} in place of {@link Futures#getUnchecked(Future)}
+ * in code that may still be reached from the UI. By default each violation is logged with the
+ * stack of the caller and how long the main thread was blocked. When the
+ * {@link Experiments#MAIN_THREAD_BLOCKING_PENALTY_DEATH} flag is set the call throws a
+ * {@link Violation} instead of blocking.</p>
+ */
+public final class MainThreadBlockingDetector {
+    private static final String TAG = "MainThreadBlocking";
+
+    /**
+     * Receives the violations that are detected.
+     */
+    public interface Listener {
+        void onViolation(Violation violation);
+    }
+
+    /**
+     * A main thread wait on an incomplete future. The stack trace points at the caller.
+     */
+    public static final class Violation extends IllegalStateException {
+        private final String mCall;
+        private final long mBlockedMillis;
+
+        Violation(String call, long blockedMillis) {
+            super(call + " blocked the main thread"
+                    + (blockedMillis >= 0 ? " for " + blockedMillis + "ms" : ""));
+            mCall = call;
+            mBlockedMillis = blockedMillis;
+        }
+
+        public String getCall() {
+            return mCall;
+        }
+
+        /**
+         * How long the main thread waited, or -1 if the call was rejected without waiting.
+         */
+        public long getBlockedMillis() {
+            return mBlockedMillis;
+        }
+    }
+
+    private static volatile Listener sListener;
+
+    private MainThreadBlockingDetector() {}
+
+    /**
+     * Returns the result of {@code future} like {@link Futures#getUnchecked(Future)} and reports a
+     * violation if this has to wait for it on the main thread.
+     *
+     * @param call the API that was called, used in the report
+     */
+    public static <V> V getUnchecked(Future<V> future, String call) {
+        if (future.isDone() || Looper.myLooper() != Looper.getMainLooper()) {
+            return Futures.getUnchecked(future);
+        }
+        if (Flags.getInstance().getBoolean(Experiments.MAIN_THREAD_BLOCKING_PENALTY_DEATH)) {
+            throw report(new Violation(call, -1));
+        }
+        final long start = SystemClock.elapsedRealtime();
+        try {
+            return Futures.getUnchecked(future);
+        } finally {
+            report(new Violation(call, SystemClock.elapsedRealtime() - start));
+        }
+    }
+
+    @VisibleForTesting
+    public static void setListenerForTest(Listener listener) {
+        sListener = listener;
+    }
+
+    private static Violation report(Violation violation) {
+        Log.w(TAG, violation.getMessage(), violation);
+        final Listener listener = sListener;
+        if (listener != null) {
+            listener.onViolation(violation);
+        }
+        return violation;
+    }
+}
@@ -38,8 +38,10 @@ import android.widget.Toast;
 import com.android.contacts.R;
 import com.android.contacts.activities.RequestPermissionsActivity;
 import com.android.contacts.model.AccountTypeManager;
+import com.android.contacts.model.AccountsSnapshot;
 import com.android.contacts.model.account.AccountWithDataSet;
 import com.android.contacts.util.ImplicitIntentsUtil;
+import com.android.contacts.util.concurrent.ContactsExecutors;
 import com.android.contactsbind.FeedbackHelper;
 import com.android.vcard.VCardEntry;
 import com.android.vcard.VCardEntryCounter;
@@ -50,6 +52,8 @@ import com.android.vcard.VCardSourceDetector;
 import com.android.vcard.exception.VCardException;
 import com.android.vcard.exception.VCardNestedException;
 import com.android.vcard.exception.VCardVersionException;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
@@ -193,8 +197,24 @@ public class NfcImportVCardActivity extends Activity implements ServiceConnectio
                 NfcAdapter.EXTRA_NDEF_MESSAGES)[0];
         mRecord = msg.getRecords()[0];
 
-        final AccountTypeManager accountTypes = AccountTypeManager.getInstance(this);
-        final List<AccountWithDataSet> accountList = accountTypes.blockForWritableAccounts();
+        Futures.addCallback(AccountTypeManager.getInstance(this).getAccountsSnapshotAsync(),
+                new FutureCallback<AccountsSnapshot>() {
+                    @Override
+                    public void onSuccess(AccountsSnapshot accounts) {
+                        if (!isFinishing() && !isDestroyed()) {
+                            onAccountsLoaded(accounts.getWritableAccounts());
+                        }
+                    }
+
+                    @Override
+                    public void onFailure(Throwable t) {
+                        Log.e(TAG, "Failed to load accounts", t);
+                        finish();
+                    }
+                }, ContactsExecutors.newUiThreadExecutor());
+    }
+
+    private void onAccountsLoaded(List<AccountWithDataSet> accountList) {
         if (accountList.size() == 0) {
             mAccount = null;
         } else if (accountList.size() == 1) {
@@ -24,8 +24,12 @@ import android.util.Log;
 
 import com.android.contacts.R;
 import com.android.contacts.model.AccountTypeManager;
+import com.android.contacts.model.AccountsSnapshot;
 import com.android.contacts.model.account.AccountWithDataSet;
 import com.android.contacts.util.AccountSelectionUtil;
+import com.android.contacts.util.concurrent.ContactsExecutors;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
 
 import java.util.List;
 
@@ -47,6 +51,7 @@ public class SelectAccountActivity extends Activity {
     }
 
     private AccountSelectionUtil.AccountSelectedListener mAccountSelectionListener;
+    private List<AccountWithDataSet> mAccountList;
 
     @Override
     protected void onCreate(Bundle bundle) {
@@ -55,13 +60,35 @@ public class SelectAccountActivity extends Activity {
         getWindow().addSystemFlags(android.view.WindowManager.LayoutParams
             .SYSTEM_FLAG_HIDE_NON_SYSTEM_OVERLAY_WINDOWS);
 
+        final AccountTypeManager accountTypes = AccountTypeManager.getInstance(this);
+        final AccountsSnapshot lastKnownAccounts = accountTypes.getLastKnownAccounts();
+        if (lastKnownAccounts.isLoaded()) {
+            onAccountsLoaded(lastKnownAccounts.getWritableAccounts());
+            return;
+        }
+        Futures.addCallback(accountTypes.getAccountsSnapshotAsync(),
+                new FutureCallback<AccountsSnapshot>() {
+                    @Override
+                    public void onSuccess(AccountsSnapshot accounts) {
+                        if (!isFinishing() && !isDestroyed()) {
+                            onAccountsLoaded(accounts.getWritableAccounts());
+                        }
+                    }
+
+                    @Override
+                    public void onFailure(Throwable t) {
+                        Log.e(LOG_TAG, "Failed to load accounts", t);
+                        finish();
+                    }
+                }, ContactsExecutors.newUiThreadExecutor());
+    }
+
+    private void onAccountsLoaded(List<AccountWithDataSet> accountList) {
         // There's three possibilities:
         // - more than one accounts -> ask the user
         // - just one account -> use the account without asking the user
         // - no account -> use phone-local storage without asking the user
         final int resId = R.string.import_from_vcf_file;
-        final AccountTypeManager accountTypes = AccountTypeManager.getInstance(this);
-        final List<AccountWithDataSet> accountList = accountTypes.blockForWritableAccounts();
         if (accountList.size() == 0) {
             Log.w(LOG_TAG, "Account does not exist");
             finish();
@@ -80,6 +107,7 @@ public class SelectAccountActivity extends Activity {
         Log.i(LOG_TAG, "The number of available accounts: " + accountList.size());
 
         // Multiple accounts. Let users to select one.
+        mAccountList = accountList;
         mAccountSelectionListener =
                 new AccountSelectionUtil.AccountSelectedListener(
                         this, accountList, resId) {
@@ -103,10 +131,11 @@ public class SelectAccountActivity extends Activity {
     protected Dialog onCreateDialog(int resId, Bundle bundle) {
         if (resId == R.string.import_from_vcf_file) {
             if (mAccountSelectionListener == null) {
-                throw new NullPointerException(
-                        "mAccountSelectionListener must not be null.");
+                // The accounts are still loading, e.g. while restoring the dialog. It is shown
+                // again once they are loaded.
+                return null;
             }
-            return AccountSelectionUtil.getSelectAccountDialog(this, resId,
+            return AccountSelectionUtil.getSelectAccountDialog(this, resId, mAccountList,
                     mAccountSelectionListener,
                     new CancelListener());
         }
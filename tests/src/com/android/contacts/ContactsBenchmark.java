@@ -0,0 +1,481 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.contacts;
+
+import android.app.Activity;
+import android.app.SearchManager;
+import android.content.ComponentName;
+import android.content.Intent;
+import android.net.Uri;
+import android.os.Build;
+import android.os.Bundle;
+import android.os.Process;
+import android.os.SystemClock;
+import android.provider.ContactsContract.QuickContact;
+import android.util.Log;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.EditText;
+import android.widget.ListView;
+
+import com.android.contacts.activities.ContactEditorActivity;
+import com.android.contacts.activities.PeopleActivity;
+import com.android.contacts.list.ContactEntryListAdapter;
+import com.android.contacts.list.ContactEntryListFragment;
+import com.android.contacts.quickcontact.QuickContactActivity;
+import com.android.contacts.test.LaunchPerformanceBase;
+import com.android.contacts.tests.SyntheticAddressBook;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Instrumentation that benchmarks the main user journeys against a synthetic address book.
+ *
+ * <p>Each run measures one address book size. Seed the contacts in a separate run so that the
+ * measuring process starts cold:</p>
+ * <pre>
+ * adb shell am instrument -w -e phase seed -e contacts 10000 \
+ *   com.android.contacts.tests/com.android.contacts.ContactsBenchmark
+ * adb shell am instrument -w -r -e contacts 10000 \
+ *   com.android.contacts.tests/com.android.contacts.ContactsBenchmark
+ * adb shell am instrument -w -e phase clear \
+ *   com.android.contacts.tests/com.android.contacts.ContactsBenchmark
+ * </pre>
+ *
+ * <p>The app must have been granted the contacts permissions. Supported arguments are
+ * {@code contacts} (default 1000, usually 1000, 10000 or 50000), {@code iterations} (default
+ * 5), {@code phase} ({@code seed}, {@code measure} or {@code clear}, default {@code measure})
+ * and {@code output}, the path of the JSON results file, which defaults to
+ * {@code benchmarks/contacts_<count>.json} in the external files directory of the app.</p>
+ *
+ * <p>Every metric is reported as milliseconds in the instrumentation results, as
+ * {@code <metric>_median}, {@code <metric>_p90}, {@code <metric>_min} and {@code <metric>_max},
+ * and with all of its samples in the JSON file. "Ready" is decided by polling the main thread
+ * every {@value #POLL_INTERVAL_MILLIS}ms, which bounds the resolution of the measurements.</p>
+ */
+public class ContactsBenchmark extends LaunchPerformanceBase {
+    private static final String TAG = "ContactsBenchmark";
+
+    private static final String ARG_CONTACTS = "contacts";
+    private static final String ARG_ITERATIONS = "iterations";
+    private static final String ARG_PHASE = "phase";
+    private static final String ARG_OUTPUT = "output";
+
+    private static final String PHASE_SEED = "seed";
+    private static final String PHASE_MEASURE = "measure";
+    private static final String PHASE_CLEAR = "clear";
+
+    // Must match the tag that PeopleActivity adds its list fragment with.
+    private static final String TAG_LIST_FRAGMENT = "contacts-all";
+
+    private static final long POLL_INTERVAL_MILLIS = 5;
+    private static final long TIMEOUT_MILLIS = 60 * 1000;
+
+    private interface Condition {
+        /** Called on the main thread. */
+        boolean isMet();
+    }
+
+    private final Map<String, List<Long>> mMetrics = new LinkedHashMap<>();
+    private SyntheticAddressBook mAddressBook;
+    private int mContactCount;
+    private int mIterations;
+    private String mPhase;
+    private String mOutputPath;
+    private long mLastReadyUptime;
+
+    @Override
+    public void onCreate(Bundle arguments) {
+        mContactCount = Integer.parseInt(getArgument(arguments, ARG_CONTACTS, "1000"));
+        mIterations = Integer.parseInt(getArgument(arguments, ARG_ITERATIONS, "5"));
+        mPhase = getArgument(arguments, ARG_PHASE, PHASE_MEASURE);
+        mOutputPath = getArgument(arguments, ARG_OUTPUT, null);
+
+        mIntent.setAction(Intent.ACTION_MAIN);
+        mIntent.addCategory(Intent.CATEGORY_LAUNCHER);
+        mIntent.setComponent(new ComponentName(getTargetContext(), PeopleActivity.class));
+
+        start();
+    }
+
+    @Override
+    public void onStart() {
+        super.onStart();
+        // Let the application finish onCreate before anything is timed.
+        waitForIdleSync();
+        mAddressBook = new SyntheticAddressBook(getTargetContext());
+        try {
+            if (PHASE_SEED.equals(mPhase)) {
+                mAddressBook.seed(mContactCount);
+            } else if (PHASE_CLEAR.equals(mPhase)) {
+                mAddressBook.clear();
+            } else {
+                if (mAddressBook.getSeededCount() != mContactCount) {
+                    Log.w(TAG, "Seeding in the measured process, the launch won't be cold");
+                    mAddressBook.seed(mContactCount);
+                }
+                measure();
+                writeResults();
+            }
+            finish(Activity.RESULT_OK, mResults);
+        } catch (Exception e) {
+            Log.e(TAG, "Benchmark failed", e);
+            mResults.putString("error", e.toString());
+            finish(Activity.RESULT_CANCELED, mResults);
+        }
+    }
+
+    private void measure() throws Exception {
+        // The first launch in this process is the cold one.
+        final long processStart = getProcessStartUptimeMillis();
+        Activity activity = launchToFirstListFrame("cold_launch");
+        if (processStart > 0) {
+            record("process_start_to_first_list_frame",
+                    mLastReadyUptime - processStart);
+        }
+        measureFullScroll(activity);
+        finishAndWait(activity);
+
+        for (int i = 0; i < mIterations; i++) {
+            activity = launchToFirstListFrame("warm_launch");
+            finishAndWait(activity);
+        }
+
+        measureSearch();
+
+        for (int i = 0; i < mIterations; i++) {
+            final Uri lookupUri = mAddressBook.getContactLookupUri(
+                    (i + 1) * mContactCount / (mIterations + 1));
+            measureQuickContact(lookupUri);
+            measureEditorSave(lookupUri);
+        }
+    }
+
+    private Activity launchToFirstListFrame(String metric) {
+        final long start = SystemClock.uptimeMillis();
+        final Activity activity = startActivity(new Intent(mIntent), PeopleActivity.class);
+        mLastReadyUptime = waitFor(metric, new Condition() {
+            @Override
+            public boolean isMet() {
+                final ListView list = getListView(activity);
+                return list != null && list.isShown() && list.getChildCount() > 0;
+            }
+        });
+        record(metric, mLastReadyUptime - start);
+        return activity;
+    }
+
+    private void measureFullScroll(final Activity activity) {
+        final ListView list = getListView(activity);
+        final boolean[] atEnd = new boolean[1];
+        final long start = SystemClock.uptimeMillis();
+        while (!atEnd[0]) {
+            runOnMainSync(new Runnable() {
+                @Override
+                public void run() {
+                    list.scrollListBy(list.getHeight());
+                    atEnd[0] = list.getLastVisiblePosition() >= list.getCount() - 1;
+                }
+            });
+            waitForIdleSync();
+            if (SystemClock.uptimeMillis() - start > TIMEOUT_MILLIS) {
+                throw new IllegalStateException("Timed out scrolling the list");
+            }
+        }
+        record("full_scroll", SystemClock.uptimeMillis() - start);
+    }
+
+    /**
+     * Types the given name of a seeded contact into the search box one key at a time and times
+     * how long each key takes to show its results.
+     */
+    private void measureSearch() {
+        final Intent intent = new Intent(Intent.ACTION_SEARCH);
+        intent.setComponent(mIntent.getComponent());
+        intent.putExtra(SearchManager.QUERY, "");
+        final Activity activity = startActivity(intent, PeopleActivity.class);
+        final EditText searchView = (EditText) waitForView(activity, R.id.search_view);
+
+        // The editor benchmark never edits the first contact.
+        final String name = SyntheticAddressBook.getGivenName(0);
+        for (int i = 1; i <= name.length(); i++) {
+            final String query = name.substring(0, i);
+            final Object[] cursorBefore = new Object[1];
+            final long[] start = new long[1];
+            runOnMainSync(new Runnable() {
+                @Override
+                public void run() {
+                    cursorBefore[0] = getListAdapter(activity).getCursor(0);
+                    start[0] = SystemClock.uptimeMillis();
+                    searchView.setText(query);
+                }
+            });
+            final long ready = waitFor("search \"" + query + "\"", new Condition() {
+                @Override
+                public boolean isMet() {
+                    final ContactEntryListAdapter adapter = getListAdapter(activity);
+                    return query.equals(adapter.getQueryString())
+                            && adapter.getCursor(0) != null
+                            && adapter.getCursor(0) != cursorBefore[0];
+                }
+            });
+            record("search_keystroke", ready - start[0]);
+        }
+        finishAndWait(activity);
+    }
+
+    private void measureQuickContact(Uri lookupUri) {
+        final Intent intent = new Intent(QuickContact.ACTION_QUICK_CONTACT, lookupUri);
+        intent.setComponent(new ComponentName(getTargetContext(), QuickContactActivity.class));
+        intent.putExtra(QuickContact.EXTRA_MODE, QuickContact.MODE_LARGE);
+        final long start = SystemClock.uptimeMillis();
+        final Activity activity = startActivity(intent, QuickContactActivity.class);
+        final long ready = waitFor("quick contact", new Condition() {
+            @Override
+            public boolean isMet() {
+                final View card = activity.findViewById(R.id.communication_card);
+                return card != null && card.isShown() && card.getHeight() > 0;
+            }
+        });
+        record("quick_contact_open", ready - start);
+        finishAndWait(activity);
+    }
+
+    private void measureEditorSave(Uri lookupUri) {
+        final Intent intent = new Intent(Intent.ACTION_EDIT, lookupUri);
+        intent.setComponent(new ComponentName(getTargetContext(), ContactEditorActivity.class));
+        intent.putExtra(
+                ContactEditorActivity.INTENT_KEY_FINISH_ACTIVITY_ON_SAVE_COMPLETED, true);
+        final Activity activity = startActivity(intent, ContactEditorActivity.class);
+        final EditText[] field = new EditText[1];
+        waitFor("editor", new Condition() {
+            @Override
+            public boolean isMet() {
+                field[0] = findFilledEditText(activity.getWindow().getDecorView());
+                return field[0] != null;
+            }
+        });
+        runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                // Toggle the edit so repeated runs don't keep growing the same field.
+                final String text = field[0].getText().toString();
+                field[0].setText(text.endsWith("x")
+                        ? text.substring(0, text.length() - 1) : text + "x");
+            }
+        });
+        final long start = SystemClock.uptimeMillis();
+        if (!invokeMenuActionSync(activity, R.id.menu_save, 0)) {
+            throw new IllegalStateException("The editor didn't accept the save");
+        }
+        final long ready = waitFor("editor save", new Condition() {
+            @Override
+            public boolean isMet() {
+                return activity.isDestroyed();
+            }
+        });
+        record("editor_save", ready - start);
+    }
+
+    private Activity startActivity(Intent intent, Class<? extends Activity> activityClass) {
+        final ActivityMonitor monitor = addMonitor(activityClass.getName(), null, false);
+        try {
+            intent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
+            getTargetContext().startActivity(intent);
+            final Activity activity = monitor.waitForActivityWithTimeout(TIMEOUT_MILLIS);
+            if (activity == null) {
+                throw new IllegalStateException("Timed out launching " + activityClass);
+            }
+            return activity;
+        } finally {
+            removeMonitor(monitor);
+        }
+    }
+
+    private void finishAndWait(final Activity activity) {
+        runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                activity.finish();
+            }
+        });
+        waitFor("finish", new Condition() {
+            @Override
+            public boolean isMet() {
+                return activity.isDestroyed();
+            }
+        });
+        waitForIdleSync();
+    }
+
+    private View waitForView(final Activity activity, final int id) {
+        final View[] view = new View[1];
+        waitFor("view", new Condition() {
+            @Override
+            public boolean isMet() {
+                view[0] = activity.findViewById(id);
+                return view[0] != null && view[0].isShown();
+            }
+        });
+        return view[0];
+    }
+
+    /**
+     * Returns the uptime at which {@code condition} was first seen to be met.
+     */
+    private long waitFor(String what, final Condition condition) {
+        final long deadline = SystemClock.uptimeMillis() + TIMEOUT_MILLIS;
+        final long[] metAt = new long[1];
+        while (true) {
+            runOnMainSync(new Runnable() {
+                @Override
+                public void run() {
+                    if (condition.isMet()) {
+                        metAt[0] = SystemClock.uptimeMillis();
+                    }
+                }
+            });
+            if (metAt[0] != 0) {
+                return metAt[0];
+            }
+            if (SystemClock.uptimeMillis() > deadline) {
+                throw new IllegalStateException("Timed out waiting for " + what);
+            }
+            SystemClock.sleep(POLL_INTERVAL_MILLIS);
+        }
+    }
+
+    private void record(String metric, long millis) {
+        List<Long> samples = mMetrics.get(metric);
+        if (samples == null) {
+            samples = new ArrayList<>();
+            mMetrics.put(metric, samples);
+        }
+        samples.add(millis);
+        Log.i(TAG, metric + ": " + millis + "ms");
+    }
+
+    private void writeResults() throws JSONException, IOException {
+        final JSONObject metrics = new JSONObject();
+        for (Map.Entry<String, List<Long>> entry : mMetrics.entrySet()) {
+            final List<Long> sorted = new ArrayList<>(entry.getValue());
+            Collections.sort(sorted);
+            final long median = percentile(sorted, 50);
+            final long p90 = percentile(sorted, 90);
+            final long min = sorted.get(0);
+            final long max = sorted.get(sorted.size() - 1);
+
+            final String metric = entry.getKey();
+            mResults.putLong(metric + "_median", median);
+            mResults.putLong(metric + "_p90", p90);
+            mResults.putLong(metric + "_min", min);
+            mResults.putLong(metric + "_max", max);
+
+            metrics.put(metric, new JSONObject()
+                    .put("samples", new JSONArray(entry.getValue()))
+                    .put("median", median)
+                    .put("p90", p90)
+                    .put("min", min)
+                    .put("max", max));
+        }
+        final JSONObject results = new JSONObject()
+                .put("fingerprint", Build.FINGERPRINT)
+                .put("contacts", mContactCount)
+                .put("iterations", mIterations)
+                .put("unit", "ms")
+                .put("metrics", metrics);
+
+        final File file = getOutputFile();
+        file.getParentFile().mkdirs();
+        final FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(results.toString(2).getBytes(StandardCharsets.UTF_8));
+        } finally {
+            out.close();
+        }
+        mResults.putString("output", file.getAbsolutePath());
+        Log.i(TAG, "Wrote results to " + file);
+    }
+
+    private File getOutputFile() {
+        if (mOutputPath != null) {
+            return new File(mOutputPath);
+        }
+        File dir = getTargetContext().getExternalFilesDir("benchmarks");
+        if (dir == null) {
+            dir = new File(getTargetContext().getFilesDir(), "benchmarks");
+        }
+        return new File(dir, "contacts_" + mContactCount + ".json");
+    }
+
+    private static long percentile(List<Long> sorted, int percentile) {
+        final int index = (int) Math.ceil(percentile / 100.0 * sorted.size()) - 1;
+        return sorted.get(Math.max(0, index));
+    }
+
+    private static long getProcessStartUptimeMillis() {
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.N
+                ? Process.getStartUptimeMillis() : 0;
+    }
+
+    private static ContactEntryListFragment<?> getListFragment(Activity activity) {
+        return (ContactEntryListFragment<?>)
+                activity.getFragmentManager().findFragmentByTag(TAG_LIST_FRAGMENT);
+    }
+
+    private static ListView getListView(Activity activity) {
+        final ContactEntryListFragment<?> fragment = getListFragment(activity);
+        return fragment == null ? null : fragment.getListView();
+    }
+
+    private static ContactEntryListAdapter getListAdapter(Activity activity) {
+        return getListFragment(activity).getAdapter();
+    }
+
+    private static EditText findFilledEditText(View view) {
+        if (view instanceof EditText) {
+            final EditText editText = (EditText) view;
+            return editText.isShown() && editText.length() > 0 ? editText : null;
+        }
+        if (view instanceof ViewGroup) {
+            final ViewGroup group = (ViewGroup) view;
+            for (int i = 0; i < group.getChildCount(); i++) {
+                final EditText editText = findFilledEditText(group.getChildAt(i));
+                if (editText != null) {
+                    return editText;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static String getArgument(Bundle arguments, String key, String defaultValue) {
+        final String value = arguments == null ? null : arguments.getString(key);
+        return value == null ? defaultValue : value;
+    }
+}
@@ -17,13 +17,16 @@ package com.android.contacts;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
+import static org.mockito.Matchers.anyListOf;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import android.annotation.TargetApi;
+import android.app.job.JobInfo;
 import android.app.job.JobScheduler;
 import android.content.ContentProvider;
 import android.content.ContentResolver;
@@ -84,8 +87,8 @@ public class DynamicShortcutsTests extends AndroidTestCase {
         final DynamicShortcuts sut = createDynamicShortcuts();
 
         final Cursor row = queryResult(
-                // ID, LOOKUP_KEY, DISPLAY_NAME_PRIMARY
-                1l, "lookup_key", "John Smith"
+                // ID, LOOKUP_KEY, DISPLAY_NAME_PRIMARY, PHOTO_ID, PHOTO_FILE_ID
+                1l, "lookup_key", "John Smith", 0l, 0l
         );
 
         row.moveToFirst();
@@ -143,9 +146,10 @@ public class DynamicShortcutsTests extends AndroidTestCase {
                 ));
 
         final DynamicShortcuts sut = createDynamicShortcuts(resolverWithExpectedQueries(
-                queryForSingleRow(Contacts.getLookupUri(1l, "key1"), 11l, "key1", "New Name1"),
-                queryForSingleRow(Contacts.getLookupUri(2l, "key2"), 2l, "key2", "name2"),
-                queryForSingleRow(Contacts.getLookupUri(3l, "key3"), 33l, "key3", "name3")
+                queryFor(Contacts.CONTENT_URI,
+                        11l, "key1", "New Name1", 0l, 0l,
+                        2l, "key2", "name2", 0l, 0l,
+                        33l, "key3", "name3", 0l, 0l)
         ), mockShortcutManager);
 
         sut.updatePinned();
@@ -153,8 +157,8 @@ public class DynamicShortcutsTests extends AndroidTestCase {
         final ArgumentCaptor<List<ShortcutInfo>> updateArgs =
                 ArgumentCaptor.forClass((Class) List.class);
 
-        verify(mockShortcutManager).disableShortcuts(
-                eq(Collections.<String>emptyList()), anyString());
+        verify(mockShortcutManager, never()).disableShortcuts(
+                anyListOf(String.class), anyString());
         verify(mockShortcutManager).updateShortcuts(updateArgs.capture());
 
         final List<ShortcutInfo> arg = updateArgs.getValue();
@@ -167,15 +171,65 @@ public class DynamicShortcutsTests extends AndroidTestCase {
                 isShortcutForContact(33l, "key3", "name3"));
     }
 
+    public void test_updatePinned_onlyUpdatesShortcutsWhosePhotoOrNameChanged() throws Exception {
+        // The first update records the photo and name that the icon was created from
+        ShortcutManager mockShortcutManager = mock(ShortcutManager.class);
+        when(mockShortcutManager.getPinnedShortcuts()).thenReturn(Arrays.asList(
+                shortcutFor(1l, "key1", "name1"), shortcutFor(2l, "key2", "name2")));
+        createDynamicShortcuts(resolverWithExpectedQueries(queryFor(Contacts.CONTENT_URI,
+                1l, "key1", "name1", 10l, 100l,
+                2l, "key2", "name2", 0l, 0l)), mockShortcutManager).updatePinned();
+        final ArgumentCaptor<List<ShortcutInfo>> firstUpdate =
+                ArgumentCaptor.forClass((Class) List.class);
+        verify(mockShortcutManager).updateShortcuts(firstUpdate.capture());
+        assertThat(firstUpdate.getValue().size(), equalTo(2));
+
+        // Only the contact with a new photo is updated after that
+        mockShortcutManager = mock(ShortcutManager.class);
+        when(mockShortcutManager.getPinnedShortcuts()).thenReturn(firstUpdate.getValue());
+        createDynamicShortcuts(resolverWithExpectedQueries(queryFor(Contacts.CONTENT_URI,
+                1l, "key1", "name1", 10l, 101l,
+                2l, "key2", "name2", 0l, 0l)), mockShortcutManager).updatePinned();
+        final ArgumentCaptor<List<ShortcutInfo>> secondUpdate =
+                ArgumentCaptor.forClass((Class) List.class);
+        verify(mockShortcutManager).updateShortcuts(secondUpdate.capture());
+        assertThat(secondUpdate.getValue().size(), equalTo(1));
+        assertThat(secondUpdate.getValue().get(0), isShortcutForContact(1l, "key1", "name1"));
+        verify(mockShortcutManager, never()).disableShortcuts(
+                anyListOf(String.class), anyString());
+    }
+
+    public void test_updatePinned_alwaysUpdatesShortcutsOfPhotosWithoutPhotoFile()
+            throws Exception {
+        ShortcutManager mockShortcutManager = mock(ShortcutManager.class);
+        when(mockShortcutManager.getPinnedShortcuts()).thenReturn(Arrays.asList(
+                shortcutFor(1l, "key1", "name1")));
+        createDynamicShortcuts(resolverWithExpectedQueries(queryFor(Contacts.CONTENT_URI,
+                1l, "key1", "name1", 10l, 0l)), mockShortcutManager).updatePinned();
+        final ArgumentCaptor<List<ShortcutInfo>> firstUpdate =
+                ArgumentCaptor.forClass((Class) List.class);
+        verify(mockShortcutManager).updateShortcuts(firstUpdate.capture());
+
+        // A thumbnail may have been replaced in place without changing the photo ID
+        mockShortcutManager = mock(ShortcutManager.class);
+        when(mockShortcutManager.getPinnedShortcuts()).thenReturn(firstUpdate.getValue());
+        createDynamicShortcuts(resolverWithExpectedQueries(queryFor(Contacts.CONTENT_URI,
+                1l, "key1", "name1", 10l, 0l)), mockShortcutManager).updatePinned();
+        final ArgumentCaptor<List<ShortcutInfo>> secondUpdate =
+                ArgumentCaptor.forClass((Class) List.class);
+        verify(mockShortcutManager).updateShortcuts(secondUpdate.capture());
+        assertThat(secondUpdate.getValue().size(), equalTo(1));
+    }
+
     public void test_refresh_setsDynamicShortcutsToStrequentContacts() {
         final ShortcutManager mockShortcutManager = mock(ShortcutManager.class);
         when(mockShortcutManager.getPinnedShortcuts()).thenReturn(
                 Collections.<ShortcutInfo>emptyList());
         final DynamicShortcuts sut = createDynamicShortcuts(resolverWithExpectedQueries(
                 queryFor(Contacts.CONTENT_STREQUENT_URI,
-                        1l, "starred_key", "starred name",
-                        2l, "freq_key", "freq name",
-                        3l, "starred_2", "Starred Two")), mockShortcutManager);
+                        1l, "starred_key", "starred name", 0l, 0l,
+                        2l, "freq_key", "freq name", 0l, 0l,
+                        3l, "starred_2", "Starred Two", 0l, 0l)), mockShortcutManager);
 
         sut.refresh();
 
@@ -197,12 +251,12 @@ public class DynamicShortcutsTests extends AndroidTestCase {
                 Collections.<ShortcutInfo>emptyList());
         final DynamicShortcuts sut = createDynamicShortcuts(resolverWithExpectedQueries(
                 queryFor(Contacts.CONTENT_STREQUENT_URI,
-                        1l, "key1", "first",
-                        2l, "key2", "second",
-                        3l, "key3", null,
-                        4l, null, null,
-                        5l, "key5", "fifth",
-                        6l, "key6", "sixth")), mockShortcutManager);
+                        1l, "key1", "first", 0l, 0l,
+                        2l, "key2", "second", 0l, 0l,
+                        3l, "key3", null, 0l, 0l,
+                        4l, null, null, 0l, 0l,
+                        5l, "key5", "fifth", 0l, 0l,
+                        6l, "key6", "sixth", 0l, 0l)), mockShortcutManager);
 
         sut.refresh();
 
@@ -221,13 +275,78 @@ public class DynamicShortcutsTests extends AndroidTestCase {
         // Also verify that it doesn't crash if there are fewer than 3 valid strequent contacts
         createDynamicShortcuts(resolverWithExpectedQueries(
                 queryFor(Contacts.CONTENT_STREQUENT_URI,
-                        1l, "key1", "first",
-                        2l, "key2", "second",
-                        3l, "key3", null,
-                        4l, null, null)), mock(ShortcutManager.class)).refresh();
+                        1l, "key1", "first", 0l, 0l,
+                        2l, "key2", "second", 0l, 0l,
+                        3l, "key3", null, 0l, 0l,
+                        4l, null, null, 0l, 0l)), mock(ShortcutManager.class)).refresh();
     }
 
 
+    public void test_refresh_doesNotPublishUnchangedShortcuts() {
+        ShortcutManager mockShortcutManager = mock(ShortcutManager.class);
+        createDynamicShortcuts(resolverWithExpectedQueries(
+                queryFor(Contacts.CONTENT_STREQUENT_URI,
+                        1l, "key1", "first", 0l, 0l,
+                        2l, "key2", "second", 10l, 100l)), mockShortcutManager).refresh();
+        final ArgumentCaptor<List<ShortcutInfo>> published =
+                ArgumentCaptor.forClass((Class) List.class);
+        verify(mockShortcutManager).setDynamicShortcuts(published.capture());
+
+        mockShortcutManager = mock(ShortcutManager.class);
+        when(mockShortcutManager.getDynamicShortcuts()).thenReturn(published.getValue());
+        createDynamicShortcuts(resolverWithExpectedQueries(
+                queryFor(Contacts.CONTENT_STREQUENT_URI,
+                        1l, "key1", "first", 0l, 0l,
+                        2l, "key2", "second", 10l, 100l)), mockShortcutManager).refresh();
+        verify(mockShortcutManager, never()).setDynamicShortcuts(anyListOf(ShortcutInfo.class));
+
+        // A new photo is published
+        mockShortcutManager = mock(ShortcutManager.class);
+        when(mockShortcutManager.getDynamicShortcuts()).thenReturn(published.getValue());
+        createDynamicShortcuts(resolverWithExpectedQueries(
+                queryFor(Contacts.CONTENT_STREQUENT_URI,
+                        1l, "key1", "first", 0l, 0l,
+                        2l, "key2", "second", 10l, 101l)), mockShortcutManager).refresh();
+        verify(mockShortcutManager).setDynamicShortcuts(anyListOf(ShortcutInfo.class));
+    }
+
+    public void test_shouldDeferUpdate_onlyWhileSyncingForALimitedTime() {
+        final DynamicShortcuts syncing = new DynamicShortcuts(getContext(), emptyResolver(),
+                mock(ShortcutManager.class), mock(JobScheduler.class)) {
+            @Override
+            boolean isContactsSyncActive() {
+                return true;
+            }
+        };
+        final DynamicShortcuts notSyncing = new DynamicShortcuts(getContext(), emptyResolver(),
+                mock(ShortcutManager.class), mock(JobScheduler.class)) {
+            @Override
+            boolean isContactsSyncActive() {
+                return false;
+            }
+        };
+        final long now = 1000000000l;
+
+        assertTrue(syncing.shouldDeferUpdate(now, now));
+        assertTrue(syncing.shouldDeferUpdate(now - 60 * 1000, now));
+        assertFalse(syncing.shouldDeferUpdate(now - 60 * 60 * 1000, now));
+        assertFalse(notSyncing.shouldDeferUpdate(now, now));
+    }
+
+    public void test_scheduleDeferredUpdateJob_keepsTimeOfFirstDeferral() {
+        final JobScheduler mockJobScheduler = mock(JobScheduler.class);
+        final DynamicShortcuts sut = createDynamicShortcuts(emptyResolver(),
+                mock(ShortcutManager.class), mockJobScheduler);
+
+        sut.scheduleDeferredUpdateJob(12345l);
+
+        final ArgumentCaptor<JobInfo> job = ArgumentCaptor.forClass(JobInfo.class);
+        verify(mockJobScheduler).schedule(job.capture());
+        assertEquals(ContactsJobService.DYNAMIC_SHORTCUTS_JOB_ID, job.getValue().getId());
+        assertEquals(12345l, job.getValue().getExtras().getLong("deferredSince"));
+        assertTrue(job.getValue().getMinLatencyMillis() > 0);
+    }
+
     public void test_handleFlagDisabled_stopsJob() {
         final ShortcutManager mockShortcutManager = mock(ShortcutManager.class);
         final JobScheduler mockJobScheduler = mock(JobScheduler.class);
@@ -293,14 +412,6 @@ public class DynamicShortcutsTests extends AndroidTestCase {
         return query;
     }
 
-    private MockContentProvider.Query queryForSingleRow(Uri uri, Object... row) {
-        return new MockContentProvider.Query(uri)
-                .withProjection(DynamicShortcuts.PROJECTION)
-                .withAnySelection()
-                .withAnySortOrder()
-                .returnRow(row);
-    }
-
     private ContentResolver resolverWithExpectedQueries(MockContentProvider.Query... queries) {
         final MockContentProvider provider = new MockContentProvider();
         for (MockContentProvider.Query query : queries) {
@@ -360,10 +471,7 @@ public class DynamicShortcutsTests extends AndroidTestCase {
     }
 
     private Cursor queryResult(String[] columns, Object... values) {
-        MatrixCursor result = new MatrixCursor(new String[] {
-                Contacts._ID, Contacts.LOOKUP_KEY,
-                Contacts.DISPLAY_NAME_PRIMARY
-        });
+        MatrixCursor result = new MatrixCursor(columns);
         for (int i = 0; i < values.length; i += columns.length) {
             MatrixCursor.RowBuilder builder = result.newRow();
             for (int j = 0; j < columns.length; j++) {
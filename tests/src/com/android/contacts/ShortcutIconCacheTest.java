@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.contacts;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import android.graphics.Bitmap;
+import android.graphics.Color;
+
+import androidx.test.InstrumentationRegistry;
+import androidx.test.filters.SmallTest;
+import androidx.test.runner.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+
+@SmallTest
+@RunWith(AndroidJUnit4.class)
+public class ShortcutIconCacheTest {
+
+    private static final int SIZE = 48;
+
+    private File mDirectory;
+
+    @Before
+    public void setUp() {
+        mDirectory = new File(InstrumentationRegistry.getTargetContext().getCacheDir(),
+                "shortcut_icon_test");
+        deleteDirectory();
+    }
+
+    @After
+    public void tearDown() {
+        deleteDirectory();
+    }
+
+    @Test
+    public void restoresIconsFromDisk() {
+        final String source = ShortcutIconCache.getPhotoSource(10, 100);
+        newCache().put(source, ShortcutIconCache.VARIANT_SHORTCUT_ADAPTIVE, SIZE,
+                createIcon(Color.RED));
+
+        final Bitmap icon = newCache().get(source, ShortcutIconCache.VARIANT_SHORTCUT_ADAPTIVE,
+                SIZE);
+        assertNotNull(icon);
+        assertEquals(SIZE, icon.getWidth());
+        assertEquals(Color.RED, icon.getPixel(SIZE / 2, SIZE / 2));
+    }
+
+    @Test
+    public void iconsAreOnlyReturnedForTheSameSourceSizeAndVariant() {
+        final ShortcutIconCache cache = newCache();
+        final String source = ShortcutIconCache.getPhotoSource(10, 100);
+        cache.put(source, ShortcutIconCache.VARIANT_SHORTCUT_ADAPTIVE, SIZE,
+                createIcon(Color.RED));
+
+        // A new photo is written to a new photo file.
+        assertNull(cache.get(ShortcutIconCache.getPhotoSource(10, 101),
+                ShortcutIconCache.VARIANT_SHORTCUT_ADAPTIVE, SIZE));
+        assertNull(cache.get(source, ShortcutIconCache.VARIANT_SHORTCUT_CIRCULAR, SIZE));
+        assertNull(cache.get(source, ShortcutIconCache.VARIANT_SHORTCUT_ADAPTIVE, SIZE * 2));
+        assertNull(cache.get(ShortcutIconCache.getLetterTileSource("Name", "key"),
+                ShortcutIconCache.VARIANT_SHORTCUT_ADAPTIVE, SIZE));
+    }
+
+    @Test
+    public void contactsWithoutPhotoHaveNoPhotoSource() {
+        assertNull(ShortcutIconCache.getPhotoSource(0, 0));
+    }
+
+    @Test
+    public void photosWithoutPhotoFileHaveNoPhotoSource() {
+        // Such a photo keeps its photo ID when it is replaced.
+        assertNull(ShortcutIconCache.getPhotoSource(10, 0));
+    }
+
+    private ShortcutIconCache newCache() {
+        return new ShortcutIconCache(mDirectory);
+    }
+
+    private static Bitmap createIcon(int color) {
+        final Bitmap bitmap = Bitmap.createBitmap(SIZE, SIZE, Bitmap.Config.ARGB_8888);
+        bitmap.eraseColor(color);
+        return bitmap;
+    }
+
+    private void deleteDirectory() {
+        final File[] files = mDirectory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        mDirectory.delete();
+    }
+}
@@ -238,6 +238,30 @@ public class SimContactDaoTests {
             dataCursor.close();
         }
 
+        @Test
+        public void pipelinedImportReportsProgressPerBatch() throws Exception {
+            final SimContactDao sut = SimContactDao.create(getContext());
+
+            final List<SimContact> contacts = new ArrayList<>();
+            for (int i = 0; i < MAX_SIM_CONTACTS; i++) {
+                contacts.add(new SimContact(i + 1, "Contact " + (i + 1), randomPhone()));
+            }
+
+            final List<Integer> progress = new ArrayList<>();
+            sut.importContacts(contacts, mAccount, new SimContactDao.ImportProgressListener() {
+                @Override
+                public void onContactsImported(int importedCount, int totalCount) {
+                    assertThat(totalCount, equalTo(MAX_SIM_CONTACTS));
+                    progress.add(importedCount);
+                }
+            });
+
+            assertThat(progress, equalTo(Arrays.asList(300, 600)));
+            final Cursor contactsCursor = queryAllRawContactsInAccount();
+            assertThat(contactsCursor, ContactsMatchers.hasCount(MAX_SIM_CONTACTS));
+            contactsCursor.close();
+        }
+
         private Cursor queryAllRawContactsInAccount() {
             return new StringableCursor(mResolver.query(ContactsContract.RawContacts.CONTENT_URI,
                     null, ContactsContract.RawContacts.ACCOUNT_NAME + "=? AND " +
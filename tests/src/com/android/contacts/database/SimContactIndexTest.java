@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.contacts.database;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import androidx.test.filters.SmallTest;
+import androidx.test.runner.AndroidJUnit4;
+
+import com.android.contacts.model.SimContact;
+import com.google.common.collect.ImmutableSet;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+@SmallTest
+@RunWith(AndroidJUnit4.class)
+public class SimContactIndexTest {
+
+    private static final SimContact FORMATTED =
+            new SimContact(1, "Formatted", "(509) 555-0101", null);
+    private static final SimContact INTERNATIONAL =
+            new SimContact(2, "International", "+1 509 555 0102", null);
+    private static final SimContact NAME_ONLY = new SimContact(3, "No Phone", null, null);
+    private static final SimContact DUPLICATE = new SimContact(4, "Formatted", "5095550101", null);
+
+    private final SimContactIndex mIndex = new SimContactIndex(
+            Arrays.asList(FORMATTED, INTERNATIONAL, NAME_ONLY, DUPLICATE), "US");
+
+    @Test
+    public void matchesNumbersRegardlessOfFormatting() {
+        assertEquals(ImmutableSet.of(FORMATTED, DUPLICATE), new HashSet<>(
+                mIndex.findByPhone("509-555-0101", "+15095550101", "Formatted")));
+        assertEquals(ImmutableSet.of(INTERNATIONAL), new HashSet<>(
+                mIndex.findByPhone("(509) 555-0102", "+15095550102", "International")));
+    }
+
+    @Test
+    public void matchesWithoutNormalizedNumber() {
+        assertEquals(ImmutableSet.of(FORMATTED, DUPLICATE), new HashSet<>(
+                mIndex.findByPhone("509.555.0101", null, "Formatted")));
+    }
+
+    @Test
+    public void requiresSameName() {
+        assertTrue(mIndex.findByPhone("5095550101", "+15095550101", "Someone Else").isEmpty());
+    }
+
+    @Test
+    public void matchesContactsWithoutPhoneByName() {
+        assertTrue(mIndex.hasNameOnlyContacts());
+        assertEquals(ImmutableSet.of(NAME_ONLY), new HashSet<>(mIndex.findByName("No Phone")));
+        assertTrue(mIndex.findByName("Formatted").isEmpty());
+    }
+
+    @Test
+    public void emptyNumberDoesNotMatchNameOnlyContacts() {
+        assertTrue(mIndex.findByPhone("", "", "No Phone").isEmpty());
+        assertTrue(mIndex.findByPhone("#", null, "No Phone").isEmpty());
+    }
+
+    @Test
+    public void noNameOnlyContacts() {
+        assertFalse(new SimContactIndex(Arrays.asList(FORMATTED), null).hasNameOnlyContacts());
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.contacts.database;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import androidx.test.InstrumentationRegistry;
+import androidx.test.filters.SmallTest;
+import androidx.test.runner.AndroidJUnit4;
+
+import com.android.contacts.model.SimCard;
+import com.android.contacts.model.SimContact;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+@SmallTest
+@RunWith(AndroidJUnit4.class)
+public class SimContactSnapshotCacheTest {
+
+    private static final SimCard SIM = new SimCard("iccid-1", 1, "Carrier", "SIM 1",
+            "5550100", "us");
+
+    private static final List<SimContact> CONTACTS = Arrays.asList(
+            new SimContact(1, "Name One", "5550101", null),
+            new SimContact(2, null, "5550102", null),
+            new SimContact(3, "Name Three", "", new String[] { "three@example.com" }));
+
+    private File mDirectory;
+
+    @Before
+    public void setUp() {
+        mDirectory = new File(InstrumentationRegistry.getTargetContext().getCacheDir(),
+                "sim_snapshot_test");
+        newCache().invalidate();
+    }
+
+    @After
+    public void tearDown() {
+        newCache().invalidate();
+        mDirectory.delete();
+    }
+
+    @Test
+    public void restoresContactsFromDisk() {
+        assertTrue(newCache().put(SIM, CONTACTS));
+
+        final SimContactSnapshotCache.Snapshot snapshot = newCache().get(SIM);
+        assertEquals(CONTACTS, snapshot.getContacts());
+    }
+
+    @Test
+    public void unchangedContactsAreNotRewritten() {
+        final SimContactSnapshotCache cache = newCache();
+        assertTrue(cache.put(SIM, CONTACTS));
+        assertFalse(cache.put(SIM, CONTACTS));
+        assertTrue(cache.put(SIM, CONTACTS.subList(0, 2)));
+    }
+
+    @Test
+    public void differentSimInSameSlotIsNotReturned() {
+        newCache().put(SIM, CONTACTS);
+
+        final SimCard swapped = new SimCard("iccid-2", 1, "Carrier", "SIM 1", "5550100", "us");
+        assertNull(newCache().get(swapped));
+    }
+
+    @Test
+    public void differentSimInSameSlotDeletesSnapshotOfPreviousSim() {
+        newCache().put(SIM, CONTACTS);
+
+        final SimCard swapped = new SimCard("iccid-2", 1, "Carrier", "SIM 1", "5550100", "us");
+        newCache().get(swapped);
+        assertNull(newCache().get(SIM));
+    }
+
+    @Test
+    public void retainDropsSnapshotsOfRemovedSims() {
+        final SimCard otherSim = new SimCard("iccid-2", 2, "Carrier", "SIM 2", "5550200", "us");
+        final SimContactSnapshotCache cache = newCache();
+        cache.put(SIM, CONTACTS);
+        cache.put(otherSim, CONTACTS);
+        cache.retain(Collections.singletonList(otherSim));
+
+        assertNull(cache.get(SIM));
+        assertNull(newCache().get(SIM));
+        assertEquals(CONTACTS, newCache().get(otherSim).getContacts());
+    }
+
+    @Test
+    public void invalidateDropsSnapshots() {
+        final SimContactSnapshotCache cache = newCache();
+        cache.put(SIM, CONTACTS);
+        cache.invalidate();
+
+        assertNull(cache.get(SIM));
+        assertNull(newCache().get(SIM));
+    }
+
+    @Test
+    public void invalidateSubscriptionOnlyDropsItsSnapshot() {
+        final SimCard otherSim = new SimCard("iccid-2", 2, "Carrier", "SIM 2", "5550200", "us");
+        final SimContactSnapshotCache cache = newCache();
+        cache.put(SIM, CONTACTS);
+        cache.put(otherSim, CONTACTS);
+        cache.invalidate(SIM.getSubscriptionId());
+
+        assertNull(newCache().get(SIM));
+        assertEquals(CONTACTS, newCache().get(otherSim).getContacts());
+    }
+
+    private SimContactSnapshotCache newCache() {
+        return new SimContactSnapshotCache(mDirectory);
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.contacts.editor;
+
+import android.database.MatrixCursor;
+import android.provider.ContactsContract.Contacts;
+import android.test.suitebuilder.annotation.SmallTest;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tests {@link AggregationCandidateIndex}.
+ */
+@SmallTest
+public class AggregationCandidateIndexTest extends TestCase {
+
+    private AggregationCandidateIndex mIndex;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        final MatrixCursor cursor = new MatrixCursor(new String[] {
+                Contacts._ID, Contacts.DISPLAY_NAME_PRIMARY, Contacts.DISPLAY_NAME_ALTERNATIVE,
+                Contacts.PHONETIC_NAME
+        });
+        cursor.addRow(new Object[] { 1l, "John Smith", "Smith, John", null });
+        cursor.addRow(new Object[] { 2l, "Jon Smyth", "Smyth, Jon", null });
+        cursor.addRow(new Object[] { 3l, "Johnny Appleseed", "Appleseed, Johnny", null });
+        cursor.addRow(new Object[] { 4l, "José Álvarez", "Álvarez, José", null });
+        cursor.addRow(new Object[] { 5l, "山田 太郎", "山田, 太郎", "yamada taro" });
+        cursor.addRow(new Object[] { 6l, "John Smith Jr.", "Smith, John Jr.", null });
+        cursor.addRow(new Object[] { 7l, null, null, null });
+        mIndex = new AggregationCandidateIndex();
+        mIndex.load(cursor);
+    }
+
+    public void testExactMatchesComeBeforePhoneticMatches() {
+        assertIds(mIndex.findCandidates("John Smith", "", 0, 5), 1, 6, 2);
+    }
+
+    public void testEditedContactIsExcluded() {
+        assertIds(mIndex.findCandidates("John Smith", "", 1, 5), 6, 2);
+    }
+
+    public void testEveryTokenMustMatch() {
+        assertIds(mIndex.findCandidates("John Doe", "", 0, 5));
+    }
+
+    public void testLastTokenMatchesAsPrefix() {
+        assertIds(mIndex.findCandidates("Apple", "", 0, 5), 3);
+        // Too short to match a prefix
+        assertIds(mIndex.findCandidates("Ap", "", 0, 5));
+    }
+
+    public void testAccentsAndCaseAreIgnored() {
+        assertIds(mIndex.findCandidates("jose alvarez", "", 0, 5), 4);
+    }
+
+    public void testPhoneticNamesMatch() {
+        assertIds(mIndex.findCandidates("", "Yamada", 0, 5), 5);
+        assertIds(mIndex.findCandidates("山田", "", 0, 5), 5);
+    }
+
+    public void testResultsAreLimited() {
+        assertIds(mIndex.findCandidates("John Smith", "", 0, 1), 1);
+    }
+
+    public void testAddTokens() {
+        final List<String> tokens = new ArrayList<>();
+        AggregationCandidateIndex.addTokens(tokens, "  Ænne-Marie  O'Brien ");
+        assertEquals(Arrays.asList("ænne", "marie", "o", "brien"), tokens);
+    }
+
+    public void testSoundex() {
+        assertEquals("r163", AggregationCandidateIndex.soundex("robert"));
+        assertEquals("r163", AggregationCandidateIndex.soundex("rupert"));
+        assertEquals("a261", AggregationCandidateIndex.soundex("ashcraft"));
+        assertEquals("t522", AggregationCandidateIndex.soundex("tymczak"));
+        assertEquals("p236", AggregationCandidateIndex.soundex("pfister"));
+        assertNull(AggregationCandidateIndex.soundex("山田"));
+    }
+
+    private static void assertIds(long[] actual, long... expected) {
+        assertEquals(Arrays.toString(expected), Arrays.toString(actual));
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.contacts.editor;
+
+import android.content.ContentValues;
+import android.provider.ContactsContract.CommonDataKinds.Email;
+import android.provider.ContactsContract.Data;
+import android.test.suitebuilder.annotation.SmallTest;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.android.contacts.model.RawContactDelta;
+import com.android.contacts.model.ValuesDelta;
+import com.android.contacts.model.account.AccountType.EditField;
+import com.android.contacts.model.dataitem.DataKind;
+
+import com.google.common.collect.Lists;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tests {@link EditorFieldAdapter}.
+ */
+@SmallTest
+public class EditorFieldAdapterTest extends TestCase {
+
+    private DataKind mKind;
+    private RawContactDelta mState;
+    private List<ValuesDelta> mValues;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mKind = new DataKind(Email.CONTENT_ITEM_TYPE, -1, 10, true);
+        mKind.fieldList = Lists.newArrayList(new EditField(Email.DATA, -1));
+        mState = new RawContactDelta();
+        mValues = new ArrayList<>();
+    }
+
+    public void testAddsAnEmptyValueWhenAllAreFilled() {
+        addValue("a@example.com");
+        addValue("b@example.com");
+        final EditorFieldAdapter adapter = newAdapter(/* showOneEmptyEditor =*/ true);
+
+        adapter.updateEmptyValues(RecyclerView.NO_POSITION);
+
+        assertEquals(3, adapter.getItemCount());
+        assertEquals(3, mState.getMimeEntriesCount(Email.CONTENT_ITEM_TYPE, true));
+        assertFalse(adapter.hasOnlyEmptyValues());
+    }
+
+    public void testDoesNotAddAnEmptyValueUnlessOneIsShown() {
+        addValue("a@example.com");
+        final EditorFieldAdapter adapter = newAdapter(/* showOneEmptyEditor =*/ false);
+
+        adapter.updateEmptyValues(RecyclerView.NO_POSITION);
+
+        assertEquals(1, adapter.getItemCount());
+    }
+
+    public void testDeletesExtraEmptyValuesButTheEditedOne() {
+        final ValuesDelta first = addValue("");
+        addValue("a@example.com");
+        final ValuesDelta edited = addValue("");
+        final ValuesDelta last = addValue("");
+        final EditorFieldAdapter adapter = newAdapter(/* showOneEmptyEditor =*/ true);
+
+        adapter.updateEmptyValues(2);
+
+        assertEquals(2, adapter.getItemCount());
+        assertFalse(first.isVisible());
+        assertTrue(edited.isVisible());
+        assertFalse(last.isVisible());
+        assertEquals(2, mState.getMimeEntriesCount(Email.CONTENT_ITEM_TYPE, true));
+    }
+
+    public void testHasOnlyEmptyValues() {
+        addValue("");
+        addValue(null);
+        assertTrue(newAdapter(/* showOneEmptyEditor =*/ false).hasOnlyEmptyValues());
+    }
+
+    private ValuesDelta addValue(String email) {
+        final ContentValues values = new ContentValues();
+        values.put(Data.MIMETYPE, Email.CONTENT_ITEM_TYPE);
+        values.put(Email.DATA, email);
+        final ValuesDelta valuesDelta = ValuesDelta.fromAfter(values);
+        mState.addEntry(valuesDelta);
+        mValues.add(valuesDelta);
+        return valuesDelta;
+    }
+
+    private EditorFieldAdapter newAdapter(boolean showOneEmptyEditor) {
+        final EditorFieldAdapter adapter = new EditorFieldAdapter(
+                new KindSectionData(null, mKind, mState), mValues, new ViewIdGenerator());
+        adapter.setShowOneEmptyEditor(showOneEmptyEditor);
+        return adapter;
+    }
+}
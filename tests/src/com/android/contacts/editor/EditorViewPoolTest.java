@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.contacts.editor;
+
+import android.test.AndroidTestCase;
+import android.test.suitebuilder.annotation.SmallTest;
+import android.view.ContextThemeWrapper;
+import android.view.View;
+import android.widget.LinearLayout;
+
+import com.android.contacts.R;
+
+/**
+ * Tests {@link EditorViewPool}.
+ */
+@SmallTest
+public class EditorViewPoolTest extends AndroidTestCase {
+
+    private ContextThemeWrapper mThemedContext;
+    private LinearLayout mParent;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mThemedContext = new ContextThemeWrapper(getContext(), R.style.EditorActivityTheme);
+        mParent = new LinearLayout(mThemedContext);
+    }
+
+    public void testIdleInflatesOneViewAtATime() {
+        final EditorViewPool pool = newPool(2);
+
+        assertTrue(pool.queueIdle());
+        assertEquals(1, pool.getPooledCount(R.layout.item_kind_section));
+        assertFalse(pool.queueIdle());
+        assertEquals(2, pool.getPooledCount(R.layout.item_kind_section));
+        assertFalse(pool.queueIdle());
+        assertEquals(2, pool.getPooledCount(R.layout.item_kind_section));
+    }
+
+    public void testObtainUsesPooledViewsFirst() {
+        final EditorViewPool pool = newPool(1);
+        pool.queueIdle();
+
+        final View pooled = pool.obtain(R.layout.item_kind_section, mParent);
+        assertTrue(pooled instanceof KindSectionView);
+        assertNotNull(pooled.getLayoutParams());
+        final View inflated = pool.obtain(R.layout.item_kind_section, mParent);
+        assertTrue(inflated instanceof KindSectionView);
+        assertNotSame(pooled, inflated);
+        assertEquals(1, pool.getHitCount());
+        assertEquals(1, pool.getMissCount());
+    }
+
+    public void testOnlyDetachedViewsAreRecycled() {
+        final EditorViewPool pool = newPool(0);
+        final View view = pool.obtain(R.layout.item_kind_section, mParent);
+        mParent.addView(view);
+
+        pool.recycle(R.layout.item_kind_section, view);
+        assertEquals(0, pool.getPooledCount(R.layout.item_kind_section));
+
+        mParent.removeView(view);
+        pool.recycle(R.layout.item_kind_section, view);
+        assertSame(view, pool.obtain(R.layout.item_kind_section, mParent));
+    }
+
+    public void testStopDropsPooledViews() {
+        final EditorViewPool pool = newPool(2);
+        pool.queueIdle();
+
+        pool.stop();
+        assertEquals(0, pool.getPooledCount(R.layout.item_kind_section));
+        assertFalse(pool.queueIdle());
+        assertEquals(0, pool.getPooledCount(R.layout.item_kind_section));
+    }
+
+    private EditorViewPool newPool(int kindSectionCount) {
+        final int[] layouts = new int[kindSectionCount];
+        for (int i = 0; i < kindSectionCount; i++) {
+            layouts[i] = R.layout.item_kind_section;
+        }
+        return new EditorViewPool(mThemedContext, layouts);
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.contacts.lettertiles;
+
+import android.content.ComponentCallbacks2;
+import android.graphics.Bitmap;
+import android.test.suitebuilder.annotation.SmallTest;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests {@link LetterTileCache}.
+ */
+@SmallTest
+public class LetterTileCacheTest extends TestCase {
+
+    private static final int TILE_SIZE = 10;
+    private static final int TILE_BYTES = TILE_SIZE * TILE_SIZE * 4;
+
+    public void testKeysOfTheSameTileAreEqual() {
+        assertEquals(newKey('A', 0xff00ff00), newKey('A', 0xff00ff00));
+        assertEquals(newKey('A', 0xff00ff00).hashCode(), newKey('A', 0xff00ff00).hashCode());
+        assertFalse(newKey('A', 0xff00ff00).equals(newKey('B', 0xff00ff00)));
+        assertFalse(newKey('A', 0xff00ff00).equals(newKey('A', 0xffff0000)));
+    }
+
+    public void testContactTypeOnlyMattersForAvatars() {
+        assertEquals(
+                new LetterTileCache.Key('A', LetterTileDrawable.TYPE_PERSON, 0, 1, 1, 1f, 0f, true),
+                new LetterTileCache.Key('A', LetterTileDrawable.TYPE_BUSINESS, 0, 1, 1, 1f, 0f,
+                        true));
+        assertFalse(
+                new LetterTileCache.Key((char) 0, LetterTileDrawable.TYPE_PERSON, 0, 1, 1, 1f, 0f,
+                        true).equals(new LetterTileCache.Key((char) 0,
+                        LetterTileDrawable.TYPE_BUSINESS, 0, 1, 1, 1f, 0f, true)));
+    }
+
+    public void testLargeTilesAreNotCached() {
+        final LetterTileCache cache = new LetterTileCache(8 * TILE_BYTES);
+        assertTrue(cache.canCache(TILE_SIZE, TILE_SIZE));
+        assertFalse(cache.canCache(TILE_SIZE + 1, TILE_SIZE));
+    }
+
+    public void testSizeIsTheByteCountOfTheTiles() {
+        final LetterTileCache cache = new LetterTileCache(8 * TILE_BYTES);
+        final Bitmap tile = newTile();
+        cache.put(newKey('A', 0), tile);
+        cache.put(newKey('B', 0), newTile());
+
+        assertSame(tile, cache.get(newKey('A', 0)));
+        assertEquals(2 * TILE_BYTES, cache.size());
+    }
+
+    public void testTrimMemory() {
+        final LetterTileCache cache = new LetterTileCache(4 * TILE_BYTES);
+        for (char letter = 'A'; letter < 'E'; letter++) {
+            cache.put(newKey(letter, 0), newTile());
+        }
+
+        cache.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN);
+        assertEquals(4 * TILE_BYTES, cache.size());
+        cache.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_BACKGROUND);
+        assertEquals(2 * TILE_BYTES, cache.size());
+        // The least recently used tiles are released first
+        assertNotNull(cache.get(newKey('D', 0)));
+        cache.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_MODERATE);
+        assertEquals(0, cache.size());
+    }
+
+    private static LetterTileCache.Key newKey(char letter, int color) {
+        return new LetterTileCache.Key(letter, LetterTileDrawable.TYPE_DEFAULT, color, TILE_SIZE,
+                TILE_SIZE, 1f, 0f, /* isCircle =*/ true);
+    }
+
+    private static Bitmap newTile() {
+        return Bitmap.createBitmap(TILE_SIZE, TILE_SIZE, Bitmap.Config.ARGB_8888);
+    }
+}
@@ -18,13 +18,18 @@ package com.android.contacts.list;
 
 import android.database.Cursor;
 import android.database.MatrixCursor;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
 import android.test.ActivityInstrumentationTestCase2;
 import android.test.AndroidTestCase;
 import android.test.suitebuilder.annotation.LargeTest;
+import android.util.Log;
+import android.view.View.MeasureSpec;
 import android.widget.TextView;
 
 import com.android.contacts.format.SpannedTestUtils;
 import com.android.contacts.preference.ContactsPreferences;
+import com.android.contacts.util.Constants;
 
 /**
  * Unit tests for {@link com.android.contacts.list.ContactListItemView}.
@@ -35,6 +40,11 @@ import com.android.contacts.preference.ContactsPreferences;
 @LargeTest
 public class ContactListItemViewTest extends AndroidTestCase {
 
+    private static final int BENCHMARK_ROWS = 500;
+    private static final int BENCHMARK_DISTINCT_NAMES = 60;
+    private static final int ROW_WIDTH = 1080;
+    private static final int ROW_HEIGHT = 200;
+
     //private IntegrationTestUtils mUtils;
 
     @Override
@@ -108,6 +118,80 @@ public class ContactListItemViewTest extends AndroidTestCase {
         SpannedTestUtils.assertPrefixSpan(seq, 10, 13);
     }
 
+    public void testFlatText_DoesNotCreateTextViews() {
+        Cursor cursor = createCursor("John Doe", "Doe John");
+        ContactListItemView view = createFlatView();
+
+        view.showDisplayName(cursor, 0, ContactsPreferences.DISPLAY_ORDER_PRIMARY);
+        view.setPhoneNumber("555-0100", null);
+        view.setSnippet("Snippet");
+        bindAndDraw(view, createBitmapCanvas());
+
+        assertEquals(0, view.getChildCount());
+        assertEquals("John Doe", view.getContentDescription());
+    }
+
+    public void testFlatText_Unknown() {
+        Cursor cursor = createCursor("", "");
+        ContactListItemView view = createFlatView();
+
+        view.setUnknownNameText("unknown");
+        view.showDisplayName(cursor, 0, ContactsPreferences.DISPLAY_ORDER_PRIMARY);
+
+        assertEquals("unknown", view.getContentDescription());
+    }
+
+    /**
+     * Binds, measures, lays out and draws a row for a scrolling list of contacts, once with
+     * child text views and once with flat text, and logs the time per frame of each under
+     * {@link Constants#PERFORMANCE_TAG}.
+     */
+    public void testScrollBenchmark() {
+        final Canvas canvas = createBitmapCanvas();
+        final long childViewsNanos = runScrollBenchmark(new ContactListItemView(getContext()),
+                canvas);
+        final long flatNanos = runScrollBenchmark(createFlatView(), canvas);
+        Log.d(Constants.PERFORMANCE_TAG, "Row bind+draw with child views: "
+                + childViewsNanos / 1000 + "us, flat: " + flatNanos / 1000 + "us");
+    }
+
+    /** Returns the average time to rebind and draw {@code view} over a scroll. */
+    private long runScrollBenchmark(ContactListItemView view, Canvas canvas) {
+        // Warm up, including the layout cache of the flat rows.
+        for (int i = 0; i < BENCHMARK_ROWS; i++) {
+            bindRow(view, i);
+            bindAndDraw(view, canvas);
+        }
+        final long start = System.nanoTime();
+        for (int i = 0; i < BENCHMARK_ROWS; i++) {
+            bindRow(view, i);
+            bindAndDraw(view, canvas);
+        }
+        return (System.nanoTime() - start) / BENCHMARK_ROWS;
+    }
+
+    private void bindRow(ContactListItemView view, int position) {
+        view.setDisplayName("Contact " + (position % BENCHMARK_DISTINCT_NAMES));
+        view.setPhoneNumber("555-01" + (position % 100), null);
+    }
+
+    private void bindAndDraw(ContactListItemView view, Canvas canvas) {
+        view.measure(MeasureSpec.makeMeasureSpec(canvas.getWidth(), MeasureSpec.EXACTLY),
+                MeasureSpec.makeMeasureSpec(0, MeasureSpec.UNSPECIFIED));
+        view.layout(0, 0, view.getMeasuredWidth(), view.getMeasuredHeight());
+        view.draw(canvas);
+    }
+
+    private Canvas createBitmapCanvas() {
+        return new Canvas(Bitmap.createBitmap(ROW_WIDTH, ROW_HEIGHT, Bitmap.Config.ARGB_8888));
+    }
+
+    private ContactListItemView createFlatView() {
+        ContactListItemView view = new ContactListItemView(getContext());
+        view.setFlatTextEnabled(true);
+        return view;
+    }
+
     /** Creates the view to be tested. */
     private ContactListItemView createView() {
         ContactListItemView view = new ContactListItemView(getContext());
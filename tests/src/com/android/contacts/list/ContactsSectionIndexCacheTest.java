@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.contacts.list;
+
+import android.test.suitebuilder.annotation.SmallTest;
+
+import com.android.contacts.preference.ContactsPreferences;
+import com.android.contacts.test.mocks.MockSharedPreferences;
+
+import junit.framework.TestCase;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Unit tests for {@link ContactsSectionIndexCache} and the favorites header handling of
+ * {@link ContactsSectionIndexer}.
+ */
+@SmallTest
+public class ContactsSectionIndexCacheTest extends TestCase {
+
+    private static final String[] TITLES = {"A", "B", "C"};
+    private static final int[] COUNTS = {2, 3, 1};
+
+    public void testPutAndGet() {
+        final ContactsSectionIndexCache cache =
+                new ContactsSectionIndexCache(new MockSharedPreferences());
+        final String key = defaultKey();
+
+        assertNull(cache.get(key));
+        assertTrue(cache.put(key, TITLES, COUNTS));
+
+        final ContactsSectionIndexCache.Index index = cache.get(key);
+        assertTrue(Arrays.equals(TITLES, index.getTitles()));
+        assertTrue(Arrays.equals(COUNTS, index.getCounts()));
+    }
+
+    public void testUnchangedIndexIsNotRewritten() {
+        final ContactsSectionIndexCache cache =
+                new ContactsSectionIndexCache(new MockSharedPreferences());
+        final String key = defaultKey();
+
+        assertTrue(cache.put(key, TITLES, COUNTS));
+        assertFalse(cache.put(key, TITLES.clone(), COUNTS.clone()));
+        assertTrue(cache.put(key, TITLES, new int[] {2, 4, 1}));
+    }
+
+    public void testRestoredFromPreferences() {
+        final MockSharedPreferences preferences = new MockSharedPreferences();
+        new ContactsSectionIndexCache(preferences).put(defaultKey(), TITLES, COUNTS);
+
+        final ContactsSectionIndexCache.Index index =
+                new ContactsSectionIndexCache(preferences).get(defaultKey());
+        assertNotNull(index);
+        assertTrue(index.matches(TITLES, COUNTS));
+    }
+
+    public void testGetIfLoadedDoesNotReadPreferences() {
+        final MockSharedPreferences preferences = new MockSharedPreferences();
+        new ContactsSectionIndexCache(preferences).put(defaultKey(), TITLES, COUNTS);
+        final ContactsSectionIndexCache cache = new ContactsSectionIndexCache(preferences);
+
+        assertNull(cache.getIfLoaded(defaultKey()));
+        cache.get(defaultKey());
+        assertTrue(cache.getIfLoaded(defaultKey()).matches(TITLES, COUNTS));
+    }
+
+    public void testKeyDependsOnConfiguration() {
+        final ContactListFilter filter = ContactListFilter.createFilterWithType(
+                ContactListFilter.FILTER_TYPE_ALL_ACCOUNTS);
+        final String key = defaultKey();
+        assertFalse(key.equals(ContactsSectionIndexCache.buildKey("adapter", filter,
+                ContactsPreferences.SORT_ORDER_ALTERNATIVE, Locale.US)));
+        assertFalse(key.equals(ContactsSectionIndexCache.buildKey("adapter", filter,
+                ContactsPreferences.SORT_ORDER_PRIMARY, Locale.JAPAN)));
+        assertFalse(key.equals(ContactsSectionIndexCache.buildKey("adapter",
+                ContactListFilter.createFilterWithType(ContactListFilter.FILTER_TYPE_STARRED),
+                ContactsPreferences.SORT_ORDER_PRIMARY, Locale.US)));
+    }
+
+    public void testFavoritesHeaderIsAdjustedInPlace() {
+        final ContactsSectionIndexer indexer =
+                new ContactsSectionIndexer(TITLES.clone(), COUNTS.clone());
+        indexer.setFavoritesHeader(2);
+        assertEquals(4, indexer.getSections().length);
+        assertEquals(2, indexer.getPositionForSection(1));
+        assertEquals(3, indexer.getSectionForPosition(7));
+
+        final int[] positions = indexer.getPositions();
+        indexer.setFavoritesHeader(4);
+        assertSame(positions, indexer.getPositions());
+        assertEquals(4, indexer.getSections().length);
+        assertEquals(4, indexer.getPositionForSection(1));
+        assertEquals(3, indexer.getSectionForPosition(9));
+        assertEquals(-1, indexer.getSectionForPosition(10));
+    }
+
+    private static String defaultKey() {
+        return ContactsSectionIndexCache.buildKey("adapter",
+                ContactListFilter.createFilterWithType(ContactListFilter.FILTER_TYPE_ALL_ACCOUNTS),
+                ContactsPreferences.SORT_ORDER_PRIMARY, Locale.US);
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.contacts.list;
+
+import android.test.suitebuilder.annotation.LargeTest;
+import android.test.suitebuilder.annotation.SmallTest;
+import android.util.Log;
+
+import com.android.contacts.util.Constants;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Unit tests for {@link FuzzyNameMatcher} and {@link FuzzyContactIndex}.
+ */
+@SmallTest
+public class FuzzyNameMatcherTest extends TestCase {
+
+    private static final String[] FIRST_NAMES = {
+            "john", "jonathan", "maria", "mohammed", "wei", "olga", "pierre", "aisha", "kenji",
+            "sofia", "liam", "emma", "noah", "zoe", "lucas", "hana", "ivan", "fatima"
+    };
+
+    private static final String[] LAST_NAMES = {
+            "mcdonald", "smith", "garcia", "nguyen", "obrien", "kowalski", "tanaka", "schmidt",
+            "rossi", "dubois", "silva", "kim", "ivanov", "haddad", "johansson", "murphy"
+    };
+
+    public void testTokenize() {
+        assertEquals(Arrays.asList("zoe", "obrien"), FuzzyNameMatcher.tokenize("Zo\u00eb O'Brien"));
+        assertEquals(Arrays.asList("smith", "john"), FuzzyNameMatcher.tokenize("Smith, John"));
+        assertTrue(FuzzyNameMatcher.tokenize(null).isEmpty());
+        assertTrue(FuzzyNameMatcher.tokenize("  ").isEmpty());
+    }
+
+    public void testExactPrefixHasZeroDistance() {
+        assertEquals(0, new FuzzyNameMatcher("joh").match(tokens("John Smith")));
+        assertEquals(0, new FuzzyNameMatcher("smi jo").match(tokens("John Smith")));
+    }
+
+    public void testTransposition() {
+        assertEquals(1, new FuzzyNameMatcher("jonh").match(tokens("John Smith")));
+        assertEquals(1, new FuzzyNameMatcher("jonh").match(tokens("Johnathan Smith")));
+    }
+
+    public void testDeletionAndSubstitution() {
+        assertEquals(1, new FuzzyNameMatcher("mcdonld").match(tokens("Ronald McDonald")));
+        assertEquals(1, new FuzzyNameMatcher("smyth").match(tokens("John Smith")));
+        assertEquals(2, new FuzzyNameMatcher("jonh smyth").match(tokens("John Smith")));
+    }
+
+    public void testDistanceIsBounded() {
+        assertEquals(FuzzyNameMatcher.NO_MATCH,
+                new FuzzyNameMatcher("jxnx").match(tokens("John Smith")));
+        assertEquals(FuzzyNameMatcher.NO_MATCH,
+                new FuzzyNameMatcher("mxdxnxld").match(tokens("Ronald McDonald")));
+    }
+
+    public void testShortTokensAreNotFuzzy() {
+        final FuzzyNameMatcher matcher = new FuzzyNameMatcher("jo");
+        assertFalse(matcher.isFuzzyQuery());
+        assertEquals(FuzzyNameMatcher.NO_MATCH, matcher.match(tokens("Ja Smith")));
+    }
+
+    public void testEveryQueryTokenMustMatch() {
+        assertEquals(FuzzyNameMatcher.NO_MATCH,
+                new FuzzyNameMatcher("jonh garcia").match(tokens("John Smith")));
+    }
+
+    public void testRanking() {
+        final List<FuzzyContactIndex.Entry> entries = new ArrayList<>();
+        entries.add(new FuzzyContactIndex.Entry(1, tokens("Jon Snow"), false, 0));
+        entries.add(new FuzzyContactIndex.Entry(2, tokens("John Smith"), false, 10));
+        entries.add(new FuzzyContactIndex.Entry(3, tokens("John Doe"), true, 0));
+        entries.add(new FuzzyContactIndex.Entry(4, tokens("Jon Berg"), false, 0));
+        entries.add(new FuzzyContactIndex.Entry(5, tokens("John Excluded"), true, 99));
+        final FuzzyContactIndex index = new FuzzyContactIndex(entries);
+
+        final List<FuzzyContactIndex.Match> matches =
+                index.query("john", Collections.singleton(5L), 10);
+
+        assertEquals(4, matches.size());
+        // "john" is an exact token of John Doe and John Smith and one edit away from Jon.
+        // Exact tokens come before typos, then starred, then frequently contacted, then by id.
+        assertEquals(0, matches.get(0).distance);
+        assertEquals(3, matches.get(0).contactId);
+        assertEquals(2, matches.get(1).contactId);
+        assertEquals(1, matches.get(2).distance);
+        assertEquals(1, matches.get(2).contactId);
+        assertEquals(4, matches.get(3).contactId);
+    }
+
+    public void testQueryRespectsLimit() {
+        final FuzzyContactIndex index = new FuzzyContactIndex(createSyntheticEntries(1000));
+        assertEquals(5, index.query("jonh", Collections.<Long>emptySet(), 5).size());
+    }
+
+    /**
+     * Runs a fuzzy query over a synthetic 20k contact address book and logs the time it took
+     * under {@link Constants#PERFORMANCE_TAG}. Wall-clock time depends on the device and its
+     * load, so it is only logged and not asserted.
+     */
+    @LargeTest
+    public void testLatencyOn20kContacts() {
+        final FuzzyContactIndex index = new FuzzyContactIndex(createSyntheticEntries(20000));
+        // Warm up.
+        index.query("mcdonld", Collections.<Long>emptySet(), 50);
+
+        final long start = System.nanoTime();
+        final List<FuzzyContactIndex.Match> matches =
+                index.query("jonh mcdonld", Collections.<Long>emptySet(), 50);
+        final long elapsedMillis = (System.nanoTime() - start) / 1000000;
+        Log.d(Constants.PERFORMANCE_TAG, "Fuzzy query over 20k contacts: " + elapsedMillis + "ms");
+
+        assertFalse(matches.isEmpty());
+    }
+
+    private static String[] tokens(String name) {
+        final List<String> tokens = FuzzyNameMatcher.tokenize(name);
+        return tokens.toArray(new String[tokens.size()]);
+    }
+
+    private static List<FuzzyContactIndex.Entry> createSyntheticEntries(int count) {
+        final Random random = new Random(42);
+        final List<FuzzyContactIndex.Entry> entries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            final String name = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " "
+                    + LAST_NAMES[random.nextInt(LAST_NAMES.length)] + random.nextInt(100);
+            entries.add(new FuzzyContactIndex.Entry(i, tokens(name), random.nextInt(20) == 0,
+                    random.nextInt(50)));
+        }
+        return entries;
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.contacts.model;
+
+import android.accounts.Account;
+import android.test.AndroidTestCase;
+import android.test.suitebuilder.annotation.SmallTest;
+
+import com.android.contacts.model.account.AccountDisplayInfo;
+import com.android.contacts.model.account.AccountInfo;
+import com.android.contacts.model.account.AccountType;
+import com.android.contacts.model.account.AccountTypeWithDataSet;
+import com.android.contacts.model.account.AccountWithDataSet;
+import com.android.contacts.model.account.FallbackAccountType;
+import com.google.common.base.Predicate;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Tests for {@link AccountsSnapshot} and how {@link AccountTypeManager} publishes them.
+ */
+@SmallTest
+public class AccountsSnapshotTest extends AndroidTestCase {
+
+    private static final AccountWithDataSet ACCOUNT_1 =
+            new AccountWithDataSet("name1", "com.example", null);
+    private static final AccountWithDataSet ACCOUNT_2 =
+            new AccountWithDataSet("name2", "com.example", null);
+
+    public void testUnknownUntilLoaded() {
+        final FakeAccountTypeManager manager = new FakeAccountTypeManager();
+        assertSame(AccountsSnapshot.UNKNOWN, manager.getLastKnownAccounts());
+        assertFalse(manager.getLastKnownAccounts().isLoaded());
+
+        manager.setAccounts(ACCOUNT_1);
+        final AccountsSnapshot snapshot =
+                Futures.getUnchecked(manager.getAccountsSnapshotAsync());
+
+        assertTrue(snapshot.isLoaded());
+        assertSame(snapshot, manager.getLastKnownAccounts());
+        assertTrue(snapshot.contains(ACCOUNT_1));
+        assertFalse(snapshot.contains(ACCOUNT_2));
+    }
+
+    public void testVersionOnlyChangesWithAccounts() {
+        final FakeAccountTypeManager manager = new FakeAccountTypeManager();
+        manager.setAccounts(ACCOUNT_1);
+        final AccountsSnapshot first = Futures.getUnchecked(manager.getAccountsSnapshotAsync());
+        assertSame(first, Futures.getUnchecked(manager.getAccountsSnapshotAsync()));
+
+        manager.setAccounts(ACCOUNT_1, ACCOUNT_2);
+        final AccountsSnapshot second = Futures.getUnchecked(manager.getAccountsSnapshotAsync());
+        assertTrue(second.getVersion() > first.getVersion());
+        assertEquals(2, second.getAccounts().size());
+        // Snapshots are immutable
+        assertEquals(1, first.getAccounts().size());
+    }
+
+    public void testHasNonLocalAccount() {
+        final FakeAccountTypeManager manager = new FakeAccountTypeManager();
+        assertFalse(manager.hasNonLocalAccount());
+
+        manager.setAccounts(AccountWithDataSet.getNullAccount());
+        assertFalse(manager.hasNonLocalAccount());
+
+        manager.setAccounts(ACCOUNT_1);
+        assertTrue(manager.hasNonLocalAccount());
+        assertTrue(manager.exists(ACCOUNT_1));
+        assertFalse(manager.exists(ACCOUNT_2));
+    }
+
+    private class FakeAccountTypeManager extends AccountTypeManager {
+        private final AccountType mType = new FallbackAccountType(getContext());
+        private List<AccountInfo> mAccounts = Collections.emptyList();
+
+        void setAccounts(AccountWithDataSet... accounts) {
+            final List<AccountInfo> infos = new ArrayList<>();
+            for (AccountWithDataSet account : accounts) {
+                infos.add(new AccountInfo(new AccountDisplayInfo(account, account.name,
+                        "label", null, false), mType));
+            }
+            mAccounts = infos;
+        }
+
+        @Override
+        public ListenableFuture<List<AccountInfo>> getAccountsAsync() {
+            return Futures.immediateFuture(mAccounts);
+        }
+
+        @Override
+        public ListenableFuture<List<AccountInfo>> filterAccountsAsync(
+                Predicate<AccountInfo> filter) {
+            return Futures.immediateFuture(
+                    Futures.getUnchecked(getAccountsSnapshotAsync()).filter(filter));
+        }
+
+        @Override
+        public AccountInfo getAccountInfoForAccount(AccountWithDataSet account) {
+            return null;
+        }
+
+        @Override
+        public Account getDefaultGoogleAccount() {
+            return null;
+        }
+
+        @Override
+        public AccountType getAccountType(AccountTypeWithDataSet accountTypeWithDataSet) {
+            return mType;
+        }
+    }
+}
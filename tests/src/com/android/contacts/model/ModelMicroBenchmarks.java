@@ -0,0 +1,316 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.contacts.model;
+
+import android.content.ContentValues;
+import android.os.Parcel;
+import android.provider.ContactsContract.CommonDataKinds.Email;
+import android.provider.ContactsContract.CommonDataKinds.Phone;
+import android.provider.ContactsContract.CommonDataKinds.StructuredName;
+import android.provider.ContactsContract.Data;
+import android.provider.ContactsContract.RawContacts;
+import android.test.AndroidTestCase;
+import android.test.suitebuilder.annotation.LargeTest;
+
+import com.android.contacts.Collapser;
+import com.android.contacts.list.ContactsSectionIndexer;
+import com.android.contacts.model.account.AccountType;
+import com.android.contacts.model.dataitem.DataItem;
+import com.android.contacts.tests.MicroBenchmark;
+import com.android.contacts.tests.MicroBenchmark.Operation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Microbenchmarks for the model code that runs when contacts are loaded, edited and saved.
+ *
+ * <p>All inputs are generated from fixed seeds so runs are comparable. Run with
+ * <pre>
+ * adb shell am instrument -w -r -e class com.android.contacts.model.ModelMicroBenchmarks \
+ *   com.android.contacts.tests/androidx.test.runner.AndroidJUnitRunner
+ * </pre>
+ * and see {@link MicroBenchmark} for the reported values.</p>
+ */
+@LargeTest
+public class ModelMicroBenchmarks extends AndroidTestCase {
+    private static final long SEED = 42;
+
+    private static final int RAW_CONTACTS = 3;
+    private static final int PHONES = 4;
+    private static final int EMAILS = 3;
+    private static final int COLLAPSED_ITEMS = 16;
+
+    private static final String[] SECTIONS = {
+            "A", "B", "C", "D", "E", "F", "G", "H", "I", "J", "K", "L", "M", "N", "O", "P",
+            "Q", "R", "S", "T", "U", "V", "W", "X", "Y", "Z", "#"
+    };
+
+    private final AccountType mAccountType = new RawContactModifierTests.MockContactsSource();
+
+    public void testBuildDiffWrapper() {
+        final RawContactDeltaList state = new RawContactDeltaList();
+        final Random random = new Random(SEED);
+        for (int i = 0; i < RAW_CONTACTS; i++) {
+            state.add(editRawContact(buildRawContact(random, i + 1), random));
+        }
+        state.add(buildInsert(random));
+
+        assertMeasured(MicroBenchmark.run("RawContactDeltaList.buildDiffWrapper",
+                new Operation() {
+                    @Override
+                    protected Object run(int index) {
+                        return state.buildDiffWrapper();
+                    }
+                }));
+    }
+
+    public void testMergeAfter() {
+        final RawContactDelta remote =
+                editRawContact(buildRawContact(new Random(SEED), 1), new Random(SEED + 1));
+
+        assertMeasured(MicroBenchmark.run("RawContactDelta.mergeAfter", new Operation() {
+            private RawContactDelta[] mBatch;
+
+            @Override
+            protected void prepare(int count) {
+                // mergeAfter changes the local delta so every call gets its own.
+                mBatch = new RawContactDelta[count];
+                for (int i = 0; i < count; i++) {
+                    mBatch[i] = buildRawContact(new Random(SEED), 1);
+                }
+            }
+
+            @Override
+            protected Object run(int index) {
+                return RawContactDelta.mergeAfter(mBatch[index], remote);
+            }
+        }));
+    }
+
+    /**
+     * Merges edits onto lists of growing size, as the save retry does after a version
+     * conflict. The time per raw contact should stay about the same.
+     */
+    public void testListMergeAfterScaling() {
+        for (int size : new int[] { 10, 100, 1000 }) {
+            final RawContactDeltaList local = new RawContactDeltaList();
+            final RawContactDeltaList remote = new RawContactDeltaList();
+            final Random random = new Random(SEED);
+            for (int i = 0; i < size; i++) {
+                local.add(buildRawContact(new Random(SEED + i), i + 1));
+                remote.add(editRawContact(buildRawContact(new Random(SEED + i), i + 1), random));
+            }
+
+            // Merging the same edits again leaves the local list as it is, so no
+            // preparation is needed between calls.
+            assertMeasured(MicroBenchmark.run("RawContactDeltaList.mergeAfter_" + size,
+                    new Operation() {
+                        @Override
+                        protected Object run(int index) {
+                            return RawContactDeltaList.mergeAfter(local, remote);
+                        }
+                    }));
+        }
+    }
+
+    public void testTrimEmpty() {
+        assertMeasured(MicroBenchmark.run("RawContactModifier.trimEmpty", new Operation() {
+            private RawContactDelta[] mBatch;
+
+            @Override
+            protected void prepare(int count) {
+                // trimEmpty marks entries as deleted so every call gets its own delta.
+                final Random random = new Random(SEED);
+                mBatch = new RawContactDelta[count];
+                for (int i = 0; i < count; i++) {
+                    final RawContactDelta delta = buildRawContact(random, 1);
+                    delta.addEntry(ValuesDelta.fromAfter(buildPhone(random, 0, "")));
+                    delta.addEntry(ValuesDelta.fromAfter(buildEmail(random, 0, "")));
+                    delta.addEntry(ValuesDelta.fromAfter(buildPhone(random, 0, null)));
+                    mBatch[i] = delta;
+                }
+            }
+
+            @Override
+            protected Object run(int index) {
+                RawContactModifier.trimEmpty(mBatch[index], mAccountType);
+                return mBatch[index];
+            }
+        }));
+    }
+
+    public void testValuesDeltaParcelRoundTrip() {
+        final Random random = new Random(SEED);
+        final ValuesDelta values = ValuesDelta.fromBefore(buildPhone(random, 10, null));
+        values.put(Phone.NUMBER, randomNumber(random));
+        values.put(Phone.TYPE, Phone.TYPE_WORK);
+
+        assertMeasured(MicroBenchmark.run("ValuesDelta.parcel", new Operation() {
+            @Override
+            protected Object run(int index) {
+                final Parcel parcel = Parcel.obtain();
+                try {
+                    values.writeToParcel(parcel, 0);
+                    parcel.setDataPosition(0);
+                    return ValuesDelta.CREATOR.createFromParcel(parcel);
+                } finally {
+                    parcel.recycle();
+                }
+            }
+        }));
+    }
+
+    public void testCollapseList() {
+        assertMeasured(MicroBenchmark.run("Collapser.collapseList", new Operation() {
+            private List<List<DataItem>> mBatch;
+
+            @Override
+            protected void prepare(int count) {
+                // collapseList merges and removes items so every call gets its own list.
+                final Random random = new Random(SEED);
+                mBatch = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    mBatch.add(buildCollapsibleItems(random));
+                }
+            }
+
+            @Override
+            protected Object run(int index) {
+                final List<DataItem> items = mBatch.get(index);
+                Collapser.collapseList(items, getContext());
+                return items;
+            }
+        }));
+    }
+
+    public void testSectionIndexerConstruction() {
+        final Random random = new Random(SEED);
+        final int[] counts = new int[SECTIONS.length];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = random.nextInt(200);
+        }
+
+        assertMeasured(MicroBenchmark.run("ContactsSectionIndexer.new", new Operation() {
+            @Override
+            protected Object run(int index) {
+                return new ContactsSectionIndexer(SECTIONS.clone(), counts);
+            }
+        }));
+    }
+
+    private static void assertMeasured(MicroBenchmark.Result result) {
+        assertTrue(result.toString(), result.opsPerSecond > 0);
+    }
+
+    /**
+     * Builds the state of an existing raw contact as the editor loads it.
+     */
+    private static RawContactDelta buildRawContact(Random random, long rawContactId) {
+        final ContentValues values = new ContentValues();
+        values.put(RawContacts._ID, rawContactId);
+        values.put(RawContacts.VERSION, 1);
+        values.put(RawContacts.ACCOUNT_NAME, "unittest@example.com");
+        values.put(RawContacts.ACCOUNT_TYPE, "com.example.unittest");
+        final RawContact rawContact = new RawContact(values);
+
+        long dataId = rawContactId * 100;
+        final ContentValues name = new ContentValues();
+        name.put(Data._ID, dataId++);
+        name.put(Data.MIMETYPE, StructuredName.CONTENT_ITEM_TYPE);
+        name.put(StructuredName.GIVEN_NAME, "Given" + random.nextInt(1000));
+        name.put(StructuredName.FAMILY_NAME, "Family" + random.nextInt(1000));
+        rawContact.addDataItemValues(name);
+        for (int i = 0; i < PHONES; i++) {
+            rawContact.addDataItemValues(buildPhone(random, dataId++, randomNumber(random)));
+        }
+        for (int i = 0; i < EMAILS; i++) {
+            rawContact.addDataItemValues(buildEmail(random, dataId++,
+                    "user" + random.nextInt(10000) + "@example.com"));
+        }
+        return RawContactDelta.fromBefore(rawContact);
+    }
+
+    /**
+     * Makes the changes of a typical edit: updates some rows, deletes one and adds another.
+     */
+    private static RawContactDelta editRawContact(RawContactDelta delta, Random random) {
+        final ArrayList<ValuesDelta> phones = delta.getMimeEntries(Phone.CONTENT_ITEM_TYPE);
+        phones.get(0).put(Phone.NUMBER, randomNumber(random));
+        phones.get(1).markDeleted();
+        final ArrayList<ValuesDelta> emails = delta.getMimeEntries(Email.CONTENT_ITEM_TYPE);
+        emails.get(0).put(Email.TYPE, Email.TYPE_WORK);
+        delta.addEntry(ValuesDelta.fromAfter(buildPhone(random, 0, randomNumber(random))));
+        return delta;
+    }
+
+    private static RawContactDelta buildInsert(Random random) {
+        final ContentValues values = new ContentValues();
+        values.put(RawContacts.ACCOUNT_NAME, "unittest@example.com");
+        values.put(RawContacts.ACCOUNT_TYPE, "com.example.unittest");
+        final RawContactDelta delta = new RawContactDelta(ValuesDelta.fromAfter(values));
+        delta.addEntry(ValuesDelta.fromAfter(buildPhone(random, 0, randomNumber(random))));
+        return delta;
+    }
+
+    /**
+     * Builds phone numbers that collapse into a few groups because they are formatted
+     * differently, mixed with email addresses.
+     */
+    private static List<DataItem> buildCollapsibleItems(Random random) {
+        final List<DataItem> items = new ArrayList<>(COLLAPSED_ITEMS);
+        for (int i = 0; i < COLLAPSED_ITEMS; i++) {
+            final int number = random.nextInt(4);
+            final ContentValues values;
+            if (i % 4 == 3) {
+                values = buildEmail(random, i, "user" + number + "@example.com");
+            } else {
+                values = buildPhone(random, i, String.format(Locale.US,
+                        i % 2 == 0 ? "650-555-%04d" : "(650) 555 %04d", number));
+            }
+            items.add(DataItem.createFrom(values));
+        }
+        return items;
+    }
+
+    private static ContentValues buildPhone(Random random, long dataId, String number) {
+        final ContentValues values = new ContentValues();
+        if (dataId != 0) {
+            values.put(Data._ID, dataId);
+        }
+        values.put(Data.MIMETYPE, Phone.CONTENT_ITEM_TYPE);
+        values.put(Phone.NUMBER, number);
+        values.put(Phone.TYPE, random.nextBoolean() ? Phone.TYPE_MOBILE : Phone.TYPE_HOME);
+        return values;
+    }
+
+    private static ContentValues buildEmail(Random random, long dataId, String address) {
+        final ContentValues values = new ContentValues();
+        if (dataId != 0) {
+            values.put(Data._ID, dataId);
+        }
+        values.put(Data.MIMETYPE, Email.CONTENT_ITEM_TYPE);
+        values.put(Email.ADDRESS, address);
+        values.put(Email.TYPE, random.nextBoolean() ? Email.TYPE_HOME : Email.TYPE_OTHER);
+        return values;
+    }
+
+    private static String randomNumber(Random random) {
+        return String.format(Locale.US, "650-555-%04d", random.nextInt(10000));
+    }
+}
@@ -20,10 +20,12 @@ import android.content.ContentProviderOperation;
 import android.content.ContentValues;
 import android.content.Context;
 import android.net.Uri;
+import android.os.Parcel;
 import android.provider.BaseColumns;
 import android.provider.ContactsContract.AggregationExceptions;
 import android.provider.ContactsContract.CommonDataKinds.Email;
 import android.provider.ContactsContract.CommonDataKinds.Phone;
+import android.provider.ContactsContract.CommonDataKinds.Photo;
 import android.provider.ContactsContract.Data;
 import android.provider.ContactsContract.RawContacts;
 import android.test.AndroidTestCase;
@@ -33,10 +35,14 @@ import com.android.contacts.compat.CompatUtils;
 import com.android.contacts.model.account.AccountType;
 
 import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.MoreExecutors;
 
+import java.io.File;
 import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
 
 /**
  * Tests for {@link RawContactDeltaList} which focus on "diff" operations that should
@@ -596,4 +602,260 @@ public class RawContactDeltaListTests extends AndroidTestCase {
         final RawContactDeltaList merged = RawContactDeltaList.mergeAfter(second, first);
         assertDiffPattern(merged);
     }
+
+    public void testRawContactIdLookupFollowsListChanges() {
+        final RawContactDelta bob = buildBeforeEntity(mContext, CONTACT_BOB, VER_FIRST);
+        final RawContactDelta mary = buildBeforeEntity(mContext, CONTACT_MARY, VER_FIRST);
+        final RawContactDeltaList set = buildSet(bob);
+        assertEquals(0, set.indexOfRawContactId(CONTACT_BOB));
+        assertEquals(-1, set.indexOfRawContactId(CONTACT_MARY));
+
+        set.add(0, mary);
+        assertEquals(1, set.indexOfRawContactId(CONTACT_BOB));
+        assertSame(mary, set.getByRawContactId(CONTACT_MARY));
+
+        set.remove(mary);
+        assertEquals(0, set.indexOfRawContactId(CONTACT_BOB));
+        assertNull(set.getByRawContactId(CONTACT_MARY));
+
+        set.set(0, mary);
+        assertNull(set.getByRawContactId(CONTACT_BOB));
+        assertSame(mary, set.getByRawContactId(CONTACT_MARY));
+
+        // Deleted raw contacts aren't found
+        mary.markDeleted();
+        assertNull(set.getByRawContactId(CONTACT_MARY));
+    }
+
+    public void testRawContactIdLookupAfterParcel() {
+        final RawContactDeltaList set = buildSet(
+                buildBeforeEntity(mContext, CONTACT_BOB, VER_FIRST, buildPhone(PHONE_RED)),
+                buildBeforeEntity(mContext, CONTACT_MARY, VER_FIRST, buildPhone(PHONE_GREEN)));
+
+        final Parcel parcel = Parcel.obtain();
+        final RawContactDeltaList unparceled;
+        try {
+            set.writeToParcel(parcel, 0);
+            parcel.setDataPosition(0);
+            unparceled = RawContactDeltaList.CREATOR.createFromParcel(parcel);
+        } finally {
+            parcel.recycle();
+        }
+
+        assertEquals(1, unparceled.indexOfRawContactId(CONTACT_MARY));
+        assertNotNull(getPhone(unparceled, CONTACT_BOB, PHONE_RED));
+        assertNotNull(getPhone(unparceled, CONTACT_MARY, PHONE_GREEN));
+        assertNull(getPhone(unparceled, CONTACT_MARY, PHONE_RED));
+    }
+
+    public void testParcelKeepsValuesAndTheirTypes() {
+        final RawContactDelta bob = buildBeforeEntity(mContext, CONTACT_BOB, VER_FIRST,
+                buildPhone(PHONE_RED), buildPhone(PHONE_GREEN), buildEmail(EMAIL_YELLOW));
+        getPhone(buildSet(bob), CONTACT_BOB, PHONE_RED).put(Phone.NUMBER, TEST_PHONE);
+        getPhone(buildSet(bob), CONTACT_BOB, PHONE_GREEN).markDeleted();
+        final ContentValues inserted = buildPhone(PHONE_BLUE);
+        inserted.put(Phone.IS_PRIMARY, true);
+        inserted.putNull(Phone.LABEL);
+        final ValuesDelta blue = bob.addEntry(ValuesDelta.fromAfter(inserted));
+        final RawContactDelta mary = getInsert();
+        mary.setProfileQueryUri();
+        final RawContactDeltaList set = buildSet(bob, mary);
+        set.setJoinWithRawContacts(new long[] { CONTACT_BOB, CONTACT_MARY });
+
+        final RawContactDeltaList unparceled = parcelAndUnparcel(set);
+
+        assertEquals(2, unparceled.size());
+        assertEquals(bob, unparceled.get(0));
+        assertEquals(mary, unparceled.get(1));
+        assertEquals(mary.getContactsQueryUri(), unparceled.get(1).getContactsQueryUri());
+        assertTrue(unparceled.isMarkedForJoining());
+        assertFalse(unparceled.isMarkedForSplitting());
+        final ValuesDelta red = getPhone(unparceled, CONTACT_BOB, PHONE_RED);
+        assertEquals(TEST_PHONE, red.getAfter().getAsString(Phone.NUMBER));
+        assertTrue(red.getBefore().get(RawContacts._ID) instanceof Long);
+        assertFalse(getPhone(unparceled, CONTACT_BOB, PHONE_GREEN).isVisible());
+        final ValuesDelta unparceledBlue = getPhone(unparceled, CONTACT_BOB, blue.getId());
+        assertEquals(Boolean.TRUE, unparceledBlue.getAfter().get(Phone.IS_PRIMARY));
+        assertTrue(unparceledBlue.getAfter().containsKey(Phone.LABEL));
+        assertNull(unparceledBlue.getAfter().get(Phone.LABEL));
+    }
+
+    public void testLargeStateIsWrittenToAFile() {
+        final File directory = new File(mContext.getCacheDir(), "delta_parceler_test");
+        DeltaParceler.setSpillDirectory(directory);
+        DeltaParceler.setFileExecutor(MoreExecutors.directExecutor());
+        try {
+            final RawContactDelta bob = buildBeforeEntity(mContext, CONTACT_BOB, VER_FIRST);
+            final ContentValues photo = new ContentValues();
+            photo.put(Data.MIMETYPE, Photo.CONTENT_ITEM_TYPE);
+            photo.put(Photo.PHOTO, new byte[DeltaParceler.SPILL_THRESHOLD_BYTES + 1]);
+            bob.addEntry(ValuesDelta.fromAfter(photo));
+            final RawContactDeltaList set = buildSet(bob);
+
+            final Parcel parcel = Parcel.obtain();
+            final RawContactDeltaList unparceled;
+            try {
+                set.writeToParcel(parcel, 0);
+                assertTrue(parcel.dataSize() < 1024);
+                parcel.setDataPosition(0);
+                unparceled = RawContactDeltaList.CREATOR.createFromParcel(parcel);
+            } finally {
+                parcel.recycle();
+            }
+
+            assertEquals(bob, unparceled.get(0));
+            assertEquals(DeltaParceler.SPILL_THRESHOLD_BYTES + 1, unparceled.get(0)
+                    .getMimeEntries(Photo.CONTENT_ITEM_TYPE).get(0).getPhoto().length);
+        } finally {
+            DeltaParceler.setSpillDirectory(null);
+            DeltaParceler.setFileExecutor(null);
+            final File[] files = directory.listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    file.delete();
+                }
+            }
+            directory.delete();
+        }
+    }
+
+    public void testLargeStateReusesItsFileUntilItIsDeleted() {
+        final File directory = new File(mContext.getCacheDir(), "delta_parceler_test");
+        DeltaParceler.setSpillDirectory(directory);
+        DeltaParceler.setFileExecutor(MoreExecutors.directExecutor());
+        try {
+            final RawContactDelta bob = buildBeforeEntity(mContext, CONTACT_BOB, VER_FIRST);
+            final ContentValues photo = new ContentValues();
+            photo.put(Data.MIMETYPE, Photo.CONTENT_ITEM_TYPE);
+            photo.put(Photo.PHOTO, new byte[DeltaParceler.SPILL_THRESHOLD_BYTES + 1]);
+            bob.addEntry(ValuesDelta.fromAfter(photo));
+            final RawContactDeltaList set = buildSet(bob);
+
+            final RawContactDeltaList unparceled = parcelAndUnparcel(set);
+            parcelAndUnparcel(set);
+            parcelAndUnparcel(unparceled);
+            assertEquals(1, directory.listFiles().length);
+
+            final Parcel parcel = Parcel.obtain();
+            try {
+                set.writeToParcel(parcel, 0);
+                // The save service deletes the file once it saved the state
+                unparceled.deleteSpillFile();
+                assertEquals(0, directory.listFiles().length);
+
+                parcel.setDataPosition(0);
+                assertNull(RawContactDeltaList.CREATOR.createFromParcel(parcel));
+            } finally {
+                parcel.recycle();
+            }
+        } finally {
+            DeltaParceler.setSpillDirectory(null);
+            DeltaParceler.setFileExecutor(null);
+            final File[] files = directory.listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    file.delete();
+                }
+            }
+            directory.delete();
+        }
+    }
+
+    public void testSaveServiceCopyHasItsOwnFile() {
+        final File directory = new File(mContext.getCacheDir(), "delta_parceler_test");
+        DeltaParceler.setSpillDirectory(directory);
+        DeltaParceler.setFileExecutor(MoreExecutors.directExecutor());
+        try {
+            final RawContactDeltaList set = buildLargeSet();
+            final Parcel parcel = Parcel.obtain();
+            try {
+                set.writeToParcel(parcel, 0);
+                parcelAndUnparcel(set.copyForParceling()).deleteSpillFile();
+                assertEquals(1, directory.listFiles().length);
+
+                parcel.setDataPosition(0);
+                assertEquals(set, RawContactDeltaList.CREATOR.createFromParcel(parcel));
+            } finally {
+                parcel.recycle();
+            }
+        } finally {
+            DeltaParceler.setSpillDirectory(null);
+            DeltaParceler.setFileExecutor(null);
+            deleteDirectory(directory);
+        }
+    }
+
+    public void testLargeStateIsReadFromMemoryUntilItIsWritten() {
+        final File directory = new File(mContext.getCacheDir(), "delta_parceler_test");
+        final List<Runnable> pendingTasks = new ArrayList<>();
+        DeltaParceler.setSpillDirectory(directory);
+        DeltaParceler.setFileExecutor(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                pendingTasks.add(command);
+            }
+        });
+        try {
+            final RawContactDeltaList set = buildLargeSet();
+            final RawContactDeltaList unparceled = parcelAndUnparcel(set);
+            assertFalse(directory.exists());
+            assertEquals(set, unparceled);
+
+            for (Runnable task : pendingTasks) {
+                task.run();
+            }
+            assertEquals(1, directory.listFiles().length);
+            assertEquals(set, parcelAndUnparcel(set));
+        } finally {
+            DeltaParceler.setSpillDirectory(null);
+            DeltaParceler.setFileExecutor(null);
+            deleteDirectory(directory);
+        }
+    }
+
+    private RawContactDeltaList buildLargeSet() {
+        final RawContactDelta bob = buildBeforeEntity(mContext, CONTACT_BOB, VER_FIRST);
+        final ContentValues photo = new ContentValues();
+        photo.put(Data.MIMETYPE, Photo.CONTENT_ITEM_TYPE);
+        photo.put(Photo.PHOTO, new byte[DeltaParceler.SPILL_THRESHOLD_BYTES + 1]);
+        bob.addEntry(ValuesDelta.fromAfter(photo));
+        return buildSet(bob);
+    }
+
+    private static void deleteDirectory(File directory) {
+        final File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    private static RawContactDeltaList parcelAndUnparcel(RawContactDeltaList set) {
+        final Parcel parcel = Parcel.obtain();
+        try {
+            set.writeToParcel(parcel, 0);
+            parcel.setDataPosition(0);
+            return RawContactDeltaList.CREATOR.createFromParcel(parcel);
+        } finally {
+            parcel.recycle();
+        }
+    }
+
+    public void testMergeAfterAppendsNewRawContacts() {
+        final RawContactDeltaList local = buildSet(
+                buildBeforeEntity(mContext, CONTACT_BOB, VER_FIRST));
+        // Look something up so the index exists before merging
+        assertEquals(0, local.indexOfRawContactId(CONTACT_BOB));
+        final RawContactDeltaList remote = buildSet(
+                buildBeforeEntity(mContext, CONTACT_BOB, VER_SECOND),
+                buildBeforeEntity(mContext, CONTACT_MARY, VER_SECOND));
+
+        final RawContactDeltaList merged = RawContactDeltaList.mergeAfter(local, remote);
+
+        assertEquals(2, merged.size());
+        assertEquals(0, merged.indexOfRawContactId(CONTACT_BOB));
+        assertEquals(1, merged.indexOfRawContactId(CONTACT_MARY));
+    }
 }
@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.contacts.model.account;
+
+import android.accounts.AuthenticatorDescription;
+import android.content.Context;
+import android.content.SyncAdapterType;
+import android.provider.ContactsContract;
+import android.test.InstrumentationTestCase;
+import android.test.suitebuilder.annotation.SmallTest;
+
+import com.android.contacts.test.mocks.MockSharedPreferences;
+import com.android.contacts.util.DeviceLocalAccountTypeFactory;
+
+import java.util.Collections;
+
+/**
+ * Tests for {@link AccountTypeSnapshot} and restoring an {@link AccountTypeProvider} from it.
+ */
+@SmallTest
+public class AccountTypeSnapshotTest extends InstrumentationTestCase {
+
+    private static final String TYPE = "com.example.account";
+    private static final String MISSING_PACKAGE = "com.example.not.installed";
+
+    public void testSaveAndRestore() {
+        final Context context = getInstrumentation().getTargetContext();
+        final AccountTypeSnapshot snapshot = AccountTypeSnapshot.capture(
+                context.getPackageManager(), createProvider(context.getPackageName()));
+        final MockSharedPreferences preferences = new MockSharedPreferences();
+
+        assertNull(AccountTypeSnapshot.restore(preferences));
+        snapshot.save(preferences);
+
+        final AccountTypeSnapshot restored = AccountTypeSnapshot.restore(preferences);
+        assertTrue(snapshot.isSameAs(restored));
+        assertEquals(context.getPackageName(),
+                restored.getAuthenticators().get(TYPE).packageName);
+        assertTrue(restored.getChangedPackages(context.getPackageManager()).isEmpty());
+    }
+
+    public void testRemovedPackageIsChanged() {
+        final Context context = getInstrumentation().getTargetContext();
+        final AccountTypeSnapshot snapshot = AccountTypeSnapshot.capture(
+                context.getPackageManager(), createProvider(MISSING_PACKAGE));
+
+        assertEquals(Collections.singleton(MISSING_PACKAGE),
+                snapshot.getChangedPackages(context.getPackageManager()));
+    }
+
+    public void testProviderFromSnapshotHasSameAuthenticators() {
+        final Context context = getInstrumentation().getTargetContext();
+        final AccountTypeProvider provider = createProvider(context.getPackageName());
+        final AccountTypeProvider restored = AccountTypeProvider.fromSnapshot(context,
+                AccountTypeSnapshot.capture(context.getPackageManager(), provider));
+
+        assertFalse(provider.shouldUpdate(restored));
+        assertTrue(restored.supportsContactsSyncing(TYPE));
+        assertTrue(provider.shouldUpdate(createProvider(MISSING_PACKAGE)));
+    }
+
+    private AccountTypeProvider createProvider(String packageName) {
+        final Context context = getInstrumentation().getTargetContext();
+        return new AccountTypeProvider(context,
+                new DeviceLocalAccountTypeFactory.Default(context),
+                new SyncAdapterType[] {
+                        new SyncAdapterType(ContactsContract.AUTHORITY, TYPE, true, true)
+                },
+                new AuthenticatorDescription[] {
+                        new AuthenticatorDescription(TYPE, packageName, 0, 0, 0, 0)
+                });
+    }
+}
@@ -20,6 +20,7 @@ import android.content.Context;
 import android.test.InstrumentationTestCase;
 import android.test.suitebuilder.annotation.SmallTest;
 
+import com.android.contacts.model.dataitem.DataKind;
 import com.android.contacts.tests.R;
 
 /**
@@ -103,6 +104,16 @@ public class AccountTypeTest extends InstrumentationTestCase {
         assertTrue(compareDisplayLabel(EMPTY, NULL) == 0);
     }
 
+    public void testDeferredKindsAreInflatedOnceOnFirstUse() {
+        final DeferredKindsAccountType accountType = new DeferredKindsAccountType();
+        assertEquals(0, accountType.mInflateCount);
+
+        assertNotNull(accountType.getKindForMimetype(DeferredKindsAccountType.MIME_TYPE));
+        assertEquals(1, accountType.getSortedDataKinds().size());
+        assertNull(accountType.getKindForMimetype("vnd.android.cursor.item/other"));
+        assertEquals(1, accountType.mInflateCount);
+    }
+
     private int compareDisplayLabel(AccountType lhs, AccountType rhs) {
         return new AccountType.DisplayLabelComparator(
                 getInstrumentation().getTargetContext()).compare(lhs, rhs);
@@ -130,4 +141,38 @@ public class AccountTypeTest extends InstrumentationTestCase {
             return false;
         }
     }
+
+    private static class DeferredKindsAccountType extends AccountType {
+        static final String MIME_TYPE = "vnd.android.cursor.item/deferred";
+
+        int mInflateCount;
+
+        DeferredKindsAccountType() {
+            deferKindInflation();
+        }
+
+        @Override
+        protected void inflateKinds() {
+            mInflateCount++;
+            final DataKind kind = new DataKind();
+            kind.mimeType = MIME_TYPE;
+            try {
+                addKind(kind);
+                // Looking up kinds while they are inflated must not inflate them again.
+                assertNotNull(getKindForMimetype(MIME_TYPE));
+            } catch (DefinitionException e) {
+                throw new AssertionError(e);
+            }
+        }
+
+        @Override
+        public boolean isGroupMembershipEditable() {
+            return false;
+        }
+
+        @Override
+        public boolean areContactsWritable() {
+            return false;
+        }
+    }
 }
@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.contacts.quickcontact;
+
+import android.content.Intent;
+import android.test.AndroidTestCase;
+import android.test.suitebuilder.annotation.SmallTest;
+import android.view.ContextThemeWrapper;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import com.android.contacts.R;
+import com.android.contacts.quickcontact.ExpandingEntryCardView.Entry;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tests {@link ExpandingEntryCardView}.
+ */
+@SmallTest
+public class ExpandingEntryCardViewTest extends AndroidTestCase {
+
+    private ExpandingEntryCardView mCard;
+    private ViewGroup mEntriesViewGroup;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mCard = new ExpandingEntryCardView(
+                new ContextThemeWrapper(getContext(), R.style.Theme_QuickContact));
+        mEntriesViewGroup = (ViewGroup) mCard.findViewById(R.id.content_area_linear_layout);
+    }
+
+    public void testCollapsedCardOnlyInflatesVisibleEntries() {
+        mCard.initialize(buildEntries("first", "second", "third"),
+                /* numInitialVisibleEntries = */ 1, /* isExpanded = */ false,
+                /* isAlwaysExpanded = */ false, /* listener = */ null,
+                /* animationViewGroup = */ null);
+
+        assertEquals(1, mEntriesViewGroup.getChildCount());
+        assertEquals("first", getHeader(mEntriesViewGroup.getChildAt(0)));
+    }
+
+    public void testEntryViewsAreReboundWhenRecycling() {
+        mCard.setRecycleEntryViews(true);
+        mCard.initialize(buildEntries("clickable"), 1, /* isExpanded = */ true,
+                /* isAlwaysExpanded = */ true, null, null);
+        final View entryView = mEntriesViewGroup.getChildAt(0);
+        assertTrue(entryView.isClickable());
+
+        mCard.initialize(buildUnclickableEntries("plain"), 1, /* isExpanded = */ true,
+                /* isAlwaysExpanded = */ true, null, null);
+
+        assertSame(entryView, mEntriesViewGroup.getChildAt(0));
+        assertEquals("plain", getHeader(entryView));
+        assertNull(entryView.getTag());
+        assertNull(entryView.getBackground());
+
+        mCard.initialize(buildEntries("again"), 1, /* isExpanded = */ true,
+                /* isAlwaysExpanded = */ true, null, null);
+
+        assertSame(entryView, mEntriesViewGroup.getChildAt(0));
+        assertNotNull(entryView.getBackground());
+        assertNotNull(entryView.getTag());
+    }
+
+    public void testEntryViewsAreInflatedWhenNotRecycling() {
+        mCard.setRecycleEntryViews(false);
+        mCard.initialize(buildEntries("first"), 1, true, true, null, null);
+        final View entryView = mEntriesViewGroup.getChildAt(0);
+
+        mCard.initialize(buildEntries("second"), 1, true, true, null, null);
+
+        assertNotSame(entryView, mEntriesViewGroup.getChildAt(0));
+    }
+
+    private static String getHeader(View entryView) {
+        return ((TextView) entryView.findViewById(R.id.header)).getText().toString();
+    }
+
+    private static List<List<Entry>> buildEntries(String... headers) {
+        return buildEntries(new Intent(Intent.ACTION_VIEW), headers);
+    }
+
+    private static List<List<Entry>> buildUnclickableEntries(String... headers) {
+        return buildEntries(/* intent = */ null, headers);
+    }
+
+    private static List<List<Entry>> buildEntries(Intent intent, String... headers) {
+        final List<Entry> entryList = new ArrayList<>();
+        for (String header : headers) {
+            entryList.add(new Entry(/* id = */ 1, /* mainIcon = */ null, header,
+                    /* subHeader = */ null, /* subHeaderIcon = */ null, /* text = */ null,
+                    /* textIcon = */ null, /* primaryContentDescription = */ null, intent,
+                    /* alternateIcon = */ null, /* alternateIntent = */ null,
+                    /* alternateContentDescription = */ null, /* shouldApplyColor = */ false,
+                    /* isEditable = */ false, /* entryContextMenuInfo = */ null,
+                    /* thirdIcon = */ null, /* thirdIntent = */ null,
+                    /* thirdContentDescription = */ null, Entry.ACTION_NONE,
+                    /* thirdExtras = */ null, /* shouldApplyThirdIconColor = */ false,
+                    /* iconResourceId = */ 0));
+        }
+        final List<List<Entry>> entries = new ArrayList<>();
+        entries.add(entryList);
+        return entries;
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.contacts.quickcontact;
+
+import android.content.ComponentName;
+import android.content.Intent;
+import android.content.pm.PackageManager;
+import android.content.pm.ResolveInfo;
+import android.net.Uri;
+import android.test.AndroidTestCase;
+import android.test.suitebuilder.annotation.SmallTest;
+
+import java.util.List;
+
+/**
+ * Tests {@link ResolveCache}.
+ */
+@SmallTest
+public class ResolveCacheTest extends AndroidTestCase {
+
+    private ResolveCache mResolveCache;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mResolveCache = ResolveCache.getInstance(getContext());
+        mResolveCache.clear();
+    }
+
+    public void testResolveKeyIgnoresTheRestOfTheData() {
+        assertEquals(
+                ResolveCache.getResolveKey(new Intent(Intent.ACTION_SENDTO,
+                        Uri.fromParts("mailto", "a@example.com", null))),
+                ResolveCache.getResolveKey(new Intent(Intent.ACTION_SENDTO,
+                        Uri.fromParts("mailto", "b@example.com", null))));
+        assertFalse(ResolveCache.getResolveKey(new Intent(Intent.ACTION_CALL,
+                Uri.fromParts("tel", "1", null))).equals(ResolveCache.getResolveKey(
+                new Intent(Intent.ACTION_DIAL, Uri.fromParts("tel", "1", null)))));
+    }
+
+    public void testResolveKeyIsNullForDataDependentIntents() {
+        assertNull(ResolveCache.getResolveKey(
+                new Intent(Intent.ACTION_VIEW, Uri.parse("http://www.example.com"))));
+        assertNull(ResolveCache.getResolveKey(
+                new Intent(Intent.ACTION_SENDTO, Uri.fromParts("mailto", "a@example.com", null))
+                        .setPackage("com.example")));
+        assertNull(ResolveCache.getResolveKey(
+                new Intent(Intent.ACTION_SENDTO, Uri.fromParts("mailto", "a@example.com", null))
+                        .setComponent(new ComponentName("com.example", "com.example.Mail"))));
+    }
+
+    public void testRegisteredIntentsAreCached() {
+        final int hits = mResolveCache.getHitCount();
+        final int misses = mResolveCache.getMissCount();
+
+        final boolean registered = mResolveCache.isIntentRegistered(newEmailIntent("a"));
+        assertEquals(registered, mResolveCache.isIntentRegistered(newEmailIntent("b")));
+
+        assertEquals(misses + 1, mResolveCache.getMissCount());
+        assertEquals(hits + 1, mResolveCache.getHitCount());
+    }
+
+    public void testOnlyEntriesOfTheChangedPackageAreInvalidated() {
+        final List<ResolveInfo> matches = getContext().getPackageManager().queryIntentActivities(
+                newEmailIntent("a"), PackageManager.MATCH_DEFAULT_ONLY);
+        if (matches.isEmpty()) {
+            // Nothing on the device handles email addresses
+            return;
+        }
+        mResolveCache.isIntentRegistered(newEmailIntent("a"));
+
+        final int misses = mResolveCache.getMissCount();
+        mResolveCache.invalidatePackage("com.example.not.installed", /* mayResolveMore =*/ false);
+        mResolveCache.isIntentRegistered(newEmailIntent("a"));
+        assertEquals(misses, mResolveCache.getMissCount());
+
+        mResolveCache.invalidatePackage(matches.get(0).activityInfo.packageName,
+                /* mayResolveMore =*/ false);
+        mResolveCache.isIntentRegistered(newEmailIntent("a"));
+        assertEquals(misses + 1, mResolveCache.getMissCount());
+    }
+
+    private static Intent newEmailIntent(String address) {
+        return new Intent(Intent.ACTION_SENDTO, Uri.fromParts("mailto", address, null));
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.contacts.tests;
+
+import android.os.Bundle;
+import android.os.Debug;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.test.InstrumentationRegistry;
+
+import java.util.Locale;
+
+/**
+ * A small JMH style harness for timing hot code paths inside instrumentation tests.
+ *
+ * <p>An {@link Operation} is run in batches, first for a warmup period and then for a
+ * measurement period. Inputs that an operation consumes are created by
+ * {@link Operation#prepare(int)} before each batch and are not measured. Allocations are counted
+ * in a separate pass because counting them slows the runtime down.</p>
+ *
+ * <p>Results are logged and sent as instrumentation status with the keys
+ * {@code <name>_ops_per_sec}, {@code <name>_ns_per_op} and {@code <name>_bytes_per_op}, so
+ * {@code am instrument -r} prints them in a machine readable form.</p>
+ */
+public final class MicroBenchmark {
+    private static final String TAG = "MicroBenchmark";
+
+    private static final long WARMUP_MILLIS = 250;
+    private static final long MEASURE_MILLIS = 1000;
+    private static final int BATCH_SIZE = 64;
+    private static final int ALLOCATION_BATCHES = 4;
+
+    // Test runners use the codes from -4 to 1 for the status of tests.
+    private static final int STATUS_CODE = 2;
+
+    // Results are written here so that the runtime can't drop operations as dead code.
+    private static volatile Object sSink;
+
+    /**
+     * A measured piece of code.
+     */
+    public static abstract class Operation {
+        /**
+         * Creates the inputs for the next {@code count} calls to {@link #run(int)}. Not measured.
+         */
+        protected void prepare(int count) {
+        }
+
+        /**
+         * Runs the operation once with the input at {@code index} of the last prepared batch.
+         *
+         * @return a result that must not be optimized away
+         */
+        protected abstract Object run(int index);
+    }
+
+    /**
+     * The measurements of one operation.
+     */
+    public static final class Result {
+        public final String name;
+        public final double opsPerSecond;
+        public final double nanosPerOp;
+        public final double bytesPerOp;
+
+        Result(String name, double nanosPerOp, double bytesPerOp) {
+            this.name = name;
+            this.nanosPerOp = nanosPerOp;
+            this.opsPerSecond = 1e9 / nanosPerOp;
+            this.bytesPerOp = bytesPerOp;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "%s: %.0f ops/s, %.0f ns/op, %.0f B/op",
+                    name, opsPerSecond, nanosPerOp, bytesPerOp);
+        }
+    }
+
+    private MicroBenchmark() {}
+
+    /**
+     * Measures {@code operation} and reports the result.
+     */
+    public static Result run(String name, Operation operation) {
+        runFor(operation, WARMUP_MILLIS);
+        final long[] timing = runFor(operation, MEASURE_MILLIS);
+        final Result result = new Result(name, (double) timing[0] / timing[1],
+                measureBytesPerOp(operation));
+        report(result);
+        return result;
+    }
+
+    /**
+     * Runs batches for at least {@code millis} and returns the measured nanoseconds and the
+     * number of operations.
+     */
+    private static long[] runFor(Operation operation, long millis) {
+        final long deadline = SystemClock.elapsedRealtime() + millis;
+        long nanos = 0;
+        long ops = 0;
+        do {
+            operation.prepare(BATCH_SIZE);
+            final long start = System.nanoTime();
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                sSink = operation.run(i);
+            }
+            nanos += System.nanoTime() - start;
+            ops += BATCH_SIZE;
+        } while (SystemClock.elapsedRealtime() < deadline);
+        return new long[] { nanos, ops };
+    }
+
+    @SuppressWarnings("deprecation")
+    private static double measureBytesPerOp(Operation operation) {
+        long bytes = 0;
+        Debug.startAllocCounting();
+        try {
+            for (int batch = 0; batch < ALLOCATION_BATCHES; batch++) {
+                operation.prepare(BATCH_SIZE);
+                Debug.resetThreadAllocSize();
+                for (int i = 0; i < BATCH_SIZE; i++) {
+                    sSink = operation.run(i);
+                }
+                bytes += Debug.getThreadAllocSize();
+            }
+        } finally {
+            Debug.stopAllocCounting();
+        }
+        return (double) bytes / (ALLOCATION_BATCHES * BATCH_SIZE);
+    }
+
+    private static void report(Result result) {
+        Log.i(TAG, result.toString());
+        final Bundle status = new Bundle();
+        status.putDouble(result.name + "_ops_per_sec", result.opsPerSecond);
+        status.putDouble(result.name + "_ns_per_op", result.nanosPerOp);
+        status.putDouble(result.name + "_bytes_per_op", result.bytesPerOp);
+        InstrumentationRegistry.getInstrumentation().sendStatus(STATUS_CODE, status);
+    }
+}
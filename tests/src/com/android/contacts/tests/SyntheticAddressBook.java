@@ -0,0 +1,218 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.contacts.tests;
+
+import android.content.ContentProviderOperation;
+import android.content.ContentResolver;
+import android.content.Context;
+import android.content.OperationApplicationException;
+import android.database.Cursor;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.net.Uri;
+import android.os.RemoteException;
+import android.provider.ContactsContract;
+import android.provider.ContactsContract.CommonDataKinds.Email;
+import android.provider.ContactsContract.CommonDataKinds.Phone;
+import android.provider.ContactsContract.CommonDataKinds.Photo;
+import android.provider.ContactsContract.CommonDataKinds.StructuredName;
+import android.provider.ContactsContract.Contacts;
+import android.provider.ContactsContract.Data;
+import android.provider.ContactsContract.RawContacts;
+import android.util.Log;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Fills CP2 with a deterministic synthetic address book for benchmarks.
+ *
+ * <p>Contact {@code i} always has the same name, phone number, email address and photo, so the
+ * first 1,000 contacts of a 10,000 contact book are the same as a 1,000 contact book. Family
+ * names and phone numbers are derived from the index so that CP2 never aggregates two seeded
+ * contacts. The contacts are added to the local account and are found again by their
+ * {@link RawContacts#SOURCE_ID}.</p>
+ */
+public class SyntheticAddressBook {
+    private static final String TAG = "SyntheticAddressBook";
+
+    private static final String SOURCE_ID_PREFIX = "contacts-benchmark-";
+    private static final long SEED = 0x5eedL;
+
+    // Each contact is a raw contact and 4 data rows. CP2 rejects batches of more than 500
+    // operations.
+    private static final int CONTACTS_PER_BATCH = 80;
+    private static final int PHOTO_SIZE = 96;
+
+    private static final String[] SYLLABLES = {
+            "ka", "li", "mo", "ver", "sa", "ren", "to", "bel",
+            "an", "dri", "no", "cas", "pe", "lu", "mar", "ti"
+    };
+
+    private final ContentResolver mResolver;
+    private final Bitmap mPhotoBitmap;
+    private final Canvas mPhotoCanvas;
+    private final Paint mPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+
+    public SyntheticAddressBook(Context context) {
+        mResolver = context.getContentResolver();
+        mPhotoBitmap = Bitmap.createBitmap(PHOTO_SIZE, PHOTO_SIZE, Bitmap.Config.ARGB_8888);
+        mPhotoCanvas = new Canvas(mPhotoBitmap);
+    }
+
+    /**
+     * Makes CP2 contain exactly {@code count} seeded contacts, reusing the ones that are
+     * already there when the count matches.
+     */
+    public void seed(int count) throws RemoteException, OperationApplicationException {
+        if (getSeededCount() == count) {
+            Log.i(TAG, "Reusing " + count + " seeded contacts");
+            return;
+        }
+        clear();
+        final ArrayList<ContentProviderOperation> ops = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            addContactOperations(ops, i);
+            if ((i + 1) % CONTACTS_PER_BATCH == 0 || i == count - 1) {
+                mResolver.applyBatch(ContactsContract.AUTHORITY, ops);
+                ops.clear();
+            }
+        }
+        Log.i(TAG, "Seeded " + count + " contacts");
+    }
+
+    /**
+     * Returns how many seeded contacts are in CP2.
+     */
+    public int getSeededCount() {
+        final Cursor cursor = mResolver.query(RawContacts.CONTENT_URI,
+                new String[] { RawContacts._ID }, getSelection(), getSelectionArgs(), null);
+        if (cursor == null) {
+            return 0;
+        }
+        try {
+            return cursor.getCount();
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * Removes all seeded contacts.
+     */
+    public void clear() {
+        final Uri uri = RawContacts.CONTENT_URI.buildUpon()
+                .appendQueryParameter(ContactsContract.CALLER_IS_SYNCADAPTER, "true")
+                .build();
+        mResolver.delete(uri, getSelection(), getSelectionArgs());
+    }
+
+    /**
+     * Returns the lookup URI of seeded contact {@code index}, or null if it isn't in CP2.
+     */
+    public Uri getContactLookupUri(int index) {
+        final Cursor cursor = mResolver.query(RawContacts.CONTENT_URI,
+                new String[] { RawContacts.CONTACT_ID },
+                RawContacts.SOURCE_ID + "=? AND " + RawContacts.DELETED + "=0",
+                new String[] { SOURCE_ID_PREFIX + index }, null);
+        if (cursor == null) {
+            return null;
+        }
+        try {
+            if (!cursor.moveToFirst()) {
+                return null;
+            }
+            return Contacts.getLookupUri(mResolver,
+                    Uri.withAppendedPath(Contacts.CONTENT_URI, cursor.getString(0)));
+        } finally {
+            cursor.close();
+        }
+    }
+
+    public static String getGivenName(int index) {
+        final Random random = new Random(SEED * 31 + index);
+        return capitalize(SYLLABLES[random.nextInt(SYLLABLES.length)]
+                + SYLLABLES[random.nextInt(SYLLABLES.length)]);
+    }
+
+    public static String getFamilyName(int index) {
+        // Four base 16 digits are enough to keep up to 65536 contacts apart.
+        final StringBuilder name = new StringBuilder();
+        for (int digit = 0; digit < 4; digit++) {
+            name.append(SYLLABLES[(index >> (4 * digit)) & 0xf]);
+        }
+        return capitalize(name.toString());
+    }
+
+    private void addContactOperations(ArrayList<ContentProviderOperation> ops, int index) {
+        final int rawContactIndex = ops.size();
+        ops.add(ContentProviderOperation.newInsert(RawContacts.CONTENT_URI)
+                .withValue(RawContacts.ACCOUNT_NAME, null)
+                .withValue(RawContacts.ACCOUNT_TYPE, null)
+                .withValue(RawContacts.SOURCE_ID, SOURCE_ID_PREFIX + index)
+                .build());
+        ops.add(newDataInsert(rawContactIndex, StructuredName.CONTENT_ITEM_TYPE)
+                .withValue(StructuredName.GIVEN_NAME, getGivenName(index))
+                .withValue(StructuredName.FAMILY_NAME, getFamilyName(index))
+                .build());
+        ops.add(newDataInsert(rawContactIndex, Phone.CONTENT_ITEM_TYPE)
+                .withValue(Phone.NUMBER, String.format(Locale.US, "+1 650 55%05d", index))
+                .withValue(Phone.TYPE, Phone.TYPE_MOBILE)
+                .build());
+        ops.add(newDataInsert(rawContactIndex, Email.CONTENT_ITEM_TYPE)
+                .withValue(Email.ADDRESS, "contact" + index + "@example.com")
+                .withValue(Email.TYPE, Email.TYPE_HOME)
+                .build());
+        ops.add(newDataInsert(rawContactIndex, Photo.CONTENT_ITEM_TYPE)
+                .withValue(Photo.PHOTO, createPhoto(index))
+                .build());
+    }
+
+    private static ContentProviderOperation.Builder newDataInsert(int rawContactIndex,
+            String mimeType) {
+        return ContentProviderOperation.newInsert(Data.CONTENT_URI)
+                .withValueBackReference(Data.RAW_CONTACT_ID, rawContactIndex)
+                .withValue(Data.MIMETYPE, mimeType);
+    }
+
+    private byte[] createPhoto(int index) {
+        final Random random = new Random(SEED * 17 + index);
+        mPhotoCanvas.drawColor(Color.rgb(
+                random.nextInt(256), random.nextInt(256), random.nextInt(256)));
+        mPaint.setColor(Color.rgb(random.nextInt(256), random.nextInt(256), random.nextInt(256)));
+        mPhotoCanvas.drawCircle(random.nextInt(PHOTO_SIZE), random.nextInt(PHOTO_SIZE),
+                PHOTO_SIZE / 4 + random.nextInt(PHOTO_SIZE / 4), mPaint);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        mPhotoBitmap.compress(Bitmap.CompressFormat.PNG, 100, out);
+        return out.toByteArray();
+    }
+
+    private static String getSelection() {
+        return RawContacts.SOURCE_ID + " LIKE ? AND " + RawContacts.DELETED + "=0";
+    }
+
+    private static String[] getSelectionArgs() {
+        return new String[] { SOURCE_ID_PREFIX + "%" };
+    }
+
+    private static String capitalize(String name) {
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.contacts.util;
+
+import android.test.suitebuilder.annotation.SmallTest;
+
+import junit.framework.TestCase;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * Unit tests for {@link StartupTracer}.
+ */
+@SmallTest
+public class StartupTracerTest extends TestCase {
+
+    public void testEndedSpansAreWrittenAsCompleteEvents() throws Exception {
+        final StartupTracer tracer = new StartupTracer("test", System.nanoTime());
+        final StartupTracer.Span outer = tracer.beginSpan("outer");
+        final StartupTracer.Span inner = tracer.beginSpan("inner");
+        inner.end();
+        outer.end();
+        // Ending a span twice has no effect
+        outer.end();
+        // Spans that are never ended aren't written
+        tracer.beginSpan("unfinished");
+
+        final JSONArray events = tracer.toTraceEvents().getJSONArray("traceEvents");
+        assertEquals(2, events.length());
+
+        final JSONObject innerEvent = events.getJSONObject(0);
+        final JSONObject outerEvent = events.getJSONObject(1);
+        assertEquals("inner", innerEvent.getString("name"));
+        assertEquals("outer", outerEvent.getString("name"));
+        assertEquals("X", outerEvent.getString("ph"));
+        assertEquals(Thread.currentThread().getId(), outerEvent.getLong("tid"));
+        assertTrue(innerEvent.getLong("ts") >= outerEvent.getLong("ts"));
+        assertTrue(outerEvent.getLong("dur") >= innerEvent.getLong("dur"));
+    }
+}